@@ -0,0 +1,104 @@
+#!/bin/sh
+# ----------------------------------------------------------------------------
+# Licensed to the Apache Software Foundation (ASF) under one
+# or more contributor license agreements.  See the NOTICE file
+# distributed with this work for additional information
+# regarding copyright ownership.  The ASF licenses this file
+# to you under the Apache License, Version 2.0 (the
+# "License"); you may not use this file except in compliance
+# with the License.  You may obtain a copy of the License at
+#
+#    http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing,
+# software distributed under the License is distributed on an
+# "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+# KIND, either express or implied.  See the License for the
+# specific language governing permissions and limitations
+# under the License.
+# ----------------------------------------------------------------------------
+
+# ----------------------------------------------------------------------------
+# Startup benchmark for a Maven distribution
+#
+# Measures the wall time of "mvn -v" and the time until the first mojo of a
+# trivial project starts, once without and once with the class data sharing
+# archive of bin/mvn (MAVEN_CDS). Needs GNU date for millisecond timestamps.
+#
+# Usage: startup.sh <maven home> [iterations]
+# ----------------------------------------------------------------------------
+
+if [ -z "$1" ] || [ ! -x "$1/bin/mvn" ] ; then
+  echo "Usage: $0 <maven home> [iterations]" >&2
+  exit 1
+fi
+
+MVN="$1/bin/mvn"
+ITERATIONS=${2:-10}
+
+WORK_DIR=`mktemp -d "${TMPDIR:-/tmp}/maven-startup.XXXXXX"` || exit 1
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+mkdir -p "$WORK_DIR/project/src/main/resources"
+echo "greeting=hello" > "$WORK_DIR/project/src/main/resources/app.properties"
+cat > "$WORK_DIR/project/pom.xml" <<POM
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+  <modelVersion>4.0.0</modelVersion>
+  <groupId>org.apache.maven.its.startup</groupId>
+  <artifactId>trivial</artifactId>
+  <version>1.0</version>
+  <properties>
+    <project.build.sourceEncoding>UTF-8</project.build.sourceEncoding>
+  </properties>
+</project>
+POM
+
+now() {
+  date +%s%N | cut -c 1-13
+}
+
+# prints the milliseconds until "mvn -v" exits
+version_time() {
+  start=`now`
+  "$MVN" -v > /dev/null 2>&1
+  echo $(( `now` - start ))
+}
+
+# prints the milliseconds until the first mojo of the trivial project is announced
+first_mojo_time() {
+  start=`now`
+  ( cd "$WORK_DIR/project" && "$MVN" -B -o process-resources 2>&1 ) | {
+    elapsed=
+    while read line ; do
+      case "$line" in
+        *"--- "*) [ -z "$elapsed" ] && elapsed=$(( `now` - start )) ;;
+      esac
+    done
+    echo "${elapsed:--1}"
+  }
+}
+
+# runs a measurement repeatedly and prints the minimum and median in milliseconds
+measure() {
+  for i in `seq "$ITERATIONS"` ; do
+    $1
+  done | sort -n | awk '{ t[NR] = $1 } END { printf "min %6d ms   median %6d ms\n", t[1], t[int((NR + 1) / 2)] }'
+}
+
+report() {
+  printf "%-10s mvn -v        %s\n" "$1" "`measure version_time`"
+  printf "%-10s first mojo    %s\n" "$1" "`measure first_mojo_time`"
+}
+
+# populate the local repository with the plugins of the trivial project
+( cd "$WORK_DIR/project" && "$MVN" -B -q process-resources ) || exit 1
+
+unset MAVEN_CDS
+report "no CDS"
+
+MAVEN_CDS=true
+MAVEN_CDS_DIR="$WORK_DIR/cds"
+export MAVEN_CDS MAVEN_CDS_DIR
+# the first invocation dumps the archive, train it with the trivial project to cover the core and plugin classes
+( cd "$WORK_DIR/project" && "$MVN" -B -q -o process-resources ) || exit 1
+report "CDS"
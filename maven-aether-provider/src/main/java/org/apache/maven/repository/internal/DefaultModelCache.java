@@ -19,6 +19,7 @@
  * under the License.
  */
 
+import org.apache.maven.building.CacheStatistics;
 import org.apache.maven.model.building.ModelCache;
 import org.eclipse.aether.RepositoryCache;
 import org.eclipse.aether.RepositorySystemSession;
@@ -36,6 +37,8 @@
 
     private final RepositoryCache cache;
 
+    private final CacheStatistics statistics;
+
     public static ModelCache newInstance( RepositorySystemSession session )
     {
         if ( session.getCache() == null )
@@ -52,16 +55,29 @@ private DefaultModelCache( RepositorySystemSession session )
     {
         this.session = session;
         this.cache = session.getCache();
+        this.statistics = SessionCacheStatistics.get( session, "model" );
     }
 
     public Object get( String groupId, String artifactId, String version, String tag )
     {
-        return cache.get( session, new Key( groupId, artifactId, version, tag ) );
+        Key key = new Key( groupId, artifactId, version, tag );
+        Object data = cache.get( session, key );
+        if ( data != null )
+        {
+            statistics.hit();
+        }
+        else
+        {
+            statistics.miss( key );
+        }
+        return data;
     }
 
     public void put( String groupId, String artifactId, String version, String tag, Object data )
     {
-        cache.put( session, new Key( groupId, artifactId, version, tag ), data );
+        Key key = new Key( groupId, artifactId, version, tag );
+        cache.put( session, key, data );
+        statistics.put( key, -1 );
     }
 
     static class Key
@@ -35,6 +35,7 @@
 import org.apache.maven.artifact.repository.metadata.SnapshotVersion;
 import org.apache.maven.artifact.repository.metadata.Versioning;
 import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.apache.maven.building.CacheStatistics;
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
 import org.codehaus.plexus.util.IOUtil;
@@ -81,6 +82,8 @@
 
     private static final String MAVEN_METADATA_XML = "maven-metadata.xml";
 
+    private static final String CACHE_NAME = "versionResolver";
+
     private static final String RELEASE = "RELEASE";
 
     private static final String LATEST = "LATEST";
@@ -177,14 +180,21 @@ public VersionResult resolveVersion( RepositorySystemSession session, VersionReq
         VersionResult result = new VersionResult( request );
 
         Key cacheKey = null;
+        CacheStatistics statistics = null;
         RepositoryCache cache = session.getCache();
         if ( cache != null && !ConfigUtils.getBoolean( session, false, "aether.versionResolver.noCache" ) )
         {
             cacheKey = new Key( session, request );
+            statistics = SessionCacheStatistics.get( session, CACHE_NAME );
 
             Object obj = cache.get( session, cacheKey );
-            if ( obj instanceof Record )
+            if ( !( obj instanceof Record ) )
+            {
+                statistics.miss( cacheKey );
+            }
+            else
             {
+                statistics.hit();
                 Record record = (Record) obj;
                 result.setVersion( record.version );
                 result.setRepository( CacheUtils.getRepository( session, request.getRepositories(), record.repoClass,
@@ -316,7 +326,13 @@ else if ( LATEST.equals( version ) )
 
         if ( cacheKey != null && metadata != null && isSafelyCacheable( session, artifact ) )
         {
+            // another thread may have resolved the same version meanwhile, only a new entry counts
+            boolean absent = !( cache.get( session, cacheKey ) instanceof Record );
             cache.put( session, cacheKey, new Record( result.getVersion(), result.getRepository() ) );
+            if ( absent )
+            {
+                statistics.put( cacheKey, -1 );
+            }
         }
 
         return result;
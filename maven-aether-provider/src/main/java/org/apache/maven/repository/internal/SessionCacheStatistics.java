@@ -0,0 +1,112 @@
+package org.apache.maven.repository.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.building.CacheStatistics;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Keeps the statistics of the caches whose lifetime is bound to a repository system session in the session data.
+ *
+ * @since 3.3.2
+ */
+public final class SessionCacheStatistics
+{
+
+    private static final Object KEY = SessionCacheStatistics.class.getName();
+
+    private SessionCacheStatistics()
+    {
+        // hide constructor
+    }
+
+    /**
+     * Gets the statistics of the specified cache, creating them on first access.
+     *
+     * @param session The repository system session, may be {@code null}.
+     * @param name The name of the cache, must not be {@code null}.
+     * @return The statistics of the cache, never {@code null}. Statistics for a {@code null} session are not retained.
+     */
+    public static CacheStatistics get( RepositorySystemSession session, String name )
+    {
+        ConcurrentMap<String, CacheStatistics> all = getAll( session, true );
+        if ( all == null )
+        {
+            return new CacheStatistics( name );
+        }
+
+        CacheStatistics statistics = all.get( name );
+        if ( statistics == null )
+        {
+            statistics = new CacheStatistics( name );
+            CacheStatistics existing = all.putIfAbsent( name, statistics );
+            if ( existing != null )
+            {
+                statistics = existing;
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Gets the statistics of all caches used with the specified session so far.
+     *
+     * @param session The repository system session, may be {@code null}.
+     * @return The statistics, never {@code null}.
+     */
+    public static Collection<CacheStatistics> getAll( RepositorySystemSession session )
+    {
+        ConcurrentMap<String, CacheStatistics> all = getAll( session, false );
+        if ( all == null )
+        {
+            return Collections.emptyList();
+        }
+        return new ArrayList<CacheStatistics>( all.values() );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static ConcurrentMap<String, CacheStatistics> getAll( RepositorySystemSession session, boolean create )
+    {
+        SessionData data = ( session != null ) ? session.getData() : null;
+        if ( data == null )
+        {
+            return null;
+        }
+
+        Object all = data.get( KEY );
+        while ( all == null && create )
+        {
+            all = new ConcurrentHashMap<String, CacheStatistics>();
+            if ( !data.set( KEY, null, all ) )
+            {
+                all = data.get( KEY );
+            }
+        }
+        return (ConcurrentMap<String, CacheStatistics>) all;
+    }
+
+}
@@ -0,0 +1,248 @@
+package org.apache.maven.artifact;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * An immutable key made of artifact coordinates, for use in maps and sets where the colon-separated string keys from
+ * {@link ArtifactUtils#key(String, String, String)}, {@link ArtifactUtils#versionlessKey(String, String)} or
+ * {@link Artifact#getDependencyConflictId()} would otherwise be built over and over. The hash codes of keys are
+ * precomputed and their string forms are built once and equal the corresponding string keys. Keys of different kinds
+ * with the same string form are equal, just like their strings are. The factory methods create cheap keys for
+ * transient lookups, keys that are stored for long can be {@link #intern() interned} so that equal keys share one
+ * instance. Interned keys are only weakly referenced and do not leak.
+ *
+ * @since 3.3.2
+ */
+public final class ArtifactKey
+    implements Comparable<ArtifactKey>
+{
+
+    private static final int STRIPES = 16;
+
+    private static final Map<ArtifactKey, WeakReference<ArtifactKey>>[] INTERNED = newStripes();
+
+    private final String[] parts;
+
+    private final int hash;
+
+    private volatile String string;
+
+    private ArtifactKey( String... parts )
+    {
+        this.parts = parts;
+        int h = Arrays.hashCode( parts );
+        this.hash = h ^ ( h >>> 16 );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static Map<ArtifactKey, WeakReference<ArtifactKey>>[] newStripes()
+    {
+        Map<ArtifactKey, WeakReference<ArtifactKey>>[] stripes = new Map[STRIPES];
+        for ( int i = 0; i < stripes.length; i++ )
+        {
+            stripes[i] = new WeakHashMap<ArtifactKey, WeakReference<ArtifactKey>>( 256 );
+        }
+        return stripes;
+    }
+
+    /**
+     * Gets the canonical instance of this key, i.e. equal keys that are interned at the same time are the same
+     * instance. Interning takes a lock, so only keys that are stored for long should be interned.
+     *
+     * @return The interned key, never {@code null}.
+     */
+    public ArtifactKey intern()
+    {
+        Map<ArtifactKey, WeakReference<ArtifactKey>> stripe = INTERNED[hash & ( STRIPES - 1 )];
+        synchronized ( stripe )
+        {
+            WeakReference<ArtifactKey> ref = stripe.get( this );
+            ArtifactKey interned = ( ref != null ) ? ref.get() : null;
+            if ( interned == null )
+            {
+                stripe.put( this, new WeakReference<ArtifactKey>( this ) );
+                interned = this;
+            }
+            return interned;
+        }
+    }
+
+    private static String require( String value, String name )
+    {
+        if ( value == null )
+        {
+            throw new NullPointerException( name + " is null" );
+        }
+        return value;
+    }
+
+    /**
+     * Gets the key {@code groupId:artifactId}.
+     *
+     * @param groupId The group id, must not be {@code null}.
+     * @param artifactId The artifact id, must not be {@code null}.
+     * @return The key, never {@code null}.
+     */
+    public static ArtifactKey versionlessKey( String groupId, String artifactId )
+    {
+        return new ArtifactKey( require( groupId, "groupId" ), require( artifactId, "artifactId" ) );
+    }
+
+    /**
+     * Gets the key {@code groupId:artifactId:version}.
+     *
+     * @param groupId The group id, must not be {@code null}.
+     * @param artifactId The artifact id, must not be {@code null}.
+     * @param version The version, must not be {@code null}.
+     * @return The key, never {@code null}.
+     */
+    public static ArtifactKey key( String groupId, String artifactId, String version )
+    {
+        return new ArtifactKey( require( groupId, "groupId" ), require( artifactId, "artifactId" ),
+                                require( version, "version" ) );
+    }
+
+    /**
+     * Gets the key {@code groupId:artifactId:type[:classifier]} that identifies an artifact regardless of its version,
+     * i.e. the key form of {@link Artifact#getDependencyConflictId()}.
+     *
+     * Like the string form, the key tolerates missing coordinates and renders them as {@code "null"}.
+     *
+     * @param groupId The group id, may be {@code null}.
+     * @param artifactId The artifact id, may be {@code null}.
+     * @param type The type, may be {@code null}.
+     * @param classifier The classifier, may be {@code null} or empty.
+     * @return The key, never {@code null}.
+     */
+    public static ArtifactKey dependencyConflictKey( String groupId, String artifactId, String type,
+                                                     String classifier )
+    {
+        if ( classifier == null || classifier.length() <= 0 )
+        {
+            return new ArtifactKey( String.valueOf( groupId ), String.valueOf( artifactId ),
+                                    String.valueOf( type ) );
+        }
+        return new ArtifactKey( String.valueOf( groupId ), String.valueOf( artifactId ), String.valueOf( type ),
+                                classifier );
+    }
+
+    /**
+     * Gets the key for the dependency conflict id of the specified artifact.
+     *
+     * @param artifact The artifact, must not be {@code null}.
+     * @return The key, never {@code null}.
+     * @see #dependencyConflictKey(String, String, String, String)
+     */
+    public static ArtifactKey dependencyConflictKey( Artifact artifact )
+    {
+        if ( artifact instanceof DefaultArtifact )
+        {
+            return ( (DefaultArtifact) artifact ).getDependencyConflictKey();
+        }
+        return dependencyConflictKey( artifact.getGroupId(), artifact.getArtifactId(), artifact.getType(),
+                                      artifact.getClassifier() );
+    }
+
+    /**
+     * Gets the key with the specified string form, e.g. a key from a string-based API.
+     *
+     * @param key The colon-separated key, must not be {@code null}.
+     * @return The key, never {@code null}.
+     */
+    public static ArtifactKey valueOf( String key )
+    {
+        ArtifactKey result = new ArtifactKey( require( key, "key" ).split( ":", -1 ) );
+        result.string = key;
+        return result;
+    }
+
+    /**
+     * Tells whether this key is the dependency conflict key for the specified coordinates, without creating a key.
+     */
+    boolean isDependencyConflictKey( String groupId, String artifactId, String type, String classifier )
+    {
+        boolean classified = classifier != null && classifier.length() > 0;
+        return parts.length == ( classified ? 4 : 3 ) && parts[0].equals( String.valueOf( groupId ) )
+            && parts[1].equals( String.valueOf( artifactId ) ) && parts[2].equals( String.valueOf( type ) )
+            && ( !classified || parts[3].equals( classifier ) );
+    }
+
+    public String getGroupId()
+    {
+        return parts[0];
+    }
+
+    public String getArtifactId()
+    {
+        return ( parts.length > 1 ) ? parts[1] : null;
+    }
+
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+        else if ( !( obj instanceof ArtifactKey ) )
+        {
+            return false;
+        }
+
+        ArtifactKey that = (ArtifactKey) obj;
+
+        return hash == that.hash && Arrays.equals( parts, that.parts );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    public int compareTo( ArtifactKey o )
+    {
+        return toString().compareTo( o.toString() );
+    }
+
+    @Override
+    public String toString()
+    {
+        String s = string;
+        if ( s == null )
+        {
+            StringBuilder buffer = new StringBuilder( 64 );
+            buffer.append( parts[0] );
+            for ( int i = 1; i < parts.length; i++ )
+            {
+                buffer.append( ':' ).append( parts[i] );
+            }
+            s = buffer.toString();
+            string = s;
+        }
+        return s;
+    }
+
+}
@@ -75,6 +75,8 @@
 
     private boolean release;
 
+    private volatile ArtifactKey dependencyConflictKey;
+
     private List<ArtifactVersion> availableVersions;
 
     private Map<Object, ArtifactMetadata> metadataMap;
@@ -228,11 +230,26 @@ public String getId()
 
     public String getDependencyConflictId()
     {
-        StringBuilder sb = new StringBuilder( 128 );
-        sb.append( getGroupId() );
-        sb.append( ":" );
-        appendArtifactTypeClassifierString( sb );
-        return sb.toString();
+        return getDependencyConflictKey().toString();
+    }
+
+    /**
+     * Gets the key form of {@link #getDependencyConflictId()}. The key is cached as long as the coordinates of this
+     * artifact stay the same.
+     *
+     * @return The interned key, never {@code null}.
+     * @since 3.3.2
+     */
+    public ArtifactKey getDependencyConflictKey()
+    {
+        ArtifactKey key = dependencyConflictKey;
+        if ( key == null || !key.isDependencyConflictKey( getGroupId(), getArtifactId(), getType(), getClassifier() ) )
+        {
+            key = ArtifactKey.dependencyConflictKey( getGroupId(), getArtifactId(), getType(), getClassifier() );
+            key = key.intern();
+            dependencyConflictKey = key;
+        }
+        return key;
     }
 
     private void appendArtifactTypeClassifierString( StringBuilder sb )
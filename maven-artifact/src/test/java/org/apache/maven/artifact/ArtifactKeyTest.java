@@ -0,0 +1,78 @@
+package org.apache.maven.artifact;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+/**
+ * Tests artifact keys.
+ */
+public class ArtifactKeyTest
+    extends TestCase
+{
+
+    public void testInternedKeysAreShared()
+    {
+        ArtifactKey key = ArtifactKey.key( "gid", "aid", "1.0" );
+        assertEquals( key, ArtifactKey.key( new String( "gid" ), "aid", "1.0" ) );
+        assertEquals( key, ArtifactKey.valueOf( "gid:aid:1.0" ) );
+        assertFalse( key.equals( ArtifactKey.versionlessKey( "gid", "aid" ) ) );
+
+        ArtifactKey interned = key.intern();
+        assertSame( interned, ArtifactKey.key( new String( "gid" ), "aid", "1.0" ).intern() );
+        assertSame( interned, ArtifactKey.valueOf( "gid:aid:1.0" ).intern() );
+        assertNotSame( interned, ArtifactKey.versionlessKey( "gid", "aid" ).intern() );
+    }
+
+    public void testStringFormsMatchStringKeys()
+    {
+        assertEquals( ArtifactUtils.key( "gid", "aid", "1.0" ), ArtifactKey.key( "gid", "aid", "1.0" ).toString() );
+        assertEquals( ArtifactUtils.versionlessKey( "gid", "aid" ),
+                      ArtifactKey.versionlessKey( "gid", "aid" ).toString() );
+        assertEquals( "gid:aid:jar", ArtifactKey.dependencyConflictKey( "gid", "aid", "jar", "" ).toString() );
+        assertEquals( "gid:aid:jar:tests",
+                      ArtifactKey.dependencyConflictKey( "gid", "aid", "jar", "tests" ).toString() );
+    }
+
+    public void testDependencyConflictKeyOfArtifact()
+    {
+        DefaultArtifact artifact = new DefaultArtifact( "gid", "aid", "1.0", null, "jar", "tests", null );
+        assertSame( ArtifactKey.dependencyConflictKey( "gid", "aid", "jar", "tests" ).intern(),
+                    ArtifactKey.dependencyConflictKey( artifact ) );
+        assertEquals( "gid:aid:jar:tests", artifact.getDependencyConflictId() );
+
+        artifact.setArtifactId( "other" );
+        assertEquals( "gid:other:jar:tests", artifact.getDependencyConflictId() );
+    }
+
+    public void testMissingCoordinates()
+    {
+        try
+        {
+            ArtifactKey.key( "gid", null, "1.0" );
+            fail( "missing artifactId not detected" );
+        }
+        catch ( NullPointerException e )
+        {
+            assertEquals( "artifactId is null", e.getMessage() );
+        }
+    }
+
+}
@@ -0,0 +1,226 @@
+package org.apache.maven.building;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the hits, misses, load time, entry count and estimated retained size of a cache. The load time is the time
+ * that passes between a miss for a key and the subsequent put of the same key, i.e. the time the cache saves on a hit.
+ * The estimated size is supplied by the cache itself and is {@code -1} if the cache has no means to estimate it. All
+ * methods are thread-safe.
+ *
+ * @since 3.3.2
+ */
+public class CacheStatistics
+{
+
+    /**
+     * The number of keys for which the load time is tracked at most, bounds the memory held by misses that are never
+     * followed by a put.
+     */
+    private static final int MAX_PENDING_LOADS = 1024;
+
+    private final String name;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong loadTime = new AtomicLong();
+
+    private final AtomicLong entries = new AtomicLong();
+
+    private final AtomicLong size;
+
+    private final Map<Object, Long> pendingLoads = new ConcurrentHashMap<Object, Long>();
+
+    /**
+     * Creates new statistics for a cache that does not estimate the size of its entries.
+     *
+     * @param name The name of the cache, must not be {@code null}.
+     */
+    public CacheStatistics( String name )
+    {
+        this( name, false );
+    }
+
+    /**
+     * Creates new statistics for a cache.
+     *
+     * @param name The name of the cache, must not be {@code null}.
+     * @param sized {@code true} if the cache estimates the size of its entries, {@code false} otherwise.
+     */
+    public CacheStatistics( String name, boolean sized )
+    {
+        if ( name == null )
+        {
+            throw new IllegalArgumentException( "cache name missing" );
+        }
+        this.name = name;
+        this.size = sized ? new AtomicLong() : null;
+    }
+
+    private CacheStatistics( CacheStatistics original )
+    {
+        this.name = original.name;
+        this.hits.set( original.getHits() );
+        this.misses.set( original.getMisses() );
+        this.loadTime.set( original.loadTime.get() );
+        this.entries.set( original.getEntryCount() );
+        this.size = ( original.size != null ) ? new AtomicLong( original.size.get() ) : null;
+    }
+
+    /**
+     * Records a lookup that was answered by the cache.
+     */
+    public void hit()
+    {
+        hits.incrementAndGet();
+    }
+
+    /**
+     * Records a lookup that was not answered by the cache.
+     *
+     * @param key The key that was looked up, must not be {@code null}.
+     */
+    public void miss( Object key )
+    {
+        misses.incrementAndGet();
+
+        if ( pendingLoads.size() >= MAX_PENDING_LOADS )
+        {
+            pendingLoads.clear();
+        }
+        pendingLoads.put( key, System.nanoTime() );
+    }
+
+    /**
+     * Records a new entry.
+     *
+     * @param key The key of the entry, must not be {@code null}.
+     * @param estimatedSize The estimated size of the entry in bytes, ignored unless the cache estimates sizes.
+     */
+    public void put( Object key, long estimatedSize )
+    {
+        Long start = pendingLoads.remove( key );
+        if ( start != null )
+        {
+            loadTime.addAndGet( System.nanoTime() - start );
+        }
+
+        entries.incrementAndGet();
+
+        if ( size != null )
+        {
+            size.addAndGet( estimatedSize );
+        }
+    }
+
+    /**
+     * Records the removal of all entries.
+     */
+    public void flush()
+    {
+        pendingLoads.clear();
+        entries.set( 0 );
+        if ( size != null )
+        {
+            size.set( 0 );
+        }
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return The ratio of hits to lookups, between {@code 0} and {@code 1}.
+     */
+    public double getHitRate()
+    {
+        long h = getHits();
+        long lookups = h + getMisses();
+        return ( lookups > 0 ) ? (double) h / lookups : 0;
+    }
+
+    /**
+     * @return The total time in milliseconds spent loading the entries after a miss.
+     */
+    public long getLoadTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( loadTime.get() );
+    }
+
+    public long getEntryCount()
+    {
+        return entries.get();
+    }
+
+    /**
+     * @return The estimated size of the entries in bytes or {@code -1} if unknown.
+     */
+    public long getEstimatedSize()
+    {
+        return ( size != null ) ? size.get() : -1;
+    }
+
+    /**
+     * Creates a copy of the current statistics that is no longer updated by the cache.
+     *
+     * @return The snapshot, never {@code null}.
+     */
+    public CacheStatistics snapshot()
+    {
+        return new CacheStatistics( this );
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder buffer = new StringBuilder( 128 );
+        buffer.append( name ).append( ": " );
+        buffer.append( getHits() ).append( " hits, " );
+        buffer.append( getMisses() ).append( " misses (" );
+        buffer.append( Math.round( getHitRate() * 100 ) ).append( "% hit rate), " );
+        buffer.append( getLoadTime() ).append( " ms load time, " );
+        buffer.append( getEntryCount() ).append( " entries" );
+        if ( size != null )
+        {
+            buffer.append( ", ~" ).append( size.get() / 1024 ).append( " KB" );
+        }
+        return buffer.toString();
+    }
+
+}
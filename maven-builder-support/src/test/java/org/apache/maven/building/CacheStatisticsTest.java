@@ -0,0 +1,79 @@
+package org.apache.maven.building;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CacheStatisticsTest
+{
+    @Test
+    public void testCounters()
+    {
+        CacheStatistics statistics = new CacheStatistics( "test", true );
+
+        statistics.miss( "a" );
+        statistics.put( "a", 100 );
+        statistics.hit();
+        statistics.hit();
+        statistics.hit();
+
+        assertEquals( 3, statistics.getHits() );
+        assertEquals( 1, statistics.getMisses() );
+        assertEquals( 0.75, statistics.getHitRate(), 0.001 );
+        assertEquals( 1, statistics.getEntryCount() );
+        assertEquals( 100, statistics.getEstimatedSize() );
+        assertTrue( statistics.getLoadTime() >= 0 );
+
+        statistics.flush();
+
+        assertEquals( 0, statistics.getEntryCount() );
+        assertEquals( 0, statistics.getEstimatedSize() );
+        assertEquals( 3, statistics.getHits() );
+    }
+
+    @Test
+    public void testUnsized()
+    {
+        CacheStatistics statistics = new CacheStatistics( "test" );
+
+        statistics.put( "a", 100 );
+
+        assertEquals( -1, statistics.getEstimatedSize() );
+        assertEquals( 0.0, statistics.getHitRate(), 0.0 );
+    }
+
+    @Test
+    public void testSnapshotIsDetached()
+    {
+        CacheStatistics statistics = new CacheStatistics( "test" );
+        statistics.hit();
+
+        CacheStatistics snapshot = statistics.snapshot();
+        statistics.hit();
+
+        assertEquals( "test", snapshot.getName() );
+        assertEquals( 1, snapshot.getHits() );
+        assertEquals( 2, statistics.getHits() );
+    }
+
+}
@@ -0,0 +1,122 @@
+package org.apache.maven.repository.legacy;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.observers.AbstractTransferListener;
+
+/**
+ * Computes the checksums of several digest algorithms in a single pass over the bytes of a transfer, as they are
+ * written to disk or sent to the remote repository. This replaces one {@code ChecksumObserver} per algorithm, which
+ * would each get called for every buffer of the transfer.
+ *
+ * @since 3.3.2
+ */
+class ChecksumsObserver
+    extends AbstractTransferListener
+{
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest[] digesters;
+
+    private final String[] actualChecksums;
+
+    /**
+     * Creates a new observer for the specified JCA digest algorithms, e.g. {@code "SHA-1"}.
+     *
+     * @param algorithms The digest algorithms to compute, must not be {@code null}.
+     * @throws NoSuchAlgorithmException If any of the algorithms is not supported by the JVM.
+     */
+    public ChecksumsObserver( String... algorithms )
+        throws NoSuchAlgorithmException
+    {
+        digesters = new MessageDigest[algorithms.length];
+        for ( int i = 0; i < algorithms.length; i++ )
+        {
+            digesters[i] = MessageDigest.getInstance( algorithms[i] );
+        }
+        actualChecksums = new String[algorithms.length];
+    }
+
+    @Override
+    public void transferStarted( TransferEvent transferEvent )
+    {
+        for ( int i = 0; i < digesters.length; i++ )
+        {
+            digesters[i].reset();
+            actualChecksums[i] = null;
+        }
+    }
+
+    @Override
+    public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+    {
+        for ( MessageDigest digester : digesters )
+        {
+            digester.update( buffer, 0, length );
+        }
+    }
+
+    @Override
+    public void transferCompleted( TransferEvent transferEvent )
+    {
+        for ( int i = 0; i < digesters.length; i++ )
+        {
+            actualChecksums[i] = encode( digesters[i].digest() );
+        }
+    }
+
+    @Override
+    public void transferError( TransferEvent transferEvent )
+    {
+        for ( int i = 0; i < digesters.length; i++ )
+        {
+            digesters[i].reset();
+            actualChecksums[i] = null;
+        }
+    }
+
+    /**
+     * Gets the checksum of the last completed transfer for the algorithm at the specified index.
+     *
+     * @param index The index of the algorithm as given to the constructor.
+     * @return The lower-case hex encoded checksum or {@code null} if no transfer has completed.
+     */
+    public String getActualChecksum( int index )
+    {
+        return actualChecksums[index];
+    }
+
+    private static String encode( byte[] binaryData )
+    {
+        char[] chars = new char[binaryData.length * 2];
+        for ( int i = 0; i < binaryData.length; i++ )
+        {
+            chars[i * 2] = HEX[( binaryData[i] >> 4 ) & 0x0F];
+            chars[i * 2 + 1] = HEX[binaryData[i] & 0x0F];
+        }
+        return new String( chars );
+    }
+
+}
@@ -19,16 +19,10 @@
  * under the License.
  */
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 import org.apache.maven.artifact.Artifact;
@@ -40,16 +34,18 @@
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
 import org.codehaus.plexus.logging.Logger;
-import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.Disposable;
 
 @Component( role = UpdateCheckManager.class )
 public class DefaultUpdateCheckManager
     extends AbstractLogEnabled
-    implements UpdateCheckManager
+    implements UpdateCheckManager, Disposable
 {
 
     private static final String ERROR_KEY_SUFFIX = ".error";
 
+    private volatile UpdateStateStore store;
+
     public DefaultUpdateCheckManager()
     {
 
@@ -173,7 +169,7 @@ public void touch( Artifact artifact, ArtifactRepository repository, String erro
 
         if ( file.exists() )
         {
-            touchfile.delete();
+            getStore().delete( touchfile );
         }
         else
         {
@@ -226,101 +222,18 @@ String getRepositoryKey( ArtifactRepository repository )
 
     private void writeLastUpdated( File touchfile, String key, String error )
     {
-        synchronized ( touchfile.getAbsolutePath().intern() )
-        {
-            if ( !touchfile.getParentFile().exists() && !touchfile.getParentFile().mkdirs() )
-            {
-                getLogger().debug( "Failed to create directory: " + touchfile.getParent()
-                                       + " for tracking artifact metadata resolution." );
-                return;
-            }
-
-            FileChannel channel = null;
-            FileLock lock = null;
-            try
-            {
-                Properties props = new Properties();
-
-                channel = new RandomAccessFile( touchfile, "rw" ).getChannel();
-                lock = channel.lock( 0, channel.size(), false );
-
-                if ( touchfile.canRead() )
-                {
-                    getLogger().debug( "Reading resolution-state from: " + touchfile );
-                    ByteBuffer buffer = ByteBuffer.allocate( (int) channel.size() );
-
-                    channel.read( buffer );
-                    buffer.flip();
-
-                    ByteArrayInputStream stream = new ByteArrayInputStream( buffer.array() );
-                    props.load( stream );
-                }
-
-                props.setProperty( key, Long.toString( System.currentTimeMillis() ) );
-
-                if ( error != null )
-                {
-                    props.setProperty( key + ERROR_KEY_SUFFIX, error );
-                }
-                else
-                {
-                    props.remove( key + ERROR_KEY_SUFFIX );
-                }
-
-                ByteArrayOutputStream stream = new ByteArrayOutputStream();
-
-                getLogger().debug( "Writing resolution-state to: " + touchfile );
-                props.store( stream, "Last modified on: " + new Date() );
-
-                byte[] data = stream.toByteArray();
-                ByteBuffer buffer = ByteBuffer.allocate( data.length );
-                buffer.put( data );
-                buffer.flip();
-
-                channel.position( 0 );
-                channel.write( buffer );
-            }
-            catch ( IOException e )
-            {
-                getLogger().debug( "Failed to record lastUpdated information for resolution.\nFile: "
-                                       + touchfile.toString() + "; key: " + key, e );
-            }
-            finally
-            {
-                if ( lock != null )
-                {
-                    try
-                    {
-                        lock.release();
-                    }
-                    catch ( IOException e )
-                    {
-                        getLogger().debug( "Error releasing exclusive lock for resolution tracking file: "
-                                               + touchfile, e );
-                    }
-                }
+        Map<String, String> updates = new HashMap<String, String>( 4 );
+        updates.put( key, Long.toString( System.currentTimeMillis() ) );
+        updates.put( key + ERROR_KEY_SUFFIX, error );
 
-                if ( channel != null )
-                {
-                    try
-                    {
-                        channel.close();
-                    }
-                    catch ( IOException e )
-                    {
-                        getLogger().debug( "Error closing FileChannel for resolution tracking file: "
-                                               + touchfile, e );
-                    }
-                }
-            }
-        }
+        getStore().update( touchfile, updates );
     }
 
     Date readLastUpdated( File touchfile, String key )
     {
         getLogger().debug( "Searching for " + key + " in resolution tracking file." );
 
-        Properties props = read( touchfile );
+        Properties props = getStore().read( touchfile );
         if ( props != null )
         {
             String rawVal = props.getProperty( key );
@@ -341,7 +254,7 @@ Date readLastUpdated( File touchfile, String key )
 
     private String getError( File touchFile, String key )
     {
-        Properties props = read( touchFile );
+        Properties props = getStore().read( touchFile );
         if ( props != null )
         {
             return props.getProperty( key + ERROR_KEY_SUFFIX );
@@ -349,72 +262,36 @@ private String getError( File touchFile, String key )
         return null;
     }
 
-    private Properties read( File touchfile )
+    /**
+     * Writes the pending updates of the resolution tracking files to disk. This happens automatically at the end of
+     * the session and when the component gets disposed.
+     */
+    public void flush()
     {
-        if ( !touchfile.canRead() )
-        {
-            getLogger().debug( "Skipped unreadable resolution tracking file " + touchfile );
-            return null;
-        }
-
-        synchronized ( touchfile.getAbsolutePath().intern() )
-        {
-            FileLock lock = null;
-            FileChannel channel = null;
-            try
-            {
-                Properties props = new Properties();
-
-                FileInputStream stream = new FileInputStream( touchfile );
-                try
-                {
-                    channel = stream.getChannel();
-                    lock = channel.lock( 0, channel.size(), true );
-
-                    getLogger().debug( "Reading resolution-state from: " + touchfile );
-                    props.load( stream );
+        getStore().flush();
+    }
 
-                    return props;
-                }
-                finally
-                {
-                    IOUtil.close( stream );
-                }
-            }
-            catch ( IOException e )
-            {
-                getLogger().debug( "Failed to read resolution tracking file " + touchfile, e );
+    public void dispose()
+    {
+        flush();
+    }
 
-                return null;
-            }
-            finally
+    private UpdateStateStore getStore()
+    {
+        UpdateStateStore store = this.store;
+        if ( store == null )
+        {
+            synchronized ( this )
             {
-                if ( lock != null )
-                {
-                    try
-                    {
-                        lock.release();
-                    }
-                    catch ( IOException e )
-                    {
-                        getLogger().debug( "Error releasing shared lock for resolution tracking file: " + touchfile,
-                                           e );
-                    }
-                }
-
-                if ( channel != null )
+                store = this.store;
+                if ( store == null )
                 {
-                    try
-                    {
-                        channel.close();
-                    }
-                    catch ( IOException e )
-                    {
-                        getLogger().debug( "Error closing FileChannel for resolution tracking file: " + touchfile, e );
-                    }
+                    store = new UpdateStateStore( getLogger() );
+                    this.store = store;
                 }
             }
         }
+        return store;
     }
 
     File getTouchfile( Artifact artifact )
@@ -24,9 +24,7 @@
 import java.lang.reflect.Method;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
 
 import org.apache.maven.artifact.Artifact;
@@ -43,7 +41,6 @@
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
 import org.apache.maven.wagon.authorization.AuthorizationException;
 import org.apache.maven.wagon.events.TransferListener;
-import org.apache.maven.wagon.observers.ChecksumObserver;
 import org.apache.maven.wagon.proxy.ProxyInfo;
 import org.apache.maven.wagon.repository.Repository;
 import org.codehaus.plexus.PlexusContainer;
@@ -53,20 +50,28 @@
 import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
 import org.codehaus.plexus.logging.Logger;
 import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.StringUtils;
 import org.eclipse.aether.ConfigurationProperties;
 import org.eclipse.aether.util.ConfigUtils;
 
 //TODO: remove the update check manager
 //TODO: separate into retriever and publisher
-//TODO: remove hardcoding of checksum logic
 @Component( role = WagonManager.class )
 public class DefaultWagonManager
     implements WagonManager
 {
-    private static final String[] CHECKSUM_IDS = { "md5", "sha1" };
+    /**
+     * The configuration key for the comma-separated list of checksum ids to verify on download and to deploy, e.g.
+     * {@code sha512,sha256,sha1,md5}. Downloads are verified against the first checksum file found in this order.
+     */
+    static final String CONFIG_PROP_CHECKSUMS = "maven.checksums";
+
+    private static final String[] DEFAULT_CHECKSUM_IDS = { "sha1", "md5" };
+
+    private static final String[] CHECKSUM_IDS = { "md5", "sha1", "sha256", "sha512" };
 
     /** have to match the CHECKSUM_IDS */
-    private static final String[] CHECKSUM_ALGORITHMS = { "MD5", "SHA-1" };
+    private static final String[] CHECKSUM_ALGORITHMS = { "MD5", "SHA-1", "SHA-256", "SHA-512" };
 
     @Requirement
     private Logger logger;
@@ -345,6 +350,8 @@ public void getRemoteFile( ArtifactRepository repository, File destination, Stri
         {
             connectWagon( wagon, repository );
 
+            String[] checksumIds = getChecksumIds();
+
             boolean firstRun = true;
             boolean retry = true;
 
@@ -353,15 +360,10 @@ public void getRemoteFile( ArtifactRepository repository, File destination, Stri
             // only way the retry flag can be set is if ( firstRun == true ).
             while ( firstRun || retry )
             {
-                ChecksumObserver md5ChecksumObserver = null;
-                ChecksumObserver sha1ChecksumObserver = null;
+                ChecksumsObserver checksumsObserver = null;
                 try
                 {
-                    // TODO: configure on repository
-                    int i = 0;
-
-                    md5ChecksumObserver = addChecksumObserver( wagon, CHECKSUM_ALGORITHMS[i++] );
-                    sha1ChecksumObserver = addChecksumObserver( wagon, CHECKSUM_ALGORITHMS[i++] );
+                    checksumsObserver = addChecksumsObserver( wagon, checksumIds );
 
                     // reset the retry flag.
                     retry = false;
@@ -395,8 +397,7 @@ public void getRemoteFile( ArtifactRepository repository, File destination, Stri
                 }
                 finally
                 {
-                    wagon.removeTransferListener( md5ChecksumObserver );
-                    wagon.removeTransferListener( sha1ChecksumObserver );
+                    wagon.removeTransferListener( checksumsObserver );
                 }
 
                 if ( downloaded )
@@ -407,57 +408,11 @@ public void getRemoteFile( ArtifactRepository repository, File destination, Stri
                         wagon.removeTransferListener( downloadMonitor );
                     }
 
-                    // try to verify the SHA-1 checksum for this file.
-                    try
-                    {
-                        verifyChecksum( sha1ChecksumObserver, destination, temp, remotePath, ".sha1", wagon );
-                    }
-                    catch ( ChecksumFailedException e )
-                    {
-                        // if we catch a ChecksumFailedException, it means the transfer/read succeeded, but the checksum
-                        // doesn't match. This could be a problem with the server (ibiblio HTTP-200 error page), so we'll
-                        // try this up to two times. On the second try, we'll handle it as a bona-fide error, based on the
-                        // repository's checksum checking policy.
-                        if ( firstRun )
-                        {
-                            logger.warn( "*** CHECKSUM FAILED - " + e.getMessage() + " - RETRYING" );
-                            retry = true;
-                        }
-                        else
-                        {
-                            handleChecksumFailure( checksumPolicy, e.getMessage(), e.getCause() );
-                        }
-                    }
-                    catch ( ResourceDoesNotExistException sha1TryException )
-                    {
-                        logger.debug( "SHA1 not found, trying MD5: " + sha1TryException.getMessage() );
-
-                        // if this IS NOT a ChecksumFailedException, it was a problem with transfer/read of the checksum
-                        // file...we'll try again with the MD5 checksum.
-                        try
-                        {
-                            verifyChecksum( md5ChecksumObserver, destination, temp, remotePath, ".md5", wagon );
-                        }
-                        catch ( ChecksumFailedException e )
-                        {
-                            // if we also fail to verify based on the MD5 checksum, and the checksum transfer/read
-                            // succeeded, then we need to determine whether to retry or handle it as a failure.
-                            if ( firstRun )
-                            {
-                                retry = true;
-                            }
-                            else
-                            {
-                                handleChecksumFailure( checksumPolicy, e.getMessage(), e.getCause() );
-                            }
-                        }
-                        catch ( ResourceDoesNotExistException md5TryException )
-                        {
-                            // this was a failed transfer, and we don't want to retry.
-                            handleChecksumFailure( checksumPolicy, "Error retrieving checksum file for " + remotePath,
-                                                   md5TryException );
-                        }
-                    }
+                    // if the checksum doesn't match, the transfer/read succeeded but this could be a problem with the
+                    // server (ibiblio HTTP-200 error page), so we'll try this up to two times. On the second try,
+                    // we'll handle it as a bona-fide error, based on the repository's checksum checking policy.
+                    retry = verifyChecksums( checksumsObserver, checksumIds, destination, temp, remotePath, wagon,
+                                             checksumPolicy, firstRun );
 
                     // reinstate the download monitor...
                     if ( downloadMonitor != null )
@@ -569,15 +524,9 @@ public void putRemoteFile( ArtifactRepository repository, File source, String re
             wagon.addTransferListener( downloadMonitor );
         }
 
-        Map<String, ChecksumObserver> checksums = new HashMap<String, ChecksumObserver>( 2 );
+        String[] checksumIds = getChecksumIds();
 
-        Map<String, String> sums = new HashMap<String, String>( 2 );
-
-        // TODO: configure these on the repository
-        for ( int i = 0; i < CHECKSUM_IDS.length; i++ )
-        {
-            checksums.put( CHECKSUM_IDS[i], addChecksumObserver( wagon, CHECKSUM_ALGORITHMS[i] ) );
-        }
+        ChecksumsObserver checksumsObserver = addChecksumsObserver( wagon, checksumIds );
 
         List<File> temporaryFiles = new ArrayList<File>();
 
@@ -591,29 +540,25 @@ public void putRemoteFile( ArtifactRepository repository, File source, String re
             }
             finally
             {
+                // the checksums are computed while the artifact is sent, the checksum files must not affect them
+                wagon.removeTransferListener( checksumsObserver );
+
                 if ( downloadMonitor != null )
                 {
                     wagon.removeTransferListener( downloadMonitor );
                 }
             }
 
-            // Pre-store the checksums as any future puts will overwrite them
-            for ( String extension : checksums.keySet() )
-            {
-                ChecksumObserver observer = checksums.get( extension );
-                sums.put( extension, observer.getActualChecksum() );
-            }
-
             // We do this in here so we can checksum the artifact metadata too, otherwise it could be metadata itself
-            for ( String extension : checksums.keySet() )
+            for ( int i = 0; i < checksumIds.length; i++ )
             {
                 // TODO: shouldn't need a file intermediatary - improve wagon to take a stream
                 File temp = File.createTempFile( "maven-artifact", null );
                 temp.deleteOnExit();
-                FileUtils.fileWrite( temp.getAbsolutePath(), "UTF-8", sums.get( extension ) );
+                FileUtils.fileWrite( temp.getAbsolutePath(), "UTF-8", checksumsObserver.getActualChecksum( i ) );
 
                 temporaryFiles.add( temp );
-                wagon.put( temp, remotePath + "." + extension );
+                wagon.put( temp, remotePath + "." + checksumIds[i] );
             }
         }
         catch ( ConnectionException e )
@@ -641,16 +586,6 @@ public void putRemoteFile( ArtifactRepository repository, File source, String re
             // MNG-4543
             cleanupTemporaryFiles( temporaryFiles );
 
-            // Remove every checksum listener
-            for ( String aCHECKSUM_IDS : CHECKSUM_IDS )
-            {
-                TransferListener checksumListener = checksums.get( aCHECKSUM_IDS );
-                if ( checksumListener != null )
-                {
-                    wagon.removeTransferListener( checksumListener );
-                }
-            }
-
             disconnectWagon( wagon );
 
             releaseWagon( protocol, wagon );
@@ -671,18 +606,49 @@ private void cleanupTemporaryFiles( List<File> files )
 
     }
 
-    private ChecksumObserver addChecksumObserver( Wagon wagon, String algorithm )
+    private String[] getChecksumIds()
+    {
+        String checksums = null;
+        if ( legacySupport.getRepositorySession() != null )
+        {
+            checksums = ConfigUtils.getString( legacySupport.getRepositorySession(), null, CONFIG_PROP_CHECKSUMS );
+        }
+        if ( StringUtils.isBlank( checksums ) )
+        {
+            return DEFAULT_CHECKSUM_IDS;
+        }
+
+        String[] checksumIds = StringUtils.split( checksums.toLowerCase( java.util.Locale.ENGLISH ), ", " );
+        return checksumIds.length > 0 ? checksumIds : DEFAULT_CHECKSUM_IDS;
+    }
+
+    private ChecksumsObserver addChecksumsObserver( Wagon wagon, String[] checksumIds )
         throws TransferFailedException
     {
+        String[] algorithms = new String[checksumIds.length];
+        for ( int i = 0; i < checksumIds.length; i++ )
+        {
+            algorithms[i] = checksumIds[i];
+            for ( int j = 0; j < CHECKSUM_IDS.length; j++ )
+            {
+                if ( CHECKSUM_IDS[j].equals( checksumIds[i] ) )
+                {
+                    algorithms[i] = CHECKSUM_ALGORITHMS[j];
+                    break;
+                }
+            }
+        }
+
         try
         {
-            ChecksumObserver checksumObserver = new ChecksumObserver( algorithm );
-            wagon.addTransferListener( checksumObserver );
-            return checksumObserver;
+            ChecksumsObserver checksumsObserver = new ChecksumsObserver( algorithms );
+            wagon.addTransferListener( checksumsObserver );
+            return checksumsObserver;
         }
         catch ( NoSuchAlgorithmException e )
         {
-            throw new TransferFailedException( "Unable to add checksum for unsupported algorithm " + algorithm, e );
+            throw new TransferFailedException( "Unable to add checksum for unsupported algorithm "
+                + StringUtils.join( algorithms, ", " ), e );
         }
     }
 
@@ -701,15 +667,59 @@ else if ( !ArtifactRepositoryPolicy.CHECKSUM_POLICY_IGNORE.equals( checksumPolic
         // otherwise it is ignore
     }
 
-    private void verifyChecksum( ChecksumObserver checksumObserver, File destination, File tempDestination,
-                                 String remotePath, String checksumFileExtension, Wagon wagon )
+    /**
+     * Verifies the downloaded file against the first available remote checksum file, in the order of the checksum ids.
+     *
+     * @return {@code true} if the checksum did not match on the first run and the download should be retried.
+     */
+    private boolean verifyChecksums( ChecksumsObserver checksumsObserver, String[] checksumIds, File destination,
+                                     File tempDestination, String remotePath, Wagon wagon, String checksumPolicy,
+                                     boolean firstRun )
+        throws TransferFailedException, AuthorizationException
+    {
+        for ( int i = 0; i < checksumIds.length; i++ )
+        {
+            try
+            {
+                verifyChecksum( checksumsObserver.getActualChecksum( i ), destination, tempDestination, remotePath,
+                                "." + checksumIds[i], wagon );
+                return false;
+            }
+            catch ( ChecksumFailedException e )
+            {
+                if ( firstRun )
+                {
+                    logger.warn( "*** CHECKSUM FAILED - " + e.getMessage() + " - RETRYING" );
+                    return true;
+                }
+                handleChecksumFailure( checksumPolicy, e.getMessage(), e.getCause() );
+                return false;
+            }
+            catch ( ResourceDoesNotExistException e )
+            {
+                // if this IS NOT a ChecksumFailedException, it was a problem with transfer/read of the checksum
+                // file...we'll try again with the next checksum.
+                if ( i + 1 < checksumIds.length )
+                {
+                    logger.debug( checksumIds[i].toUpperCase( java.util.Locale.ENGLISH ) + " not found, trying "
+                        + checksumIds[i + 1].toUpperCase( java.util.Locale.ENGLISH ) + ": " + e.getMessage() );
+                }
+                else
+                {
+                    // this was a failed transfer, and we don't want to retry.
+                    handleChecksumFailure( checksumPolicy, "Error retrieving checksum file for " + remotePath, e );
+                }
+            }
+        }
+        return false;
+    }
+
+    private void verifyChecksum( String actualChecksum, File destination, File tempDestination, String remotePath,
+                                 String checksumFileExtension, Wagon wagon )
         throws ResourceDoesNotExistException, TransferFailedException, AuthorizationException
     {
         try
         {
-            // grab it first, because it's about to change...
-            String actualChecksum = checksumObserver.getActualChecksum();
-
             File tempChecksumFile = new File( tempDestination + checksumFileExtension + ".tmp" );
             tempChecksumFile.deleteOnExit();
             wagon.get( remotePath + checksumFileExtension, tempChecksumFile );
@@ -0,0 +1,51 @@
+package org.apache.maven.repository.legacy;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+
+/**
+ * Writes the resolution tracking files batched by the {@link DefaultUpdateCheckManager} at the end of each session.
+ *
+ * @since 3.3.2
+ */
+@Component( role = AbstractMavenLifecycleParticipant.class, hint = "update-check-manager" )
+public class UpdateCheckManagerFlusher
+    extends AbstractMavenLifecycleParticipant
+{
+
+    @Requirement
+    private UpdateCheckManager updateCheckManager;
+
+    @Override
+    public void afterSessionEnd( MavenSession session )
+        throws MavenExecutionException
+    {
+        if ( updateCheckManager instanceof DefaultUpdateCheckManager )
+        {
+            ( (DefaultUpdateCheckManager) updateCheckManager ).flush();
+        }
+    }
+
+}
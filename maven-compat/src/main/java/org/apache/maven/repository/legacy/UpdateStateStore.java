@@ -0,0 +1,328 @@
+package org.apache.maven.repository.legacy;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Write-behind store for the resolution tracking files of the {@link DefaultUpdateCheckManager}. Updates are kept in
+ * memory and visible to subsequent reads right away, the touchfiles themselves are only rewritten when the store gets
+ * flushed, i.e. once per touchfile and session instead of once per update. Threads are coordinated by a fixed set of
+ * lock stripes chosen by the path of the touchfile, other processes by the file locks taken while reading and flushing.
+ *
+ * @since 3.3.2
+ */
+class UpdateStateStore
+{
+
+    private static final int STRIPES = 64;
+
+    /**
+     * The number of touchfiles with pending updates after which the store flushes eagerly to bound its memory use.
+     */
+    private static final int MAX_PENDING = 1024;
+
+    /**
+     * Marks a property that is to be removed from the touchfile, compared by identity.
+     */
+    private static final String REMOVED = new String( "<removed>" );
+
+    private final Object[] locks;
+
+    private final Map<File, Map<String, String>> pending = new ConcurrentHashMap<File, Map<String, String>>();
+
+    private final Logger logger;
+
+    public UpdateStateStore( Logger logger )
+    {
+        this.logger = logger;
+
+        locks = new Object[STRIPES];
+        for ( int i = 0; i < locks.length; i++ )
+        {
+            locks[i] = new Object();
+        }
+    }
+
+    private Object getLock( File touchfile )
+    {
+        int hash = touchfile.getAbsolutePath().hashCode();
+        hash ^= hash >>> 16;
+        return locks[hash & ( STRIPES - 1 )];
+    }
+
+    /**
+     * Sets the specified properties of the touchfile, a {@code null} value removes the property.
+     *
+     * @param touchfile The touchfile to update, must not be {@code null}.
+     * @param updates The properties to set, must not be {@code null}.
+     */
+    public void update( File touchfile, Map<String, String> updates )
+    {
+        synchronized ( getLock( touchfile ) )
+        {
+            Map<String, String> props = pending.get( touchfile );
+            if ( props == null )
+            {
+                props = new LinkedHashMap<String, String>();
+                pending.put( touchfile, props );
+            }
+            for ( Map.Entry<String, String> update : updates.entrySet() )
+            {
+                props.put( update.getKey(), ( update.getValue() != null ) ? update.getValue() : REMOVED );
+            }
+        }
+
+        if ( pending.size() > MAX_PENDING )
+        {
+            flush();
+        }
+    }
+
+    /**
+     * Deletes the touchfile and discards any pending updates of it.
+     *
+     * @param touchfile The touchfile to delete, must not be {@code null}.
+     */
+    public void delete( File touchfile )
+    {
+        synchronized ( getLock( touchfile ) )
+        {
+            pending.remove( touchfile );
+            touchfile.delete();
+        }
+    }
+
+    /**
+     * Reads the touchfile, including the updates which have not been flushed yet.
+     *
+     * @param touchfile The touchfile to read, must not be {@code null}.
+     * @return The properties of the touchfile or {@code null} if the touchfile is neither readable nor has pending
+     *         updates.
+     */
+    public Properties read( File touchfile )
+    {
+        synchronized ( getLock( touchfile ) )
+        {
+            Properties props = null;
+
+            if ( touchfile.canRead() )
+            {
+                props = load( touchfile );
+            }
+            else
+            {
+                logger.debug( "Skipped unreadable resolution tracking file " + touchfile );
+            }
+
+            Map<String, String> updates = pending.get( touchfile );
+            if ( updates != null )
+            {
+                if ( props == null )
+                {
+                    props = new Properties();
+                }
+                apply( props, updates );
+            }
+
+            return props;
+        }
+    }
+
+    /**
+     * Writes all pending updates to their touchfiles.
+     */
+    public void flush()
+    {
+        List<File> touchfiles = new ArrayList<File>( pending.keySet() );
+
+        for ( File touchfile : touchfiles )
+        {
+            synchronized ( getLock( touchfile ) )
+            {
+                Map<String, String> updates = pending.remove( touchfile );
+                if ( updates != null )
+                {
+                    write( touchfile, updates );
+                }
+            }
+        }
+    }
+
+    private static void apply( Properties props, Map<String, String> updates )
+    {
+        for ( Map.Entry<String, String> update : updates.entrySet() )
+        {
+            if ( update.getValue() == REMOVED )
+            {
+                props.remove( update.getKey() );
+            }
+            else
+            {
+                props.setProperty( update.getKey(), update.getValue() );
+            }
+        }
+    }
+
+    private Properties load( File touchfile )
+    {
+        FileLock lock = null;
+        FileChannel channel = null;
+        try
+        {
+            Properties props = new Properties();
+
+            FileInputStream stream = new FileInputStream( touchfile );
+            try
+            {
+                channel = stream.getChannel();
+                lock = channel.lock( 0, channel.size(), true );
+
+                logger.debug( "Reading resolution-state from: " + touchfile );
+                props.load( stream );
+
+                return props;
+            }
+            finally
+            {
+                IOUtil.close( stream );
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Failed to read resolution tracking file " + touchfile, e );
+
+            return null;
+        }
+        finally
+        {
+            release( lock, "shared", touchfile );
+            close( channel, touchfile );
+        }
+    }
+
+    private void write( File touchfile, Map<String, String> updates )
+    {
+        if ( !touchfile.getParentFile().exists() && !touchfile.getParentFile().mkdirs() )
+        {
+            logger.debug( "Failed to create directory: " + touchfile.getParent()
+                + " for tracking artifact metadata resolution." );
+            return;
+        }
+
+        FileChannel channel = null;
+        FileLock lock = null;
+        try
+        {
+            Properties props = new Properties();
+
+            channel = new RandomAccessFile( touchfile, "rw" ).getChannel();
+            lock = channel.lock( 0, Long.MAX_VALUE, false );
+
+            if ( channel.size() > 0 )
+            {
+                logger.debug( "Reading resolution-state from: " + touchfile );
+                ByteBuffer buffer = ByteBuffer.allocate( (int) channel.size() );
+                while ( buffer.hasRemaining() && channel.read( buffer ) >= 0 )
+                {
+                    // keep reading
+                }
+
+                props.load( new ByteArrayInputStream( buffer.array(), 0, buffer.position() ) );
+            }
+
+            apply( props, updates );
+
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+            logger.debug( "Writing resolution-state to: " + touchfile );
+            props.store( stream, "Last modified on: " + new Date() );
+
+            byte[] data = stream.toByteArray();
+            ByteBuffer buffer = ByteBuffer.wrap( data );
+
+            channel.position( 0 );
+            while ( buffer.hasRemaining() )
+            {
+                channel.write( buffer );
+            }
+            channel.truncate( data.length );
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Failed to record lastUpdated information for resolution.\nFile: " + touchfile.toString()
+                + "; keys: " + updates.keySet(), e );
+        }
+        finally
+        {
+            release( lock, "exclusive", touchfile );
+            close( channel, touchfile );
+        }
+    }
+
+    private void release( FileLock lock, String type, File touchfile )
+    {
+        if ( lock != null )
+        {
+            try
+            {
+                lock.release();
+            }
+            catch ( IOException e )
+            {
+                logger.debug( "Error releasing " + type + " lock for resolution tracking file: " + touchfile, e );
+            }
+        }
+    }
+
+    private void close( FileChannel channel, File touchfile )
+    {
+        if ( channel != null )
+        {
+            try
+            {
+                channel.close();
+            }
+            catch ( IOException e )
+            {
+                logger.debug( "Error closing FileChannel for resolution tracking file: " + touchfile, e );
+            }
+        }
+    }
+
+}
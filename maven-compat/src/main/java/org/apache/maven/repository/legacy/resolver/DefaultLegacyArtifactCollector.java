@@ -208,6 +208,16 @@ public ArtifactResolutionResult collect( Set<Artifact> artifacts, Artifact origi
      */
     private ManagedVersionMap getManagedVersionsMap( Artifact originatingArtifact, Map managedVersions )
     {
+        if ( ( managedVersions != null ) && !( managedVersions instanceof ManagedVersionMap ) )
+        {
+            ManagedVersionMapCache cache = ManagedVersionMapCache.get( legacySupport.getRepositorySession() );
+            if ( cache != null )
+            {
+                // the derived map is never modified during resolution so the collections of a session can share it
+                return cache.get( managedVersions, originatingArtifact.getDependencyConflictId() );
+            }
+        }
+
         ManagedVersionMap versionMap;
         if ( ( managedVersions != null ) && ( managedVersions instanceof ManagedVersionMap ) )
         {
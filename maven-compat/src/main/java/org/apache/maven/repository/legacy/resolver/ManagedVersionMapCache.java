@@ -0,0 +1,163 @@
+package org.apache.maven.repository.legacy.resolver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.versioning.ManagedVersionMap;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Reuses the managed version maps derived from the dependency management of a project across the collections of a
+ * session. Legacy plugins tend to pass the same managed versions, e.g. {@code MavenProject.getManagedVersionMap()},
+ * to every call of {@code resolveTransitively()}, which would otherwise copy the whole dependency management each
+ * time. A cached map is only reused while the managed versions it was derived from still hold the very same
+ * artifacts, i.e. its fingerprint is the identity of the managed versions and of each of their artifacts.
+ *
+ * @since 3.3.2
+ */
+final class ManagedVersionMapCache
+{
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+
+    /**
+     * Gets the cache of the specified session.
+     *
+     * @param session The repository system session, may be {@code null}.
+     * @return The cache or {@code null} if the session cannot hold one.
+     */
+    public static ManagedVersionMapCache get( RepositorySystemSession session )
+    {
+        SessionData data = ( session != null ) ? session.getData() : null;
+        if ( data == null )
+        {
+            return null;
+        }
+
+        Object cache = data.get( ManagedVersionMapCache.class );
+        while ( cache == null )
+        {
+            cache = new ManagedVersionMapCache();
+            if ( !data.set( ManagedVersionMapCache.class, null, cache ) )
+            {
+                cache = data.get( ManagedVersionMapCache.class );
+            }
+        }
+        return (ManagedVersionMapCache) cache;
+    }
+
+    /**
+     * Gets the managed version map for the specified managed versions without the originating artifact.
+     *
+     * @param managedVersions The managed versions, must not be {@code null}.
+     * @param originatingArtifact The conflict id of the originating artifact, must not be {@code null}.
+     * @return The managed version map, never {@code null}. Callers must not modify the map.
+     */
+    public ManagedVersionMap get( Map<String, Artifact> managedVersions, String originatingArtifact )
+    {
+        Key key = new Key( managedVersions, originatingArtifact );
+
+        Entry entry = entries.get( key );
+        if ( entry == null || !entry.isCurrent( managedVersions, originatingArtifact ) )
+        {
+            entry = new Entry( managedVersions, originatingArtifact );
+            entries.put( key, entry );
+        }
+        return entry.versionMap;
+    }
+
+    private static final class Key
+    {
+
+        private final Map<?, ?> managedVersions;
+
+        private final String originatingArtifact;
+
+        private final int hashCode;
+
+        Key( Map<?, ?> managedVersions, String originatingArtifact )
+        {
+            this.managedVersions = managedVersions;
+            this.originatingArtifact = originatingArtifact;
+            hashCode = System.identityHashCode( managedVersions ) * 31 + originatingArtifact.hashCode();
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof Key ) )
+            {
+                return false;
+            }
+            Key that = (Key) obj;
+            return managedVersions == that.managedVersions && originatingArtifact.equals( that.originatingArtifact );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+    }
+
+    private static final class Entry
+    {
+
+        final ManagedVersionMap versionMap;
+
+        final Artifact excluded;
+
+        Entry( Map<String, Artifact> managedVersions, String originatingArtifact )
+        {
+            versionMap = new ManagedVersionMap( managedVersions );
+            excluded = versionMap.remove( originatingArtifact );
+        }
+
+        boolean isCurrent( Map<String, Artifact> managedVersions, String originatingArtifact )
+        {
+            if ( managedVersions.size() != versionMap.size() + ( ( excluded != null ) ? 1 : 0 ) )
+            {
+                return false;
+            }
+            for ( Map.Entry<String, Artifact> managed : managedVersions.entrySet() )
+            {
+                Artifact cached =
+                    originatingArtifact.equals( managed.getKey() ) ? excluded : versionMap.get( managed.getKey() );
+                if ( cached != managed.getValue() )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
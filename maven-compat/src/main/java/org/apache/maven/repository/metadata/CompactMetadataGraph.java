@@ -0,0 +1,230 @@
+package org.apache.maven.repository.metadata;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only, int-indexed snapshot of a {@link MetadataGraph}. Vertices are numbered in the iteration order of
+ * {@link MetadataGraph#getVertices()} and the incident and excident edges are kept in compressed sparse row arrays, so
+ * graph walks need neither vertex lookups nor list scans.
+ *
+ * @since 3.3.2
+ */
+public final class CompactMetadataGraph
+{
+    private final MetadataGraphVertex[] vertices;
+
+    private final int entry;
+
+    private final int[] inOffsets;
+
+    private final int[] inSources;
+
+    private final MetadataGraphEdge[] inEdges;
+
+    private final int[] outOffsets;
+
+    private final int[] outTargets;
+
+    private final MetadataGraphEdge[] outEdges;
+
+    private final Map<MetadataGraphVertex, Integer> ids;
+
+    public CompactMetadataGraph( MetadataGraph graph )
+    {
+        int n = ( graph.getVertices() != null ) ? graph.getVertices().size() : 0;
+
+        vertices = ( n > 0 ) ? graph.getVertices().toArray( new MetadataGraphVertex[n] ) : new MetadataGraphVertex[0];
+
+        ids = new IdentityHashMap<MetadataGraphVertex, Integer>( n * 2 );
+        for ( int i = 0; i < n; i++ )
+        {
+            ids.put( vertices[i], i );
+        }
+
+        entry = getId( graph.getEntry() );
+
+        inOffsets = new int[n + 1];
+        outOffsets = new int[n + 1];
+        for ( int i = 0; i < n; i++ )
+        {
+            inOffsets[i + 1] = inOffsets[i] + size( graph.getIncidentEdges( vertices[i] ) );
+            outOffsets[i + 1] = outOffsets[i] + size( graph.getExcidentEdges( vertices[i] ) );
+        }
+
+        inSources = new int[inOffsets[n]];
+        inEdges = new MetadataGraphEdge[inOffsets[n]];
+        outTargets = new int[outOffsets[n]];
+        outEdges = new MetadataGraphEdge[outOffsets[n]];
+        for ( int i = 0; i < n; i++ )
+        {
+            fill( graph.getIncidentEdges( vertices[i] ), inOffsets[i], inSources, inEdges, true );
+            fill( graph.getExcidentEdges( vertices[i] ), outOffsets[i], outTargets, outEdges, false );
+        }
+    }
+
+    private static int size( List<MetadataGraphEdge> edges )
+    {
+        return ( edges != null ) ? edges.size() : 0;
+    }
+
+    private void fill( List<MetadataGraphEdge> edges, int offset, int[] adjacent, MetadataGraphEdge[] adjacentEdges,
+                       boolean incident )
+    {
+        if ( edges == null )
+        {
+            return;
+        }
+
+        int i = offset;
+        for ( MetadataGraphEdge e : edges )
+        {
+            adjacent[i] = getId( incident ? e.getSource() : e.getTarget() );
+            adjacentEdges[i] = e;
+            i++;
+        }
+    }
+
+    /**
+     * Gets the id of the specified vertex.
+     *
+     * @param vertex The vertex to look up, may be {@code null}.
+     * @return The id of the vertex or {@code -1} if the vertex is not part of the graph.
+     */
+    public int getId( MetadataGraphVertex vertex )
+    {
+        if ( vertex == null )
+        {
+            return -1;
+        }
+
+        Integer id = ids.get( vertex );
+        if ( id != null )
+        {
+            return id;
+        }
+
+        // edges may refer to a vertex equal to but not identical with the one kept in the graph
+        int idx = Arrays.binarySearch( vertices, vertex );
+        if ( idx >= 0 && vertices[idx].equals( vertex ) )
+        {
+            ids.put( vertex, idx );
+            return idx;
+        }
+
+        return -1;
+    }
+
+    public int getVertexCount()
+    {
+        return vertices.length;
+    }
+
+    public MetadataGraphVertex getVertex( int id )
+    {
+        return vertices[id];
+    }
+
+    /**
+     * @return The id of the entry vertex or {@code -1} if the graph has no entry.
+     */
+    public int getEntry()
+    {
+        return entry;
+    }
+
+    public int getIncidentEdgeCount( int id )
+    {
+        return inOffsets[id + 1] - inOffsets[id];
+    }
+
+    public MetadataGraphEdge getIncidentEdge( int id, int index )
+    {
+        return inEdges[inOffsets[id] + index];
+    }
+
+    /**
+     * @return The id of the source vertex of the incident edge or {@code -1} if the source is not part of the graph.
+     */
+    public int getIncidentSource( int id, int index )
+    {
+        return inSources[inOffsets[id] + index];
+    }
+
+    public int getExcidentEdgeCount( int id )
+    {
+        return outOffsets[id + 1] - outOffsets[id];
+    }
+
+    public MetadataGraphEdge getExcidentEdge( int id, int index )
+    {
+        return outEdges[outOffsets[id] + index];
+    }
+
+    /**
+     * @return The id of the target vertex of the excident edge or {@code -1} if the target is not part of the graph.
+     */
+    public int getExcidentTarget( int id, int index )
+    {
+        return outTargets[outOffsets[id] + index];
+    }
+
+    /**
+     * Marks all vertices reachable from the specified vertex by following the excident edges, in time linear to the
+     * size of the graph.
+     *
+     * @param id The id of the vertex to start from.
+     * @return The reachability flags, indexed by vertex id, never {@code null}.
+     */
+    public boolean[] getReachable( int id )
+    {
+        boolean[] reachable = new boolean[vertices.length];
+        if ( id < 0 )
+        {
+            return reachable;
+        }
+
+        int[] stack = new int[vertices.length];
+        int top = 0;
+
+        reachable[id] = true;
+        stack[top++] = id;
+        while ( top > 0 )
+        {
+            int v = stack[--top];
+            for ( int i = outOffsets[v]; i < outOffsets[v + 1]; i++ )
+            {
+                int t = outTargets[i];
+                if ( t >= 0 && !reachable[t] )
+                {
+                    reachable[t] = true;
+                    stack[top++] = t;
+                }
+            }
+        }
+
+        return reachable;
+    }
+
+}
@@ -19,10 +19,8 @@
  * under the License.
  */
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.List;
 
 import org.apache.maven.artifact.ArtifactScopeEnum;
 import org.codehaus.plexus.component.annotations.Component;
@@ -89,65 +87,61 @@ public ClasspathContainer transform( MetadataGraph dirtyGraph, ArtifactScopeEnum
      */
     private class ClasspathGraphVisitor
     {
-        MetadataGraph graph;
+        CompactMetadataGraph graph;
 
         ClasspathContainer cpc;
 
-        List<MetadataGraphVertex> visited;
+        boolean[] visited;
 
         // -----------------------------------------------------------------------
         protected ClasspathGraphVisitor( MetadataGraph cleanGraph, ClasspathContainer cpc )
         {
             this.cpc = cpc;
-            this.graph = cleanGraph;
+            this.graph = cleanGraph.toCompactGraph();
 
-            visited = new ArrayList<MetadataGraphVertex>( cleanGraph.getVertices().size() );
+            visited = new boolean[graph.getVertexCount()];
         }
 
         // -----------------------------------------------------------------------
-        protected void visit( MetadataGraphVertex node ) // , String version, String artifactUri )
+        protected void visit( MetadataGraphVertex node )
         {
-            ArtifactMetadata md = node.getMd();
-            if ( visited.contains( node ) )
+            visit( graph.getId( node ), node );
+        }
+
+        // -----------------------------------------------------------------------
+        private void visit( int id, MetadataGraphVertex node )
+        {
+            if ( id >= 0 )
             {
-                return;
+                if ( visited[id] )
+                {
+                    return;
+                }
+                visited[id] = true;
             }
 
-            cpc.add( md );
-//
-//            TreeSet<MetadataGraphEdge> deps = new TreeSet<MetadataGraphEdge>(
-//                        new Comparator<MetadataGraphEdge>()
-//                        {
-//                            public int compare( MetadataGraphEdge e1
-//                                              , MetadataGraphEdge e2
-//                                              )
-//                            {
-//                                if( e1.getDepth() == e2.getDepth() )
-//                                {
-//                                    if( e2.getPomOrder() == e1.getPomOrder() )
-//                                        return e1.getTarget().toString().compareTo(e2.getTarget().toString() );
-//
-//                                    return e2.getPomOrder() - e1.getPomOrder();
-//                                }
-//
-//                                return e2.getDepth() - e1.getDepth();
-//                            }
-//                        }
-//                    );
-
-            List<MetadataGraphEdge> exits = graph.getExcidentEdges( node );
-
-            if ( exits != null && exits.size() > 0 )
+            cpc.add( node.getMd() );
+
+            int count = ( id >= 0 ) ? graph.getExcidentEdgeCount( id ) : 0;
+
+            if ( count > 0 )
             {
-                MetadataGraphEdge[] sortedExits = exits.toArray( new MetadataGraphEdge[exits.size()] );
+                Integer[] sortedExits = new Integer[count];
+                for ( int i = 0; i < count; i++ )
+                {
+                    sortedExits[i] = i;
+                }
+                final int source = id;
                 Arrays.sort( sortedExits
                         ,
-                        new Comparator<MetadataGraphEdge>()
+                        new Comparator<Integer>()
                         {
-                            public int compare( MetadataGraphEdge e1
-                                            , MetadataGraphEdge e2
+                            public int compare( Integer i1
+                                            , Integer i2
                                             )
                             {
+                                MetadataGraphEdge e1 = graph.getExcidentEdge( source, i1 );
+                                MetadataGraphEdge e2 = graph.getExcidentEdge( source, i2 );
                                 if ( e1.getDepth() == e2.getDepth() )
                                 {
                                     if ( e2.getPomOrder() == e1.getPomOrder() )
@@ -162,12 +156,13 @@ public int compare( MetadataGraphEdge e1
                         }
                 );
 
-                for ( MetadataGraphEdge e : sortedExits )
+                for ( int i : sortedExits )
                 {
+                    MetadataGraphEdge e = graph.getExcidentEdge( id, i );
                     MetadataGraphVertex targetNode = e.getTarget();
                     targetNode.getMd().setArtifactScope( e.getScope() );
                     targetNode.getMd().setWhy( e.getSource().getMd().toString() );
-                    visit( targetNode );
+                    visit( graph.getExcidentTarget( id, i ), targetNode );
                 }
             }
 
@@ -19,8 +19,6 @@
  * under the License.
  */
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.TreeSet;
 
 import org.apache.maven.artifact.ArtifactScopeEnum;
@@ -94,10 +92,13 @@ public MetadataGraph resolveConflicts( MetadataGraph graph, ArtifactScopeEnum sc
 
             res.setScope( requestedScope );
 
-            for ( MetadataGraphVertex v : vertices )
+            // single linear pass over the int-indexed incident edges of the dirty graph
+            final CompactMetadataGraph cg = graph.toCompactGraph();
+
+            for ( int id = 0; id < cg.getVertexCount(); id++ )
             {
-                final List<MetadataGraphEdge> ins = graph.getIncidentEdges( v );
-                final MetadataGraphEdge edge = cleanEdges( v, ins, requestedScope );
+                final MetadataGraphVertex v = cg.getVertex( id );
+                final MetadataGraphEdge edge = cleanEdges( cg, id, requestedScope );
 
                 if ( edge == null )
                 { // no edges - don't need this vertex any more
@@ -106,18 +107,9 @@ public MetadataGraph resolveConflicts( MetadataGraph graph, ArtifactScopeEnum sc
                         // currently processing the entry point - it should not have any entry incident edges
                         res.getEntry().getMd().setWhy( "This is a graph entry point. No links." );
                     }
-                    else
-                    {
-                        // System.out.println("--->"+v.getMd().toDomainString()
-                        // +" has been terminated on this entry set\n-------------------\n"
-                        // +ins
-                        // +"\n-------------------\n"
-                        // );
-                    }
                 }
                 else
                 {
-                    // System.out.println("+++>"+v.getMd().toDomainString()+" still has "+edge.toString() );
                     // fill in domain md with actual version data
                     ArtifactMetadata md = v.getMd();
                     ArtifactMetadata newMd =
@@ -153,80 +145,31 @@ private MetadataGraph findLinkedSubgraph( MetadataGraph g )
             return g;
         }
 
-        List<MetadataGraphVertex> visited = new ArrayList<MetadataGraphVertex>( g.getVertices().size() );
-        visit( g.getEntry(), visited, g );
-
-        List<MetadataGraphVertex> dropList = new ArrayList<MetadataGraphVertex>( g.getVertices().size() );
+        CompactMetadataGraph cg = g.toCompactGraph();
+        boolean[] visited = cg.getReachable( cg.getEntry() );
 
-        // collect drop list
-        for ( MetadataGraphVertex v : g.getVertices() )
+        // now - drop unreachable vertices
+        TreeSet<MetadataGraphVertex> vertices = g.getVertices();
+        for ( int id = 0; id < visited.length; id++ )
         {
-            if ( !visited.contains( v ) )
+            if ( !visited[id] )
             {
-                dropList.add( v );
+                vertices.remove( cg.getVertex( id ) );
             }
         }
 
-        if ( dropList.size() < 1 )
-        {
-            return g;
-        }
-
-        // now - drop vertices
-        TreeSet<MetadataGraphVertex> vertices = g.getVertices();
-        for ( MetadataGraphVertex v : dropList )
-        {
-            vertices.remove( v );
-        }
-
         return g;
     }
 
     // -------------------------------------------------------------------------------------
-    private void visit( MetadataGraphVertex from, List<MetadataGraphVertex> visited, MetadataGraph graph )
-    {
-        if ( visited.contains( from ) )
-        {
-            return;
-        }
-
-        visited.add( from );
-
-        List<MetadataGraphEdge> exitList = graph.getExcidentEdges( from );
-        // String s = "|---> "+from.getMd().toString()+" - "+(exitList == null ? -1 : exitList.size()) + " exit links";
-        if ( exitList != null && exitList.size() > 0 )
-        {
-            for ( MetadataGraphEdge e : graph.getExcidentEdges( from ) )
-            {
-                visit( e.getTarget(), visited, graph );
-            }
-        }
-    }
-
-    // -------------------------------------------------------------------------------------
-    private MetadataGraphEdge cleanEdges( MetadataGraphVertex v, List<MetadataGraphEdge> edges,
-                                          ArtifactScopeEnum scope )
+    private MetadataGraphEdge cleanEdges( CompactMetadataGraph cg, int id, ArtifactScopeEnum scope )
     {
-        if ( edges == null || edges.isEmpty() )
-        {
-            return null;
-        }
-
-        if ( edges.size() == 1 )
-        {
-            MetadataGraphEdge e = edges.get( 0 );
-            if ( scope.encloses( e.getScope() ) )
-            {
-                return e;
-            }
-
-            return null;
-        }
-
         MetadataGraphEdge res = null;
 
-        for ( MetadataGraphEdge e : edges )
+        for ( int i = 0, n = cg.getIncidentEdgeCount( id ); i < n; i++ )
         {
+            MetadataGraphEdge e = cg.getIncidentEdge( id, i );
+
             if ( !scope.encloses( e.getScope() ) )
             {
                 continue;
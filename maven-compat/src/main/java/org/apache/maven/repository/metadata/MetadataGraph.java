@@ -178,12 +178,11 @@ public MetadataGraphVertex findVertex( ArtifactMetadata md )
         v.setCompareVersion( versionedVertices );
         v.setCompareScope( scopedVertices );
 
-        for ( MetadataGraphVertex gv : vertices )
+        // the vertices are sorted by the same criteria, no need to scan them all
+        MetadataGraphVertex gv = vertices.ceiling( v );
+        if ( gv != null && gv.equals( v ) )
         {
-            if ( gv.equals( v ) )
-            {
-                return gv;
-            }
+            return gv;
         }
 
         return null;
@@ -415,6 +414,18 @@ public TreeSet<MetadataGraphVertex> getVertices()
         return vertices;
     }
 
+    /**
+     * Creates an int-indexed snapshot of this graph for linear-time traversals. The snapshot does not reflect later
+     * modifications of this graph.
+     *
+     * @return The compact representation of this graph, never {@code null}.
+     * @since 3.3.2
+     */
+    public CompactMetadataGraph toCompactGraph()
+    {
+        return new CompactMetadataGraph( this );
+    }
+
     public List<MetadataGraphEdge> getIncidentEdges( MetadataGraphVertex vertex )
     {
         checkEdges();
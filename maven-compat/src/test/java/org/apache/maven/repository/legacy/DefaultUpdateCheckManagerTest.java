@@ -216,6 +216,38 @@ public void testMissingMetadata() throws Exception
         assertNotNull( updateCheckManager.readLastUpdated( touchFile, updateCheckManager.getMetadataKey( remoteRepository, file ) ) );
     }
 
+    public void testTouchfileWrittenOnFlush() throws Exception
+    {
+        ArtifactRepository remoteRepository = remoteRepository();
+
+        ArtifactRepository localRepository = localRepository();
+
+        Artifact a = createArtifact( "a", "0.0.2-SNAPSHOT" );
+        File file = new File( localRepository.getBasedir(),
+                              localRepository.pathOf( a ) );
+        file.delete();
+        a.setFile( file );
+
+        File touchFile = updateCheckManager.getTouchfile( a );
+        touchFile.delete();
+
+        String key = updateCheckManager.getRepositoryKey( remoteRepository );
+
+        updateCheckManager.touch( a, remoteRepository, "failed" );
+        updateCheckManager.touch( a, remoteRepository, null );
+
+        assertFalse( touchFile.exists() );
+        assertNull( updateCheckManager.getError( a, remoteRepository ) );
+
+        updateCheckManager.flush();
+
+        assertTrue( touchFile.exists() );
+
+        DefaultUpdateCheckManager other = new DefaultUpdateCheckManager( new ConsoleLogger( Logger.LEVEL_DEBUG, "test" ) );
+        assertNotNull( other.readLastUpdated( touchFile, key ) );
+        assertNull( other.getError( a, remoteRepository ) );
+    }
+
     public void testArtifactTouchFileName() throws Exception
     {
         ArtifactFactory artifactFactory = (ArtifactFactory) lookup( ArtifactFactory.ROLE );
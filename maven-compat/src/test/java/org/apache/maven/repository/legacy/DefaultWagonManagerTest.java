@@ -43,6 +43,7 @@
 import org.apache.maven.wagon.events.TransferListener;
 import org.apache.maven.wagon.observers.AbstractTransferListener;
 import org.apache.maven.wagon.observers.Debug;
+import org.apache.maven.wagon.repository.Repository;
 import org.codehaus.plexus.PlexusTestCase;
 import org.codehaus.plexus.util.FileUtils;
 
@@ -376,6 +377,66 @@ public void xtestChecksumVerification()
         }
     }
 
+    public void testChecksumsObserverDigestsAllAlgorithms()
+        throws Exception
+    {
+        StringWagon wagon = (StringWagon) wagonManager.getWagon( "string" );
+        wagon.clearExpectedContent();
+        wagon.addExpectedContent( "path", "lower-case-checksum" );
+
+        ChecksumsObserver observer = new ChecksumsObserver( "MD5", "SHA-1", "SHA-256" );
+        wagon.addTransferListener( observer );
+        wagon.connect( new Repository( "id", "string://url" ) );
+        try
+        {
+            wagon.get( "path", getTestFile( "target/test-data/checksums-observer" ) );
+        }
+        finally
+        {
+            wagon.disconnect();
+            wagon.removeTransferListener( observer );
+        }
+
+        assertEquals( "50b2cf50a103a965efac62b983035cac", observer.getActualChecksum( 0 ) );
+        assertEquals( "2a25dc564a3b34f68237fc849066cbc7bb7a36a1", observer.getActualChecksum( 1 ) );
+        assertEquals( "9aaaaf424631941d43de3b0cae90354a1ea0724f75ae6f13a14ae7bdac23eb80",
+                      observer.getActualChecksum( 2 ) );
+    }
+
+    public void testChecksumVerificationFallsBackToNextChecksum()
+        throws Exception
+    {
+        ArtifactRepositoryPolicy policy = new ArtifactRepositoryPolicy( true, ArtifactRepositoryPolicy.UPDATE_POLICY_ALWAYS, ArtifactRepositoryPolicy.CHECKSUM_POLICY_FAIL );
+
+        ArtifactRepository repo = artifactRepositoryFactory.createArtifactRepository( "id", "string://url", new ArtifactRepositoryLayoutStub(), policy, policy );
+
+        File destination = getTestFile( "target/test-data/checksum-fallback/sample-art" );
+
+        StringWagon wagon = (StringWagon) wagonManager.getWagon( "string" );
+
+        wagon.clearExpectedContent();
+        wagon.addExpectedContent( "path", "lower-case-checksum" );
+        wagon.addExpectedContent( "path.md5", "50B2CF50A103A965EFAC62B983035CAC" );
+
+        wagonManager.getRemoteFile( repo, destination, "path", null, policy.getChecksumPolicy(), true );
+        assertEquals( "lower-case-checksum", FileUtils.fileRead( destination, "UTF-8" ) );
+
+        wagon.clearExpectedContent();
+        wagon.addExpectedContent( "path", "lower-case-checksum" );
+        wagon.addExpectedContent( "path.sha1", "b7bb97d7d0b9244398d9b47296907f73313663e6" );
+        wagon.addExpectedContent( "path.md5", "50b2cf50a103a965efac62b983035cac" );
+
+        try
+        {
+            wagonManager.getRemoteFile( repo, destination, "path", null, policy.getChecksumPolicy(), true );
+            fail( "Checksum verification did not fail" );
+        }
+        catch ( ChecksumFailedException e )
+        {
+            // expected, the first available checksum is authoritative
+        }
+    }
+
     public void testPerLookupInstantiation()
         throws Exception
     {
@@ -47,8 +47,13 @@
 import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
 import org.apache.maven.artifact.versioning.OverConstrainedVersionException;
 import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.LegacySupport;
 import org.apache.maven.repository.legacy.metadata.MetadataResolutionRequest;
 import org.codehaus.plexus.PlexusTestCase;
+import org.eclipse.aether.DefaultRepositorySystemSession;
 
 /**
  * Test the default artifact collector.
@@ -395,6 +400,33 @@ public void testResolveManagedVersion()
         assertEquals( "Check artifact list", createSet( new Object[] { a.artifact, modifiedB } ), res.getArtifacts() );
     }
 
+    public void testResolveManagedVersionsSharedByCollectionsOfSession()
+        throws Exception
+    {
+        LegacySupport legacySupport = lookup( LegacySupport.class );
+        legacySupport.setSession( new MavenSession( getContainer(), new DefaultRepositorySystemSession(),
+                                                    new DefaultMavenExecutionRequest(),
+                                                    new DefaultMavenExecutionResult() ) );
+
+        ArtifactSpec a = createArtifactSpec( "a", "1.0" );
+        a.addDependency( "b", "3.0", Artifact.SCOPE_RUNTIME );
+
+        Map<String, Artifact> managedVersions = new HashMap<String, Artifact>();
+        managedVersions.put( "test:b:jar", createArtifactSpec( "b", "5.0" ).artifact );
+        managedVersions.put( "test:project:jar", createArtifactSpec( "project", "2.0" ).artifact );
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            ArtifactResolutionResult res = collect( a, managedVersions );
+            assertEquals( "5.0", getArtifact( "b", res.getArtifacts() ).getVersion() );
+            assertEquals( "1.0", projectArtifact.artifact.getVersion() );
+        }
+
+        managedVersions.put( "test:b:jar", createArtifactSpec( "b", "6.0" ).artifact );
+        ArtifactResolutionResult res = collect( a, managedVersions );
+        assertEquals( "6.0", getArtifact( "b", res.getArtifacts() ).getVersion() );
+    }
+
     public void testCollectChangesVersionOfOriginatingArtifactIfInDependencyManagementHasDifferentVersion()
         throws ArtifactResolutionException, InvalidVersionSpecificationException
     {
@@ -761,6 +793,12 @@ private ArtifactResolutionResult collect( ArtifactSpec a, Artifact managedVersio
         throws ArtifactResolutionException
     {
         Map managedVersions = Collections.singletonMap( managedVersion.getDependencyConflictId(), managedVersion );
+        return collect( a, managedVersions );
+    }
+
+    private ArtifactResolutionResult collect( ArtifactSpec a, Map managedVersions )
+        throws ArtifactResolutionException
+    {
         return artifactCollector.collect( Collections.singleton( a.artifact ), projectArtifact.artifact,
                                           managedVersions, null, null, source, null, Collections.EMPTY_LIST, null );
     }
@@ -0,0 +1,97 @@
+package org.apache.maven.repository.legacy.resolver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.ManagedVersionMap;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+
+import junit.framework.TestCase;
+
+public class ManagedVersionMapCacheTest
+    extends TestCase
+{
+
+    private ManagedVersionMapCache cache;
+
+    private Map<String, Artifact> managedVersions;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        cache = ManagedVersionMapCache.get( new DefaultRepositorySystemSession() );
+
+        managedVersions = new HashMap<String, Artifact>();
+        put( "a", "1.0" );
+        put( "b", "1.0" );
+    }
+
+    private void put( String artifactId, String version )
+    {
+        Artifact artifact =
+            new DefaultArtifact( "test", artifactId, version, null, "jar", null, new DefaultArtifactHandler( "jar" ) );
+        managedVersions.put( artifact.getDependencyConflictId(), artifact );
+    }
+
+    public void testCachePerSession()
+    {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        assertSame( ManagedVersionMapCache.get( session ), ManagedVersionMapCache.get( session ) );
+        assertNull( ManagedVersionMapCache.get( null ) );
+    }
+
+    public void testReuseForUnchangedManagedVersions()
+    {
+        ManagedVersionMap versionMap = cache.get( managedVersions, "test:a:jar" );
+        assertEquals( 1, versionMap.size() );
+        assertSame( managedVersions.get( "test:b:jar" ), versionMap.get( "test:b:jar" ) );
+
+        assertSame( versionMap, cache.get( managedVersions, "test:a:jar" ) );
+        assertNotSame( versionMap, cache.get( managedVersions, "test:b:jar" ) );
+        assertNotSame( versionMap, cache.get( new HashMap<String, Artifact>( managedVersions ), "test:a:jar" ) );
+    }
+
+    public void testRefreshAfterChangeOfManagedVersions()
+    {
+        ManagedVersionMap versionMap = cache.get( managedVersions, "test:a:jar" );
+
+        put( "b", "2.0" );
+        ManagedVersionMap changed = cache.get( managedVersions, "test:a:jar" );
+        assertNotSame( versionMap, changed );
+        assertEquals( "2.0", changed.get( "test:b:jar" ).getVersion() );
+
+        put( "a", "2.0" );
+        assertNotSame( changed, cache.get( managedVersions, "test:a:jar" ) );
+
+        put( "c", "1.0" );
+        changed = cache.get( managedVersions, "test:a:jar" );
+        assertEquals( 2, changed.size() );
+        assertTrue( changed.containsKey( "test:c:jar" ) );
+    }
+
+}
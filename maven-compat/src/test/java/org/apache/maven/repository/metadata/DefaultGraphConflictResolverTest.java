@@ -149,5 +149,44 @@ public void testTestResolution()
     	assertEquals( "wrong edge v3-v4 in the resulting graph after resolver", "1.2", res.getIncidentEdges(v4).get(0).getVersion() );
     }
     //------------------------------------------------------------------------------------------
+    public void testLargeGraphResolution()
+    throws Exception
+    {
+        // size of the dependency trees of big Spring/Hadoop based applications
+        final int count = 12000;
+
+        MetadataGraph large = new MetadataGraph( count, 2 * count );
+        MetadataGraphVertex[] vs = new MetadataGraphVertex[count];
+        int[] depths = new int[count];
+
+        vs[0] = large.addVertex( new ArtifactMetadata( "g", "a0", "1.0" ) );
+        large.setEntry( vs[0] );
+        for ( int i = 1; i < count; i++ )
+        {
+            vs[i] = large.addVertex( new ArtifactMetadata( "g", "a" + i, "1.0" ) );
+
+            int parent = ( i - 1 ) / 4;
+            depths[i] = depths[parent] + 1;
+            // edges are distinguished by version, scope and depth only
+            large.addEdge( vs[parent], vs[i], new MetadataGraphEdge( "2." + i, true, null, null, depths[i], 1 ) );
+
+            // a farther, conflicting occurrence of the same artifact
+            if ( i - 1 != parent )
+            {
+                large.addEdge( vs[i - 1], vs[i], new MetadataGraphEdge( "1." + i, true, null, null, depths[i] + 1, 2 ) );
+            }
+        }
+
+        MetadataGraph res = resolver.resolveConflicts( large, ArtifactScopeEnum.compile );
+
+        assertNotNull( "null graph after resolver", res );
+        assertEquals( "wrong # of vertices in the resulting graph after resolver", count, res.getVertices().size() );
+        for ( int i = 1; i < count; i++ )
+        {
+            assertEquals( "wrong # of incident edges for " + vs[i], 1, res.getIncidentEdges( vs[i] ).size() );
+            assertEquals( "wrong nearest version for " + vs[i], "2." + i, res.getIncidentEdges( vs[i] ).get( 0 ).getVersion() );
+        }
+    }
+    //------------------------------------------------------------------------------------------
     //------------------------------------------------------------------------------------------
 }
@@ -40,6 +40,7 @@
 import org.apache.maven.execution.ProjectDependencyGraph;
 import org.apache.maven.graph.GraphBuilder;
 import org.apache.maven.internal.aether.DefaultRepositorySystemSessionFactory;
+import org.apache.maven.lifecycle.internal.DependencyPrefetcher;
 import org.apache.maven.lifecycle.internal.ExecutionEventCatapult;
 import org.apache.maven.lifecycle.internal.LifecycleStarter;
 import org.apache.maven.model.building.ModelProblem;
@@ -96,6 +97,9 @@
     @Requirement( hint = GraphBuilder.HINT )
     private GraphBuilder graphBuilder;
 
+    @Requirement
+    private DependencyPrefetcher dependencyPrefetcher;
+
     @Override
     public MavenExecutionResult execute( MavenExecutionRequest request )
     {
@@ -304,6 +308,11 @@ private MavenExecutionResult doExecute( MavenExecutionRequest request, MavenSess
 
             result.setProject( session.getTopLevelProject() );
 
+            if ( dependencyPrefetcher.isEnabled( session ) )
+            {
+                dependencyPrefetcher.prefetch( session );
+            }
+
             lifecycleStarter.execute( session );
 
             validateActivatedProfiles( session.getProjects(), request.getActiveProfiles() );
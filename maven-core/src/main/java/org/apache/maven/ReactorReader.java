@@ -28,11 +28,13 @@
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.artifact.ArtifactKey;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Model;
 import org.apache.maven.project.MavenProject;
@@ -56,21 +58,30 @@
 
     private static final Collection<String> COMPILE_PHASE_TYPES = Arrays.asList( "jar", "ejb-client" );
 
-    private Map<String, MavenProject> projectsByGAV;
+    private Map<ArtifactKey, MavenProject> projectsByGAV;
 
-    private Map<String, List<MavenProject>> projectsByGA;
+    private Map<ArtifactKey, List<MavenProject>> projectsByGA;
 
     private WorkspaceRepository repository;
 
+    private final ConcurrentMap<ProjectKey, ProjectArtifacts> artifactsByProject =
+        new ConcurrentHashMap<ProjectKey, ProjectArtifacts>();
+
+    private final Map<File, Boolean> existingFiles = new ConcurrentHashMap<File, Boolean>();
+
     @Inject
     public ReactorReader( MavenSession session )
     {
-        projectsByGAV = session.getProjectMap();
+        Map<String, MavenProject> projectMap = session.getProjectMap();
 
-        projectsByGA = new HashMap<String, List<MavenProject>>( projectsByGAV.size() * 2 );
-        for ( MavenProject project : projectsByGAV.values() )
+        projectsByGAV = new HashMap<ArtifactKey, MavenProject>( projectMap.size() * 2 );
+        projectsByGA = new HashMap<ArtifactKey, List<MavenProject>>( projectMap.size() * 2 );
+        for ( MavenProject project : projectMap.values() )
         {
-            String key = ArtifactUtils.versionlessKey( project.getGroupId(), project.getArtifactId() );
+            projectsByGAV.put( ArtifactKey.key( project.getGroupId(), project.getArtifactId(), project.getVersion() ),
+                               project );
+
+            ArtifactKey key = ArtifactKey.versionlessKey( project.getGroupId(), project.getArtifactId() );
 
             List<MavenProject> projects = projectsByGA.get( key );
 
@@ -83,7 +94,7 @@ public ReactorReader( MavenSession session )
             projects.add( project );
         }
 
-        repository = new WorkspaceRepository( "reactor", new HashSet<String>( projectsByGAV.keySet() ) );
+        repository = new WorkspaceRepository( "reactor", new HashSet<String>( projectMap.keySet() ) );
     }
 
     //
@@ -97,7 +108,8 @@ public WorkspaceRepository getRepository()
 
     public File findArtifact( Artifact artifact )
     {
-        String projectKey = ArtifactUtils.key( artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion() );
+        ArtifactKey projectKey =
+            ArtifactKey.key( artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion() );
 
         MavenProject project = projectsByGAV.get( projectKey );
 
@@ -116,7 +128,7 @@ public File findArtifact( Artifact artifact )
 
     public List<String> findVersions( Artifact artifact )
     {
-        String key = ArtifactUtils.versionlessKey( artifact.getGroupId(), artifact.getArtifactId() );
+        ArtifactKey key = ArtifactKey.versionlessKey( artifact.getGroupId(), artifact.getArtifactId() );
 
         List<MavenProject> projects = projectsByGA.get( key );
         if ( projects == null || projects.isEmpty() )
@@ -140,7 +152,8 @@ public List<String> findVersions( Artifact artifact )
     @Override
     public Model findModel( Artifact artifact )
     {
-        String projectKey = ArtifactUtils.key( artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion() );
+        ArtifactKey projectKey =
+            ArtifactKey.key( artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion() );
         MavenProject project = projectsByGAV.get( projectKey );
         return project == null ? null : project.getModel();
     }
@@ -156,7 +169,7 @@ private File find( MavenProject project, Artifact artifact )
             return project.getFile();
         }
 
-        Artifact projectArtifact = findMatchingArtifact( project, artifact );
+        org.apache.maven.artifact.Artifact projectArtifact = findMatchingArtifact( project, artifact );
 
         if ( hasArtifactFileFromPackagePhase( projectArtifact ) )
         {
@@ -189,9 +202,25 @@ else if ( !hasBeenPackaged( project ) )
         return null;
     }
 
-    private boolean hasArtifactFileFromPackagePhase( Artifact projectArtifact )
+    private boolean hasArtifactFileFromPackagePhase( org.apache.maven.artifact.Artifact projectArtifact )
     {
-        return projectArtifact != null && projectArtifact.getFile() != null && projectArtifact.getFile().exists();
+        if ( projectArtifact == null || projectArtifact.getFile() == null )
+        {
+            return false;
+        }
+
+        // packaged files are not deleted during the build, so a file once seen is not checked again
+        File file = projectArtifact.getFile();
+        if ( existingFiles.containsKey( file ) )
+        {
+            return true;
+        }
+        if ( file.exists() )
+        {
+            existingFiles.put( file, Boolean.TRUE );
+            return true;
+        }
+        return false;
     }
 
     private boolean hasBeenPackaged( MavenProject project )
@@ -205,40 +234,122 @@ private boolean hasBeenPackaged( MavenProject project )
      *
      * @param project The project to try to resolve the artifact from, must not be <code>null</code>.
      * @param requestedArtifact The artifact to resolve, must not be <code>null</code>.
-     * @return The matching artifact from the project or <code>null</code> if not found. Note that this
+     * @return The matching artifact from the project or <code>null</code> if not found.
+     */
+    private org.apache.maven.artifact.Artifact findMatchingArtifact( MavenProject project, Artifact requestedArtifact )
+    {
+        ProjectKey key = new ProjectKey( project );
+        ProjectArtifacts projectArtifacts = artifactsByProject.get( key );
+        if ( projectArtifacts == null || !projectArtifacts.isCurrent() )
+        {
+            projectArtifacts = new ProjectArtifacts( project );
+            artifactsByProject.put( key, projectArtifacts );
+        }
+
+        return projectArtifacts.find( requestedArtifact );
+    }
+
+    /**
+     * The main and attached artifacts of a project, indexed by their coordinates. The index refers to the artifacts of
+     * the project itself so it picks up the files set by later lifecycle phases, it is rebuilt when the project gets
+     * a different main artifact or its attached artifacts are no longer the very ones that were indexed. An index is
+     * never modified, so concurrent lookups can share it and at worst rebuild it twice.
      */
-    private Artifact findMatchingArtifact( MavenProject project, Artifact requestedArtifact )
+    private static final class ProjectArtifacts
     {
-        String requestedRepositoryConflictId = ArtifactIdUtils.toVersionlessId( requestedArtifact );
 
-        Artifact mainArtifact = RepositoryUtils.toArtifact( project.getArtifact() );
-        if ( requestedRepositoryConflictId.equals( ArtifactIdUtils.toVersionlessId( mainArtifact ) ) )
+        private final MavenProject project;
+
+        private final org.apache.maven.artifact.Artifact mainArtifact;
+
+        private final String mainArtifactId;
+
+        private final org.apache.maven.artifact.Artifact[] attached;
+
+        private final Map<String, org.apache.maven.artifact.Artifact> attachedArtifacts;
+
+        ProjectArtifacts( MavenProject project )
+        {
+            this.project = project;
+
+            mainArtifact = project.getArtifact();
+            mainArtifactId =
+                ( mainArtifact != null ) ? ArtifactIdUtils.toVersionlessId( RepositoryUtils.toArtifact( mainArtifact ) )
+                                : null;
+
+            attached = project.getAttachedArtifacts().toArray( new org.apache.maven.artifact.Artifact[0] );
+            attachedArtifacts = new HashMap<String, org.apache.maven.artifact.Artifact>( attached.length * 2 );
+            for ( org.apache.maven.artifact.Artifact attachedArtifact : attached )
+            {
+                String id = ArtifactIdUtils.toId( RepositoryUtils.toArtifact( attachedArtifact ) );
+                if ( !attachedArtifacts.containsKey( id ) )
+                {
+                    attachedArtifacts.put( id, attachedArtifact );
+                }
+            }
+        }
+
+        boolean isCurrent()
         {
-            return mainArtifact;
+            if ( mainArtifact != project.getArtifact() )
+            {
+                return false;
+            }
+
+            List<org.apache.maven.artifact.Artifact> current = project.getAttachedArtifacts();
+            if ( current.size() != attached.length )
+            {
+                return false;
+            }
+            for ( int i = 0; i < attached.length; i++ )
+            {
+                if ( current.get( i ) != attached[i] )
+                {
+                    return false;
+                }
+            }
+            return true;
         }
 
-        for ( Artifact attachedArtifact : RepositoryUtils.toArtifacts( project.getAttachedArtifacts() ) )
+        org.apache.maven.artifact.Artifact find( Artifact requestedArtifact )
         {
-            if ( attachedArtifactComparison( requestedArtifact, attachedArtifact ) )
+            if ( mainArtifactId != null
+                && mainArtifactId.equals( ArtifactIdUtils.toVersionlessId( requestedArtifact ) ) )
             {
-                return attachedArtifact;
+                return mainArtifact;
             }
+
+            // the requested artifact has no file, so its id covers what DefaultArtifact.equals() would compare
+            return attachedArtifacts.get( ArtifactIdUtils.toId( requestedArtifact ) );
         }
 
-        return null;
     }
 
-    private boolean attachedArtifactComparison( Artifact requested, Artifact attached )
+    /**
+     * Identifies a project by identity, execution projects equal their originals but have their own artifacts.
+     */
+    private static final class ProjectKey
     {
-        //
-        // We are taking as much as we can from the DefaultArtifact.equals(). The requested artifact has no file so
-        // we want to remove that from the comparison.
-        //
-        return requested.getArtifactId().equals( attached.getArtifactId() )
-            && requested.getGroupId().equals( attached.getGroupId() )
-            && requested.getVersion().equals( attached.getVersion() )
-            && requested.getExtension().equals( attached.getExtension() )
-            && requested.getClassifier().equals( attached.getClassifier() );
+
+        private final MavenProject project;
+
+        ProjectKey( MavenProject project )
+        {
+            this.project = project;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            return obj instanceof ProjectKey && project == ( (ProjectKey) obj ).project;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode( project );
+        }
+
     }
 
     /**
@@ -0,0 +1,447 @@
+package org.apache.maven;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.building.CacheStatistics;
+import org.apache.maven.repository.internal.SessionCacheStatistics;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.ArtifactTypeRegistry;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.ConfigUtils;
+
+/**
+ * Session-wide cache for the conversions of {@link RepositoryUtils}. The same Maven artifacts, dependencies and
+ * repositories get converted to their Aether counterparts over and over while building and resolving a reactor, e.g.
+ * the remote repositories of each project once for the mirror, proxy and authentication lookup. The cache is keyed by
+ * the identity of the converted object and holds it only weakly. As the Maven types are mutable, each entry also
+ * remembers the state it was converted from and is only reused while that state is unchanged. The results are
+ * immutable, in particular lists of repositories cannot be modified. The hits of the caches count the conversions
+ * saved and are reported with the other session cache statistics. Disabled by the configuration property
+ * {@value #CONFIG_PROP_ENABLED}.
+ * <p>
+ * <strong>Warning:</strong> This is an internal utility class that is only public for technical reasons, it is not part
+ * of the public API. In particular, this class can be changed or deleted without prior notice.
+ *
+ * @since 3.3.2
+ */
+public final class RepositoryConversionCache
+{
+
+    static final String CONFIG_PROP_ENABLED = "maven.conversionCache";
+
+    private static final Object KEY = RepositoryConversionCache.class.getName();
+
+    private static final RepositoryConversionCache UNCACHED = new RepositoryConversionCache();
+
+    private final IdentityCache<Artifact> artifacts;
+
+    private final IdentityCache<Dependency> dependencies;
+
+    private final IdentityCache<Object> repositories;
+
+    private RepositoryConversionCache()
+    {
+        artifacts = null;
+        dependencies = null;
+        repositories = null;
+    }
+
+    private RepositoryConversionCache( RepositorySystemSession session )
+    {
+        artifacts = new IdentityCache<Artifact>( SessionCacheStatistics.get( session, "artifactConversion" ) );
+        dependencies = new IdentityCache<Dependency>( SessionCacheStatistics.get( session, "dependencyConversion" ) );
+        repositories = new IdentityCache<Object>( SessionCacheStatistics.get( session, "repositoryConversion" ) );
+    }
+
+    /**
+     * Gets the conversion cache of the specified session.
+     *
+     * @param session The repository system session, may be {@code null}.
+     * @return The cache, never {@code null}. If the session is {@code null}, has no session data or disables the
+     *         cache, conversions are simply delegated to {@link RepositoryUtils}.
+     */
+    public static RepositoryConversionCache get( RepositorySystemSession session )
+    {
+        SessionData data = ( session != null ) ? session.getData() : null;
+        if ( data == null || !ConfigUtils.getBoolean( session, true, CONFIG_PROP_ENABLED ) )
+        {
+            return UNCACHED;
+        }
+
+        Object cache = data.get( KEY );
+        while ( cache == null )
+        {
+            cache = new RepositoryConversionCache( session );
+            if ( !data.set( KEY, null, cache ) )
+            {
+                cache = data.get( KEY );
+            }
+        }
+        return (RepositoryConversionCache) cache;
+    }
+
+    /**
+     * @see RepositoryUtils#toArtifact(org.apache.maven.artifact.Artifact)
+     */
+    public Artifact toArtifact( org.apache.maven.artifact.Artifact artifact )
+    {
+        if ( artifacts == null || artifact == null )
+        {
+            return RepositoryUtils.toArtifact( artifact );
+        }
+
+        Object[] state =
+            { artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion(), artifact.getVersionRange(),
+                artifact.getClassifier(), artifact.getType(), artifact.getScope(), artifact.getFile(),
+                artifact.getArtifactHandler(), artifact.getArtifactHandler().getExtension() };
+
+        IdentityCache.Lookup<Artifact> lookup = artifacts.lookup( artifact, state );
+        if ( lookup.result == null )
+        {
+            lookup.result = RepositoryUtils.toArtifact( artifact );
+            artifacts.put( lookup );
+        }
+        return lookup.result;
+    }
+
+    /**
+     * @see RepositoryUtils#toArtifacts(Collection)
+     */
+    public Collection<Artifact> toArtifacts( Collection<org.apache.maven.artifact.Artifact> artifactsToConvert )
+    {
+        List<Artifact> results = new ArrayList<Artifact>( artifactsToConvert.size() );
+        for ( org.apache.maven.artifact.Artifact artifact : artifactsToConvert )
+        {
+            results.add( toArtifact( artifact ) );
+        }
+        return results;
+    }
+
+    /**
+     * @see RepositoryUtils#toDependency(org.apache.maven.artifact.Artifact, Collection)
+     */
+    public Dependency toDependency( org.apache.maven.artifact.Artifact artifact,
+                                    Collection<org.apache.maven.model.Exclusion> exclusions )
+    {
+        if ( dependencies == null || artifact == null )
+        {
+            return RepositoryUtils.toDependency( artifact, exclusions );
+        }
+
+        Object[] state = newState( exclusions, 3 );
+        state[0] = toArtifact( artifact );
+        state[1] = artifact.getScope();
+        state[2] = artifact.isOptional();
+
+        IdentityCache.Lookup<Dependency> lookup = dependencies.lookup( artifact, state );
+        if ( lookup.result == null )
+        {
+            Dependency dependency = RepositoryUtils.toDependency( artifact, exclusions );
+            lookup.result = dependency.setArtifact( (Artifact) state[0] );
+            dependencies.put( lookup );
+        }
+        return lookup.result;
+    }
+
+    /**
+     * @see RepositoryUtils#toDependency(org.apache.maven.model.Dependency, ArtifactTypeRegistry)
+     */
+    public Dependency toDependency( org.apache.maven.model.Dependency dependency, ArtifactTypeRegistry stereotypes )
+    {
+        if ( dependencies == null )
+        {
+            return RepositoryUtils.toDependency( dependency, stereotypes );
+        }
+
+        Object[] state = newState( dependency.getExclusions(), 9 );
+        state[0] = stereotypes;
+        state[1] = dependency.getGroupId();
+        state[2] = dependency.getArtifactId();
+        state[3] = dependency.getVersion();
+        state[4] = dependency.getType();
+        state[5] = dependency.getClassifier();
+        state[6] = dependency.getScope();
+        state[7] = dependency.getOptional();
+        state[8] = dependency.getSystemPath();
+
+        IdentityCache.Lookup<Dependency> lookup = dependencies.lookup( dependency, state );
+        if ( lookup.result == null )
+        {
+            lookup.result = RepositoryUtils.toDependency( dependency, stereotypes );
+            dependencies.put( lookup );
+        }
+        return lookup.result;
+    }
+
+    private static Object[] newState( Collection<org.apache.maven.model.Exclusion> exclusions, int offset )
+    {
+        if ( exclusions == null )
+        {
+            Object[] state = new Object[offset + 1];
+            state[offset] = Boolean.FALSE;
+            return state;
+        }
+
+        Object[] state = new Object[offset + 1 + exclusions.size() * 2];
+        state[offset] = Boolean.TRUE;
+        int index = offset + 1;
+        for ( org.apache.maven.model.Exclusion exclusion : exclusions )
+        {
+            state[index++] = exclusion.getGroupId();
+            state[index++] = exclusion.getArtifactId();
+        }
+        return state;
+    }
+
+    /**
+     * @see RepositoryUtils#toRepo(ArtifactRepository)
+     */
+    public RemoteRepository toRepo( ArtifactRepository repo )
+    {
+        if ( repositories == null || repo == null )
+        {
+            return RepositoryUtils.toRepo( repo );
+        }
+
+        List<RemoteRepository> mirrored = toRepos( repo.getMirroredRepositories() );
+
+        Object[] state = new Object[21];
+        state[0] = repo.getId();
+        state[1] = repo.getUrl();
+        state[2] = RepositoryUtils.getLayout( repo );
+        addPolicy( state, 3, repo.getSnapshots() );
+        addPolicy( state, 6, repo.getReleases() );
+        org.apache.maven.artifact.repository.Authentication auth = repo.getAuthentication();
+        if ( auth != null )
+        {
+            state[9] = auth.getUsername();
+            state[10] = auth.getPassword();
+            state[11] = auth.getPrivateKey();
+            state[12] = auth.getPassphrase();
+        }
+        org.apache.maven.repository.Proxy proxy = repo.getProxy();
+        if ( proxy != null )
+        {
+            state[13] = proxy.getProtocol();
+            state[14] = proxy.getHost();
+            state[15] = proxy.getPort();
+            state[16] = proxy.getUserName();
+            state[17] = proxy.getPassword();
+        }
+        state[18] = auth != null;
+        state[19] = proxy != null;
+        state[20] = mirrored;
+
+        IdentityCache.Lookup<Object> lookup = repositories.lookup( repo, state );
+        if ( lookup.result == null )
+        {
+            lookup.result = RepositoryUtils.toRepo( repo );
+            repositories.put( lookup );
+        }
+        return (RemoteRepository) lookup.result;
+    }
+
+    private static void addPolicy( Object[] state, int offset, ArtifactRepositoryPolicy policy )
+    {
+        if ( policy != null )
+        {
+            state[offset] = policy.isEnabled();
+            state[offset + 1] = policy.getUpdatePolicy();
+            state[offset + 2] = policy.getChecksumPolicy();
+        }
+    }
+
+    /**
+     * @see RepositoryUtils#toRepos(List)
+     * @return The unmodifiable list of converted repositories or {@code null} if the input list is {@code null}.
+     */
+    public List<RemoteRepository> toRepos( List<ArtifactRepository> repos )
+    {
+        if ( repositories == null || repos == null )
+        {
+            return RepositoryUtils.toRepos( repos );
+        }
+
+        Object[] state = new Object[repos.size()];
+        for ( int i = 0; i < state.length; i++ )
+        {
+            state[i] = toRepo( repos.get( i ) );
+        }
+
+        IdentityCache.Lookup<Object> lookup = repositories.lookup( repos, state );
+        if ( lookup.result == null )
+        {
+            List<RemoteRepository> result = new ArrayList<RemoteRepository>( state.length );
+            for ( Object repo : state )
+            {
+                result.add( (RemoteRepository) repo );
+            }
+            lookup.result = Collections.unmodifiableList( result );
+            repositories.put( lookup );
+        }
+        @SuppressWarnings( "unchecked" )
+        List<RemoteRepository> result = (List<RemoteRepository>) lookup.result;
+        return result;
+    }
+
+    /**
+     * A concurrent map from weakly referenced objects, compared by identity, to their conversion and the state they
+     * were converted from.
+     */
+    static final class IdentityCache<V>
+    {
+
+        private final ConcurrentMap<Key, Entry<V>> entries = new ConcurrentHashMap<Key, Entry<V>>( 256 );
+
+        private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+
+        private final CacheStatistics statistics;
+
+        IdentityCache( CacheStatistics statistics )
+        {
+            this.statistics = statistics;
+        }
+
+        /**
+         * Looks up the conversion of the specified object, the result of the lookup is {@code null} unless the object
+         * was already converted from the same state.
+         */
+        Lookup<V> lookup( Object source, Object[] state )
+        {
+            Key key = new Key( source, null );
+            Entry<V> entry = entries.get( key );
+            if ( entry != null && Arrays.equals( entry.state, state ) )
+            {
+                statistics.hit();
+                return new Lookup<V>( key, state, entry.result );
+            }
+            statistics.miss( key );
+            return new Lookup<V>( key, state, null );
+        }
+
+        void put( Lookup<V> lookup )
+        {
+            expunge();
+
+            Object source = lookup.key.get();
+            if ( source != null )
+            {
+                Key key = new Key( source, queue );
+                if ( entries.put( key, new Entry<V>( lookup.state, lookup.result ) ) == null )
+                {
+                    statistics.put( lookup.key, -1 );
+                }
+            }
+        }
+
+        private void expunge()
+        {
+            for ( Object key = queue.poll(); key != null; key = queue.poll() )
+            {
+                entries.remove( key );
+            }
+        }
+
+        static final class Lookup<V>
+        {
+
+            final Key key;
+
+            final Object[] state;
+
+            V result;
+
+            Lookup( Key key, Object[] state, V result )
+            {
+                this.key = key;
+                this.state = state;
+                this.result = result;
+            }
+
+        }
+
+        private static final class Entry<V>
+        {
+
+            final Object[] state;
+
+            final V result;
+
+            Entry( Object[] state, V result )
+            {
+                this.state = state;
+                this.result = result;
+            }
+
+        }
+
+        private static final class Key
+            extends WeakReference<Object>
+        {
+
+            private final int hash;
+
+            Key( Object referent, ReferenceQueue<Object> queue )
+            {
+                super( referent, queue );
+                hash = System.identityHashCode( referent );
+            }
+
+            @Override
+            public boolean equals( Object obj )
+            {
+                if ( this == obj )
+                {
+                    return true;
+                }
+                if ( !( obj instanceof Key ) )
+                {
+                    return false;
+                }
+                Object referent = get();
+                return referent != null && referent == ( (Key) obj ).get();
+            }
+
+            @Override
+            public int hashCode()
+            {
+                return hash;
+            }
+
+        }
+
+    }
+
+}
@@ -29,6 +29,7 @@
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.maven.RepositoryConversionCache;
 import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DefaultArtifact;
@@ -189,7 +190,8 @@ private Mirror getMirror( RepositorySystemSession session, ArtifactRepository re
             org.eclipse.aether.repository.MirrorSelector selector = session.getMirrorSelector();
             if ( selector != null )
             {
-                RemoteRepository repo = selector.getMirror( RepositoryUtils.toRepo( repository ) );
+                RemoteRepository repo =
+                    selector.getMirror( RepositoryConversionCache.get( session ).toRepo( repository ) );
                 if ( repo != null )
                 {
                     Mirror mirror = new Mirror();
@@ -242,7 +244,7 @@ private Authentication getAuthentication( RepositorySystemSession session, Artif
             AuthenticationSelector selector = session.getAuthenticationSelector();
             if ( selector != null )
             {
-                RemoteRepository repo = RepositoryUtils.toRepo( repository );
+                RemoteRepository repo = RepositoryConversionCache.get( session ).toRepo( repository );
                 org.eclipse.aether.repository.Authentication auth = selector.getAuthentication( repo );
                 if ( auth != null )
                 {
@@ -279,7 +281,7 @@ private Proxy getProxy( RepositorySystemSession session, ArtifactRepository repo
             ProxySelector selector = session.getProxySelector();
             if ( selector != null )
             {
-                RemoteRepository repo = RepositoryUtils.toRepo( repository );
+                RemoteRepository repo = RepositoryConversionCache.get( session ).toRepo( repository );
                 org.eclipse.aether.repository.Proxy proxy = selector.getProxy( repo );
                 if ( proxy != null )
                 {
@@ -0,0 +1,101 @@
+package org.apache.maven.buildcache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Stores the results of earlier builds for reuse by later builds, possibly of other workspaces or branches. A store
+ * holds two kinds of data: file contents addressed by their SHA-1 checksums, and entries addressed by keys that
+ * callers derive from the inputs of the build step that produced them. An entry is a set of properties, those whose
+ * names end with {@code .checksum} reference file contents, which allows stores to discard contents that are no longer
+ * referenced by any entry.
+ * <p>
+ * Implementations are looked up by their role hint, the hint of the store to use is given by the user or system
+ * property {@code maven.buildCache.store} and defaults to {@code file}. Stores need to be thread-safe and should
+ * tolerate concurrent use by several builds.
+ *
+ * @since 3.3.2
+ * @see BuildCacheStores
+ */
+public interface BuildCacheStore
+{
+
+    /**
+     * Reads the entry stored under the specified key.
+     *
+     * @param session The current session, must not be {@code null}.
+     * @param key The key of the entry, must not be {@code null}.
+     * @return The entry or {@code null} if none.
+     * @throws IOException If the store could not be accessed.
+     */
+    Properties getEntry( MavenSession session, String key )
+        throws IOException;
+
+    /**
+     * Stores the specified entry under the specified key, replacing any previous entry.
+     *
+     * @param session The current session, must not be {@code null}.
+     * @param key The key of the entry, must not be {@code null}.
+     * @param entry The entry to store, must not be {@code null}.
+     * @throws IOException If the store could not be accessed.
+     */
+    void putEntry( MavenSession session, String key, Properties entry )
+        throws IOException;
+
+    /**
+     * Tells whether the store holds the file contents with the specified checksum.
+     *
+     * @param session The current session, must not be {@code null}.
+     * @param checksum The SHA-1 checksum of the contents, must not be {@code null}.
+     * @return {@code true} if the contents are available, {@code false} otherwise.
+     * @throws IOException If the store could not be accessed.
+     */
+    boolean containsContent( MavenSession session, String checksum )
+        throws IOException;
+
+    /**
+     * Adds the contents of the specified file to the store unless already present.
+     *
+     * @param session The current session, must not be {@code null}.
+     * @param checksum The SHA-1 checksum of the file contents, must not be {@code null}.
+     * @param file The file to store, must not be {@code null}.
+     * @throws IOException If the file could not be stored.
+     */
+    void putContent( MavenSession session, String checksum, File file )
+        throws IOException;
+
+    /**
+     * Writes the contents with the specified checksum to the specified file, replacing the file if it exists.
+     *
+     * @param session The current session, must not be {@code null}.
+     * @param checksum The SHA-1 checksum of the contents, must not be {@code null}.
+     * @param file The file to write, must not be {@code null}.
+     * @throws IOException If the contents are not available or could not be written.
+     */
+    void getContent( MavenSession session, String checksum, File file )
+        throws IOException;
+
+}
@@ -0,0 +1,85 @@
+package org.apache.maven.buildcache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.maven.execution.MavenSession;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * Helps to select the {@link BuildCacheStore} configured for a session.
+ *
+ * @since 3.3.2
+ */
+public final class BuildCacheStores
+{
+
+    /**
+     * The user or system property giving the role hint of the store to use.
+     */
+    public static final String STORE_PROPERTY = "maven.buildCache.store";
+
+    private static final String DEFAULT_STORE = "file";
+
+    private BuildCacheStores()
+    {
+        // hide constructor
+    }
+
+    /**
+     * Selects the store configured for the specified session.
+     *
+     * @param session The current session, must not be {@code null}.
+     * @param stores The available stores keyed by their role hint, must not be {@code null}.
+     * @return The selected store, never {@code null}.
+     * @throws IOException If the configured store is not available.
+     */
+    public static BuildCacheStore select( MavenSession session, Map<String, BuildCacheStore> stores )
+        throws IOException
+    {
+        String hint = getProperty( session, STORE_PROPERTY );
+        if ( StringUtils.isBlank( hint ) )
+        {
+            hint = DEFAULT_STORE;
+        }
+
+        BuildCacheStore store = stores.get( hint.trim() );
+        if ( store == null )
+        {
+            throw new IOException( "Unknown build cache store " + hint + ", available stores are "
+                + stores.keySet() );
+        }
+        return store;
+    }
+
+    static String getProperty( MavenSession session, String key )
+    {
+        String value = session.getUserProperties().getProperty( key );
+        if ( value == null )
+        {
+            value = session.getSystemProperties().getProperty( key );
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,460 @@
+package org.apache.maven.buildcache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.maven.execution.MavenSession;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * A build cache store in a local directory, by default {@code ~/.m2/build-cache}, which can be changed with the user or
+ * system property {@code maven.buildCache.directory}. Contents and entries are written to a temporary file first and
+ * then renamed into place, so that concurrent builds sharing the directory never see partial data.
+ * <p>
+ * The size of the store is capped by the property {@code maven.buildCache.maxSize}, given in bytes or with one of the
+ * suffixes {@code k}, {@code m} or {@code g}, and defaults to 10 GB. Reading an entry marks it as used, once the store
+ * exceeds its cap, the least recently used entries are dropped along with the contents no other entry references,
+ * until the store is back to 90% of its cap. A build that concurrently restores a dropped entry notices the missing
+ * contents and simply executes.
+ *
+ * @since 3.3.2
+ */
+@Component( role = BuildCacheStore.class, hint = "file" )
+public class FileBuildCacheStore
+    implements BuildCacheStore
+{
+
+    static final String DIRECTORY_PROPERTY = "maven.buildCache.directory";
+
+    static final String MAX_SIZE_PROPERTY = "maven.buildCache.maxSize";
+
+    private static final long DEFAULT_MAX_SIZE = 10L * 1024 * 1024 * 1024;
+
+    private static final String CHECKSUM_SUFFIX = ".checksum";
+
+    @Requirement
+    private Logger logger;
+
+    private final ConcurrentMap<File, AtomicLong> sizes = new ConcurrentHashMap<File, AtomicLong>();
+
+    public Properties getEntry( MavenSession session, String key )
+        throws IOException
+    {
+        File file = getFile( getEntries( session ), key, ".properties" );
+        if ( !file.isFile() )
+        {
+            return null;
+        }
+
+        Properties entry = read( file );
+        file.setLastModified( System.currentTimeMillis() );
+        return entry;
+    }
+
+    public void putEntry( MavenSession session, String key, Properties entry )
+        throws IOException
+    {
+        File file = getFile( getEntries( session ), key, ".properties" );
+        File tmp = newTempFile( file );
+        try
+        {
+            OutputStream os = new FileOutputStream( tmp );
+            try
+            {
+                entry.store( os, null );
+            }
+            finally
+            {
+                IOUtil.close( os );
+            }
+            long length = tmp.length() - file.length();
+            file.delete();
+            publish( tmp, file );
+            added( session, length );
+        }
+        finally
+        {
+            tmp.delete();
+        }
+    }
+
+    public boolean containsContent( MavenSession session, String checksum )
+    {
+        return getFile( getBlobs( session ), checksum, "" ).isFile();
+    }
+
+    public void putContent( MavenSession session, String checksum, File file )
+        throws IOException
+    {
+        File blob = getFile( getBlobs( session ), checksum, "" );
+        if ( blob.isFile() )
+        {
+            return;
+        }
+
+        File tmp = newTempFile( blob );
+        try
+        {
+            copy( file, tmp );
+            publish( tmp, blob );
+            added( session, blob.length() );
+        }
+        finally
+        {
+            tmp.delete();
+        }
+    }
+
+    public void getContent( MavenSession session, String checksum, File file )
+        throws IOException
+    {
+        File blob = getFile( getBlobs( session ), checksum, "" );
+        if ( !blob.isFile() )
+        {
+            throw new IOException( "Missing contents " + checksum + " in build cache " + getDirectory( session ) );
+        }
+
+        File tmp = newTempFile( file );
+        try
+        {
+            copy( blob, tmp );
+            file.delete();
+            if ( !tmp.renameTo( file ) )
+            {
+                throw new IOException( "Could not rename " + tmp + " to " + file );
+            }
+        }
+        finally
+        {
+            tmp.delete();
+        }
+    }
+
+    private void added( MavenSession session, long length )
+    {
+        File directory = getDirectory( session );
+
+        AtomicLong size = sizes.get( directory );
+        if ( size == null )
+        {
+            // the first write of this JVM to the store, the scan already accounts for the new data
+            AtomicLong scanned = new AtomicLong( size( directory ) );
+            size = sizes.putIfAbsent( directory, scanned );
+            if ( size == null )
+            {
+                size = scanned;
+                length = 0;
+            }
+        }
+
+        long maxSize = getMaxSize( session );
+        if ( size.addAndGet( length ) > maxSize )
+        {
+            evict( directory, maxSize, size );
+        }
+    }
+
+    private synchronized void evict( File directory, long maxSize, AtomicLong size )
+    {
+        if ( size.get() <= maxSize )
+        {
+            // another thread was faster
+            return;
+        }
+
+        File entries = new File( directory, "entries" );
+        File blobs = new File( directory, "blobs" );
+
+        List<File> entryFiles = new ArrayList<File>();
+        list( entries, entryFiles );
+        final Map<File, Long> lastUsed = new HashMap<File, Long>();
+        for ( File entryFile : entryFiles )
+        {
+            lastUsed.put( entryFile, entryFile.lastModified() );
+        }
+        Collections.sort( entryFiles, new Comparator<File>()
+        {
+            public int compare( File f1, File f2 )
+            {
+                return lastUsed.get( f1 ).compareTo( lastUsed.get( f2 ) );
+            }
+        } );
+
+        Map<String, Integer> references = new HashMap<String, Integer>();
+        Map<File, List<String>> checksums = new HashMap<File, List<String>>();
+        for ( File entryFile : entryFiles )
+        {
+            List<String> referenced = getReferencedContents( entryFile );
+            checksums.put( entryFile, referenced );
+            for ( String checksum : referenced )
+            {
+                Integer count = references.get( checksum );
+                references.put( checksum, ( count != null ) ? count + 1 : 1 );
+            }
+        }
+
+        long total = 0;
+        List<File> blobFiles = new ArrayList<File>();
+        list( blobs, blobFiles );
+        for ( File blob : blobFiles )
+        {
+            if ( !references.containsKey( blob.getName() ) && blob.delete() )
+            {
+                continue;
+            }
+            total += blob.length();
+        }
+        for ( File entryFile : entryFiles )
+        {
+            total += entryFile.length();
+        }
+
+        long target = maxSize / 10 * 9;
+        int dropped = 0;
+        for ( File entryFile : entryFiles )
+        {
+            if ( total <= target )
+            {
+                break;
+            }
+            long length = entryFile.length();
+            if ( !entryFile.delete() )
+            {
+                continue;
+            }
+            total -= length;
+            dropped++;
+            for ( String checksum : checksums.get( entryFile ) )
+            {
+                int count = references.get( checksum ) - 1;
+                references.put( checksum, count );
+                File blob = getFile( blobs, checksum, "" );
+                length = blob.length();
+                if ( count <= 0 && blob.delete() )
+                {
+                    total -= length;
+                }
+            }
+        }
+
+        size.set( total );
+
+        logger.debug( "Dropped " + dropped + " least recently used entries from build cache " + directory + ", "
+            + total + " bytes remaining" );
+    }
+
+    private List<String> getReferencedContents( File entryFile )
+    {
+        List<String> referenced = new ArrayList<String>();
+        try
+        {
+            Properties entry = read( entryFile );
+            for ( String name : entry.stringPropertyNames() )
+            {
+                if ( name.endsWith( CHECKSUM_SUFFIX ) )
+                {
+                    referenced.add( entry.getProperty( name ) );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Could not read build cache entry " + entryFile + ": " + e.getMessage() );
+        }
+        return referenced;
+    }
+
+    private static void list( File dir, List<File> files )
+    {
+        File[] children = dir.listFiles();
+        if ( children == null )
+        {
+            return;
+        }
+        for ( File child : children )
+        {
+            if ( child.isDirectory() )
+            {
+                list( child, files );
+            }
+            else if ( !child.getName().endsWith( ".tmp" ) )
+            {
+                files.add( child );
+            }
+        }
+    }
+
+    private static long size( File dir )
+    {
+        List<File> files = new ArrayList<File>();
+        list( dir, files );
+        long size = 0;
+        for ( File file : files )
+        {
+            size += file.length();
+        }
+        return size;
+    }
+
+    private long getMaxSize( MavenSession session )
+    {
+        String value = BuildCacheStores.getProperty( session, MAX_SIZE_PROPERTY );
+        if ( StringUtils.isBlank( value ) )
+        {
+            return DEFAULT_MAX_SIZE;
+        }
+
+        String size = value.trim().toLowerCase( Locale.ENGLISH );
+        long factor = 1;
+        if ( size.endsWith( "k" ) )
+        {
+            factor = 1024;
+        }
+        else if ( size.endsWith( "m" ) )
+        {
+            factor = 1024 * 1024;
+        }
+        else if ( size.endsWith( "g" ) )
+        {
+            factor = 1024 * 1024 * 1024;
+        }
+        if ( factor > 1 )
+        {
+            size = size.substring( 0, size.length() - 1 );
+        }
+
+        try
+        {
+            return Long.parseLong( size.trim() ) * factor;
+        }
+        catch ( NumberFormatException e )
+        {
+            logger.warn( "Invalid value " + value + " for " + MAX_SIZE_PROPERTY + ", using default size" );
+            return DEFAULT_MAX_SIZE;
+        }
+    }
+
+    private static File getDirectory( MavenSession session )
+    {
+        String directory = BuildCacheStores.getProperty( session, DIRECTORY_PROPERTY );
+        if ( StringUtils.isBlank( directory ) )
+        {
+            return new File( new File( System.getProperty( "user.home" ), ".m2" ), "build-cache" ).getAbsoluteFile();
+        }
+        return new File( directory.trim() ).getAbsoluteFile();
+    }
+
+    private static File getEntries( MavenSession session )
+    {
+        return new File( getDirectory( session ), "entries" );
+    }
+
+    private static File getBlobs( MavenSession session )
+    {
+        return new File( getDirectory( session ), "blobs" );
+    }
+
+    private static File getFile( File root, String key, String suffix )
+    {
+        return new File( new File( root, key.substring( 0, 2 ) ), key + suffix );
+    }
+
+    private static Properties read( File file )
+        throws IOException
+    {
+        Properties properties = new Properties();
+        InputStream is = new FileInputStream( file );
+        try
+        {
+            properties.load( is );
+        }
+        finally
+        {
+            IOUtil.close( is );
+        }
+        return properties;
+    }
+
+    private static File newTempFile( File file )
+        throws IOException
+    {
+        File dir = file.getParentFile();
+        if ( !dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory() )
+        {
+            throw new IOException( "Could not create directory " + dir );
+        }
+        return File.createTempFile( file.getName(), ".tmp", dir );
+    }
+
+    private static void publish( File tmp, File file )
+        throws IOException
+    {
+        // another build may have won the race, the contents are the same anyway
+        if ( !tmp.renameTo( file ) && !file.isFile() )
+        {
+            throw new IOException( "Could not rename " + tmp + " to " + file );
+        }
+    }
+
+    private static void copy( File source, File target )
+        throws IOException
+    {
+        InputStream is = new FileInputStream( source );
+        try
+        {
+            OutputStream os = new FileOutputStream( target );
+            try
+            {
+                IOUtil.copy( is, os );
+            }
+            finally
+            {
+                IOUtil.close( os );
+            }
+        }
+        finally
+        {
+            IOUtil.close( is );
+        }
+    }
+
+}
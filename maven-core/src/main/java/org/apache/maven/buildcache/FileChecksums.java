@@ -0,0 +1,193 @@
+package org.apache.maven.buildcache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Calculates SHA-1 checksums of files and remembers them as long as the length and modification time of a file stay
+ * the same, so that unchanged dependencies and sources are read only once per JVM. This class is thread-safe.
+ *
+ * @since 3.3.2
+ */
+public class FileChecksums
+{
+
+    private final ConcurrentMap<File, Entry> entries = new ConcurrentHashMap<File, Entry>( 1024 );
+
+    public static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "SHA-1 not supported by the runtime", e );
+        }
+    }
+
+    public static void update( MessageDigest digest, String value )
+    {
+        try
+        {
+            digest.update( String.valueOf( value ).getBytes( "UTF-8" ) );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e );
+        }
+        digest.update( (byte) 0 );
+    }
+
+    public static String toHex( byte[] bytes )
+    {
+        StringBuilder buffer = new StringBuilder( bytes.length * 2 );
+        for ( byte b : bytes )
+        {
+            buffer.append( Character.forDigit( ( b >> 4 ) & 0x0F, 16 ) );
+            buffer.append( Character.forDigit( b & 0x0F, 16 ) );
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Gets the checksum of the contents of the specified file.
+     *
+     * @param file The file to checksum, must not be {@code null}.
+     * @return The checksum, never {@code null}.
+     * @throws IOException If the file could not be read.
+     */
+    public String getChecksum( File file )
+        throws IOException
+    {
+        long length = file.length();
+        long lastModified = file.lastModified();
+
+        Entry entry = entries.get( file );
+        if ( entry != null && entry.length == length && entry.lastModified == lastModified )
+        {
+            return entry.checksum;
+        }
+
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        InputStream is = new FileInputStream( file );
+        try
+        {
+            for ( int read = is.read( buffer ); read >= 0; read = is.read( buffer ) )
+            {
+                digest.update( buffer, 0, read );
+            }
+        }
+        finally
+        {
+            IOUtil.close( is );
+        }
+
+        String checksum = toHex( digest.digest() );
+        entries.put( file, new Entry( length, lastModified, checksum ) );
+        return checksum;
+    }
+
+    /**
+     * Adds the names and contents of the files below the specified path to the specified digest, in a stable order.
+     * Hidden files and directories, i.e. those whose name starts with a dot, below the path are skipped. Only the
+     * names relative to the path enter the digest, so the same contents in different locations yield the same digest.
+     *
+     * @param digest The digest to update, must not be {@code null}.
+     * @param path The file or directory to add, must not be {@code null}. A missing path is recorded as such.
+     * @param excluded The directories whose contents to skip, may be {@code null}.
+     * @throws IOException If a file could not be read.
+     */
+    public void update( MessageDigest digest, File path, Collection<File> excluded )
+        throws IOException
+    {
+        update( digest, path, "", ( excluded != null ) ? excluded : Collections.<File>emptySet() );
+    }
+
+    private void update( MessageDigest digest, File path, String name, Collection<File> excluded )
+        throws IOException
+    {
+        if ( path.isFile() )
+        {
+            update( digest, name );
+            update( digest, getChecksum( path ) );
+        }
+        else if ( path.isDirectory() )
+        {
+            if ( excluded.contains( path ) )
+            {
+                return;
+            }
+            String[] children = path.list();
+            if ( children == null )
+            {
+                return;
+            }
+            Arrays.sort( children );
+            for ( String child : children )
+            {
+                if ( child.startsWith( "." ) )
+                {
+                    continue;
+                }
+                update( digest, new File( path, child ), name + '/' + child, excluded );
+            }
+        }
+        else
+        {
+            update( digest, name );
+            update( digest, "-" );
+        }
+    }
+
+    private static final class Entry
+    {
+
+        final long length;
+
+        final long lastModified;
+
+        final String checksum;
+
+        Entry( long length, long lastModified, String checksum )
+        {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+        }
+
+    }
+
+}
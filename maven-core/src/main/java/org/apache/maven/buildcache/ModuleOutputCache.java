@@ -0,0 +1,555 @@
+package org.apache.maven.buildcache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.lifecycle.LifecycleExecutionException;
+import org.apache.maven.lifecycle.internal.LifecycleDependencyResolver;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import org.apache.maven.rtinfo.RuntimeInformation;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * Reuses the results of whole module builds: if a module was already built with the same inputs, in this or any other
+ * workspace sharing the {@link BuildCacheStore}, its main and attached artifacts, the contents of its output and test
+ * output directories and the source roots and properties the build added to the project are restored instead of
+ * executing its lifecycle. The key of a module build covers its
+ * effective POM, the files below its base directory except for the build directory and other modules of the reactor,
+ * its resolved dependencies including their contents, the mojo executions to perform, the user properties and the
+ * versions of Java and Maven. Paths below the base directory enter the key relative to it, so the same sources in
+ * another checkout produce the same key.
+ * <p>
+ * The clean, install and deploy phases are not cached, their mojo executions always run, before respectively after
+ * the outputs are restored. Builds that invoke goals directly or bind mojos to these phases in between other phases
+ * are not cached. Caching is enabled by the user or system property {@code maven.buildCache}. It requires the test
+ * dependencies of each module to be resolvable up front.
+ *
+ * @since 3.3.2
+ */
+@Component( role = ModuleOutputCache.class )
+public class ModuleOutputCache
+{
+
+    static final String PROPERTY = "maven.buildCache";
+
+    private static final Set<String> PASSTHROUGH_PHASES =
+        new HashSet<String>( Arrays.asList( "pre-clean", "clean", "post-clean", "install", "deploy" ) );
+
+    private static final List<String> SCOPES =
+        Arrays.asList( Artifact.SCOPE_COMPILE, Artifact.SCOPE_SYSTEM, Artifact.SCOPE_PROVIDED, Artifact.SCOPE_RUNTIME,
+                       Artifact.SCOPE_TEST );
+
+    private static final String BASEDIR_TOKEN = "${basedir}";
+
+    private static final String OUTPUTS = "outputs";
+
+    private static final String OUTPUT = "output.";
+
+    private static final String ARTIFACT = "artifact";
+
+    private static final String ATTACHED = "attached.";
+
+    @Requirement
+    private Logger logger;
+
+    @Requirement
+    private MavenProjectHelper projectHelper;
+
+    @Requirement
+    private LifecycleDependencyResolver dependencyResolver;
+
+    @Requirement
+    private RuntimeInformation runtimeInformation;
+
+    @Requirement
+    private Map<String, BuildCacheStore> stores;
+
+    private final FileChecksums checksums = new FileChecksums();
+
+    /**
+     * Tells whether module output caching is enabled for the specified session.
+     *
+     * @param session The session to check, must not be {@code null}.
+     * @return {@code true} if caching is enabled, {@code false} otherwise.
+     */
+    public boolean isEnabled( MavenSession session )
+    {
+        return Boolean.parseBoolean( BuildCacheStores.getProperty( session, PROPERTY ) );
+    }
+
+    /**
+     * Calculates the key of the build of the current project and records the state of the project before it.
+     *
+     * @param session The current session, must not be {@code null}.
+     * @param mojoExecutions The mojo executions of the build plan of the current project, must not be {@code null}.
+     * @return The candidate for {@link #restore(Candidate)} and {@link #save(Candidate)} or {@code null} if the build
+     *         is not cacheable.
+     */
+    public Candidate open( MavenSession session, List<MojoExecution> mojoExecutions )
+    {
+        MavenProject project = session.getCurrentProject();
+        if ( project == null || project.getFile() == null || project.getBuild() == null
+            || project.getBuild().getDirectory() == null )
+        {
+            return null;
+        }
+
+        Candidate candidate = new Candidate( session, project );
+        for ( MojoExecution mojoExecution : mojoExecutions )
+        {
+            String phase = mojoExecution.getLifecyclePhase();
+            if ( phase == null )
+            {
+                logger.debug( "Not caching build of " + project.getId() + ": direct invocation of " + mojoExecution );
+                return null;
+            }
+            else if ( !PASSTHROUGH_PHASES.contains( phase ) )
+            {
+                if ( !candidate.trailing.isEmpty() )
+                {
+                    logger.debug( "Not caching build of " + project.getId() + ": " + candidate.trailing.get( 0 )
+                        + " is bound before " + mojoExecution );
+                    return null;
+                }
+                candidate.cached.add( mojoExecution );
+            }
+            else if ( candidate.cached.isEmpty() )
+            {
+                candidate.leading.add( mojoExecution );
+            }
+            else
+            {
+                candidate.trailing.add( mojoExecution );
+            }
+        }
+        if ( candidate.cached.isEmpty() )
+        {
+            return null;
+        }
+
+        try
+        {
+            candidate.store = BuildCacheStores.select( session, stores );
+            candidate.key = key( candidate );
+            return candidate;
+        }
+        catch ( IOException e )
+        {
+            logger.warn( "Could not calculate build cache key of " + project.getId() + ", not caching it: "
+                + e.getMessage() );
+            return null;
+        }
+        catch ( LifecycleExecutionException e )
+        {
+            logger.warn( "Could not resolve dependencies of " + project.getId() + ", not caching it: "
+                + e.getMessage() );
+            return null;
+        }
+    }
+
+    /**
+     * Restores the outputs of an earlier build with the same key.
+     *
+     * @param candidate The candidate as returned by {@link #open(MavenSession, List)}, must not be {@code null}.
+     * @return {@code true} if the outputs were restored and the cached mojo executions can be skipped, {@code false}
+     *         if they need to execute.
+     */
+    public boolean restore( Candidate candidate )
+    {
+        try
+        {
+            MavenSession session = candidate.session;
+            BuildCacheStore store = candidate.store;
+
+            Properties entry = store.getEntry( session, candidate.key );
+            if ( entry == null )
+            {
+                logger.info( "No cached build with these inputs, building" );
+                return false;
+            }
+            for ( String name : entry.stringPropertyNames() )
+            {
+                if ( ( name.startsWith( OUTPUT ) || name.startsWith( ARTIFACT ) || name.startsWith( ATTACHED ) )
+                    && name.endsWith( ".checksum" ) && !store.containsContent( session, entry.getProperty( name ) ) )
+                {
+                    logger.info( "Cached build outputs are incomplete, building" );
+                    return false;
+                }
+            }
+
+            int count = Integer.parseInt( entry.getProperty( OUTPUTS, "0" ) );
+            for ( int i = 0; i < count; i++ )
+            {
+                restore( candidate, entry, OUTPUT + i );
+            }
+
+            MavenProject project = candidate.project;
+            if ( entry.getProperty( ARTIFACT + ".path" ) != null )
+            {
+                project.getArtifact().setFile( restore( candidate, entry, ARTIFACT ) );
+            }
+            else if ( entry.getProperty( ARTIFACT + ".directory" ) != null )
+            {
+                String path = entry.getProperty( ARTIFACT + ".directory" );
+                project.getArtifact().setFile( new File( candidate.basedir, path.replace( '/', File.separatorChar ) ) );
+            }
+            for ( int i = 0; entry.getProperty( ATTACHED + i + ".path" ) != null; i++ )
+            {
+                String key = ATTACHED + i;
+                projectHelper.attachArtifact( project, entry.getProperty( key + ".type" ),
+                                              entry.getProperty( key + ".classifier" ),
+                                              restore( candidate, entry, key ) );
+            }
+
+            ProjectChanges.apply( project, entry );
+
+            logger.info( "Inputs unchanged, restored build outputs from the build cache" );
+            return true;
+        }
+        catch ( IOException e )
+        {
+            logger.warn( "Could not restore cached build outputs, building: " + e.getMessage() );
+            return false;
+        }
+        catch ( RuntimeException e )
+        {
+            logger.warn( "Could not restore cached build outputs, building: " + e );
+            return false;
+        }
+    }
+
+    private File restore( Candidate candidate, Properties entry, String key )
+        throws IOException
+    {
+        String path = entry.getProperty( key + ".path" );
+        File file = new File( candidate.basedir, path.replace( '/', File.separatorChar ) );
+        String checksum = entry.getProperty( key + ".checksum" );
+        if ( !file.isFile() || !checksum.equals( checksums.getChecksum( file ) ) )
+        {
+            candidate.store.getContent( candidate.session, checksum, file );
+            long lastModified = Long.parseLong( entry.getProperty( key + ".time", "0" ) );
+            if ( lastModified > 0 )
+            {
+                file.setLastModified( lastModified );
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Stores the outputs of a successful build.
+     *
+     * @param candidate The candidate as returned by {@link #open(MavenSession, List)}, must not be {@code null}.
+     */
+    public void save( Candidate candidate )
+    {
+        MavenProject project = candidate.project;
+        try
+        {
+            Properties entry = new Properties();
+
+            File artifactFile = ( project.getArtifact() != null ) ? project.getArtifact().getFile() : null;
+            if ( artifactFile != null && !artifactFile.equals( candidate.artifactFile )
+                && !artifactFile.equals( project.getFile() ) )
+            {
+                if ( artifactFile.isDirectory() )
+                {
+                    // e.g. the output directory of a reactor build that stops before packaging
+                    String path = relativize( candidate.basedir, normalize( artifactFile ) );
+                    if ( path == null )
+                    {
+                        logger.debug( "Not caching build of " + project.getId() + ": " + artifactFile
+                            + " is not within the base directory" );
+                        return;
+                    }
+                    entry.setProperty( ARTIFACT + ".directory", path );
+                }
+                else if ( !save( candidate, artifactFile, ARTIFACT, entry ) )
+                {
+                    return;
+                }
+            }
+
+            List<Artifact> attached = project.getAttachedArtifacts();
+            for ( int i = candidate.attachedCount; i < attached.size(); i++ )
+            {
+                Artifact artifact = attached.get( i );
+                String key = ATTACHED + ( i - candidate.attachedCount );
+                if ( artifact.getFile() == null || !save( candidate, artifact.getFile(), key, entry ) )
+                {
+                    return;
+                }
+                entry.setProperty( key + ".type", artifact.getType() );
+                if ( artifact.getClassifier() != null )
+                {
+                    entry.setProperty( key + ".classifier", artifact.getClassifier() );
+                }
+            }
+
+            Set<File> outputs = new TreeSet<File>();
+            list( new File( project.getBuild().getOutputDirectory() ), outputs );
+            list( new File( project.getBuild().getTestOutputDirectory() ), outputs );
+            int count = 0;
+            for ( File output : outputs )
+            {
+                if ( !save( candidate, output, OUTPUT + count, entry ) )
+                {
+                    return;
+                }
+                count++;
+            }
+            entry.setProperty( OUTPUTS, String.valueOf( count ) );
+
+            candidate.changes.record( entry );
+
+            candidate.store.putEntry( candidate.session, candidate.key, entry );
+
+            logger.debug( "Cached build outputs of " + project.getId() + " under " + candidate.key );
+        }
+        catch ( IOException e )
+        {
+            logger.warn( "Could not cache build outputs of " + project.getId() + ": " + e.getMessage() );
+        }
+    }
+
+    private boolean save( Candidate candidate, File file, String key, Properties entry )
+        throws IOException
+    {
+        String path = relativize( candidate.basedir, normalize( file ) );
+        if ( path == null || !file.isFile() )
+        {
+            logger.debug( "Not caching build of " + candidate.project.getId() + ": " + file
+                + " is not a file within the base directory" );
+            return false;
+        }
+
+        String checksum = checksums.getChecksum( file );
+        candidate.store.putContent( candidate.session, checksum, file );
+        entry.setProperty( key + ".path", path );
+        entry.setProperty( key + ".checksum", checksum );
+        entry.setProperty( key + ".time", String.valueOf( file.lastModified() ) );
+        return true;
+    }
+
+    private String key( Candidate candidate )
+        throws IOException, LifecycleExecutionException
+    {
+        MavenSession session = candidate.session;
+        MavenProject project = candidate.project;
+        String basedir = candidate.basedir.getPath();
+
+        MessageDigest digest = FileChecksums.newDigest();
+
+        FileChecksums.update( digest, System.getProperty( "java.version" ) );
+        FileChecksums.update( digest, runtimeInformation.getMavenVersion() );
+
+        StringWriter pom = new StringWriter( 1024 * 8 );
+        new MavenXpp3Writer().write( pom, project.getModel() );
+        FileChecksums.update( digest, pom.toString().replace( basedir, BASEDIR_TOKEN ) );
+
+        Set<File> excluded = new HashSet<File>();
+        excluded.add( normalize( new File( project.getBuild().getDirectory() ) ) );
+        for ( MavenProject other : session.getProjects() )
+        {
+            if ( other != project && other.getBasedir() != null )
+            {
+                excluded.add( normalize( other.getBasedir() ) );
+            }
+        }
+        checksums.update( digest, candidate.basedir, excluded );
+
+        dependencyResolver.resolveProjectDependencies( project, SCOPES, SCOPES, session, false,
+                                                       new HashSet<Artifact>() );
+        List<Artifact> artifacts = new ArrayList<Artifact>( project.getArtifacts() );
+        Collections.sort( artifacts, new Comparator<Artifact>()
+        {
+            public int compare( Artifact a1, Artifact a2 )
+            {
+                return a1.getId().compareTo( a2.getId() );
+            }
+        } );
+        for ( Artifact artifact : artifacts )
+        {
+            FileChecksums.update( digest, artifact.getId() );
+            if ( artifact.getFile() != null )
+            {
+                checksums.update( digest, artifact.getFile(), null );
+            }
+        }
+
+        for ( MojoExecution mojoExecution : candidate.cached )
+        {
+            PluginDescriptor pluginDescriptor = mojoExecution.getMojoDescriptor().getPluginDescriptor();
+            FileChecksums.update( digest, pluginDescriptor.getId() );
+            FileChecksums.update( digest, mojoExecution.getGoal() );
+            FileChecksums.update( digest, mojoExecution.getExecutionId() );
+            Artifact pluginArtifact = pluginDescriptor.getPluginArtifact();
+            if ( pluginArtifact != null && pluginArtifact.isSnapshot() && pluginArtifact.getFile() != null )
+            {
+                checksums.update( digest, pluginArtifact.getFile(), null );
+            }
+        }
+
+        Map<String, String> properties = new TreeMap<String, String>();
+        for ( String name : session.getUserProperties().stringPropertyNames() )
+        {
+            if ( !name.startsWith( PROPERTY ) && !name.startsWith( "maven.incremental" ) )
+            {
+                properties.put( name, session.getUserProperties().getProperty( name ) );
+            }
+        }
+        for ( Map.Entry<String, String> property : properties.entrySet() )
+        {
+            FileChecksums.update( digest, property.getKey() );
+            FileChecksums.update( digest, property.getValue().replace( basedir, BASEDIR_TOKEN ) );
+        }
+
+        return FileChecksums.toHex( digest.digest() );
+    }
+
+    private static void list( File dir, Set<File> files )
+    {
+        File[] children = dir.listFiles();
+        if ( children == null )
+        {
+            return;
+        }
+        for ( File child : children )
+        {
+            if ( child.isDirectory() )
+            {
+                list( child, files );
+            }
+            else
+            {
+                files.add( child );
+            }
+        }
+    }
+
+    private static File normalize( File file )
+    {
+        return new File( file.getAbsoluteFile().toURI().normalize() );
+    }
+
+    private static String relativize( File dir, File file )
+    {
+        if ( !file.getPath().startsWith( dir.getPath() + File.separator ) )
+        {
+            return null;
+        }
+        return file.getPath().substring( dir.getPath().length() + 1 ).replace( File.separatorChar, '/' );
+    }
+
+    /**
+     * The build of a module that is eligible for caching, along with its key and the state of its project before the
+     * build.
+     */
+    public static final class Candidate
+    {
+
+        final MavenSession session;
+
+        final MavenProject project;
+
+        final File basedir;
+
+        final File artifactFile;
+
+        final int attachedCount;
+
+        final ProjectChanges changes;
+
+        final List<MojoExecution> leading = new ArrayList<MojoExecution>();
+
+        final List<MojoExecution> cached = new ArrayList<MojoExecution>();
+
+        final List<MojoExecution> trailing = new ArrayList<MojoExecution>();
+
+        String key;
+
+        BuildCacheStore store;
+
+        Candidate( MavenSession session, MavenProject project )
+        {
+            this.session = session;
+            this.project = project;
+            this.basedir = normalize( project.getBasedir() );
+            this.artifactFile = ( project.getArtifact() != null ) ? project.getArtifact().getFile() : null;
+            this.attachedCount = project.getAttachedArtifacts().size();
+            this.changes = new ProjectChanges( project );
+        }
+
+        public String getKey()
+        {
+            return key;
+        }
+
+        /**
+         * Gets the mojo executions that always run before the cached ones, e.g. those of the clean lifecycle.
+         */
+        public List<MojoExecution> getLeadingExecutions()
+        {
+            return leading;
+        }
+
+        /**
+         * Gets the mojo executions whose outputs are cached.
+         */
+        public List<MojoExecution> getCachedExecutions()
+        {
+            return cached;
+        }
+
+        /**
+         * Gets the mojo executions that always run after the cached ones, e.g. those of the install phase.
+         */
+        public List<MojoExecution> getTrailingExecutions()
+        {
+            return trailing;
+        }
+
+    }
+
+}
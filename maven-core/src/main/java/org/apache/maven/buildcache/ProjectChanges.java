@@ -0,0 +1,150 @@
+package org.apache.maven.buildcache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Records the changes that mojo executions make to the source roots and properties of a project, so that a cache can
+ * replay them when it restores the outputs of the executions instead of running them. Source roots below the base
+ * directory of the project are recorded relative to it.
+ *
+ * @since 3.3.2
+ */
+public final class ProjectChanges
+{
+
+    private static final String SOURCE_ROOT = "sourceRoot.";
+
+    private static final String TEST_SOURCE_ROOT = "testSourceRoot.";
+
+    private static final String PROPERTY_PREFIX = "property.";
+
+    private final MavenProject project;
+
+    private final List<String> compileSourceRoots;
+
+    private final List<String> testCompileSourceRoots;
+
+    private final Map<String, String> properties = new HashMap<String, String>();
+
+    /**
+     * Takes a snapshot of the specified project to compare it with later.
+     *
+     * @param project The project about to be changed, must not be {@code null}.
+     */
+    public ProjectChanges( MavenProject project )
+    {
+        this.project = project;
+        this.compileSourceRoots = new ArrayList<String>( project.getCompileSourceRoots() );
+        this.testCompileSourceRoots = new ArrayList<String>( project.getTestCompileSourceRoots() );
+        for ( String key : project.getProperties().stringPropertyNames() )
+        {
+            properties.put( key, project.getProperties().getProperty( key ) );
+        }
+    }
+
+    /**
+     * Records the source roots and properties the project gained since the snapshot.
+     *
+     * @param record The record to write the changes to, must not be {@code null}.
+     */
+    public void record( Properties record )
+    {
+        record( project.getCompileSourceRoots(), compileSourceRoots, SOURCE_ROOT, record );
+        record( project.getTestCompileSourceRoots(), testCompileSourceRoots, TEST_SOURCE_ROOT, record );
+
+        for ( String key : project.getProperties().stringPropertyNames() )
+        {
+            String value = project.getProperties().getProperty( key );
+            if ( !value.equals( properties.get( key ) ) )
+            {
+                record.setProperty( PROPERTY_PREFIX + key, value );
+            }
+        }
+    }
+
+    private void record( List<String> roots, List<String> before, String prefix, Properties record )
+    {
+        File basedir = normalize( project.getBasedir() );
+        int count = 0;
+        for ( String root : roots )
+        {
+            if ( !before.contains( root ) )
+            {
+                File file = normalize( new File( root ) );
+                String path = file.getPath();
+                if ( path.startsWith( basedir.getPath() + File.separator ) )
+                {
+                    path = path.substring( basedir.getPath().length() + 1 ).replace( File.separatorChar, '/' );
+                }
+                record.setProperty( prefix + count++, path );
+            }
+        }
+    }
+
+    /**
+     * Replays recorded changes on the specified project.
+     *
+     * @param project The project to change, must not be {@code null}.
+     * @param record The record as written by {@link #record(Properties)}, must not be {@code null}.
+     */
+    public static void apply( MavenProject project, Properties record )
+    {
+        File basedir = project.getBasedir();
+        for ( int i = 0; record.getProperty( SOURCE_ROOT + i ) != null; i++ )
+        {
+            project.addCompileSourceRoot( resolve( basedir, record.getProperty( SOURCE_ROOT + i ) ).getPath() );
+        }
+        for ( int i = 0; record.getProperty( TEST_SOURCE_ROOT + i ) != null; i++ )
+        {
+            project.addTestCompileSourceRoot( resolve( basedir, record.getProperty( TEST_SOURCE_ROOT + i ) )
+                .getPath() );
+        }
+
+        for ( String key : record.stringPropertyNames() )
+        {
+            if ( key.startsWith( PROPERTY_PREFIX ) )
+            {
+                project.getProperties().setProperty( key.substring( PROPERTY_PREFIX.length() ),
+                                                     record.getProperty( key ) );
+            }
+        }
+    }
+
+    private static File normalize( File file )
+    {
+        return new File( file.getAbsoluteFile().toURI().normalize() );
+    }
+
+    private static File resolve( File dir, String path )
+    {
+        File file = new File( path.replace( '/', File.separatorChar ) );
+        return file.isAbsolute() ? file : new File( dir, file.getPath() );
+    }
+
+}
@@ -0,0 +1,357 @@
+package org.apache.maven.eventspy.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.maven.eventspy.EventSpy;
+import org.apache.maven.execution.ExecutionEvent;
+import org.eclipse.aether.RepositoryEvent;
+
+/**
+ * Notifies a single event spy from a dedicated worker thread that consumes a bounded queue. The queue is strictly
+ * first-in first-out, so the spy receives the events of each build thread in the order they were submitted. Once the
+ * queue is full, the {@link Overflow} policy decides how to make room.
+ *
+ * @since 3.3.2
+ */
+class AsyncEventSpy
+    implements Runnable
+{
+
+    /**
+     * What to do with an event that is submitted while the queue of the spy is full.
+     */
+    enum Overflow
+    {
+
+        /**
+         * Wait until the spy has caught up.
+         */
+        BLOCK,
+
+        /**
+         * Discard the new event.
+         */
+        DROP,
+
+        /**
+         * Discard the most recent queued event of the same kind, i.e. of the same class and, for execution and
+         * repository events, of the same type, and enqueue the new event instead. Waits like {@link #BLOCK} if no
+         * such event is queued.
+         */
+        COALESCE
+
+    }
+
+    private final EventSpyDispatcher dispatcher;
+
+    private final EventSpy eventSpy;
+
+    private final int capacity;
+
+    private final Overflow overflow;
+
+    private final ArrayDeque<Pending> queue;
+
+    private final Lock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private Thread worker;
+
+    private boolean closing;
+
+    private boolean stopped;
+
+    private int maxDepth;
+
+    private long submitted;
+
+    private long delivered;
+
+    private long dropped;
+
+    private long coalesced;
+
+    private long totalLatency;
+
+    private long maxLatency;
+
+    private long totalProcessingTime;
+
+    AsyncEventSpy( EventSpyDispatcher dispatcher, EventSpy eventSpy, int capacity, Overflow overflow )
+    {
+        this.dispatcher = dispatcher;
+        this.eventSpy = eventSpy;
+        this.capacity = capacity;
+        this.overflow = overflow;
+        this.queue = new ArrayDeque<Pending>( Math.min( capacity, 1024 ) );
+    }
+
+    public EventSpy getEventSpy()
+    {
+        return eventSpy;
+    }
+
+    /**
+     * Starts the worker thread, which inherits the context class loader of the calling thread.
+     */
+    public void start()
+    {
+        worker = new Thread( this, "EventSpy " + eventSpy.getClass().getSimpleName() );
+        worker.setDaemon( true );
+        worker.setContextClassLoader( Thread.currentThread().getContextClassLoader() );
+        worker.start();
+    }
+
+    /**
+     * Enqueues the specified event for the spy.
+     *
+     * @param event The event, must not be {@code null}.
+     * @return {@code true} if the event was enqueued or discarded as per the overflow policy, {@code false} if the
+     *         worker is no longer running and the caller needs to notify the spy itself.
+     */
+    public boolean submit( Object event )
+    {
+        lock.lock();
+        try
+        {
+            while ( queue.size() >= capacity && !stopped && !closing )
+            {
+                if ( overflow == Overflow.DROP )
+                {
+                    dropped++;
+                    return true;
+                }
+                if ( overflow == Overflow.COALESCE && removeSameKind( event ) )
+                {
+                    coalesced++;
+                    break;
+                }
+                try
+                {
+                    notFull.await();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    dropped++;
+                    return true;
+                }
+            }
+
+            if ( stopped || closing )
+            {
+                return false;
+            }
+
+            queue.addLast( new Pending( event, System.nanoTime() ) );
+            submitted++;
+            maxDepth = Math.max( maxDepth, queue.size() );
+            notEmpty.signal();
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private boolean removeSameKind( Object event )
+    {
+        for ( Iterator<Pending> it = queue.descendingIterator(); it.hasNext(); )
+        {
+            if ( isSameKind( it.next().event, event ) )
+            {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSameKind( Object queued, Object event )
+    {
+        if ( queued.getClass() != event.getClass() )
+        {
+            return false;
+        }
+        if ( event instanceof ExecutionEvent )
+        {
+            return ( (ExecutionEvent) queued ).getType() == ( (ExecutionEvent) event ).getType();
+        }
+        if ( event instanceof RepositoryEvent )
+        {
+            return ( (RepositoryEvent) queued ).getType() == ( (RepositoryEvent) event ).getType();
+        }
+        return true;
+    }
+
+    public void run()
+    {
+        try
+        {
+            while ( true )
+            {
+                Pending pending;
+
+                lock.lock();
+                try
+                {
+                    while ( queue.isEmpty() && !closing )
+                    {
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    pending = queue.pollFirst();
+                    if ( pending == null )
+                    {
+                        return;
+                    }
+                    notFull.signalAll();
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+
+                long start = System.nanoTime();
+                try
+                {
+                    eventSpy.onEvent( pending.event );
+                }
+                catch ( Exception e )
+                {
+                    dispatcher.logError( "notify", e, eventSpy );
+                }
+                catch ( LinkageError e )
+                {
+                    dispatcher.logError( "notify", e, eventSpy );
+                }
+                long end = System.nanoTime();
+
+                lock.lock();
+                try
+                {
+                    delivered++;
+                    totalProcessingTime += end - start;
+                    long latency = end - pending.submitted;
+                    totalLatency += latency;
+                    maxLatency = Math.max( maxLatency, latency );
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            }
+        }
+        finally
+        {
+            lock.lock();
+            try
+            {
+                // the queue is only left behind if the spy threw an error, submitters notify the spy themselves then
+                stopped = true;
+                dropped += queue.size();
+                queue.clear();
+                notFull.signalAll();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Delivers all queued events and stops the worker thread. Events submitted afterwards are rejected.
+     */
+    public void drain()
+    {
+        lock.lock();
+        try
+        {
+            closing = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        if ( worker != null && worker != Thread.currentThread() )
+        {
+            boolean interrupted = false;
+            while ( worker.isAlive() )
+            {
+                try
+                {
+                    worker.join();
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+            }
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public EventSpyStatistics getStatistics()
+    {
+        lock.lock();
+        try
+        {
+            return new EventSpyStatistics( eventSpy.getClass().getName(), capacity, queue.size(), maxDepth, submitted,
+                                           delivered, dropped, coalesced, totalLatency, maxLatency,
+                                           totalProcessingTime );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private static class Pending
+    {
+
+        final Object event;
+
+        final long submitted;
+
+        Pending( Object event, long submitted )
+        {
+            this.event = event;
+            this.submitted = submitted;
+        }
+
+    }
+
+}
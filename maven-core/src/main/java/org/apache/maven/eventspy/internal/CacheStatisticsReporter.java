@@ -0,0 +1,142 @@
+package org.apache.maven.eventspy.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.building.CacheStatistics;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.DefaultExtensionRealmCache;
+import org.apache.maven.plugin.DefaultPluginArtifactsCache;
+import org.apache.maven.plugin.DefaultPluginDescriptorCache;
+import org.apache.maven.plugin.DefaultPluginRealmCache;
+import org.apache.maven.plugin.ExtensionRealmCache;
+import org.apache.maven.plugin.PluginArtifactsCache;
+import org.apache.maven.plugin.PluginDescriptorCache;
+import org.apache.maven.plugin.PluginRealmCache;
+import org.apache.maven.project.DefaultProjectRealmCache;
+import org.apache.maven.project.ProjectRealmCache;
+import org.apache.maven.repository.internal.SessionCacheStatistics;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * Publishes the statistics of the core caches to the event spies at the end of each session, as one
+ * {@link CacheStatistics} event per cache. The statistics of the component caches accumulate over the lifetime of the
+ * container, those of the repository session caches cover the session only. If the user or system property
+ * {@code maven.cache.statistics} is {@code true}, the statistics get logged as well.
+ *
+ * @since 3.3.2
+ */
+@Component( role = AbstractMavenLifecycleParticipant.class, hint = "cache-statistics" )
+public class CacheStatisticsReporter
+    extends AbstractMavenLifecycleParticipant
+{
+
+    static final String PROPERTY = "maven.cache.statistics";
+
+    @Requirement
+    private Logger logger;
+
+    @Requirement
+    private EventSpyDispatcher eventSpyDispatcher;
+
+    @Requirement
+    private PluginDescriptorCache pluginDescriptorCache;
+
+    @Requirement
+    private PluginArtifactsCache pluginArtifactsCache;
+
+    @Requirement
+    private PluginRealmCache pluginRealmCache;
+
+    @Requirement
+    private ExtensionRealmCache extensionRealmCache;
+
+    @Requirement
+    private ProjectRealmCache projectRealmCache;
+
+    @Override
+    public void afterSessionEnd( MavenSession session )
+    {
+        List<CacheStatistics> statistics = getStatistics( session );
+
+        for ( CacheStatistics cache : statistics )
+        {
+            eventSpyDispatcher.onEvent( cache );
+        }
+
+        if ( isEnabled( session ) && logger.isInfoEnabled() )
+        {
+            logger.info( "Cache statistics:" );
+            for ( CacheStatistics cache : statistics )
+            {
+                logger.info( "  " + cache );
+            }
+        }
+    }
+
+    List<CacheStatistics> getStatistics( MavenSession session )
+    {
+        List<CacheStatistics> statistics = new ArrayList<CacheStatistics>();
+
+        if ( pluginDescriptorCache instanceof DefaultPluginDescriptorCache )
+        {
+            statistics.add( ( (DefaultPluginDescriptorCache) pluginDescriptorCache ).getStatistics().snapshot() );
+        }
+        if ( pluginArtifactsCache instanceof DefaultPluginArtifactsCache )
+        {
+            statistics.add( ( (DefaultPluginArtifactsCache) pluginArtifactsCache ).getStatistics().snapshot() );
+        }
+        if ( pluginRealmCache instanceof DefaultPluginRealmCache )
+        {
+            statistics.add( ( (DefaultPluginRealmCache) pluginRealmCache ).getStatistics().snapshot() );
+        }
+        if ( extensionRealmCache instanceof DefaultExtensionRealmCache )
+        {
+            statistics.add( ( (DefaultExtensionRealmCache) extensionRealmCache ).getStatistics().snapshot() );
+        }
+        if ( projectRealmCache instanceof DefaultProjectRealmCache )
+        {
+            statistics.add( ( (DefaultProjectRealmCache) projectRealmCache ).getStatistics().snapshot() );
+        }
+
+        for ( CacheStatistics cache : SessionCacheStatistics.getAll( session.getRepositorySession() ) )
+        {
+            statistics.add( cache.snapshot() );
+        }
+
+        return statistics;
+    }
+
+    private static boolean isEnabled( MavenSession session )
+    {
+        String value = session.getUserProperties().getProperty( PROPERTY );
+        if ( value == null )
+        {
+            value = session.getSystemProperties().getProperty( PROPERTY );
+        }
+        return Boolean.parseBoolean( value );
+    }
+
+}
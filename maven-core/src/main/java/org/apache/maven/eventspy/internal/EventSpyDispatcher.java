@@ -20,7 +20,10 @@
  */
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
 
 import org.apache.maven.eventspy.EventSpy;
 import org.apache.maven.execution.ExecutionListener;
@@ -30,19 +33,38 @@
 import org.eclipse.aether.RepositoryListener;
 
 /**
- * Dispatches callbacks to all registered eventspies.
+ * Dispatches callbacks to all registered eventspies. By default, the spies are notified synchronously on the thread
+ * that fires the event. If the user or system property {@code maven.eventspy.async} is {@code true}, each spy gets a
+ * worker thread and a queue of {@code maven.eventspy.queueSize} events (default 1024) instead, so that slow spies do
+ * not hold up the build. The property {@code maven.eventspy.overflow} selects what happens to events submitted while
+ * a queue is full: {@code block} (default), {@code drop} or {@code coalesce}, see {@link AsyncEventSpy.Overflow}.
+ * Spies still see the events of each thread in order, {@link #close()} waits for the queues to drain. Note that
+ * asynchronously notified spies can observe events whose state was already changed further by the build. Spies that
+ * implement {@link SynchronousEventSpy} are always notified synchronously.
  * @since 3.0.2
  */
 @Component( role = EventSpyDispatcher.class )
 public class EventSpyDispatcher
 {
 
+    static final String ASYNC_PROPERTY = "maven.eventspy.async";
+
+    static final String QUEUE_SIZE_PROPERTY = "maven.eventspy.queueSize";
+
+    static final String OVERFLOW_PROPERTY = "maven.eventspy.overflow";
+
+    private static final int DEFAULT_QUEUE_SIZE = 1024;
+
     @Requirement
     private Logger logger;
 
     @Requirement( role = EventSpy.class )
     private List<EventSpy> eventSpies;
 
+    private volatile List<AsyncEventSpy> asyncSpies;
+
+    private List<EventSpyStatistics> statistics = Collections.emptyList();
+
     public void setEventSpies( List<EventSpy> eventSpies )
     {
         // make copy to get rid of needless overhead for dynamic lookups
@@ -93,37 +115,188 @@ public void init( EventSpy.Context context )
                 logError( "initialize", e, eventSpy );
             }
         }
+
+        startAsync( context );
     }
 
-    public void onEvent( Object event )
+    private void startAsync( EventSpy.Context context )
     {
-        if ( eventSpies.isEmpty() )
+        // a reused dispatcher could still be running the workers of a session that was not closed
+        stopAsync();
+
+        Properties userProperties = getProperties( context, "userProperties" );
+        Properties systemProperties = getProperties( context, "systemProperties" );
+
+        if ( !Boolean.parseBoolean( getProperty( ASYNC_PROPERTY, userProperties, systemProperties ) ) )
         {
             return;
         }
-        for ( EventSpy eventSpy : eventSpies )
+
+        int queueSize = DEFAULT_QUEUE_SIZE;
+        String value = getProperty( QUEUE_SIZE_PROPERTY, userProperties, systemProperties );
+        if ( value != null )
         {
             try
             {
-                eventSpy.onEvent( event );
+                queueSize = Integer.parseInt( value.trim() );
             }
-            catch ( Exception e )
+            catch ( NumberFormatException e )
             {
-                logError( "notify", e, eventSpy );
+                queueSize = -1;
             }
-            catch ( LinkageError e )
+            if ( queueSize <= 0 )
+            {
+                logger.warn( "Invalid value " + value + " for " + QUEUE_SIZE_PROPERTY + ", using "
+                    + DEFAULT_QUEUE_SIZE );
+                queueSize = DEFAULT_QUEUE_SIZE;
+            }
+        }
+
+        AsyncEventSpy.Overflow overflow = AsyncEventSpy.Overflow.BLOCK;
+        value = getProperty( OVERFLOW_PROPERTY, userProperties, systemProperties );
+        if ( value != null )
+        {
+            try
+            {
+                overflow = AsyncEventSpy.Overflow.valueOf( value.trim().toUpperCase( Locale.ENGLISH ) );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                logger.warn( "Invalid value " + value + " for " + OVERFLOW_PROPERTY + ", using block" );
+            }
+        }
+
+        List<AsyncEventSpy> spies = new ArrayList<AsyncEventSpy>( eventSpies.size() );
+        for ( EventSpy eventSpy : eventSpies )
+        {
+            if ( eventSpy instanceof SynchronousEventSpy )
+            {
+                continue;
+            }
+            AsyncEventSpy spy = new AsyncEventSpy( this, eventSpy, queueSize, overflow );
+            spy.start();
+            spies.add( spy );
+        }
+        asyncSpies = spies;
+    }
+
+    private void stopAsync()
+    {
+        List<AsyncEventSpy> spies = asyncSpies;
+        if ( spies == null )
+        {
+            return;
+        }
+        asyncSpies = null;
+
+        List<EventSpyStatistics> stats = new ArrayList<EventSpyStatistics>( spies.size() );
+        for ( AsyncEventSpy spy : spies )
+        {
+            spy.drain();
+            stats.add( spy.getStatistics() );
+        }
+        statistics = Collections.unmodifiableList( stats );
+
+        if ( logger.isDebugEnabled() )
+        {
+            for ( EventSpyStatistics stat : stats )
             {
-                logError( "notify", e, eventSpy );
+                logger.debug( "Event spy " + stat );
             }
         }
     }
 
+    private static Properties getProperties( EventSpy.Context context, String key )
+    {
+        Object properties = context.getData().get( key );
+        return ( properties instanceof Properties ) ? (Properties) properties : null;
+    }
+
+    private static String getProperty( String key, Properties userProperties, Properties systemProperties )
+    {
+        String value = ( userProperties != null ) ? userProperties.getProperty( key ) : null;
+        if ( value == null && systemProperties != null )
+        {
+            value = systemProperties.getProperty( key );
+        }
+        return value;
+    }
+
+    /**
+     * Gets the queue and delivery metrics of the asynchronously notified spies. While the spies are notified, the
+     * metrics are sampled on each call, after {@link #close()} they describe the last session.
+     *
+     * @return The metrics per spy, never {@code null}. Empty if the spies are notified synchronously.
+     */
+    public List<EventSpyStatistics> getStatistics()
+    {
+        List<AsyncEventSpy> spies = asyncSpies;
+        if ( spies == null )
+        {
+            return statistics;
+        }
+        List<EventSpyStatistics> stats = new ArrayList<EventSpyStatistics>( spies.size() );
+        for ( AsyncEventSpy spy : spies )
+        {
+            stats.add( spy.getStatistics() );
+        }
+        return stats;
+    }
+
+    public void onEvent( Object event )
+    {
+        if ( eventSpies.isEmpty() )
+        {
+            return;
+        }
+        List<AsyncEventSpy> spies = asyncSpies;
+        if ( spies != null )
+        {
+            for ( AsyncEventSpy spy : spies )
+            {
+                if ( !spy.submit( event ) )
+                {
+                    notifySpy( spy.getEventSpy(), event );
+                }
+            }
+            for ( EventSpy eventSpy : eventSpies )
+            {
+                if ( eventSpy instanceof SynchronousEventSpy )
+                {
+                    notifySpy( eventSpy, event );
+                }
+            }
+            return;
+        }
+        for ( EventSpy eventSpy : eventSpies )
+        {
+            notifySpy( eventSpy, event );
+        }
+    }
+
+    private void notifySpy( EventSpy eventSpy, Object event )
+    {
+        try
+        {
+            eventSpy.onEvent( event );
+        }
+        catch ( Exception e )
+        {
+            logError( "notify", e, eventSpy );
+        }
+        catch ( LinkageError e )
+        {
+            logError( "notify", e, eventSpy );
+        }
+    }
+
     public void close()
     {
         if ( eventSpies.isEmpty() )
         {
             return;
         }
+        stopAsync();
         for ( EventSpy eventSpy : eventSpies )
         {
             try
@@ -141,7 +314,7 @@ public void close()
         }
     }
 
-    private void logError( String action, Throwable e, EventSpy spy )
+    void logError( String action, Throwable e, EventSpy spy )
     {
         String msg = "Failed to " + action + " spy " + spy.getClass().getName() + ": " + e.getMessage();
 
@@ -0,0 +1,174 @@
+package org.apache.maven.eventspy.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * A snapshot of the queue and delivery metrics of an event spy that is notified asynchronously, see
+ * {@link EventSpyDispatcher#getStatistics()}. Latencies span from the submission of an event by the build thread until
+ * the spy returns from its {@code onEvent()} method, so they include the time spent waiting in the queue.
+ *
+ * @since 3.3.2
+ */
+public class EventSpyStatistics
+{
+
+    private final String spy;
+
+    private final int capacity;
+
+    private final int queueDepth;
+
+    private final int maxQueueDepth;
+
+    private final long submitted;
+
+    private final long delivered;
+
+    private final long dropped;
+
+    private final long coalesced;
+
+    private final long totalLatency;
+
+    private final long maxLatency;
+
+    private final long totalProcessingTime;
+
+    EventSpyStatistics( String spy, int capacity, int queueDepth, int maxQueueDepth, long submitted, long delivered,
+                        long dropped, long coalesced, long totalLatency, long maxLatency, long totalProcessingTime )
+    {
+        this.spy = spy;
+        this.capacity = capacity;
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+        this.submitted = submitted;
+        this.delivered = delivered;
+        this.dropped = dropped;
+        this.coalesced = coalesced;
+        this.totalLatency = totalLatency;
+        this.maxLatency = maxLatency;
+        this.totalProcessingTime = totalProcessingTime;
+    }
+
+    /**
+     * @return The class name of the event spy, never {@code null}.
+     */
+    public String getSpy()
+    {
+        return spy;
+    }
+
+    /**
+     * @return The maximum number of events that can wait in the queue of the spy.
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * @return The number of events waiting in the queue when the snapshot was taken.
+     */
+    public int getQueueDepth()
+    {
+        return queueDepth;
+    }
+
+    /**
+     * @return The highest number of events that waited in the queue at the same time.
+     */
+    public int getMaxQueueDepth()
+    {
+        return maxQueueDepth;
+    }
+
+    /**
+     * @return The number of events accepted into the queue.
+     */
+    public long getSubmitted()
+    {
+        return submitted;
+    }
+
+    /**
+     * @return The number of events passed to the spy.
+     */
+    public long getDelivered()
+    {
+        return delivered;
+    }
+
+    /**
+     * @return The number of events discarded because the queue was full.
+     */
+    public long getDropped()
+    {
+        return dropped;
+    }
+
+    /**
+     * @return The number of queued events that were superseded by a newer event of the same kind.
+     */
+    public long getCoalesced()
+    {
+        return coalesced;
+    }
+
+    /**
+     * @return The average time in nanoseconds from the submission of an event until the spy processed it.
+     */
+    public long getAverageLatency()
+    {
+        return ( delivered > 0 ) ? totalLatency / delivered : 0;
+    }
+
+    /**
+     * @return The longest time in nanoseconds from the submission of an event until the spy processed it.
+     */
+    public long getMaxLatency()
+    {
+        return maxLatency;
+    }
+
+    /**
+     * @return The average time in nanoseconds the spy spent processing an event.
+     */
+    public long getAverageProcessingTime()
+    {
+        return ( delivered > 0 ) ? totalProcessingTime / delivered : 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder buffer = new StringBuilder( 128 );
+        buffer.append( spy ).append( ": " );
+        buffer.append( delivered ).append( " delivered, " );
+        buffer.append( dropped ).append( " dropped, " );
+        buffer.append( coalesced ).append( " coalesced, " );
+        buffer.append( "queue " ).append( queueDepth ).append( '/' ).append( capacity );
+        buffer.append( " (max " ).append( maxQueueDepth ).append( "), " );
+        buffer.append( "latency avg " ).append( getAverageLatency() / 1000 ).append( " us" );
+        buffer.append( " max " ).append( maxLatency / 1000 ).append( " us, " );
+        buffer.append( "processing avg " ).append( getAverageProcessingTime() / 1000 ).append( " us" );
+        return buffer.toString();
+    }
+
+}
@@ -19,22 +19,23 @@
  * under the License.
  */
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.IdentityHashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.maven.execution.MojoExecutionEvent;
 import org.apache.maven.execution.MojoExecutionListener;
 import org.apache.maven.execution.scope.WeakMojoExecutionListener;
 import org.apache.maven.plugin.MojoExecutionException;
 
-import com.google.common.collect.Maps;
 import com.google.inject.Key;
 import com.google.inject.OutOfScopeException;
 import com.google.inject.Provider;
 import com.google.inject.Scope;
-import com.google.inject.util.Providers;
 
 public class MojoExecutionScope
     implements Scope, MojoExecutionListener
@@ -47,14 +48,156 @@ public Object get()
         }
     };
 
-    private static final class ScopeState
+    /**
+     * The state of one mojo execution. The seeded objects of a context never change, seeding creates a new context
+     * instead. The objects provided by the scope are created lazily and shared by all threads that enter the context,
+     * e.g. by worker tasks of a mojo that were passed through {@link MojoExecutionScope#wrap(Runnable)}.
+     *
+     * @since 3.3.2
+     */
+    public static final class Context
     {
-        public final Map<Key<?>, Provider<?>> seeded = Maps.newHashMap();
+        private static final Object[] NO_SEEDS = {};
 
-        public final Map<Key<?>, Object> provided = Maps.newHashMap();
+        private final Object[] seeds;
+
+        private volatile ConcurrentMap<Key<?>, Object> provided;
+
+        Context()
+        {
+            this( NO_SEEDS, null );
+        }
+
+        private Context( Object[] seeds, ConcurrentMap<Key<?>, Object> provided )
+        {
+            this.seeds = seeds;
+            this.provided = provided;
+        }
+
+        Context seed( Key<?> key, Object seed )
+        {
+            Object[] seeds = this.seeds;
+            for ( int i = 0; i < seeds.length; i += 2 )
+            {
+                if ( key.equals( seeds[i] ) )
+                {
+                    seeds = seeds.clone();
+                    seeds[i + 1] = seed;
+                    return new Context( seeds, provided );
+                }
+            }
+            seeds = Arrays.copyOf( seeds, seeds.length + 2 );
+            seeds[seeds.length - 2] = key;
+            seeds[seeds.length - 1] = seed;
+            return new Context( seeds, provided );
+        }
+
+        Object get( Key<?> key, Provider<?> unscoped )
+        {
+            Object[] seeds = this.seeds;
+            for ( int i = 0; i < seeds.length; i += 2 )
+            {
+                if ( key.equals( seeds[i] ) )
+                {
+                    Object seed = seeds[i + 1];
+                    return ( seed instanceof SeededProvider ) ? ( (SeededProvider) seed ).provider.get() : seed;
+                }
+            }
+
+            ConcurrentMap<Key<?>, Object> provided = getProvided();
+            Object instance = provided.get( key );
+            if ( instance == null && unscoped != null )
+            {
+                instance = unscoped.get();
+                if ( instance != null )
+                {
+                    Object existing = provided.putIfAbsent( key, instance );
+                    if ( existing != null )
+                    {
+                        instance = existing;
+                    }
+                }
+            }
+            return instance;
+        }
+
+        Collection<Object> getProvidedInstances()
+        {
+            ConcurrentMap<Key<?>, Object> map = provided;
+            return ( map != null ) ? map.values() : Collections.<Object>emptySet();
+        }
+
+        private ConcurrentMap<Key<?>, Object> getProvided()
+        {
+            ConcurrentMap<Key<?>, Object> map = provided;
+            if ( map == null )
+            {
+                synchronized ( this )
+                {
+                    map = provided;
+                    if ( map == null )
+                    {
+                        map = new ConcurrentHashMap<Key<?>, Object>( 8, 0.75f, 1 );
+                        provided = map;
+                    }
+                }
+            }
+            return map;
+        }
+    }
+
+    private static final class SeededProvider
+    {
+        final Provider<?> provider;
+
+        SeededProvider( Provider<?> provider )
+        {
+            this.provider = provider;
+        }
+    }
+
+    /**
+     * The contexts entered by a thread, reused across enter/exit to avoid garbage for every mojo execution.
+     */
+    private static final class Frames
+    {
+        private Context[] contexts = new Context[4];
+
+        private int size;
+
+        void push( Context context )
+        {
+            if ( size >= contexts.length )
+            {
+                contexts = Arrays.copyOf( contexts, size * 2 );
+            }
+            contexts[size++] = context;
+        }
+
+        Context peek()
+        {
+            return ( size > 0 ) ? contexts[size - 1] : null;
+        }
+
+        void replace( Context context )
+        {
+            contexts[size - 1] = context;
+        }
+
+        void pop()
+        {
+            contexts[--size] = null;
+        }
     }
 
-    private final ThreadLocal<LinkedList<ScopeState>> values = new ThreadLocal<LinkedList<ScopeState>>();
+    private final ThreadLocal<Frames> values = new ThreadLocal<Frames>()
+    {
+        @Override
+        protected Frames initialValue()
+        {
+            return new Frames();
+        }
+    };
 
     public MojoExecutionScope()
     {
@@ -62,48 +205,77 @@ public MojoExecutionScope()
 
     public void enter()
     {
-        LinkedList<ScopeState> stack = values.get();
-        if ( stack == null )
+        values.get().push( new Context() );
+    }
+
+    /**
+     * Enters the specified context on the current thread, e.g. in a worker thread that performs a task on behalf of a
+     * mojo execution. Each call must be matched by a call to {@link #exit()}.
+     *
+     * @param context The context to enter, must not be {@code null}.
+     * @since 3.3.2
+     */
+    public void enter( Context context )
+    {
+        if ( context == null )
         {
-            stack = new LinkedList<ScopeState>();
-            values.set( stack );
+            throw new IllegalArgumentException( "context missing" );
         }
-        stack.addFirst( new ScopeState() );
+        values.get().push( context );
     }
 
-    private ScopeState getScopeState()
+    /**
+     * Gets the context of the current mojo execution.
+     *
+     * @return The current context, never {@code null}.
+     * @throws IllegalStateException If the current thread is not within the scope.
+     * @since 3.3.2
+     */
+    public Context getContext()
     {
-        LinkedList<ScopeState> stack = values.get();
-        if ( stack == null || stack.isEmpty() )
+        Context context = values.get().peek();
+        if ( context == null )
         {
             throw new IllegalStateException();
         }
-        return stack.getFirst();
+        return context;
     }
 
     public void exit()
         throws MojoExecutionException
     {
-        final LinkedList<ScopeState> stack = values.get();
-        if ( stack == null || stack.isEmpty() )
+        pop();
+    }
+
+    private void pop()
+    {
+        Frames frames = values.get();
+        if ( frames.peek() == null )
         {
             throw new IllegalStateException();
         }
-        stack.removeFirst();
-        if ( stack.isEmpty() )
-        {
-            values.remove();
-        }
+        frames.pop();
     }
 
     public <T> void seed( Class<T> clazz, Provider<T> value )
     {
-        getScopeState().seeded.put( Key.get( clazz ), value );
+        seed( Key.get( clazz ), new SeededProvider( value ) );
     }
 
     public <T> void seed( Class<T> clazz, final T value )
     {
-        getScopeState().seeded.put( Key.get( clazz ), Providers.of( value ) );
+        seed( Key.get( clazz ), (Object) value );
+    }
+
+    private void seed( Key<?> key, Object seed )
+    {
+        Frames frames = values.get();
+        Context context = frames.peek();
+        if ( context == null )
+        {
+            throw new IllegalStateException();
+        }
+        frames.replace( context.seed( key, seed ) );
     }
 
     public <T> Provider<T> scope( final Key<T> key, final Provider<T> unscoped )
@@ -113,29 +285,82 @@ public <T> Provider<T> scope( final Key<T> key, final Provider<T> unscoped )
             @SuppressWarnings( "unchecked" )
             public T get()
             {
-                LinkedList<ScopeState> stack = values.get();
-                if ( stack == null || stack.isEmpty() )
+                Context context = values.get().peek();
+                if ( context == null )
                 {
                     throw new OutOfScopeException( "Cannot access " + key + " outside of a scoping block" );
                 }
 
-                ScopeState state = stack.getFirst();
-
-                Provider<?> seeded = state.seeded.get( key );
+                return (T) context.get( key, unscoped );
+            }
+        };
+    }
 
-                if ( seeded != null )
+    /**
+     * Wraps the specified task such that it runs within the current mojo execution and with the current context class
+     * loader, regardless of the thread that eventually runs it.
+     *
+     * @param task The task to wrap, must not be {@code null}.
+     * @return The wrapped task, never {@code null}.
+     * @throws IllegalStateException If the current thread is not within the scope.
+     * @since 3.3.2
+     */
+    public Runnable wrap( final Runnable task )
+    {
+        final Context context = getContext();
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return new Runnable()
+        {
+            public void run()
+            {
+                Thread thread = Thread.currentThread();
+                ClassLoader oldLoader = thread.getContextClassLoader();
+                thread.setContextClassLoader( loader );
+                enter( context );
+                try
                 {
-                    return (T) seeded.get();
+                    task.run();
                 }
-
-                T provided = (T) state.provided.get( key );
-                if ( provided == null && unscoped != null )
+                finally
                 {
-                    provided = unscoped.get();
-                    state.provided.put( key, provided );
+                    pop();
+                    thread.setContextClassLoader( oldLoader );
                 }
+            }
+        };
+    }
 
-                return provided;
+    /**
+     * Wraps the specified task such that it runs within the current mojo execution and with the current context class
+     * loader, regardless of the thread that eventually runs it.
+     *
+     * @param task The task to wrap, must not be {@code null}.
+     * @return The wrapped task, never {@code null}.
+     * @throws IllegalStateException If the current thread is not within the scope.
+     * @since 3.3.2
+     */
+    public <V> Callable<V> wrap( final Callable<V> task )
+    {
+        final Context context = getContext();
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return new Callable<V>()
+        {
+            public V call()
+                throws Exception
+            {
+                Thread thread = Thread.currentThread();
+                ClassLoader oldLoader = thread.getContextClassLoader();
+                thread.setContextClassLoader( loader );
+                enter( context );
+                try
+                {
+                    return task.call();
+                }
+                finally
+                {
+                    pop();
+                    thread.setContextClassLoader( oldLoader );
+                }
             }
         };
     }
@@ -178,7 +403,7 @@ private Collection<WeakMojoExecutionListener> getProvidedListeners()
         // deduplicate instances to avoid redundant beforeXXX/afterXXX callbacks
         IdentityHashMap<WeakMojoExecutionListener, Object> listeners =
             new IdentityHashMap<WeakMojoExecutionListener, Object>();
-        for ( Object provided : getScopeState().provided.values() )
+        for ( Object provided : getContext().getProvidedInstances() )
         {
             if ( provided instanceof WeakMojoExecutionListener )
             {
@@ -0,0 +1,666 @@
+package org.apache.maven.history;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A local file that records the timings of builds. Each build is appended as one block of records, keyed by project
+ * and name, e.g. the mojo execution, so the file can be shared by concurrent builds and a build that crashes while
+ * writing leaves at most a torn block at the end, which the next append drops. Reading maps the file into memory and
+ * only decodes the most recent builds. Builds are compared against the median of the recent builds, the baseline, to
+ * find regressions.
+ * <p>
+ * The file starts with a magic number and the format version, followed by the blocks. Each block is its length, the
+ * timestamp of the build, a table of the strings it uses and its records, each referring to the strings of its
+ * project and name by index.
+ *
+ * @since 3.3.2
+ */
+public class BuildHistory
+{
+
+    static final int MAGIC = 0x4D564E48;
+
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * The minimum number of earlier samples a value needs before it can regress.
+     */
+    static final int MIN_SAMPLES = 3;
+
+    /**
+     * The kinds of values recorded per key.
+     */
+    public enum Metric
+    {
+        /**
+         * A duration in milliseconds.
+         */
+        DURATION,
+
+        /**
+         * The number of cache hits.
+         */
+        HITS,
+
+        /**
+         * The number of cache misses.
+         */
+        MISSES
+    }
+
+    private final File file;
+
+    /**
+     * Creates a history backed by the specified file.
+     *
+     * @param file The history file, must not be {@code null}. The file need not exist yet.
+     */
+    public BuildHistory( File file )
+    {
+        if ( file == null )
+        {
+            throw new IllegalArgumentException( "history file missing" );
+        }
+        this.file = file;
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Appends the specified build to the history.
+     *
+     * @param build The build to append, must not be {@code null}.
+     * @throws IOException If the history file could not be written or is not a history file.
+     */
+    public void append( Build build )
+        throws IOException
+    {
+        byte[] block = build.encode();
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if ( parent != null && !parent.isDirectory() && !parent.mkdirs() )
+        {
+            throw new IOException( "Could not create directory " + parent );
+        }
+
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            FileLock lock = channel.lock();
+            try
+            {
+                long end = findEnd( channel );
+                if ( end < channel.size() )
+                {
+                    channel.truncate( end );
+                }
+                write( channel, ByteBuffer.wrap( block ), end );
+            }
+            finally
+            {
+                lock.release();
+            }
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    /**
+     * Finds the end of the last complete block, writing the file header if the file is empty.
+     */
+    private long findEnd( FileChannel channel )
+        throws IOException
+    {
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate( HEADER_SIZE );
+
+        if ( size < HEADER_SIZE )
+        {
+            channel.truncate( 0 );
+            buffer.putInt( MAGIC ).putInt( VERSION );
+            ( (Buffer) buffer ).flip();
+            write( channel, buffer, 0 );
+            return HEADER_SIZE;
+        }
+
+        read( channel, buffer, 0 );
+        checkHeader( buffer.getInt(), buffer.getInt() );
+
+        long pos = HEADER_SIZE;
+        while ( pos + 4 <= size )
+        {
+            ( (Buffer) buffer ).clear();
+            ( (Buffer) buffer ).limit( 4 );
+            read( channel, buffer, pos );
+            int length = buffer.getInt();
+            if ( length < 0 || pos + 4 + length > size )
+            {
+                break;
+            }
+            pos += 4 + length;
+        }
+        return pos;
+    }
+
+    private void checkHeader( int magic, int version )
+        throws IOException
+    {
+        if ( magic != MAGIC )
+        {
+            throw new IOException( file + " is not a build history file" );
+        }
+        if ( version != VERSION )
+        {
+            throw new IOException( "Unsupported version " + version + " of build history file " + file );
+        }
+    }
+
+    private static void read( FileChannel channel, ByteBuffer buffer, long pos )
+        throws IOException
+    {
+        while ( buffer.hasRemaining() )
+        {
+            int n = channel.read( buffer, pos + buffer.position() );
+            if ( n < 0 )
+            {
+                throw new IOException( "Unexpected end of file" );
+            }
+        }
+        ( (Buffer) buffer ).flip();
+    }
+
+    private static void write( FileChannel channel, ByteBuffer buffer, long pos )
+        throws IOException
+    {
+        while ( buffer.hasRemaining() )
+        {
+            channel.write( buffer, pos + buffer.position() );
+        }
+    }
+
+    /**
+     * Reads the most recent builds from the history.
+     *
+     * @param maxBuilds The maximum number of builds to read.
+     * @return The builds, oldest first, never {@code null}. The list is empty if the history file does not exist.
+     * @throws IOException If the history file could not be read or is not a history file.
+     */
+    public List<Build> read( int maxBuilds )
+        throws IOException
+    {
+        if ( maxBuilds <= 0 || !file.isFile() )
+        {
+            return Collections.emptyList();
+        }
+
+        FileInputStream stream = new FileInputStream( file );
+        try
+        {
+            FileChannel channel = stream.getChannel();
+            FileLock lock = channel.lock( 0, Long.MAX_VALUE, true );
+            try
+            {
+                long size = channel.size();
+                if ( size < HEADER_SIZE )
+                {
+                    return Collections.emptyList();
+                }
+                if ( size > Integer.MAX_VALUE )
+                {
+                    throw new IOException( "Build history file " + file + " is too large" );
+                }
+
+                MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, size );
+                checkHeader( buffer.getInt(), buffer.getInt() );
+
+                LinkedList<Integer> offsets = new LinkedList<Integer>();
+                int pos = HEADER_SIZE;
+                while ( pos + 4 <= size )
+                {
+                    int length = buffer.getInt( pos );
+                    if ( length < 0 || pos + 4L + length > size )
+                    {
+                        break;
+                    }
+                    offsets.add( pos + 4 );
+                    if ( offsets.size() > maxBuilds )
+                    {
+                        offsets.removeFirst();
+                    }
+                    pos += 4 + length;
+                }
+
+                List<Build> builds = new ArrayList<Build>( offsets.size() );
+                for ( Integer offset : offsets )
+                {
+                    ( (Buffer) buffer ).position( offset );
+                    try
+                    {
+                        builds.add( Build.decode( buffer ) );
+                    }
+                    catch ( RuntimeException e )
+                    {
+                        throw new IOException( "Corrupt build history file " + file, e );
+                    }
+                }
+                return builds;
+            }
+            finally
+            {
+                lock.release();
+            }
+        }
+        finally
+        {
+            stream.close();
+        }
+    }
+
+    /**
+     * Computes the baseline of the specified builds, i.e. the median of the values recorded for each key.
+     *
+     * @param builds The builds to compute the baseline of, must not be {@code null}.
+     * @param minSamples The minimum number of builds a key must be recorded in to get a baseline.
+     * @return The baseline values by key, never {@code null}.
+     */
+    public static Map<Key, Long> getBaseline( List<Build> builds, int minSamples )
+    {
+        Map<Key, List<Long>> samples = new HashMap<Key, List<Long>>();
+        for ( Build build : builds )
+        {
+            for ( Map.Entry<Key, Long> entry : build.getValues().entrySet() )
+            {
+                List<Long> values = samples.get( entry.getKey() );
+                if ( values == null )
+                {
+                    values = new ArrayList<Long>( builds.size() );
+                    samples.put( entry.getKey(), values );
+                }
+                values.add( entry.getValue() );
+            }
+        }
+
+        Map<Key, Long> baseline = new HashMap<Key, Long>( samples.size() * 2 );
+        for ( Map.Entry<Key, List<Long>> entry : samples.entrySet() )
+        {
+            List<Long> values = entry.getValue();
+            if ( values.size() >= minSamples )
+            {
+                Collections.sort( values );
+                int middle = values.size() / 2;
+                long median = values.get( middle );
+                if ( values.size() % 2 == 0 )
+                {
+                    median = ( values.get( middle - 1 ) + median ) / 2;
+                }
+                baseline.put( entry.getKey(), median );
+            }
+        }
+        return baseline;
+    }
+
+    /**
+     * Finds the durations of the specified build that regressed compared to the baseline of the earlier builds.
+     *
+     * @param build The build to check, must not be {@code null}.
+     * @param history The earlier builds, must not be {@code null}.
+     * @param thresholdPercent The percentage by which a duration must exceed its baseline to be a regression.
+     * @param minDelta The minimum number of milliseconds by which a duration must exceed its baseline to be a
+     *            regression, avoids reporting the noise of short mojos.
+     * @return The regressions, largest first, never {@code null}.
+     */
+    public static List<Regression> findRegressions( Build build, List<Build> history, int thresholdPercent,
+                                                    long minDelta )
+    {
+        Map<Key, Long> baseline = getBaseline( history, MIN_SAMPLES );
+
+        List<Regression> regressions = new ArrayList<Regression>();
+        for ( Map.Entry<Key, Long> entry : build.getValues().entrySet() )
+        {
+            Key key = entry.getKey();
+            Long base = baseline.get( key );
+            if ( base == null || key.getMetric() != Metric.DURATION )
+            {
+                continue;
+            }
+            long value = entry.getValue();
+            if ( value - base >= minDelta && value * 100 > base * ( 100L + thresholdPercent ) )
+            {
+                regressions.add( new Regression( key, value, base ) );
+            }
+        }
+
+        Collections.sort( regressions, new Comparator<Regression>()
+        {
+            public int compare( Regression r1, Regression r2 )
+            {
+                long d1 = r1.getValue() - r1.getBaseline();
+                long d2 = r2.getValue() - r2.getBaseline();
+                return ( d1 > d2 ) ? -1 : ( ( d1 < d2 ) ? 1 : 0 );
+            }
+        } );
+        return regressions;
+    }
+
+    /**
+     * Identifies a value recorded for a build.
+     */
+    public static final class Key
+    {
+
+        private final String project;
+
+        private final String name;
+
+        private final Metric metric;
+
+        private final int hash;
+
+        /**
+         * @param project The project the value belongs to, {@code *} for values of the whole build.
+         * @param name The name of the value within the project, e.g. the mojo execution, empty for the project itself.
+         * @param metric The kind of the value.
+         */
+        public Key( String project, String name, Metric metric )
+        {
+            this.project = ( project != null ) ? project : "";
+            this.name = ( name != null ) ? name : "";
+            this.metric = metric;
+            this.hash = ( this.project.hashCode() * 31 + this.name.hashCode() ) * 31 + metric.hashCode();
+        }
+
+        public String getProject()
+        {
+            return project;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public Metric getMetric()
+        {
+            return metric;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof Key ) )
+            {
+                return false;
+            }
+            Key that = (Key) obj;
+            return hash == that.hash && metric == that.metric && project.equals( that.project )
+                && name.equals( that.name );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder buffer = new StringBuilder( 128 );
+            if ( name.length() > 0 )
+            {
+                buffer.append( name ).append( " @ " );
+            }
+            buffer.append( project );
+            if ( metric != Metric.DURATION )
+            {
+                buffer.append( " [" ).append( metric.name().toLowerCase( Locale.ENGLISH ) ).append( ']' );
+            }
+            return buffer.toString();
+        }
+
+    }
+
+    /**
+     * The values recorded for one build. Adding values is thread-safe.
+     */
+    public static final class Build
+    {
+
+        private final long timestamp;
+
+        private final Map<Key, Long> values = new LinkedHashMap<Key, Long>();
+
+        /**
+         * @param timestamp The start of the build in milliseconds since the epoch.
+         */
+        public Build( long timestamp )
+        {
+            this.timestamp = timestamp;
+        }
+
+        public long getTimestamp()
+        {
+            return timestamp;
+        }
+
+        /**
+         * Adds a value to the build, values of the same key are summed up, e.g. for mojos executed more than once.
+         */
+        public void add( String project, String name, Metric metric, long value )
+        {
+            Key key = new Key( project, name, metric );
+            synchronized ( values )
+            {
+                Long old = values.get( key );
+                values.put( key, ( old != null ) ? old + value : value );
+            }
+        }
+
+        /**
+         * @return The value of the specified key or {@code null} if none was recorded.
+         */
+        public Long get( String project, String name, Metric metric )
+        {
+            synchronized ( values )
+            {
+                return values.get( new Key( project, name, metric ) );
+            }
+        }
+
+        /**
+         * @return A snapshot of the recorded values, never {@code null}.
+         */
+        public Map<Key, Long> getValues()
+        {
+            synchronized ( values )
+            {
+                return new LinkedHashMap<Key, Long>( values );
+            }
+        }
+
+        byte[] encode()
+        {
+            Map<Key, Long> snapshot = getValues();
+
+            Map<String, Integer> indices = new LinkedHashMap<String, Integer>();
+            int size = 8 + 4 + 4;
+            for ( Key key : snapshot.keySet() )
+            {
+                size += index( indices, key.getProject() ) + index( indices, key.getName() ) + 4 + 4 + 1 + 8;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate( 4 + size );
+            buffer.putInt( size );
+            buffer.putLong( timestamp );
+            buffer.putInt( indices.size() );
+            for ( String string : indices.keySet() )
+            {
+                byte[] bytes = utf8( string );
+                buffer.putInt( bytes.length ).put( bytes );
+            }
+            buffer.putInt( snapshot.size() );
+            for ( Map.Entry<Key, Long> entry : snapshot.entrySet() )
+            {
+                Key key = entry.getKey();
+                buffer.putInt( indices.get( key.getProject() ) );
+                buffer.putInt( indices.get( key.getName() ) );
+                buffer.put( (byte) key.getMetric().ordinal() );
+                buffer.putLong( entry.getValue() );
+            }
+            return buffer.array();
+        }
+
+        /**
+         * Adds the string to the table and returns the number of bytes it adds to the block.
+         */
+        private static int index( Map<String, Integer> indices, String string )
+        {
+            if ( indices.containsKey( string ) )
+            {
+                return 0;
+            }
+            indices.put( string, indices.size() );
+            return 4 + utf8( string ).length;
+        }
+
+        static Build decode( ByteBuffer buffer )
+            throws IOException
+        {
+            Build build = new Build( buffer.getLong() );
+
+            String[] strings = new String[buffer.getInt()];
+            for ( int i = 0; i < strings.length; i++ )
+            {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get( bytes );
+                strings[i] = new String( bytes, "UTF-8" );
+            }
+
+            Metric[] metrics = Metric.values();
+            for ( int i = buffer.getInt(); i > 0; i-- )
+            {
+                String project = strings[buffer.getInt()];
+                String name = strings[buffer.getInt()];
+                int metric = buffer.get();
+                long value = buffer.getLong();
+                if ( metric >= 0 && metric < metrics.length )
+                {
+                    build.add( project, name, metrics[metric], value );
+                }
+            }
+            return build;
+        }
+
+        private static byte[] utf8( String string )
+        {
+            try
+            {
+                return string.getBytes( "UTF-8" );
+            }
+            catch ( UnsupportedEncodingException e )
+            {
+                throw new IllegalStateException( e );
+            }
+        }
+
+    }
+
+    /**
+     * A duration that exceeded its baseline.
+     */
+    public static final class Regression
+    {
+
+        private final Key key;
+
+        private final long value;
+
+        private final long baseline;
+
+        Regression( Key key, long value, long baseline )
+        {
+            this.key = key;
+            this.value = value;
+            this.baseline = baseline;
+        }
+
+        public Key getKey()
+        {
+            return key;
+        }
+
+        /**
+         * @return The duration of the current build in milliseconds.
+         */
+        public long getValue()
+        {
+            return value;
+        }
+
+        /**
+         * @return The baseline duration in milliseconds.
+         */
+        public long getBaseline()
+        {
+            return baseline;
+        }
+
+        @Override
+        public String toString()
+        {
+            long percent = ( baseline > 0 ) ? ( value - baseline ) * 100 / baseline : 100;
+            return key + " took " + value + " ms, baseline " + baseline + " ms (+" + percent + "%)";
+        }
+
+    }
+
+}
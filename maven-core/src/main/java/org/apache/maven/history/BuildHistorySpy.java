@@ -0,0 +1,382 @@
+package org.apache.maven.history;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.building.CacheStatistics;
+import org.apache.maven.eventspy.AbstractEventSpy;
+import org.apache.maven.eventspy.EventSpy;
+import org.apache.maven.eventspy.internal.SynchronousEventSpy;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenExecutionResult;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.DependencyResolutionRequest;
+import org.apache.maven.project.DependencyResolutionResult;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * Records the durations of the projects and mojo executions, the dependency resolution times and the cache
+ * statistics of each build in a {@link BuildHistory}, if the user or system property {@value #PROPERTY} is
+ * {@code true}. The history file defaults to {@code ~/.m2/build-history.dat} and can be set via
+ * {@value #FILE_PROPERTY}. If {@value #REPORT_PROPERTY} is {@code true}, the durations of the build are compared
+ * against the baseline of the previous {@value #BASELINE_PROPERTY} builds (default 10) and those that exceed it by
+ * more than {@value #THRESHOLD_PROPERTY} percent (default 50) are reported at the end of the build. The durations are
+ * taken when the spy is notified and the resolution times are tracked per thread, so the spy is a
+ * {@link SynchronousEventSpy} that is notified on the build threads even if other spies are notified asynchronously.
+ *
+ * @since 3.3.2
+ */
+@Component( role = EventSpy.class, hint = "build-history" )
+public class BuildHistorySpy
+    extends AbstractEventSpy
+    implements SynchronousEventSpy
+{
+
+    static final String PROPERTY = "maven.buildHistory";
+
+    static final String FILE_PROPERTY = "maven.buildHistory.file";
+
+    static final String REPORT_PROPERTY = "maven.buildHistory.report";
+
+    static final String BASELINE_PROPERTY = "maven.buildHistory.baseline";
+
+    static final String THRESHOLD_PROPERTY = "maven.buildHistory.threshold";
+
+    static final String BUILD = "*";
+
+    static final String RESOLUTION = "[resolution]";
+
+    static final String CACHE = "[cache] ";
+
+    private static final int DEFAULT_BASELINE = 10;
+
+    private static final int DEFAULT_THRESHOLD = 50;
+
+    /**
+     * The minimum number of milliseconds a duration must exceed its baseline by to be reported.
+     */
+    private static final long MIN_DELTA = 500;
+
+    @Requirement
+    private Logger logger;
+
+    private volatile Recording recording;
+
+    @Override
+    public void onEvent( Object event )
+        throws Exception
+    {
+        if ( event instanceof MavenExecutionRequest )
+        {
+            recording = Recording.newInstance( (MavenExecutionRequest) event, logger );
+            return;
+        }
+
+        Recording current = recording;
+        if ( current == null )
+        {
+            return;
+        }
+
+        if ( event instanceof ExecutionEvent )
+        {
+            current.onEvent( (ExecutionEvent) event );
+        }
+        else if ( event instanceof DependencyResolutionRequest )
+        {
+            current.onResolutionStarted( ( (DependencyResolutionRequest) event ).getMavenProject() );
+        }
+        else if ( event instanceof DependencyResolutionResult )
+        {
+            current.onResolutionEnded();
+        }
+        else if ( event instanceof CacheStatistics )
+        {
+            CacheStatistics statistics = (CacheStatistics) event;
+            current.build.add( BUILD, CACHE + statistics.getName(), BuildHistory.Metric.HITS, statistics.getHits() );
+            current.build.add( BUILD, CACHE + statistics.getName(), BuildHistory.Metric.MISSES,
+                               statistics.getMisses() );
+        }
+        else if ( event instanceof MavenExecutionResult )
+        {
+            recording = null;
+            current.finish();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        recording = null;
+    }
+
+    /**
+     * The state of one build being recorded.
+     */
+    static final class Recording
+    {
+
+        private final Logger logger;
+
+        private final BuildHistory history;
+
+        private final boolean report;
+
+        private final int baseline;
+
+        private final int threshold;
+
+        final BuildHistory.Build build;
+
+        private final long start = System.nanoTime();
+
+        private final ConcurrentMap<Object, Long> starts = new ConcurrentHashMap<Object, Long>();
+
+        private final ThreadLocal<Object[]> resolution = new ThreadLocal<Object[]>();
+
+        Recording( Logger logger, BuildHistory history, boolean report, int baseline, int threshold )
+        {
+            this.logger = logger;
+            this.history = history;
+            this.report = report;
+            this.baseline = baseline;
+            this.threshold = threshold;
+            this.build = new BuildHistory.Build( System.currentTimeMillis() );
+        }
+
+        static Recording newInstance( MavenExecutionRequest request, Logger logger )
+        {
+            Properties userProperties = request.getUserProperties();
+            Properties systemProperties = request.getSystemProperties();
+            if ( !Boolean.parseBoolean( getProperty( PROPERTY, userProperties, systemProperties ) ) )
+            {
+                return null;
+            }
+
+            String path = getProperty( FILE_PROPERTY, userProperties, systemProperties );
+            File file;
+            if ( path != null && path.length() > 0 )
+            {
+                file = new File( path ).getAbsoluteFile();
+            }
+            else
+            {
+                String userHome = getProperty( "user.home", null, systemProperties );
+                file = new File( ( userHome != null ) ? userHome : System.getProperty( "user.home" ),
+                                 ".m2/build-history.dat" );
+            }
+
+            boolean report = Boolean.parseBoolean( getProperty( REPORT_PROPERTY, userProperties, systemProperties ) );
+            int baseline = getInt( BASELINE_PROPERTY, DEFAULT_BASELINE, userProperties, systemProperties, logger );
+            int threshold = getInt( THRESHOLD_PROPERTY, DEFAULT_THRESHOLD, userProperties, systemProperties, logger );
+
+            return new Recording( logger, new BuildHistory( file ), report, baseline, threshold );
+        }
+
+        void onEvent( ExecutionEvent event )
+        {
+            MavenProject project = event.getProject();
+            MojoExecution mojoExecution = event.getMojoExecution();
+            switch ( event.getType() )
+            {
+                case ProjectStarted:
+                    starts.put( project, System.nanoTime() );
+                    break;
+                case ProjectSucceeded:
+                case ProjectFailed:
+                    record( project, project, "" );
+                    break;
+                case MojoStarted:
+                    starts.put( new MojoKey( project, mojoExecution ), System.nanoTime() );
+                    break;
+                case MojoSucceeded:
+                case MojoFailed:
+                    record( new MojoKey( project, mojoExecution ), project,
+                            mojoExecution.getArtifactId() + ':' + mojoExecution.getGoal() + " ("
+                                + mojoExecution.getExecutionId() + ')' );
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void record( Object key, MavenProject project, String name )
+        {
+            Long started = ( key != null ) ? starts.remove( key ) : null;
+            if ( started != null && project != null )
+            {
+                build.add( getId( project ), name, BuildHistory.Metric.DURATION, millis( started ) );
+            }
+        }
+
+        void onResolutionStarted( MavenProject project )
+        {
+            resolution.set( new Object[] { ( project != null ) ? getId( project ) : BUILD, System.nanoTime() } );
+        }
+
+        void onResolutionEnded()
+        {
+            Object[] pending = resolution.get();
+            if ( pending != null )
+            {
+                resolution.remove();
+                build.add( (String) pending[0], RESOLUTION, BuildHistory.Metric.DURATION, millis( (Long) pending[1] ) );
+            }
+        }
+
+        void finish()
+        {
+            build.add( BUILD, "", BuildHistory.Metric.DURATION, millis( start ) );
+
+            try
+            {
+                if ( report )
+                {
+                    report( history.read( baseline ) );
+                }
+
+                history.append( build );
+            }
+            catch ( IOException e )
+            {
+                if ( logger.isDebugEnabled() )
+                {
+                    logger.warn( "Failed to update build history " + history.getFile() + ": " + e.getMessage(), e );
+                }
+                else
+                {
+                    logger.warn( "Failed to update build history " + history.getFile() + ": " + e.getMessage() );
+                }
+            }
+        }
+
+        private void report( List<BuildHistory.Build> builds )
+        {
+            List<BuildHistory.Regression> regressions =
+                BuildHistory.findRegressions( build, builds, threshold, MIN_DELTA );
+
+            if ( regressions.isEmpty() )
+            {
+                logger.info( "Build history: no regressions compared to the last " + builds.size() + " builds" );
+            }
+            else
+            {
+                logger.warn( "Build history: " + regressions.size() + " regressions compared to the last "
+                    + builds.size() + " builds:" );
+                for ( BuildHistory.Regression regression : regressions )
+                {
+                    logger.warn( "  " + regression );
+                }
+            }
+        }
+
+        private static String getId( MavenProject project )
+        {
+            return project.getGroupId() + ':' + project.getArtifactId();
+        }
+
+        private static long millis( long start )
+        {
+            return TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start );
+        }
+
+        private static String getProperty( String key, Properties userProperties, Properties systemProperties )
+        {
+            String value = ( userProperties != null ) ? userProperties.getProperty( key ) : null;
+            if ( value == null && systemProperties != null )
+            {
+                value = systemProperties.getProperty( key );
+            }
+            return value;
+        }
+
+        private static int getInt( String key, int defaultValue, Properties userProperties,
+                                   Properties systemProperties, Logger logger )
+        {
+            String value = getProperty( key, userProperties, systemProperties );
+            if ( value == null )
+            {
+                return defaultValue;
+            }
+            try
+            {
+                int result = Integer.parseInt( value.trim() );
+                if ( result > 0 )
+                {
+                    return result;
+                }
+            }
+            catch ( NumberFormatException e )
+            {
+                // handled below
+            }
+            logger.warn( "Invalid value " + value + " for " + key + ", using " + defaultValue );
+            return defaultValue;
+        }
+
+    }
+
+    /**
+     * Identifies a mojo execution within a project.
+     */
+    static final class MojoKey
+    {
+
+        private final MavenProject project;
+
+        private final MojoExecution mojoExecution;
+
+        MojoKey( MavenProject project, MojoExecution mojoExecution )
+        {
+            this.project = project;
+            this.mojoExecution = mojoExecution;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( !( obj instanceof MojoKey ) )
+            {
+                return false;
+            }
+            MojoKey that = (MojoKey) obj;
+            return project == that.project && mojoExecution == that.mojoExecution;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode( project ) * 31 + System.identityHashCode( mojoExecution );
+        }
+
+    }
+
+}
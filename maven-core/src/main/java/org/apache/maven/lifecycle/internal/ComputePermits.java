@@ -0,0 +1,116 @@
+package org.apache.maven.lifecycle.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.Semaphore;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Bounds the number of mojos that execute at the same time when project builds run on many (virtual) threads. Mojo
+ * executions hold a permit while they run, so the build threads can outnumber the processors while they are blocked
+ * on dependency resolution or waiting for upstream projects, yet the actual compute stays bounded. The permits are
+ * kept in the session data of the repository session, which is shared by all projects of a build.
+ * <p>
+ * <strong>Note:</strong> This class is not part of any public api and can be changed or deleted without prior notice.
+ *
+ * @since 3.3.2
+ */
+public final class ComputePermits
+{
+
+    private static final Object KEY = ComputePermits.class.getName();
+
+    private final Semaphore semaphore;
+
+    private final int permits;
+
+    private ComputePermits( int permits )
+    {
+        this.permits = permits;
+        this.semaphore = new Semaphore( permits, true );
+    }
+
+    /**
+     * Bounds the mojo executions of the specified session.
+     *
+     * @param session The repository system session, must not be {@code null}.
+     * @param permits The maximum number of concurrent mojo executions, must be positive.
+     * @return The installed permits, never {@code null}.
+     */
+    public static ComputePermits install( RepositorySystemSession session, int permits )
+    {
+        if ( permits <= 0 )
+        {
+            throw new IllegalArgumentException( "permits must be positive: " + permits );
+        }
+        ComputePermits computePermits = new ComputePermits( permits );
+        session.getData().set( KEY, computePermits );
+        return computePermits;
+    }
+
+    /**
+     * Removes the bound on the mojo executions of the specified session.
+     *
+     * @param session The repository system session, must not be {@code null}.
+     */
+    public static void uninstall( RepositorySystemSession session )
+    {
+        session.getData().set( KEY, null );
+    }
+
+    /**
+     * Gets the permits of the specified session.
+     *
+     * @param session The repository system session, may be {@code null}.
+     * @return The permits or {@code null} if mojo executions are not bounded.
+     */
+    public static ComputePermits get( RepositorySystemSession session )
+    {
+        SessionData data = ( session != null ) ? session.getData() : null;
+        return ( data != null ) ? (ComputePermits) data.get( KEY ) : null;
+    }
+
+    /**
+     * Waits for a permit to execute a mojo.
+     *
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     */
+    public void acquire()
+        throws InterruptedException
+    {
+        semaphore.acquire();
+    }
+
+    /**
+     * Returns a permit acquired via {@link #acquire()}.
+     */
+    public void release()
+    {
+        semaphore.release();
+    }
+
+    public int getPermits()
+    {
+        return permits;
+    }
+
+}
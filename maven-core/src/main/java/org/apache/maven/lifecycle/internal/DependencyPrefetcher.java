@@ -0,0 +1,527 @@
+package org.apache.maven.lifecycle.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.RepositoryUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.lifecycle.MavenExecutionPlan;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.BuildPluginManager;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.internal.PluginDependenciesResolver;
+import org.apache.maven.project.DefaultDependencyResolutionRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectDependenciesResolver;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.util.StringUtils;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.graph.DependencyFilter;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.util.filter.AndDependencyFilter;
+import org.eclipse.aether.util.filter.ScopeDependencyFilter;
+
+/**
+ * Resolves the external dependencies and the plugin class paths of all projects in the reactor up-front and
+ * concurrently, so that the lifecycle runs against a warm local repository instead of downloading module by module as
+ * the mojos first require a scope. The scopes to resolve per project are taken from the execution plans. Prefetching
+ * is best effort: any failure is logged as a warning and left to the regular resolution during the build to report.
+ * The stage is enabled by the user or system property {@code maven.prefetch}, the number of download threads is
+ * controlled by {@code maven.prefetch.threads}.
+ *
+ * @since 3.3.2
+ */
+@Component( role = DependencyPrefetcher.class )
+public class DependencyPrefetcher
+{
+
+    static final String PROPERTY = "maven.prefetch";
+
+    static final String THREADS_PROPERTY = "maven.prefetch.threads";
+
+    private static final int DEFAULT_THREADS = 4;
+
+    @Requirement
+    private Logger logger;
+
+    @Requirement
+    private LifecycleTaskSegmentCalculator lifecycleTaskSegmentCalculator;
+
+    @Requirement
+    private LifecycleExecutionPlanCalculator lifecycleExecutionPlanCalculator;
+
+    @Requirement
+    private BuildPluginManager pluginManager;
+
+    @Requirement
+    private ProjectDependenciesResolver dependenciesResolver;
+
+    @Requirement
+    private PluginDependenciesResolver pluginDependenciesResolver;
+
+    /**
+     * Tells whether the prefetch stage is enabled for the specified session.
+     *
+     * @param session The session to check, must not be {@code null}.
+     * @return {@code true} if prefetching is enabled, {@code false} otherwise.
+     */
+    public boolean isEnabled( MavenSession session )
+    {
+        return Boolean.parseBoolean( getProperty( session, PROPERTY ) );
+    }
+
+    /**
+     * Resolves the dependencies and plugins required by the execution plans of the projects in the session and blocks
+     * until all downloads have finished.
+     *
+     * @param session The session to prefetch for, must not be {@code null}.
+     */
+    public void prefetch( MavenSession session )
+    {
+        long start = System.currentTimeMillis();
+
+        Map<MavenProject, ProjectNeeds> needs = calculateNeeds( session );
+
+        Set<String> reactorKeys = new HashSet<String>();
+        for ( MavenProject project : session.getProjects() )
+        {
+            reactorKeys.add( ArtifactUtils.key( project.getGroupId(), project.getArtifactId(),
+                                                project.getVersion() ) );
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        Set<String> plugins = new HashSet<String>();
+        for ( Map.Entry<MavenProject, ProjectNeeds> entry : needs.entrySet() )
+        {
+            MavenProject project = entry.getKey();
+            ProjectNeeds projectNeeds = entry.getValue();
+
+            if ( !projectNeeds.scopes.isEmpty() )
+            {
+                tasks.add( new ProjectTask( session, project, projectNeeds.scopes, reactorKeys ) );
+            }
+
+            for ( Plugin plugin : projectNeeds.plugins )
+            {
+                if ( plugins.add( getPluginKey( project, plugin ) ) )
+                {
+                    tasks.add( new PluginTask( session.getRepositorySession(), project, plugin ) );
+                }
+            }
+        }
+
+        if ( tasks.isEmpty() )
+        {
+            return;
+        }
+
+        int threads = Math.min( getThreads( session ), tasks.size() );
+        ExecutorService executor = Executors.newFixedThreadPool( threads, new PrefetchThreadFactory() );
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>( tasks.size() );
+            for ( Callable<Void> task : tasks )
+            {
+                futures.add( executor.submit( task ) );
+            }
+
+            int failures = 0;
+            for ( Future<Void> future : futures )
+            {
+                try
+                {
+                    future.get();
+                }
+                catch ( ExecutionException e )
+                {
+                    failures++;
+                    warn( "Failed to prefetch dependencies: " + e.getCause().getMessage(), e.getCause() );
+                }
+            }
+
+            logger.info( "Prefetched dependencies of " + needs.size() + " projects and " + plugins.size()
+                + " plugins using " + threads + " threads in " + ( System.currentTimeMillis() - start ) + " ms"
+                + ( failures > 0 ? " (" + failures + " failed, deferred to the build)" : "" ) );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<MavenProject, ProjectNeeds> calculateNeeds( MavenSession session )
+    {
+        Map<MavenProject, ProjectNeeds> needs = new LinkedHashMap<MavenProject, ProjectNeeds>();
+
+        List<TaskSegment> taskSegments;
+        try
+        {
+            taskSegments = lifecycleTaskSegmentCalculator.calculateTaskSegments( session );
+        }
+        catch ( Exception e )
+        {
+            warn( "Skipped dependency prefetch, could not calculate task segments: " + e.getMessage(), e );
+            return needs;
+        }
+
+        MavenProject currentProject = session.getCurrentProject();
+        try
+        {
+            for ( TaskSegment taskSegment : taskSegments )
+            {
+                List<MavenProject> projects =
+                    taskSegment.isAggregating() ? Collections.singletonList( session.getTopLevelProject() )
+                                    : session.getProjects();
+
+                for ( MavenProject project : projects )
+                {
+                    calculateNeeds( session, project, taskSegment, needs );
+                }
+            }
+        }
+        finally
+        {
+            session.setCurrentProject( currentProject );
+        }
+
+        return needs;
+    }
+
+    private void calculateNeeds( MavenSession session, MavenProject project, TaskSegment taskSegment,
+                                 Map<MavenProject, ProjectNeeds> needs )
+    {
+        List<MojoExecution> mojoExecutions;
+        try
+        {
+            session.setCurrentProject( project );
+            MavenExecutionPlan executionPlan =
+                lifecycleExecutionPlanCalculator.calculateExecutionPlan( session, project, taskSegment.getTasks(),
+                                                                         false );
+            mojoExecutions = executionPlan.getMojoExecutions();
+
+            // the plan is not set up, executions bound by the lifecycle mappings still lack their descriptors
+            for ( MojoExecution mojoExecution : mojoExecutions )
+            {
+                if ( mojoExecution.getMojoDescriptor() == null )
+                {
+                    MojoDescriptor mojoDescriptor =
+                        pluginManager.getMojoDescriptor( mojoExecution.getPlugin(), mojoExecution.getGoal(),
+                                                         project.getRemotePluginRepositories(),
+                                                         session.getRepositorySession() );
+                    mojoExecution.setMojoDescriptor( mojoDescriptor );
+                }
+            }
+        }
+        catch ( Exception e )
+        {
+            warn( "Skipped dependency prefetch for " + project.getId() + ": " + e.getMessage(), e );
+            return;
+        }
+
+        for ( MojoExecution mojoExecution : mojoExecutions )
+        {
+            MojoDescriptor mojoDescriptor = mojoExecution.getMojoDescriptor();
+
+            List<MavenProject> projects =
+                LifecycleDependencyResolver.getProjects( project, session, mojoDescriptor.isAggregator() );
+            for ( MavenProject aggregatedProject : projects )
+            {
+                ProjectNeeds projectNeeds = needs.get( aggregatedProject );
+                if ( projectNeeds == null )
+                {
+                    projectNeeds = new ProjectNeeds();
+                    needs.put( aggregatedProject, projectNeeds );
+                }
+                projectNeeds.scopes.addAll( toScopes( mojoDescriptor.getDependencyResolutionRequired() ) );
+            }
+
+            ProjectNeeds projectNeeds = needs.get( project );
+            if ( projectNeeds == null )
+            {
+                projectNeeds = new ProjectNeeds();
+                needs.put( project, projectNeeds );
+            }
+            Plugin plugin = project.getPlugin( mojoExecution.getPlugin().getKey() );
+            projectNeeds.plugins.add( ( plugin != null ) ? plugin : mojoExecution.getPlugin() );
+        }
+    }
+
+    private void warn( String message, Throwable cause )
+    {
+        if ( logger.isDebugEnabled() )
+        {
+            logger.warn( message, cause );
+        }
+        else
+        {
+            logger.warn( message );
+        }
+    }
+
+    private static String getPluginKey( MavenProject project, Plugin plugin )
+    {
+        StringBuilder buffer = new StringBuilder( 128 );
+        buffer.append( plugin.getId() );
+        for ( Dependency dependency : plugin.getDependencies() )
+        {
+            buffer.append( ',' ).append( dependency.getManagementKey() ).append( ':' );
+            buffer.append( dependency.getVersion() );
+        }
+        buffer.append( '@' ).append( project.getRemotePluginRepositories() );
+        return buffer.toString();
+    }
+
+    private static Collection<String> toScopes( String classpath )
+    {
+        if ( StringUtils.isNotEmpty( classpath ) )
+        {
+            if ( Artifact.SCOPE_COMPILE.equals( classpath ) )
+            {
+                return Arrays.asList( Artifact.SCOPE_COMPILE, Artifact.SCOPE_SYSTEM, Artifact.SCOPE_PROVIDED );
+            }
+            else if ( Artifact.SCOPE_RUNTIME.equals( classpath ) )
+            {
+                return Arrays.asList( Artifact.SCOPE_COMPILE, Artifact.SCOPE_RUNTIME );
+            }
+            else if ( Artifact.SCOPE_COMPILE_PLUS_RUNTIME.equals( classpath ) )
+            {
+                return Arrays.asList( Artifact.SCOPE_COMPILE, Artifact.SCOPE_SYSTEM, Artifact.SCOPE_PROVIDED,
+                                      Artifact.SCOPE_RUNTIME );
+            }
+            else if ( Artifact.SCOPE_RUNTIME_PLUS_SYSTEM.equals( classpath ) )
+            {
+                return Arrays.asList( Artifact.SCOPE_COMPILE, Artifact.SCOPE_SYSTEM, Artifact.SCOPE_RUNTIME );
+            }
+            else if ( Artifact.SCOPE_TEST.equals( classpath ) )
+            {
+                return Arrays.asList( Artifact.SCOPE_COMPILE, Artifact.SCOPE_SYSTEM, Artifact.SCOPE_PROVIDED,
+                                      Artifact.SCOPE_RUNTIME, Artifact.SCOPE_TEST );
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private static Collection<String> negate( Collection<String> scopes )
+    {
+        Collection<String> result = new HashSet<String>();
+        Collections.addAll( result, Artifact.SCOPE_SYSTEM, Artifact.SCOPE_COMPILE, Artifact.SCOPE_PROVIDED,
+                            Artifact.SCOPE_RUNTIME, Artifact.SCOPE_TEST );
+        result.removeAll( scopes );
+        return result;
+    }
+
+    private static int getThreads( MavenSession session )
+    {
+        String value = getProperty( session, THREADS_PROPERTY );
+        if ( value != null )
+        {
+            try
+            {
+                int threads = Integer.parseInt( value.trim() );
+                if ( threads > 0 )
+                {
+                    return threads;
+                }
+            }
+            catch ( NumberFormatException e )
+            {
+                // use default
+            }
+        }
+        return DEFAULT_THREADS;
+    }
+
+    private static String getProperty( MavenSession session, String key )
+    {
+        String value = session.getUserProperties().getProperty( key );
+        if ( value == null )
+        {
+            value = session.getSystemProperties().getProperty( key );
+        }
+        return value;
+    }
+
+    private static class ProjectNeeds
+    {
+
+        final Set<String> scopes = new HashSet<String>();
+
+        final Set<Plugin> plugins = new LinkedHashSet<Plugin>();
+
+    }
+
+    private class ProjectTask
+        implements Callable<Void>
+    {
+
+        private final MavenSession session;
+
+        private final MavenProject project;
+
+        private final Collection<String> scopes;
+
+        private final Set<String> reactorKeys;
+
+        ProjectTask( MavenSession session, MavenProject project, Collection<String> scopes, Set<String> reactorKeys )
+        {
+            this.session = session;
+            this.project = project;
+            this.scopes = scopes;
+            this.reactorKeys = reactorKeys;
+        }
+
+        public Void call()
+            throws Exception
+        {
+            DependencyFilter filter = new ScopeDependencyFilter( null, negate( scopes ) );
+            filter = AndDependencyFilter.newInstance( filter, new ReactorExclusionFilter( reactorKeys ) );
+
+            DefaultDependencyResolutionRequest request =
+                new DefaultDependencyResolutionRequest( project, session.getRepositorySession() );
+            request.setResolutionFilter( filter );
+
+            ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+            try
+            {
+                ClassLoader projectRealm = project.getClassRealm();
+                if ( projectRealm != null )
+                {
+                    Thread.currentThread().setContextClassLoader( projectRealm );
+                }
+
+                dependenciesResolver.resolve( request );
+            }
+            finally
+            {
+                Thread.currentThread().setContextClassLoader( tccl );
+            }
+
+            return null;
+        }
+
+    }
+
+    private class PluginTask
+        implements Callable<Void>
+    {
+
+        private final RepositorySystemSession session;
+
+        private final MavenProject project;
+
+        private final Plugin plugin;
+
+        PluginTask( RepositorySystemSession session, MavenProject project, Plugin plugin )
+        {
+            this.session = session;
+            this.project = project;
+            this.plugin = plugin;
+        }
+
+        public Void call()
+            throws Exception
+        {
+            org.eclipse.aether.artifact.Artifact pluginArtifact =
+                pluginDependenciesResolver.resolve( plugin, project.getRemotePluginRepositories(), session );
+
+            DependencyNode root =
+                pluginDependenciesResolver.resolve( plugin, pluginArtifact, project.getExtensionDependencyFilter(),
+                                                    project.getRemotePluginRepositories(), session );
+
+            if ( logger.isDebugEnabled() )
+            {
+                List<Artifact> artifacts = new ArrayList<Artifact>();
+                RepositoryUtils.toArtifacts( artifacts, Collections.singleton( root ),
+                                             Collections.<String>emptyList(), null );
+                logger.debug( "Prefetched " + artifacts.size() + " artifacts for plugin " + plugin.getId() );
+            }
+
+            return null;
+        }
+
+    }
+
+    private static class ReactorExclusionFilter
+        implements DependencyFilter
+    {
+
+        private final Set<String> keys;
+
+        ReactorExclusionFilter( Set<String> keys )
+        {
+            this.keys = keys;
+        }
+
+        public boolean accept( DependencyNode node, List<DependencyNode> parents )
+        {
+            org.eclipse.aether.graph.Dependency dependency = node.getDependency();
+            if ( dependency != null )
+            {
+                org.eclipse.aether.artifact.Artifact a = dependency.getArtifact();
+                return !keys.contains( ArtifactUtils.key( a.getGroupId(), a.getArtifactId(), a.getVersion() ) );
+            }
+            return false;
+        }
+
+    }
+
+    private static class PrefetchThreadFactory
+        implements ThreadFactory
+    {
+
+        private final AtomicInteger id = new AtomicInteger();
+
+        public Thread newThread( Runnable r )
+        {
+            Thread thread = new Thread( r, String.format( "PrefetchThread %d", id.getAndIncrement() ) );
+            thread.setDaemon( true );
+            return thread;
+        }
+
+    }
+
+}
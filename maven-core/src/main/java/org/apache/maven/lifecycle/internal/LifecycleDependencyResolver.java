@@ -33,7 +33,7 @@
 
 import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.Artifact;
-import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.artifact.ArtifactKey;
 import org.apache.maven.eventspy.internal.EventSpyDispatcher;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.lifecycle.LifecycleExecutionException;
@@ -129,16 +129,16 @@ public void resolveProjectDependencies( MavenProject project, Collection<String>
 
             project.setResolvedArtifacts( artifacts );
 
-            Map<String, Artifact> map = new HashMap<String, Artifact>();
+            Map<ArtifactKey, Artifact> map = new HashMap<ArtifactKey, Artifact>( artifacts.size() * 2 );
             for ( Artifact artifact : artifacts )
             {
-                map.put( artifact.getDependencyConflictId(), artifact );
+                map.put( ArtifactKey.dependencyConflictKey( artifact ), artifact );
             }
             for ( Artifact artifact : project.getDependencyArtifacts() )
             {
                 if ( artifact.getFile() == null )
                 {
-                    Artifact resolved = map.get( artifact.getDependencyConflictId() );
+                    Artifact resolved = map.get( ArtifactKey.dependencyConflictKey( artifact ) );
                     if ( resolved != null )
                     {
                         artifact.setFile( resolved.getFile() );
@@ -236,12 +236,12 @@ private Set<Artifact> getDependencies( MavenProject project, Collection<String>
     private boolean areAllDependenciesInReactor( Collection<MavenProject> projects,
                                                  Collection<Dependency> dependencies )
     {
-        Set<String> projectKeys = getReactorProjectKeys( projects );
+        Set<ArtifactKey> projectKeys = getReactorProjectKeys( projects );
 
         for ( Dependency dependency : dependencies )
         {
             org.eclipse.aether.artifact.Artifact a = dependency.getArtifact();
-            String key = ArtifactUtils.key( a.getGroupId(), a.getArtifactId(), a.getVersion() );
+            ArtifactKey key = ArtifactKey.key( a.getGroupId(), a.getArtifactId(), a.getVersion() );
             if ( !projectKeys.contains( key ) )
             {
                 return false;
@@ -251,13 +251,12 @@ private boolean areAllDependenciesInReactor( Collection<MavenProject> projects,
         return true;
     }
 
-    private Set<String> getReactorProjectKeys( Collection<MavenProject> projects )
+    private Set<ArtifactKey> getReactorProjectKeys( Collection<MavenProject> projects )
     {
-        Set<String> projectKeys = new HashSet<String>( projects.size() * 2 );
+        Set<ArtifactKey> projectKeys = new HashSet<ArtifactKey>( projects.size() * 2 );
         for ( MavenProject project : projects )
         {
-            String key = ArtifactUtils.key( project.getGroupId(), project.getArtifactId(), project.getVersion() );
-            projectKeys.add( key );
+            projectKeys.add( ArtifactKey.key( project.getGroupId(), project.getArtifactId(), project.getVersion() ) );
         }
         return projectKeys;
     }
@@ -306,14 +305,13 @@ else if ( "test".equals( scope ) )
         implements DependencyFilter
     {
 
-        private Set<String> keys = new HashSet<String>();
+        private Set<ArtifactKey> keys = new HashSet<ArtifactKey>();
 
         public ReactorDependencyFilter( Collection<Artifact> artifacts )
         {
             for ( Artifact artifact : artifacts )
             {
-                String key = ArtifactUtils.key( artifact );
-                keys.add( key );
+                keys.add( ArtifactKey.key( artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion() ) );
             }
         }
 
@@ -323,8 +321,7 @@ public boolean accept( DependencyNode node, List<DependencyNode> parents )
             if ( dependency != null )
             {
                 org.eclipse.aether.artifact.Artifact a = dependency.getArtifact();
-                String key = ArtifactUtils.key( a.getGroupId(), a.getArtifactId(), a.getVersion() );
-                return !keys.contains( key );
+                return !keys.contains( ArtifactKey.key( a.getGroupId(), a.getArtifactId(), a.getVersion() ) );
             }
             return false;
         }
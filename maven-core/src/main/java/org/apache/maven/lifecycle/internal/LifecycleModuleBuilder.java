@@ -23,11 +23,13 @@
 import java.util.List;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.buildcache.ModuleOutputCache;
 import org.apache.maven.execution.BuildSuccess;
 import org.apache.maven.execution.ExecutionEvent;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.execution.ProjectExecutionEvent;
 import org.apache.maven.execution.ProjectExecutionListener;
+import org.apache.maven.lifecycle.LifecycleExecutionException;
 import org.apache.maven.lifecycle.MavenExecutionPlan;
 import org.apache.maven.lifecycle.internal.builder.BuilderCommon;
 import org.apache.maven.plugin.MojoExecution;
@@ -68,6 +70,9 @@
     @Requirement
     private SessionScope sessionScope;
 
+    @Requirement
+    private ModuleOutputCache moduleOutputCache;
+
     public void setProjectExecutionListeners( final List<ProjectExecutionListener> listeners )
     {
         this.projectExecutionListeners = listeners;
@@ -113,7 +118,16 @@ public void buildProject( MavenSession session, MavenSession rootSession, Reacto
             projectExecutionListener.beforeProjectLifecycleExecution( new ProjectExecutionEvent( session,
                                                                                                  currentProject,
                                                                                                  mojoExecutions ) );
-            mojoExecutor.execute( session, mojoExecutions, reactorContext.getProjectIndex() );
+            ModuleOutputCache.Candidate cacheCandidate =
+                moduleOutputCache.isEnabled( session ) ? moduleOutputCache.open( session, mojoExecutions ) : null;
+            if ( cacheCandidate != null )
+            {
+                executeCached( session, reactorContext, mojoExecutions, cacheCandidate );
+            }
+            else
+            {
+                mojoExecutor.execute( session, mojoExecutions, reactorContext.getProjectIndex() );
+            }
 
             long buildEndTime = System.currentTimeMillis();
 
@@ -151,4 +165,32 @@ public void buildProject( MavenSession session, MavenSession rootSession, Reacto
             Thread.currentThread().setContextClassLoader( reactorContext.getOriginalContextClassLoader() );
         }
     }
+
+    private void executeCached( MavenSession session, ReactorContext reactorContext,
+                                List<MojoExecution> mojoExecutions, ModuleOutputCache.Candidate cacheCandidate )
+        throws LifecycleExecutionException
+    {
+        ProjectIndex projectIndex = reactorContext.getProjectIndex();
+        DependencyContext dependencyContext = mojoExecutor.newDependencyContext( session, mojoExecutions );
+        PhaseRecorder phaseRecorder = new PhaseRecorder( session.getCurrentProject() );
+
+        for ( MojoExecution mojoExecution : cacheCandidate.getLeadingExecutions() )
+        {
+            mojoExecutor.execute( session, mojoExecution, projectIndex, dependencyContext, phaseRecorder );
+        }
+
+        if ( !moduleOutputCache.restore( cacheCandidate ) )
+        {
+            for ( MojoExecution mojoExecution : cacheCandidate.getCachedExecutions() )
+            {
+                mojoExecutor.execute( session, mojoExecution, projectIndex, dependencyContext, phaseRecorder );
+            }
+            moduleOutputCache.save( cacheCandidate );
+        }
+
+        for ( MojoExecution mojoExecution : cacheCandidate.getTrailingExecutions() )
+        {
+            mojoExecutor.execute( session, mojoExecution, projectIndex, dependencyContext, phaseRecorder );
+        }
+    }
 }
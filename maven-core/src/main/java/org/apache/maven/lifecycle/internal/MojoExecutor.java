@@ -75,6 +75,9 @@
     @Requirement
     private ExecutionEventCatapult eventCatapult;
 
+    @Requirement
+    private MojoResourceScheduler resourceScheduler;
+
     public MojoExecutor()
     {
     }
@@ -199,10 +202,25 @@ private void execute( MavenSession session, MojoExecution mojoExecution, Project
 
         ensureDependenciesAreResolved( mojoDescriptor, session, dependencyContext );
 
-        eventCatapult.fire( ExecutionEvent.Type.MojoStarted, session, mojoExecution );
+        MojoResourceScheduler.Admission admission;
+        try
+        {
+            admission = resourceScheduler.admit( session, mojoExecution );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new LifecycleExecutionException( mojoExecution, session.getCurrentProject(), e );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw new LifecycleExecutionException( mojoExecution, session.getCurrentProject(), e );
+        }
 
         try
         {
+            eventCatapult.fire( ExecutionEvent.Type.MojoStarted, session, mojoExecution );
+
             try
             {
                 pluginManager.executeMojo( session, mojoExecution );
@@ -234,6 +252,8 @@ private void execute( MavenSession session, MojoExecution mojoExecution, Project
         }
         finally
         {
+            resourceScheduler.release( admission );
+
             for ( MavenProject forkedProject : forkedProjects )
             {
                 forkedProject.setExecutionProject( null );
@@ -0,0 +1,419 @@
+package org.apache.maven.lifecycle.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.util.StringUtils;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Admits mojo executions according to the resources they need, so that parallel builds do not start too many
+ * expensive mojos like forked test runs or heavy compilers at the same time. Users declare the resources via user or
+ * system properties, each a comma-separated list of {@code <mojo>=<value>} entries where {@code <mojo>} is one of
+ * {@code artifactId}, {@code groupId:artifactId}, {@code artifactId:goal} or {@code groupId:artifactId:goal} of the
+ * plugin:
+ * <ul>
+ * <li>{@value #LIMITS_PROPERTY}: The maximum number of concurrent executions of the matching mojos, e.g.
+ * {@code maven-surefire-plugin:test=2,gwt-maven-plugin=1}. Each matching entry applies.</li>
+ * <li>{@value #WEIGHTS_PROPERTY}: The weight of the matching mojos, e.g. their memory in MB, the first matching
+ * entry applies. The weights of the concurrent executions never exceed the capacity given by
+ * {@value #CAPACITY_PROPERTY}, a mojo heavier than the capacity executes alone. Without capacity, the weights have no
+ * effect.</li>
+ * </ul>
+ * Permits are acquired after the dependencies of a mojo are resolved, in the order the limits are declared, then the
+ * weight and finally the {@link ComputePermits compute permit}, so that waiting executions never hold a compute permit
+ * and other work keeps flowing. Mojos executed while the current thread already holds an admission, e.g. forked report
+ * executions, are admitted right away. The time each mojo waited for its permits is logged.
+ * <p>
+ * <strong>Note:</strong> This class is not part of any public api and can be changed or deleted without prior notice.
+ *
+ * @since 3.3.2
+ */
+@Component( role = MojoResourceScheduler.class )
+public class MojoResourceScheduler
+{
+
+    static final String LIMITS_PROPERTY = "maven.mojo.limits";
+
+    static final String WEIGHTS_PROPERTY = "maven.mojo.weights";
+
+    static final String CAPACITY_PROPERTY = "maven.mojo.capacity";
+
+    private static final Object KEY = MojoResourceScheduler.class.getName();
+
+    private static final Admission NONE = new Admission( Collections.<Semaphore>emptyList(), null, 0, null, 0 );
+
+    private final ThreadLocal<Admission> current = new ThreadLocal<Admission>();
+
+    @Requirement
+    private Logger logger;
+
+    /**
+     * Waits until the specified mojo execution may proceed and acquires the permits it needs.
+     *
+     * @param session The current session, must not be {@code null}.
+     * @param mojoExecution The mojo execution to admit, must not be {@code null}.
+     * @return The admission that must be {@link #release(Admission) released} after the execution, never
+     *         {@code null}.
+     * @throws InterruptedException If the current thread was interrupted while waiting, no permits are held then.
+     * @throws IllegalArgumentException If the resource properties are malformed.
+     */
+    public Admission admit( MavenSession session, MojoExecution mojoExecution )
+        throws InterruptedException
+    {
+        if ( current.get() != null )
+        {
+            return NONE;
+        }
+
+        RepositorySystemSession repoSession = session.getRepositorySession();
+        Resources resources = getResources( session, repoSession );
+        ComputePermits computePermits = ComputePermits.get( repoSession );
+
+        List<Semaphore> limits = Collections.emptyList();
+        int weight = 0;
+        if ( resources != null )
+        {
+            MojoDescriptor mojoDescriptor = mojoExecution.getMojoDescriptor();
+            PluginDescriptor pluginDescriptor = mojoDescriptor.getPluginDescriptor();
+            String groupId = pluginDescriptor.getGroupId();
+            String artifactId = pluginDescriptor.getArtifactId();
+            String goal = mojoDescriptor.getGoal();
+
+            for ( Limit limit : resources.limits )
+            {
+                if ( limit.matches( groupId, artifactId, goal ) )
+                {
+                    if ( limits.isEmpty() )
+                    {
+                        limits = new ArrayList<Semaphore>( resources.limits.size() );
+                    }
+                    limits.add( limit.semaphore );
+                }
+            }
+            if ( resources.capacity != null )
+            {
+                for ( Weight w : resources.weights )
+                {
+                    if ( w.matches( groupId, artifactId, goal ) )
+                    {
+                        weight = Math.min( w.weight, resources.capacityPermits );
+                        break;
+                    }
+                }
+            }
+        }
+
+        Semaphore capacity = ( weight > 0 ) ? resources.capacity : null;
+        if ( limits.isEmpty() && capacity == null && computePermits == null )
+        {
+            current.set( NONE );
+            return NONE;
+        }
+
+        long start = System.nanoTime();
+        int acquired = 0;
+        boolean weighed = false;
+        try
+        {
+            for ( Semaphore limit : limits )
+            {
+                limit.acquire();
+                acquired++;
+            }
+            if ( capacity != null )
+            {
+                capacity.acquire( weight );
+                weighed = true;
+            }
+            if ( computePermits != null )
+            {
+                computePermits.acquire();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            if ( weighed )
+            {
+                capacity.release( weight );
+            }
+            for ( int i = acquired - 1; i >= 0; i-- )
+            {
+                limits.get( i ).release();
+            }
+            throw e;
+        }
+        long waited = System.nanoTime() - start;
+
+        Admission admission = new Admission( limits, capacity, weight, computePermits, waited );
+        current.set( admission );
+
+        if ( ( !limits.isEmpty() || capacity != null ) && logger.isInfoEnabled() )
+        {
+            long millis = TimeUnit.NANOSECONDS.toMillis( waited );
+            if ( millis > 0 )
+            {
+                logger.info( "Waited " + millis + " ms for resources of " + mojoExecution.getGroupId() + ":"
+                    + mojoExecution.getArtifactId() + ":" + mojoExecution.getGoal() + " ("
+                    + mojoExecution.getExecutionId() + ") @ " + session.getCurrentProject().getArtifactId() );
+            }
+        }
+        else if ( logger.isDebugEnabled() )
+        {
+            logger.debug( "Waited " + TimeUnit.NANOSECONDS.toMillis( waited ) + " ms for compute permit of "
+                + mojoExecution.getGroupId() + ":" + mojoExecution.getArtifactId() + ":" + mojoExecution.getGoal() );
+        }
+
+        return admission;
+    }
+
+    /**
+     * Releases the permits of the specified admission.
+     *
+     * @param admission The admission to release, may be {@code null}.
+     */
+    public void release( Admission admission )
+    {
+        if ( admission == null || current.get() != admission )
+        {
+            return;
+        }
+        current.remove();
+
+        if ( admission.computePermits != null )
+        {
+            admission.computePermits.release();
+        }
+        if ( admission.capacity != null )
+        {
+            admission.capacity.release( admission.weight );
+        }
+        for ( int i = admission.limits.size() - 1; i >= 0; i-- )
+        {
+            admission.limits.get( i ).release();
+        }
+    }
+
+    private static Resources getResources( MavenSession session, RepositorySystemSession repoSession )
+    {
+        SessionData data = ( repoSession != null ) ? repoSession.getData() : null;
+
+        Object resources = ( data != null ) ? data.get( KEY ) : null;
+        if ( resources == null )
+        {
+            resources = Resources.parse( session );
+            if ( data != null && !data.set( KEY, null, resources ) )
+            {
+                resources = data.get( KEY );
+            }
+        }
+        return ( resources != Resources.NONE ) ? (Resources) resources : null;
+    }
+
+    private static String getProperty( MavenSession session, String key )
+    {
+        String value = session.getUserProperties().getProperty( key );
+        if ( value == null )
+        {
+            value = session.getSystemProperties().getProperty( key );
+        }
+        return value;
+    }
+
+    private static int parsePositive( String key, String value )
+    {
+        try
+        {
+            int result = Integer.parseInt( value.trim() );
+            if ( result > 0 )
+            {
+                return result;
+            }
+        }
+        catch ( NumberFormatException e )
+        {
+            // handled below
+        }
+        throw new IllegalArgumentException( "Invalid value for " + key + ", expected a positive integer: " + value );
+    }
+
+    /**
+     * The permits a mojo execution holds while it executes.
+     */
+    public static final class Admission
+    {
+
+        private final List<Semaphore> limits;
+
+        private final Semaphore capacity;
+
+        private final int weight;
+
+        private final ComputePermits computePermits;
+
+        private final long waitTime;
+
+        Admission( List<Semaphore> limits, Semaphore capacity, int weight, ComputePermits computePermits,
+                   long waitTime )
+        {
+            this.limits = limits;
+            this.capacity = capacity;
+            this.weight = weight;
+            this.computePermits = computePermits;
+            this.waitTime = waitTime;
+        }
+
+        /**
+         * @return The time in milliseconds the execution waited for its permits.
+         */
+        public long getWaitTime()
+        {
+            return TimeUnit.NANOSECONDS.toMillis( waitTime );
+        }
+
+    }
+
+    /**
+     * The resources declared for a session.
+     */
+    static final class Resources
+    {
+
+        static final Resources NONE = new Resources();
+
+        final List<Limit> limits = new ArrayList<Limit>();
+
+        final List<Weight> weights = new ArrayList<Weight>();
+
+        Semaphore capacity;
+
+        int capacityPermits;
+
+        static Resources parse( MavenSession session )
+        {
+            String limits = getProperty( session, LIMITS_PROPERTY );
+            String weights = getProperty( session, WEIGHTS_PROPERTY );
+            String capacity = getProperty( session, CAPACITY_PROPERTY );
+            if ( StringUtils.isBlank( limits ) && StringUtils.isBlank( weights ) && StringUtils.isBlank( capacity ) )
+            {
+                return NONE;
+            }
+
+            Resources resources = new Resources();
+            for ( String[] entry : parseEntries( LIMITS_PROPERTY, limits ) )
+            {
+                resources.limits.add( new Limit( entry[0], parsePositive( LIMITS_PROPERTY, entry[1] ) ) );
+            }
+            for ( String[] entry : parseEntries( WEIGHTS_PROPERTY, weights ) )
+            {
+                resources.weights.add( new Weight( entry[0], parsePositive( WEIGHTS_PROPERTY, entry[1] ) ) );
+            }
+            if ( StringUtils.isNotBlank( capacity ) )
+            {
+                resources.capacityPermits = parsePositive( CAPACITY_PROPERTY, capacity );
+                resources.capacity = new Semaphore( resources.capacityPermits, true );
+            }
+            return resources;
+        }
+
+        private static List<String[]> parseEntries( String key, String value )
+        {
+            List<String[]> entries = new ArrayList<String[]>();
+            if ( value != null )
+            {
+                for ( String entry : StringUtils.split( value, "," ) )
+                {
+                    int eq = entry.lastIndexOf( '=' );
+                    if ( eq <= 0 )
+                    {
+                        throw new IllegalArgumentException( "Invalid entry for " + key
+                            + ", expected <mojo>=<value>: " + entry.trim() );
+                    }
+                    entries.add( new String[] { entry.substring( 0, eq ).trim(), entry.substring( eq + 1 ) } );
+                }
+            }
+            return entries;
+        }
+
+    }
+
+    /**
+     * Selects mojos by their plugin and goal.
+     */
+    abstract static class Rule
+    {
+
+        private final String mojo;
+
+        Rule( String mojo )
+        {
+            this.mojo = mojo;
+        }
+
+        boolean matches( String groupId, String artifactId, String goal )
+        {
+            return mojo.equals( artifactId ) || mojo.equals( groupId + ':' + artifactId )
+                || mojo.equals( artifactId + ':' + goal ) || mojo.equals( groupId + ':' + artifactId + ':' + goal );
+        }
+
+    }
+
+    static final class Limit
+        extends Rule
+    {
+
+        final Semaphore semaphore;
+
+        Limit( String mojo, int permits )
+        {
+            super( mojo );
+            semaphore = new Semaphore( permits, true );
+        }
+
+    }
+
+    static final class Weight
+        extends Rule
+    {
+
+        final int weight;
+
+        Weight( String mojo, int weight )
+        {
+            super( mojo );
+            this.weight = weight;
+        }
+
+    }
+
+}
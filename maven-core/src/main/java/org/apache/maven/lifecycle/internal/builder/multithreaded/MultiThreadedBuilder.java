@@ -73,37 +73,55 @@ public void build( MavenSession session, ReactorContext reactorContext, ProjectB
                        List<TaskSegment> taskSegments, ReactorBuildStatus reactorBuildStatus )
         throws ExecutionException, InterruptedException
     {
-        ExecutorService executor =
-            Executors.newFixedThreadPool( Math.min( session.getRequest().getDegreeOfConcurrency(),
-                                                    session.getProjects().size() ), new BuildThreadFactory() );
-        CompletionService<ProjectSegment> service = new ExecutorCompletionService<ProjectSegment>( executor );
-        ConcurrencyDependencyGraph analyzer =
-            new ConcurrencyDependencyGraph( projectBuilds, session.getProjectDependencyGraph() );
+        ExecutorService executor = newExecutor( session );
+        try
+        {
+            CompletionService<ProjectSegment> service = new ExecutorCompletionService<ProjectSegment>( executor );
+            ConcurrencyDependencyGraph analyzer =
+                new ConcurrencyDependencyGraph( projectBuilds, session.getProjectDependencyGraph() );
 
-        // Currently disabled
-        ThreadOutputMuxer muxer = null; // new ThreadOutputMuxer( analyzer.getProjectBuilds(), System.out );
+            // Currently disabled
+            ThreadOutputMuxer muxer = null; // new ThreadOutputMuxer( analyzer.getProjectBuilds(), System.out );
 
-        for ( TaskSegment taskSegment : taskSegments )
-        {
-            Map<MavenProject, ProjectSegment> projectBuildMap = projectBuilds.selectSegment( taskSegment );
-            try
+            for ( TaskSegment taskSegment : taskSegments )
             {
-                multiThreadedProjectTaskSegmentBuild( analyzer, reactorContext, session, service, taskSegment,
-                                                      projectBuildMap, muxer );
-                if ( reactorContext.getReactorBuildStatus().isHalted() )
+                Map<MavenProject, ProjectSegment> projectBuildMap = projectBuilds.selectSegment( taskSegment );
+                try
                 {
+                    multiThreadedProjectTaskSegmentBuild( analyzer, reactorContext, session, service, taskSegment,
+                                                          projectBuildMap, muxer );
+                    if ( reactorContext.getReactorBuildStatus().isHalted() )
+                    {
+                        break;
+                    }
+                }
+                catch ( Exception e )
+                {
+                    session.getResult().addException( e );
                     break;
                 }
-            }
-            catch ( Exception e )
-            {
-                session.getResult().addException( e );
-                break;
-            }
 
+            }
+        }
+        finally
+        {
+            executor.shutdown();
         }
     }
 
+    /**
+     * Creates the executor that runs the project builds.
+     *
+     * @param session The current build session, must not be {@code null}.
+     * @return The executor, never {@code null}. It is shut down by the caller after the build.
+     * @since 3.3.2
+     */
+    protected ExecutorService newExecutor( MavenSession session )
+    {
+        return Executors.newFixedThreadPool( Math.min( session.getRequest().getDegreeOfConcurrency(),
+                                                       session.getProjects().size() ), new BuildThreadFactory() );
+    }
+
     private void multiThreadedProjectTaskSegmentBuild( ConcurrencyDependencyGraph analyzer,
                                                        ReactorContext reactorContext, MavenSession rootSession,
                                                        CompletionService<ProjectSegment> service,
@@ -0,0 +1,120 @@
+package org.apache.maven.lifecycle.internal.builder.virtual;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.lifecycle.internal.BuildThreadFactory;
+import org.apache.maven.lifecycle.internal.ComputePermits;
+import org.apache.maven.lifecycle.internal.ProjectBuildList;
+import org.apache.maven.lifecycle.internal.ReactorBuildStatus;
+import org.apache.maven.lifecycle.internal.ReactorContext;
+import org.apache.maven.lifecycle.internal.TaskSegment;
+import org.apache.maven.lifecycle.internal.builder.Builder;
+import org.apache.maven.lifecycle.internal.builder.multithreaded.MultiThreadedBuilder;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * Builds the reactor like the {@link MultiThreadedBuilder} but gives each schedulable project its own thread, using
+ * virtual threads when the Java runtime supports them and platform threads otherwise. Projects blocked on downloads,
+ * forked processes or disk I/O then no longer occupy one of a few pool threads. The degree of concurrency instead
+ * bounds the number of mojos that execute at the same time, see {@link ComputePermits}.
+ * <p>
+ * <strong>Note:</strong> This class is not part of any public api and can be changed or deleted without prior notice.
+ *
+ * @since 3.3.2
+ */
+@Component( role = Builder.class, hint = "virtual" )
+public class VirtualThreadBuilder
+    extends MultiThreadedBuilder
+{
+
+    private static final String THREAD_PREFIX = "BuilderThread ";
+
+    @Requirement
+    private Logger log;
+
+    @Override
+    public void build( MavenSession session, ReactorContext reactorContext, ProjectBuildList projectBuilds,
+                       List<TaskSegment> taskSegments, ReactorBuildStatus reactorBuildStatus )
+        throws ExecutionException, InterruptedException
+    {
+        int permits = Math.max( 1, session.getRequest().getDegreeOfConcurrency() );
+        ComputePermits.install( session.getRepositorySession(), permits );
+        try
+        {
+            super.build( session, reactorContext, projectBuilds, taskSegments, reactorBuildStatus );
+        }
+        finally
+        {
+            ComputePermits.uninstall( session.getRepositorySession() );
+        }
+    }
+
+    @Override
+    protected ExecutorService newExecutor( MavenSession session )
+    {
+        ExecutorService executor = newVirtualThreadExecutor();
+        if ( executor != null )
+        {
+            log.debug( "Building projects on virtual threads" );
+            return executor;
+        }
+
+        log.debug( "Virtual threads are not supported by this Java runtime, building projects on platform threads" );
+        return Executors.newCachedThreadPool( new BuildThreadFactory() );
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task, via reflection as virtual threads require Java 21.
+     *
+     * @return The executor or {@code null} if the Java runtime does not support virtual threads.
+     */
+    static ExecutorService newVirtualThreadExecutor()
+    {
+        try
+        {
+            Class<?> builderType = Class.forName( "java.lang.Thread$Builder" );
+            Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null );
+            builder = builderType.getMethod( "name", String.class, long.class ).invoke( builder, THREAD_PREFIX, 0L );
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod( "factory" ).invoke( builder );
+
+            Method newExecutor = Executors.class.getMethod( "newThreadPerTaskExecutor", ThreadFactory.class );
+            return (ExecutorService) newExecutor.invoke( null, factory );
+        }
+        catch ( Exception e )
+        {
+            return null;
+        }
+        catch ( LinkageError e )
+        {
+            return null;
+        }
+    }
+
+}
@@ -19,9 +19,11 @@
  * under the License.
  */
 
+import java.io.File;
 import java.util.Iterator;
 import java.util.List;
 
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Exclusion;
 import org.apache.maven.model.Plugin;
@@ -208,4 +210,24 @@ public static WorkspaceRepository getWorkspace( RepositorySystemSession session
         return ( reader != null ) ? reader.getRepository() : null;
     }
 
+    /**
+     * Gets the total size of the files of the specified artifacts, used to estimate the footprint of a class realm.
+     */
+    public static long filesSize( List<Artifact> artifacts )
+    {
+        long size = 0;
+        if ( artifacts != null )
+        {
+            for ( Artifact artifact : artifacts )
+            {
+                File file = artifact.getFile();
+                if ( file != null )
+                {
+                    size += file.length();
+                }
+            }
+        }
+        return size;
+    }
+
 }
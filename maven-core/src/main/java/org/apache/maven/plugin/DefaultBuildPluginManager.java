@@ -30,6 +30,7 @@
 import org.apache.maven.model.Plugin;
 import org.apache.maven.plugin.descriptor.MojoDescriptor;
 import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.internal.MojoExecutionCache;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.classworlds.realm.ClassRealm;
 import org.codehaus.plexus.component.annotations.Component;
@@ -54,6 +55,9 @@
     @Requirement
     private MojoExecutionScope scope;
 
+    @Requirement
+    private MojoExecutionCache executionCache;
+
     private MojoExecutionListener mojoExecutionListener;
 
     // this tricks plexus-component-metadata generate required metadata
@@ -94,6 +98,16 @@ public void executeMojo( MavenSession session, MojoExecution mojoExecution )
 
         MojoDescriptor mojoDescriptor = mojoExecution.getMojoDescriptor();
 
+        MojoExecutionCache.Candidate cacheCandidate = null;
+        if ( executionCache.isEnabled( session ) )
+        {
+            cacheCandidate = executionCache.open( session, mojoExecution );
+            if ( cacheCandidate != null && executionCache.restore( cacheCandidate ) )
+            {
+                return;
+            }
+        }
+
         Mojo mojo = null;
 
         ClassRealm pluginRealm;
@@ -134,6 +148,11 @@ public void executeMojo( MavenSession session, MojoExecution mojoExecution )
                 mojo.execute();
 
                 mojoExecutionListener.afterMojoExecutionSuccess( mojoExecutionEvent );
+
+                if ( cacheCandidate != null )
+                {
+                    executionCache.save( cacheCandidate );
+                }
             }
             catch ( ClassCastException e )
             {
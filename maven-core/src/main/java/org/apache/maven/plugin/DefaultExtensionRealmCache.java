@@ -26,6 +26,7 @@
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.building.CacheStatistics;
 import org.apache.maven.project.ExtensionDescriptor;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.classworlds.realm.ClassRealm;
@@ -109,6 +110,8 @@ public String toString()
 
     protected final Map<Key, CacheRecord> cache = new ConcurrentHashMap<Key, CacheRecord>();
 
+    private final CacheStatistics statistics = new CacheStatistics( "extensionRealm", true );
+
     @Override
     public Key createKey( List<Artifact> extensionArtifacts )
     {
@@ -117,7 +120,16 @@ public Key createKey( List<Artifact> extensionArtifacts )
 
     public CacheRecord get( Key key )
     {
-        return cache.get( key );
+        CacheRecord record = cache.get( key );
+        if ( record != null )
+        {
+            statistics.hit();
+        }
+        else
+        {
+            statistics.miss( key );
+        }
+        return record;
     }
 
     public CacheRecord put( Key key, ClassRealm extensionRealm, ExtensionDescriptor extensionDescriptor,
@@ -136,6 +148,7 @@ public CacheRecord put( Key key, ClassRealm extensionRealm, ExtensionDescriptor
         CacheRecord record = new CacheRecord( extensionRealm, extensionDescriptor, artifacts );
 
         cache.put( key, record );
+        statistics.put( key, CacheUtils.filesSize( artifacts ) );
 
         return record;
     }
@@ -155,6 +168,16 @@ public void flush()
             }
         }
         cache.clear();
+        statistics.flush();
+    }
+
+    /**
+     * @return The statistics of this cache, never {@code null}.
+     * @since 3.3.2
+     */
+    public CacheStatistics getStatistics()
+    {
+        return statistics;
     }
 
     public void register( MavenProject project, Key key, CacheRecord record )
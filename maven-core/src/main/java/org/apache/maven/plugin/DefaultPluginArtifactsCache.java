@@ -26,6 +26,7 @@
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.building.CacheStatistics;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
@@ -135,6 +136,8 @@ private static <T> boolean eq( T s1, T s2 )
 
     protected final Map<Key, CacheRecord> cache = new ConcurrentHashMap<Key, CacheRecord>();
 
+    private final CacheStatistics statistics = new CacheStatistics( "pluginArtifacts" );
+
     public Key createKey( Plugin plugin, DependencyFilter extensionFilter, List<RemoteRepository> repositories,
                           RepositorySystemSession session )
     {
@@ -146,6 +149,15 @@ public CacheRecord get( Key key )
     {
         CacheRecord cacheRecord = cache.get( key );
 
+        if ( cacheRecord != null )
+        {
+            statistics.hit();
+        }
+        else
+        {
+            statistics.miss( key );
+        }
+
         if ( cacheRecord != null && cacheRecord.exception != null )
         {
             throw cacheRecord.exception;
@@ -167,6 +179,7 @@ public CacheRecord put( Key key, List<Artifact> pluginArtifacts )
             new CacheRecord( Collections.unmodifiableList( new ArrayList<Artifact>( pluginArtifacts ) ) );
 
         cache.put( key, record );
+        statistics.put( key, -1 );
 
         return record;
     }
@@ -191,6 +204,7 @@ public CacheRecord put( Key key, PluginResolutionException exception )
         CacheRecord record = new CacheRecord( exception );
 
         cache.put( key, record );
+        statistics.put( key, -1 );
 
         return record;
     }
@@ -198,6 +212,16 @@ public CacheRecord put( Key key, PluginResolutionException exception )
     public void flush()
     {
         cache.clear();
+        statistics.flush();
+    }
+
+    /**
+     * @return The statistics of this cache, never {@code null}.
+     * @since 3.3.2
+     */
+    public CacheStatistics getStatistics()
+    {
+        return statistics;
     }
 
     protected static int pluginHashCode( Plugin plugin )
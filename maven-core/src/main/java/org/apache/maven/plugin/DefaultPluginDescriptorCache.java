@@ -25,6 +25,7 @@
 import java.util.Map;
 
 import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.building.CacheStatistics;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.plugin.descriptor.MojoDescriptor;
 import org.apache.maven.plugin.descriptor.PluginDescriptor;
@@ -52,9 +53,12 @@
 
     private Map<Key, PluginDescriptor> descriptors = new HashMap<Key, PluginDescriptor>( 128 );
 
+    private final CacheStatistics statistics = new CacheStatistics( "pluginDescriptor" );
+
     public void flush()
     {
         descriptors.clear();
+        statistics.flush();
     }
 
     public Key createKey( Plugin plugin, List<RemoteRepository> repositories, RepositorySystemSession session )
@@ -64,12 +68,33 @@ public Key createKey( Plugin plugin, List<RemoteRepository> repositories, Reposi
 
     public PluginDescriptor get( Key cacheKey )
     {
-        return clone( descriptors.get( cacheKey ) );
+        PluginDescriptor descriptor = descriptors.get( cacheKey );
+        if ( descriptor != null )
+        {
+            statistics.hit();
+        }
+        else
+        {
+            statistics.miss( cacheKey );
+        }
+        return clone( descriptor );
     }
 
     public void put( Key cacheKey, PluginDescriptor pluginDescriptor )
     {
-        descriptors.put( cacheKey, clone( pluginDescriptor ) );
+        if ( descriptors.put( cacheKey, clone( pluginDescriptor ) ) == null )
+        {
+            statistics.put( cacheKey, -1 );
+        }
+    }
+
+    /**
+     * @return The statistics of this cache, never {@code null}.
+     * @since 3.3.2
+     */
+    public CacheStatistics getStatistics()
+    {
+        return statistics;
     }
 
     protected static PluginDescriptor clone( PluginDescriptor original )
@@ -26,6 +26,7 @@
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.building.CacheStatistics;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.classworlds.realm.ClassRealm;
@@ -148,6 +149,8 @@ private static <T> boolean eq( T s1, T s2 )
 
     protected final Map<Key, CacheRecord> cache = new ConcurrentHashMap<Key, CacheRecord>();
 
+    private final CacheStatistics statistics = new CacheStatistics( "pluginRealm", true );
+
     public Key createKey( Plugin plugin, ClassLoader parentRealm, Map<String, ClassLoader> foreignImports,
                           DependencyFilter dependencyFilter, List<RemoteRepository> repositories,
                           RepositorySystemSession session )
@@ -157,7 +160,16 @@ public Key createKey( Plugin plugin, ClassLoader parentRealm, Map<String, ClassL
 
     public CacheRecord get( Key key )
     {
-        return cache.get( key );
+        CacheRecord record = cache.get( key );
+        if ( record != null )
+        {
+            statistics.hit();
+        }
+        else
+        {
+            statistics.miss( key );
+        }
+        return record;
     }
 
     public CacheRecord put( Key key, ClassRealm pluginRealm, List<Artifact> pluginArtifacts )
@@ -175,6 +187,7 @@ public CacheRecord put( Key key, ClassRealm pluginRealm, List<Artifact> pluginAr
         CacheRecord record = new CacheRecord( pluginRealm, pluginArtifacts );
 
         cache.put( key, record );
+        statistics.put( key, CacheUtils.filesSize( pluginArtifacts ) );
 
         return record;
     }
@@ -194,6 +207,16 @@ public void flush()
             }
         }
         cache.clear();
+        statistics.flush();
+    }
+
+    /**
+     * @return The statistics of this cache, never {@code null}.
+     * @since 3.3.2
+     */
+    public CacheStatistics getStatistics()
+    {
+        return statistics;
     }
 
     protected static int pluginHashCode( Plugin plugin )
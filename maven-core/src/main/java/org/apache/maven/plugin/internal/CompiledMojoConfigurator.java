@@ -0,0 +1,487 @@
+package org.apache.maven.plugin.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.codehaus.plexus.classworlds.realm.ClassRealm;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.configurator.ComponentConfigurationException;
+import org.codehaus.plexus.component.configurator.ConfigurationListener;
+import org.codehaus.plexus.component.configurator.converters.ConfigurationConverter;
+import org.codehaus.plexus.component.configurator.converters.ParameterizedConfigurationConverter;
+import org.codehaus.plexus.component.configurator.converters.lookup.ConverterLookup;
+import org.codehaus.plexus.component.configurator.converters.lookup.DefaultConverterLookup;
+import org.codehaus.plexus.component.configurator.converters.special.ClassRealmConverter;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
+import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.eclipse.sisu.plexus.Roles;
+
+import com.google.inject.TypeLiteral;
+
+/**
+ * Configures mojos like the {@code basic} component configurator does, but from configuration plans that are compiled
+ * once per mojo descriptor. A plan maps the configuration elements seen so far to the setter or field they populate,
+ * together with the converters for their types, so repeated executions of a mojo only convert values and assign them
+ * instead of searching the mojo class and the converters again for every parameter. Plans refer to the mojo class
+ * from the plugin realm, they are recompiled when a descriptor is used with a new realm.
+ *
+ * @since 3.3.2
+ */
+@Component( role = CompiledMojoConfigurator.class )
+public class CompiledMojoConfigurator
+{
+
+    private static final Type[] NO_TYPES = new Type[0];
+
+    private static final String IMPLEMENTATION = "implementation";
+
+    private final ConverterLookup converterLookup = new DefaultConverterLookup();
+
+    private final Map<MojoDescriptor, Plan> plans = new WeakHashMap<MojoDescriptor, Plan>();
+
+    /**
+     * Populates the parameters of the specified mojo from the given configuration.
+     *
+     * @param mojo The mojo to configure, must not be {@code null}.
+     * @param mojoDescriptor The descriptor of the mojo, must not be {@code null}.
+     * @param configuration The configuration of the mojo, must not be {@code null}.
+     * @param evaluator The evaluator for expressions in the configuration, must not be {@code null}.
+     * @param realm The plugin realm of the mojo, must not be {@code null}.
+     * @param listener The listener to notify about populated parameters, may be {@code null}.
+     * @throws ComponentConfigurationException If the configuration could not be applied.
+     */
+    public void configure( Object mojo, MojoDescriptor mojoDescriptor, PlexusConfiguration configuration,
+                           ExpressionEvaluator evaluator, ClassRealm realm, ConfigurationListener listener )
+        throws ComponentConfigurationException
+    {
+        Plan plan = getPlan( mojoDescriptor, mojo.getClass() );
+
+        ClassRealmConverter.pushContextRealm( realm );
+        try
+        {
+            Context context = new Context( converterLookup, realm, evaluator, listener );
+
+            for ( int i = 0, n = configuration.getChildCount(); i < n; i++ )
+            {
+                PlexusConfiguration child = configuration.getChild( i );
+
+                plan.getProperty( child.getName() ).set( mojo, getImplementation( child, realm ), child, context );
+            }
+        }
+        finally
+        {
+            ClassRealmConverter.popContextRealm();
+        }
+    }
+
+    private Plan getPlan( MojoDescriptor mojoDescriptor, Class<?> type )
+    {
+        synchronized ( plans )
+        {
+            Plan plan = plans.get( mojoDescriptor );
+            if ( plan == null || plan.type != type )
+            {
+                plan = new Plan( type, converterLookup );
+                plans.put( mojoDescriptor, plan );
+            }
+            return plan;
+        }
+    }
+
+    private static Class<?> getImplementation( PlexusConfiguration configuration, ClassLoader loader )
+    {
+        String implementation = configuration.getAttribute( IMPLEMENTATION );
+        if ( implementation == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            int dimensions = 0;
+            while ( implementation.endsWith( "[]" ) )
+            {
+                implementation = implementation.substring( 0, implementation.length() - 2 );
+                dimensions++;
+            }
+
+            Class<?> type = loader.loadClass( implementation );
+            for ( ; dimensions > 0; dimensions-- )
+            {
+                type = Array.newInstance( type, 0 ).getClass();
+            }
+            return type;
+        }
+        catch ( Exception e )
+        {
+            // the basic configurator ignores bad implementation hints as well and uses the declared type
+            return null;
+        }
+        catch ( LinkageError e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * The compiled properties of a mojo class, keyed by the names of their configuration elements.
+     */
+    static final class Plan
+    {
+
+        final Class<?> type;
+
+        private final ConverterLookup converterLookup;
+
+        private final ConcurrentMap<String, Property> properties = new ConcurrentHashMap<String, Property>();
+
+        Plan( Class<?> type, ConverterLookup converterLookup )
+        {
+            this.type = type;
+            this.converterLookup = converterLookup;
+        }
+
+        Property getProperty( String elementName )
+        {
+            Property property = properties.get( elementName );
+            if ( property == null )
+            {
+                property = new Property( type, Roles.camelizeName( elementName ), converterLookup );
+                Property existing = properties.putIfAbsent( elementName, property );
+                if ( existing != null )
+                {
+                    property = existing;
+                }
+            }
+            return property;
+        }
+
+    }
+
+    /**
+     * The per-execution state required to convert configuration values.
+     */
+    static final class Context
+    {
+
+        final ConverterLookup converterLookup;
+
+        final ClassLoader loader;
+
+        final ExpressionEvaluator evaluator;
+
+        final ConfigurationListener listener;
+
+        Context( ConverterLookup converterLookup, ClassLoader loader, ExpressionEvaluator evaluator,
+                 ConfigurationListener listener )
+        {
+            this.converterLookup = converterLookup;
+            this.loader = loader;
+            this.evaluator = evaluator;
+            this.listener = listener;
+        }
+
+    }
+
+    /**
+     * A mojo parameter with its setter and field resolved. Assigning a value tries the setter first and falls back to
+     * the field, reporting the same problems as the basic configurator.
+     */
+    static final class Property
+    {
+
+        private final Class<?> beanType;
+
+        private final String name;
+
+        private final Target setter;
+
+        private final Target field;
+
+        Property( Class<?> beanType, String name, ConverterLookup converterLookup )
+        {
+            this.beanType = beanType;
+            this.name = name;
+
+            String title = Character.toTitleCase( name.charAt( 0 ) ) + name.substring( 1 );
+            Method method = findMethod( beanType, "set" + title );
+            if ( method == null )
+            {
+                method = findMethod( beanType, "add" + title );
+            }
+            this.setter = ( method != null )
+                            ? new Target( method, null, method.getGenericParameterTypes()[0], converterLookup )
+                            : null;
+
+            Field f = findField( beanType, name );
+            this.field = ( f != null ) ? new Target( null, f, f.getGenericType(), converterLookup ) : null;
+        }
+
+        void set( Object bean, Class<?> valueType, PlexusConfiguration configuration, Context context )
+            throws ComponentConfigurationException
+        {
+            Object value = null;
+            Throwable problem = null;
+
+            if ( setter != null )
+            {
+                try
+                {
+                    value = setter.convert( beanType, valueType, configuration, context );
+                    if ( value != null )
+                    {
+                        if ( context.listener != null )
+                        {
+                            context.listener.notifyFieldChangeUsingSetter( name, value, bean );
+                        }
+                        setter.method.invoke( bean, value );
+                        return;
+                    }
+                }
+                catch ( Exception e )
+                {
+                    problem = e;
+                }
+                catch ( LinkageError e )
+                {
+                    problem = e;
+                }
+            }
+
+            if ( field != null )
+            {
+                try
+                {
+                    if ( !field.rawType.isInstance( value ) )
+                    {
+                        value = field.convert( beanType, valueType, configuration, context );
+                    }
+                    if ( value != null )
+                    {
+                        if ( context.listener != null )
+                        {
+                            context.listener.notifyFieldChangeUsingReflection( name, value, bean );
+                        }
+                        field.field.set( bean, value );
+                        return;
+                    }
+                }
+                catch ( Exception e )
+                {
+                    if ( problem == null )
+                    {
+                        problem = e;
+                    }
+                }
+                catch ( LinkageError e )
+                {
+                    if ( problem == null )
+                    {
+                        problem = e;
+                    }
+                }
+            }
+
+            if ( problem instanceof ComponentConfigurationException )
+            {
+                throw (ComponentConfigurationException) problem;
+            }
+            else if ( problem != null )
+            {
+                throw new ComponentConfigurationException( configuration, "Cannot set '" + name + "' in " + beanType,
+                                                           problem );
+            }
+            else if ( setter == null && field == null )
+            {
+                throw new ComponentConfigurationException( configuration, "Cannot find '" + name + "' in "
+                    + beanType );
+            }
+        }
+
+        private static Method findMethod( Class<?> type, String name )
+        {
+            for ( Method method : type.getMethods() )
+            {
+                if ( name.equals( method.getName() ) && !Modifier.isStatic( method.getModifiers() )
+                    && method.getGenericParameterTypes().length == 1 )
+                {
+                    return method;
+                }
+            }
+            return null;
+        }
+
+        private static Field findField( Class<?> type, String name )
+        {
+            for ( Class<?> c = type; c != null; c = c.getSuperclass() )
+            {
+                for ( Field field : c.getDeclaredFields() )
+                {
+                    if ( name.equals( field.getName() ) && !Modifier.isStatic( field.getModifiers() ) )
+                    {
+                        return field;
+                    }
+                }
+            }
+            return null;
+        }
+
+    }
+
+    /**
+     * A setter or field together with its resolved types and converter.
+     */
+    static final class Target
+    {
+
+        final Method method;
+
+        final Field field;
+
+        final Class<?> rawType;
+
+        private final Type genericType;
+
+        private final Type[] typeArguments;
+
+        private final ConfigurationConverter converter;
+
+        Target( Method method, final Field field, Type type, ConverterLookup converterLookup )
+        {
+            this.method = method;
+            this.field = field;
+
+            TypeLiteral<?> literal = TypeLiteral.get( type );
+            this.rawType = literal.getRawType();
+            this.genericType = literal.getType();
+            this.typeArguments = getTypeArguments( genericType );
+            this.converter = lookupConverter( converterLookup, rawType );
+
+            if ( field != null )
+            {
+                AccessController.doPrivileged( new PrivilegedAction<Void>()
+                {
+                    public Void run()
+                    {
+                        try
+                        {
+                            field.setAccessible( true );
+                        }
+                        catch ( SecurityException e )
+                        {
+                            // assignments will fail and report the problem
+                        }
+                        return null;
+                    }
+                } );
+            }
+        }
+
+        Object convert( Class<?> beanType, Class<?> valueType, PlexusConfiguration configuration, Context context )
+            throws ComponentConfigurationException
+        {
+            Class<?> type = rawType;
+            ConfigurationConverter c = converter;
+            if ( valueType != null && valueType != rawType && rawType.isAssignableFrom( valueType ) )
+            {
+                type = valueType;
+                c = null;
+            }
+            if ( c == null )
+            {
+                // unresolved converters are looked up again to report the same error as the basic configurator
+                c = context.converterLookup.lookupConverterForType( type );
+            }
+
+            if ( !( genericType instanceof Class ) && c instanceof ParameterizedConfigurationConverter )
+            {
+                return ( (ParameterizedConfigurationConverter) c ).fromConfiguration( context.converterLookup,
+                                                                                      configuration, type,
+                                                                                      typeArguments, beanType,
+                                                                                      context.loader,
+                                                                                      context.evaluator,
+                                                                                      context.listener );
+            }
+            return c.fromConfiguration( context.converterLookup, configuration, type, beanType, context.loader,
+                                        context.evaluator, context.listener );
+        }
+
+        private static ConfigurationConverter lookupConverter( ConverterLookup converterLookup, Class<?> type )
+        {
+            try
+            {
+                return converterLookup.lookupConverterForType( type );
+            }
+            catch ( ComponentConfigurationException e )
+            {
+                return null;
+            }
+        }
+
+        private static Type[] getTypeArguments( Type type )
+        {
+            if ( type instanceof ParameterizedType )
+            {
+                Type[] arguments = ( (ParameterizedType) type ).getActualTypeArguments().clone();
+                for ( int i = 0; i < arguments.length; i++ )
+                {
+                    arguments[i] = expandType( arguments[i] );
+                }
+                return arguments;
+            }
+            else if ( type instanceof GenericArrayType )
+            {
+                return new Type[] { expandType( ( (GenericArrayType) type ).getGenericComponentType() ) };
+            }
+            return NO_TYPES;
+        }
+
+        private static Type expandType( Type type )
+        {
+            if ( type instanceof WildcardType )
+            {
+                return ( (WildcardType) type ).getUpperBounds()[0];
+            }
+            else if ( type instanceof TypeVariable )
+            {
+                return ( (TypeVariable<?>) type ).getBounds()[0];
+            }
+            return type;
+        }
+
+    }
+
+}
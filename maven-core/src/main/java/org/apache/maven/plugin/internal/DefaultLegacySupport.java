@@ -22,7 +22,9 @@
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.LegacySupport;
+import org.apache.maven.session.scope.internal.SessionScope;
 import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
 import org.eclipse.aether.RepositorySystemSession;
 
 /**
@@ -41,6 +43,9 @@
     private static final ThreadLocal<AtomicReference<MavenSession>> SESSION =
         new InheritableThreadLocal<AtomicReference<MavenSession>>();
 
+    @Requirement( optional = true )
+    private SessionScope sessionScope;
+
     public void setSession( MavenSession session )
     {
         AtomicReference<MavenSession> reference = DefaultLegacySupport.SESSION.get();
@@ -62,7 +67,13 @@ public void setSession( MavenSession session )
     public MavenSession getSession()
     {
         AtomicReference<MavenSession> currentSession = DefaultLegacySupport.SESSION.get();
-        return currentSession != null ? currentSession.get() : null;
+        MavenSession session = currentSession != null ? currentSession.get() : null;
+        if ( session == null && sessionScope != null )
+        {
+            // pooled threads do not inherit the session, but tasks propagated via the session scope know it
+            session = sessionScope.getSeed( MavenSession.class );
+        }
+        return session;
     }
 
     public RepositorySystemSession getRepositorySession()
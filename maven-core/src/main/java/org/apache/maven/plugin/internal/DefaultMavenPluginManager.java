@@ -83,6 +83,7 @@
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
 import org.codehaus.plexus.component.composition.CycleDetectedInComponentGraphException;
+import org.codehaus.plexus.component.configurator.BasicComponentConfigurator;
 import org.codehaus.plexus.component.configurator.ComponentConfigurationException;
 import org.codehaus.plexus.component.configurator.ComponentConfigurator;
 import org.codehaus.plexus.component.configurator.ConfigurationListener;
@@ -162,6 +163,9 @@
     @Requirement
     private PluginArtifactsCache pluginArtifactsCache;
 
+    @Requirement
+    private CompiledMojoConfigurator compiledMojoConfigurator;
+
     private ExtensionDescriptorBuilder extensionDescriptorBuilder = new ExtensionDescriptorBuilder();
 
     private PluginDescriptorBuilder builder = new PluginDescriptorBuilder();
@@ -656,7 +660,15 @@ private void populatePluginFields( Object mojo, MojoDescriptor mojoDescriptor, C
             logger.debug( "Configuring mojo '" + mojoDescriptor.getId() + "' with " + configuratorId
                 + " configurator -->" );
 
-            configurator.configureComponent( mojo, configuration, expressionEvaluator, pluginRealm, validator );
+            if ( configurator.getClass() == BasicComponentConfigurator.class )
+            {
+                compiledMojoConfigurator.configure( mojo, mojoDescriptor, configuration, expressionEvaluator,
+                                                    pluginRealm, validator );
+            }
+            else
+            {
+                configurator.configureComponent( mojo, configuration, expressionEvaluator, pluginRealm, validator );
+            }
 
             logger.debug( "-- end configuration --" );
 
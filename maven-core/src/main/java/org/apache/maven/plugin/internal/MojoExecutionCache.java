@@ -0,0 +1,691 @@
+package org.apache.maven.plugin.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.buildcache.BuildCacheStore;
+import org.apache.maven.buildcache.BuildCacheStores;
+import org.apache.maven.buildcache.FileChecksums;
+import org.apache.maven.buildcache.ProjectChanges;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.Parameter;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.util.StringUtils;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Skips mojo executions whose inputs are the same as those of an earlier successful execution and restores the outputs
+ * of that execution instead. The fingerprint of an execution covers the plugin, the mojo configuration with its
+ * expressions evaluated, the contents of the POM, the source roots, the resource directories and any other existing
+ * files or directories that {@code java.io.File} parameters point at, the resolved dependency artifacts of the project
+ * and the directories listed in the project property {@code maven.incremental.inputs}. Locations within the build
+ * directory are covered with the contents they have before the execution, e.g. the classes a jar is made of.
+ * <p>
+ * The outputs of an execution are the files it creates or modifies in the build directory of the project, plus the
+ * full contents of the locations within the build directory that {@code java.io.File} parameters point at. The
+ * contents of the outputs go to the configured {@link BuildCacheStore}, together with the changes the execution made
+ * to the project, i.e. its main and attached artifacts, source roots and properties, so that both can be restored.
+ * <p>
+ * Caching is enabled by the user or system property {@code maven.incremental}. Aggregators, mojos that require online
+ * access and the plugins listed in {@code maven.incremental.excludes} (by default clean, install,
+ * deploy and release) always execute. Values that mojos read directly from the environment or from the file system
+ * outside of the locations above are not covered by the fingerprint.
+ *
+ * @since 3.3.2
+ */
+@Component( role = MojoExecutionCache.class )
+public class MojoExecutionCache
+{
+
+    static final String PROPERTY = "maven.incremental";
+
+    static final String EXCLUDES_PROPERTY = "maven.incremental.excludes";
+
+    static final String INPUTS_PROPERTY = "maven.incremental.inputs";
+
+    private static final String DEFAULT_EXCLUDES =
+        "maven-clean-plugin,maven-install-plugin,maven-deploy-plugin,maven-release-plugin";
+
+    private static final String OUTPUTS = "outputs";
+
+    private static final String OUTPUT = "output.";
+
+    private static final String ARTIFACT_FILE = "artifact.file";
+
+    private static final String ATTACHED = "attached.";
+
+    @Requirement
+    private Logger logger;
+
+    @Requirement
+    private MavenProjectHelper projectHelper;
+
+    @Requirement
+    private Map<String, BuildCacheStore> stores;
+
+    private final FileChecksums checksums = new FileChecksums();
+
+    /**
+     * Tells whether execution caching is enabled for the specified session.
+     *
+     * @param session The session to check, must not be {@code null}.
+     * @return {@code true} if caching is enabled, {@code false} otherwise.
+     */
+    public boolean isEnabled( MavenSession session )
+    {
+        return Boolean.parseBoolean( getProperty( session, PROPERTY ) );
+    }
+
+    /**
+     * Calculates the fingerprint of the specified mojo execution and records the state of the project before it.
+     *
+     * @param session The current session, must not be {@code null}.
+     * @param mojoExecution The mojo execution about to happen, must not be {@code null}.
+     * @return The candidate for {@link #restore(Candidate)} and {@link #save(Candidate)} or {@code null} if the
+     *         execution is not cacheable.
+     */
+    public Candidate open( MavenSession session, MojoExecution mojoExecution )
+    {
+        MavenProject project = session.getCurrentProject();
+
+        String reason = getExclusionReason( session, project, mojoExecution );
+        if ( reason != null )
+        {
+            logger.debug( "Not caching " + mojoExecution + ": " + reason );
+            return null;
+        }
+
+        try
+        {
+            Candidate candidate = new Candidate( session, project, mojoExecution );
+            candidate.fingerprint = fingerprint( candidate );
+            candidate.snapshot = snapshot( candidate.buildDirectory );
+            return candidate;
+        }
+        catch ( IOException e )
+        {
+            logger.warn( "Could not fingerprint " + mojoExecution + ", not caching it: " + e.getMessage() );
+            return null;
+        }
+    }
+
+    /**
+     * Restores the outputs of an earlier execution with the same fingerprint.
+     *
+     * @param candidate The candidate as returned by {@link #open(MavenSession, MojoExecution)}, must not be
+     *            {@code null}.
+     * @return {@code true} if the outputs were restored and the execution can be skipped, {@code false} if the mojo
+     *         needs to execute.
+     */
+    public boolean restore( Candidate candidate )
+    {
+        try
+        {
+            MavenSession session = candidate.session;
+            BuildCacheStore store = BuildCacheStores.select( session, stores );
+
+            Properties record = store.getEntry( session, candidate.fingerprint );
+            if ( record == null )
+            {
+                logger.info( "No cached execution with these inputs, executing" );
+                return false;
+            }
+
+            int count = Integer.parseInt( record.getProperty( OUTPUTS, "0" ) );
+            for ( int i = 0; i < count; i++ )
+            {
+                if ( !store.containsContent( session, record.getProperty( OUTPUT + i + ".checksum" ) ) )
+                {
+                    logger.info( "Cached outputs are incomplete, executing" );
+                    return false;
+                }
+            }
+
+            int restored = 0;
+            for ( int i = 0; i < count; i++ )
+            {
+                File file = resolve( candidate.buildDirectory, record.getProperty( OUTPUT + i + ".path" ) );
+                String checksum = record.getProperty( OUTPUT + i + ".checksum" );
+                if ( !file.isFile() || !checksum.equals( checksums.getChecksum( file ) ) )
+                {
+                    store.getContent( session, checksum, file );
+                    long lastModified = Long.parseLong( record.getProperty( OUTPUT + i + ".time", "0" ) );
+                    if ( lastModified > 0 )
+                    {
+                        file.setLastModified( lastModified );
+                    }
+                    restored++;
+                }
+            }
+
+            applyProjectChanges( candidate, record );
+
+            logger.info( "Inputs unchanged, restored " + restored + " of " + count
+                + " output files from the build cache" );
+            return true;
+        }
+        catch ( IOException e )
+        {
+            logger.warn( "Could not restore cached outputs, executing: " + e.getMessage() );
+            return false;
+        }
+        catch ( RuntimeException e )
+        {
+            logger.warn( "Could not restore cached outputs, executing: " + e );
+            return false;
+        }
+    }
+
+    /**
+     * Stores the outputs of a successful execution and the changes it made to the project.
+     *
+     * @param candidate The candidate as returned by {@link #open(MavenSession, MojoExecution)}, must not be
+     *            {@code null}.
+     */
+    public void save( Candidate candidate )
+    {
+        try
+        {
+            Properties record = new Properties();
+            if ( !recordProjectChanges( candidate, record ) )
+            {
+                return;
+            }
+
+            Set<String> outputs = new TreeSet<String>();
+            for ( Map.Entry<String, long[]> entry : snapshot( candidate.buildDirectory ).entrySet() )
+            {
+                long[] before = candidate.snapshot.get( entry.getKey() );
+                if ( before == null || before[0] != entry.getValue()[0] || before[1] != entry.getValue()[1] )
+                {
+                    outputs.add( entry.getKey() );
+                }
+            }
+            for ( File location : candidate.outputLocations )
+            {
+                String prefix = relativize( candidate.buildDirectory, location );
+                for ( String path : snapshot( location ).keySet() )
+                {
+                    outputs.add( ( path.length() > 0 ) ? prefix + '/' + path : prefix );
+                }
+            }
+
+            BuildCacheStore store = BuildCacheStores.select( candidate.session, stores );
+
+            int count = 0;
+            for ( String path : outputs )
+            {
+                File file = resolve( candidate.buildDirectory, path );
+                String checksum = checksums.getChecksum( file );
+                store.putContent( candidate.session, checksum, file );
+                record.setProperty( OUTPUT + count + ".path", path );
+                record.setProperty( OUTPUT + count + ".checksum", checksum );
+                record.setProperty( OUTPUT + count + ".time", String.valueOf( file.lastModified() ) );
+                count++;
+            }
+            record.setProperty( OUTPUTS, String.valueOf( count ) );
+
+            store.putEntry( candidate.session, candidate.fingerprint, record );
+
+            logger.debug( "Cached " + count + " output files of " + candidate.mojoExecution );
+        }
+        catch ( IOException e )
+        {
+            logger.warn( "Could not cache outputs of " + candidate.mojoExecution + ": " + e.getMessage() );
+        }
+    }
+
+    private String getExclusionReason( MavenSession session, MavenProject project, MojoExecution mojoExecution )
+    {
+        MojoDescriptor mojoDescriptor = mojoExecution.getMojoDescriptor();
+
+        if ( project == null || project.getFile() == null || project.getBuild() == null
+            || project.getBuild().getDirectory() == null )
+        {
+            return "no project directory";
+        }
+        if ( mojoDescriptor.isAggregator() )
+        {
+            return "aggregator";
+        }
+        if ( mojoDescriptor.isOnlineRequired() )
+        {
+            return "requires online access";
+        }
+
+        String excludes = getProperty( session, EXCLUDES_PROPERTY );
+        if ( excludes == null )
+        {
+            excludes = DEFAULT_EXCLUDES;
+        }
+        PluginDescriptor pluginDescriptor = mojoDescriptor.getPluginDescriptor();
+        for ( String exclude : StringUtils.split( excludes, "," ) )
+        {
+            exclude = exclude.trim();
+            if ( exclude.equals( pluginDescriptor.getArtifactId() )
+                || exclude.equals( pluginDescriptor.getGroupId() + ':' + pluginDescriptor.getArtifactId() )
+                || exclude.equals( pluginDescriptor.getArtifactId() + ':' + mojoDescriptor.getGoal() ) )
+            {
+                return "excluded by " + EXCLUDES_PROPERTY;
+            }
+        }
+
+        return null;
+    }
+
+    private String fingerprint( Candidate candidate )
+        throws IOException
+    {
+        MavenProject project = candidate.project;
+        MojoExecution mojoExecution = candidate.mojoExecution;
+        MojoDescriptor mojoDescriptor = mojoExecution.getMojoDescriptor();
+        PluginDescriptor pluginDescriptor = mojoDescriptor.getPluginDescriptor();
+
+        MessageDigest digest = FileChecksums.newDigest();
+
+        FileChecksums.update( digest, pluginDescriptor.getId() );
+        FileChecksums.update( digest, mojoDescriptor.getGoal() );
+        FileChecksums.update( digest, mojoExecution.getExecutionId() );
+        Artifact pluginArtifact = pluginDescriptor.getPluginArtifact();
+        if ( pluginArtifact != null && pluginArtifact.isSnapshot() && pluginArtifact.getFile() != null )
+        {
+            checksums.update( digest, pluginArtifact.getFile(), null );
+        }
+
+        FileChecksums.update( digest, project.getId() );
+        FileChecksums.update( digest, project.getPackaging() );
+
+        Set<File> inputs = new TreeSet<File>();
+        inputs.add( normalize( project.getFile() ) );
+        addInputs( inputs, project.getBasedir(), project.getCompileSourceRoots() );
+        addInputs( inputs, project.getBasedir(), project.getTestCompileSourceRoots() );
+        for ( Resource resource : project.getResources() )
+        {
+            addInputs( inputs, project.getBasedir(), Collections.singletonList( resource.getDirectory() ) );
+        }
+        for ( Resource resource : project.getTestResources() )
+        {
+            addInputs( inputs, project.getBasedir(), Collections.singletonList( resource.getDirectory() ) );
+        }
+        String declared = project.getProperties().getProperty( INPUTS_PROPERTY );
+        if ( declared != null )
+        {
+            addInputs( inputs, project.getBasedir(), Arrays.asList( StringUtils.split( declared, "," ) ) );
+        }
+
+        Xpp3Dom configuration = mojoExecution.getConfiguration();
+        if ( configuration != null )
+        {
+            PluginParameterExpressionEvaluator evaluator =
+                new PluginParameterExpressionEvaluator( candidate.session, mojoExecution );
+            Map<String, Parameter> parameters = mojoDescriptor.getParameterMap();
+            for ( Xpp3Dom child : configuration.getChildren() )
+            {
+                update( digest, child, evaluator );
+
+                Parameter parameter = parameters.get( child.getName() );
+                if ( parameter != null && File.class.getName().equals( parameter.getType() ) )
+                {
+                    File file = evaluateFile( child, evaluator );
+                    if ( file == null || file.equals( candidate.buildDirectory ) )
+                    {
+                        continue;
+                    }
+                    if ( isWithin( candidate.buildDirectory, file ) )
+                    {
+                        candidate.outputLocations.add( file );
+                    }
+                    if ( file.exists() )
+                    {
+                        inputs.add( file );
+                    }
+                }
+            }
+        }
+
+        File basedir = normalize( project.getBasedir() );
+        for ( File input : inputs )
+        {
+            if ( isWithin( input, basedir ) )
+            {
+                // a parent directory would pull in the whole reactor
+                continue;
+            }
+            FileChecksums.update( digest, input.getPath() );
+            checksums.update( digest, input, isWithin( candidate.buildDirectory, input ) ? null
+                            : Collections.singleton( candidate.buildDirectory ) );
+        }
+
+        List<Artifact> artifacts = new ArrayList<Artifact>( project.getArtifacts() );
+        Collections.sort( artifacts, new Comparator<Artifact>()
+        {
+            public int compare( Artifact a1, Artifact a2 )
+            {
+                return a1.getId().compareTo( a2.getId() );
+            }
+        } );
+        for ( Artifact artifact : artifacts )
+        {
+            FileChecksums.update( digest, artifact.getId() );
+            FileChecksums.update( digest, artifact.getScope() );
+            if ( artifact.getFile() != null )
+            {
+                checksums.update( digest, artifact.getFile(), null );
+            }
+        }
+
+        return FileChecksums.toHex( digest.digest() );
+    }
+
+    private static void addInputs( Set<File> inputs, File basedir, Collection<String> paths )
+    {
+        for ( String path : paths )
+        {
+            if ( StringUtils.isNotBlank( path ) )
+            {
+                File file = new File( path.trim() );
+                inputs.add( normalize( file.isAbsolute() ? file : new File( basedir, path.trim() ) ) );
+            }
+        }
+    }
+
+    private static void update( MessageDigest digest, Xpp3Dom dom, PluginParameterExpressionEvaluator evaluator )
+    {
+        FileChecksums.update( digest, dom.getName() );
+
+        String[] attributes = dom.getAttributeNames();
+        Arrays.sort( attributes );
+        for ( String attribute : attributes )
+        {
+            FileChecksums.update( digest, attribute );
+            FileChecksums.update( digest, dom.getAttribute( attribute ) );
+        }
+
+        String value = dom.getValue();
+        if ( value == null )
+        {
+            value = dom.getAttribute( "default-value" );
+        }
+        if ( value != null )
+        {
+            FileChecksums.update( digest, describe( value, evaluator ) );
+        }
+
+        FileChecksums.update( digest, String.valueOf( dom.getChildCount() ) );
+        for ( Xpp3Dom child : dom.getChildren() )
+        {
+            update( digest, child, evaluator );
+        }
+    }
+
+    private static String describe( String expression, PluginParameterExpressionEvaluator evaluator )
+    {
+        Object value;
+        try
+        {
+            value = evaluator.evaluate( expression );
+        }
+        catch ( ExpressionEvaluationException e )
+        {
+            return expression;
+        }
+
+        if ( value instanceof String || value instanceof Number || value instanceof Boolean
+            || value instanceof Character || value instanceof File || value instanceof Collection
+            || value instanceof Map )
+        {
+            return value.getClass().getName() + ':' + value;
+        }
+
+        // other objects like the session do not have a meaningful string form
+        return expression;
+    }
+
+    private static File evaluateFile( Xpp3Dom dom, PluginParameterExpressionEvaluator evaluator )
+    {
+        String expression = dom.getValue();
+        if ( expression == null )
+        {
+            expression = dom.getAttribute( "default-value" );
+        }
+        if ( expression == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            Object value = evaluator.evaluate( expression );
+            if ( value == null || !( value instanceof String || value instanceof File ) )
+            {
+                return null;
+            }
+            return normalize( evaluator.alignToBaseDirectory( new File( value.toString() ) ) );
+        }
+        catch ( ExpressionEvaluationException e )
+        {
+            return null;
+        }
+    }
+
+    private boolean recordProjectChanges( Candidate candidate, Properties record )
+    {
+        MavenProject project = candidate.project;
+
+        File artifactFile = ( project.getArtifact() != null ) ? project.getArtifact().getFile() : null;
+        if ( artifactFile != null && !artifactFile.equals( candidate.artifactFile ) )
+        {
+            String path = relativize( candidate.buildDirectory, normalize( artifactFile ) );
+            if ( path == null )
+            {
+                logger.debug( "Not caching " + candidate.mojoExecution + ": artifact outside of build directory" );
+                return false;
+            }
+            record.setProperty( ARTIFACT_FILE, path );
+        }
+
+        List<Artifact> attached = project.getAttachedArtifacts();
+        for ( int i = candidate.attachedCount; i < attached.size(); i++ )
+        {
+            Artifact artifact = attached.get( i );
+            String path = ( artifact.getFile() != null )
+                            ? relativize( candidate.buildDirectory, normalize( artifact.getFile() ) ) : null;
+            if ( path == null )
+            {
+                logger.debug( "Not caching " + candidate.mojoExecution + ": attached artifact " + artifact
+                    + " outside of build directory" );
+                return false;
+            }
+            String key = ATTACHED + ( i - candidate.attachedCount );
+            record.setProperty( key + ".file", path );
+            record.setProperty( key + ".type", artifact.getType() );
+            if ( artifact.getClassifier() != null )
+            {
+                record.setProperty( key + ".classifier", artifact.getClassifier() );
+            }
+        }
+
+        candidate.changes.record( record );
+
+        return true;
+    }
+
+    private void applyProjectChanges( Candidate candidate, Properties record )
+    {
+        MavenProject project = candidate.project;
+
+        String artifactFile = record.getProperty( ARTIFACT_FILE );
+        if ( artifactFile != null )
+        {
+            project.getArtifact().setFile( resolve( candidate.buildDirectory, artifactFile ) );
+        }
+
+        for ( int i = 0; record.getProperty( ATTACHED + i + ".file" ) != null; i++ )
+        {
+            String key = ATTACHED + i;
+            projectHelper.attachArtifact( project, record.getProperty( key + ".type" ),
+                                          record.getProperty( key + ".classifier" ),
+                                          resolve( candidate.buildDirectory, record.getProperty( key + ".file" ) ) );
+        }
+
+        ProjectChanges.apply( project, record );
+    }
+
+    private static Map<String, long[]> snapshot( File root )
+    {
+        Map<String, long[]> snapshot = new TreeMap<String, long[]>();
+        if ( root.isFile() )
+        {
+            snapshot.put( "", new long[] { root.length(), root.lastModified() } );
+        }
+        else
+        {
+            snapshot( root, "", snapshot );
+        }
+        return snapshot;
+    }
+
+    private static void snapshot( File dir, String prefix, Map<String, long[]> snapshot )
+    {
+        File[] files = dir.listFiles();
+        if ( files == null )
+        {
+            return;
+        }
+        for ( File file : files )
+        {
+            String path = prefix + file.getName();
+            if ( file.isDirectory() )
+            {
+                snapshot( file, path + '/', snapshot );
+            }
+            else
+            {
+                snapshot.put( path, new long[] { file.length(), file.lastModified() } );
+            }
+        }
+    }
+
+    private static File normalize( File file )
+    {
+        return new File( file.getAbsoluteFile().toURI().normalize() );
+    }
+
+    private static boolean isWithin( File dir, File file )
+    {
+        return file.getPath().startsWith( dir.getPath() + File.separator );
+    }
+
+    private static String relativize( File dir, File file )
+    {
+        if ( !isWithin( dir, file ) )
+        {
+            return null;
+        }
+        return file.getPath().substring( dir.getPath().length() + 1 ).replace( File.separatorChar, '/' );
+    }
+
+    private static File resolve( File dir, String path )
+    {
+        File file = new File( path.replace( '/', File.separatorChar ) );
+        return file.isAbsolute() ? file : new File( dir, file.getPath() );
+    }
+
+    private static String getProperty( MavenSession session, String key )
+    {
+        String value = session.getUserProperties().getProperty( key );
+        if ( value == null )
+        {
+            value = session.getSystemProperties().getProperty( key );
+        }
+        return value;
+    }
+
+    /**
+     * A mojo execution that is eligible for caching, along with its fingerprint and the state of its project before
+     * the execution.
+     */
+    public static final class Candidate
+    {
+
+        final MavenSession session;
+
+        final MavenProject project;
+
+        final MojoExecution mojoExecution;
+
+        final File buildDirectory;
+
+        final List<File> outputLocations = new ArrayList<File>();
+
+        final File artifactFile;
+
+        final int attachedCount;
+
+        final ProjectChanges changes;
+
+        String fingerprint;
+
+        Map<String, long[]> snapshot;
+
+        Candidate( MavenSession session, MavenProject project, MojoExecution mojoExecution )
+        {
+            this.session = session;
+            this.project = project;
+            this.mojoExecution = mojoExecution;
+            this.buildDirectory = normalize( new File( project.getBuild().getDirectory() ) );
+            this.artifactFile = ( project.getArtifact() != null ) ? project.getArtifact().getFile() : null;
+            this.attachedCount = project.getAttachedArtifacts().size();
+            this.changes = new ProjectChanges( project );
+        }
+
+        public String getFingerprint()
+        {
+            return fingerprint;
+        }
+
+    }
+
+}
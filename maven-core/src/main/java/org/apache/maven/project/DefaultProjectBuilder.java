@@ -31,6 +31,7 @@
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.maven.RepositoryConversionCache;
 import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.InvalidRepositoryException;
@@ -50,6 +51,7 @@
 import org.apache.maven.model.building.DefaultModelBuildingRequest;
 import org.apache.maven.model.building.DefaultModelProblem;
 import org.apache.maven.model.building.FileModelSource;
+import org.apache.maven.model.building.FileStatCache;
 import org.apache.maven.model.building.ModelBuilder;
 import org.apache.maven.model.building.ModelBuildingException;
 import org.apache.maven.model.building.ModelBuildingRequest;
@@ -60,6 +62,7 @@
 import org.apache.maven.model.building.StringModelSource;
 import org.apache.maven.model.resolution.ModelResolver;
 import org.apache.maven.repository.internal.ArtifactDescriptorUtils;
+import org.apache.maven.repository.internal.SessionCacheStatistics;
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
 import org.codehaus.plexus.logging.Logger;
@@ -275,7 +278,8 @@ private ModelBuildingRequest getModelBuildingRequest( InternalConfig config )
         request.setUserProperties( configuration.getUserProperties() );
         request.setBuildStartTime( configuration.getBuildStartTime() );
         request.setModelResolver( resolver );
-        request.setModelCache( new ReactorModelCache() );
+        request.setModelCache( new ReactorModelCache( SessionCacheStatistics.get( config.session, "reactorModel" ) ) );
+        request.setFileStatCache( config.fileStatCache );
 
         return request;
     }
@@ -492,12 +496,12 @@ private boolean build( List<ProjectBuildingResult> results, List<InterimResult>
 
                     File moduleFile = new File( basedir, module );
 
-                    if ( moduleFile.isDirectory() )
+                    if ( config.fileStatCache.isDirectory( moduleFile ) )
                     {
                         moduleFile = modelProcessor.locatePom( moduleFile );
                     }
 
-                    if ( !moduleFile.isFile() )
+                    if ( !config.fileStatCache.isFile( moduleFile ) )
                     {
                         ModelProblem problem =
                             new DefaultModelProblem( "Child module " + moduleFile + " of " + pomFile
@@ -914,6 +918,8 @@ private String findProfilesXml( ModelBuildingResult result, Map<File, Boolean> p
 
         public final ReactorModelPool modelPool;
 
+        public final FileStatCache fileStatCache;
+
         InternalConfig( ProjectBuildingRequest request, ReactorModelPool modelPool )
         {
             this.request = request;
@@ -921,7 +927,10 @@ private String findProfilesXml( ModelBuildingResult result, Map<File, Boolean> p
             session =
                 LegacyLocalRepositoryManager.overlay( request.getLocalRepository(), request.getRepositorySession(),
                                                       repoSystem );
-            repositories = RepositoryUtils.toRepos( request.getRemoteRepositories() );
+            repositories = RepositoryConversionCache.get( session ).toRepos( request.getRemoteRepositories() );
+            // the file system is assumed to be stable only while this call builds its projects, later calls get a
+            // fresh cache so that files created in the meantime, e.g. by plugins, are seen
+            fileStatCache = new FileStatCache( -1, SessionCacheStatistics.get( session, "fileStat" ) );
         }
 
     }
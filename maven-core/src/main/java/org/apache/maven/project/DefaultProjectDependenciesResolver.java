@@ -24,7 +24,7 @@
 import java.util.List;
 import java.util.Map;
 
-import org.apache.maven.RepositoryUtils;
+import org.apache.maven.RepositoryConversionCache;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.DependencyManagement;
@@ -81,6 +81,7 @@ public DependencyResolutionResult resolve( DependencyResolutionRequest request )
         final DependencyFilter filter = request.getResolutionFilter();
         RepositorySystemSession session = request.getRepositorySession();
         ArtifactTypeRegistry stereotypes = session.getArtifactTypeRegistry();
+        RepositoryConversionCache conversions = RepositoryConversionCache.get( session );
 
         if ( logger.isDebugEnabled()
             && session.getConfigProperties().get( DependencyManagerUtils.CONFIG_PROP_VERBOSE ) == null )
@@ -100,7 +101,7 @@ public DependencyResolutionResult resolve( DependencyResolutionRequest request )
         }
 
         CollectRequest collect = new CollectRequest();
-        collect.setRootArtifact( RepositoryUtils.toArtifact( project.getArtifact() ) );
+        collect.setRootArtifact( conversions.toArtifact( project.getArtifact() ) );
         collect.setRequestContext( "project" );
         collect.setRepositories( project.getRemoteProjectRepositories() );
 
@@ -114,7 +115,7 @@ public DependencyResolutionResult resolve( DependencyResolutionRequest request )
                     // guard against case where best-effort resolution for invalid models is requested
                     continue;
                 }
-                collect.addDependency( RepositoryUtils.toDependency( dependency, stereotypes ) );
+                collect.addDependency( conversions.toDependency( dependency, stereotypes ) );
             }
         }
         else
@@ -141,7 +142,7 @@ public DependencyResolutionResult resolve( DependencyResolutionRequest request )
                 String key = artifact.getDependencyConflictId();
                 Dependency dependency = dependencies.get( key );
                 Collection<Exclusion> exclusions = dependency != null ? dependency.getExclusions() : null;
-                org.eclipse.aether.graph.Dependency dep = RepositoryUtils.toDependency( artifact, exclusions );
+                org.eclipse.aether.graph.Dependency dep = conversions.toDependency( artifact, exclusions );
                 if ( !JavaScopes.SYSTEM.equals( dep.getScope() ) && dep.getArtifact().getFile() != null )
                 {
                     // enable re-resolution
@@ -158,7 +159,7 @@ public DependencyResolutionResult resolve( DependencyResolutionRequest request )
         {
             for ( Dependency dependency : depMngt.getDependencies() )
             {
-                collect.addManagedDependency( RepositoryUtils.toDependency( dependency, stereotypes ) );
+                collect.addManagedDependency( conversions.toDependency( dependency, stereotypes ) );
             }
         }
 
@@ -169,7 +170,7 @@ public DependencyResolutionResult resolve( DependencyResolutionRequest request )
         try
         {
             collect.setTrace( RequestTrace.newChild( trace, depRequest ) );
-            node = repoSystem.collectDependencies( session, collect ).getRoot();
+            node = collectDependencies( session, collect );
             result.setDependencyGraph( node );
         }
         catch ( DependencyCollectionException e )
@@ -215,6 +216,22 @@ public DependencyResolutionResult resolve( DependencyResolutionRequest request )
         return result;
     }
 
+    private DependencyNode collectDependencies( RepositorySystemSession session, CollectRequest collect )
+        throws DependencyCollectionException
+    {
+        DependencyGraphMemo memo = DependencyGraphMemo.get( session );
+        if ( memo != null )
+        {
+            DependencyNode node = memo.collect( repoSystem, session, collect, logger );
+            if ( node != null )
+            {
+                return node;
+            }
+        }
+
+        return repoSystem.collectDependencies( session, collect ).getRoot();
+    }
+
     private void process( DefaultDependencyResolutionResult result, Collection<ArtifactResult> results )
     {
         for ( ArtifactResult ar : results )
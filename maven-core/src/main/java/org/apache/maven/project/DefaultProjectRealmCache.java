@@ -24,6 +24,7 @@
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.maven.building.CacheStatistics;
 import org.codehaus.plexus.classworlds.realm.ClassRealm;
 import org.codehaus.plexus.classworlds.realm.NoSuchRealmException;
 import org.codehaus.plexus.component.annotations.Component;
@@ -86,6 +87,8 @@ public String toString()
 
     protected final Map<Key, CacheRecord> cache = new ConcurrentHashMap<Key, CacheRecord>();
 
+    private final CacheStatistics statistics = new CacheStatistics( "projectRealm" );
+
     @Override
     public Key createKey( List<? extends ClassRealm> extensionRealms )
     {
@@ -94,7 +97,16 @@ public Key createKey( List<? extends ClassRealm> extensionRealms )
 
     public CacheRecord get( Key key )
     {
-        return cache.get( key );
+        CacheRecord record = cache.get( key );
+        if ( record != null )
+        {
+            statistics.hit();
+        }
+        else
+        {
+            statistics.miss( key );
+        }
+        return record;
     }
 
     public CacheRecord put( Key key, ClassRealm projectRealm, DependencyFilter extensionArtifactFilter )
@@ -112,6 +124,7 @@ public CacheRecord put( Key key, ClassRealm projectRealm, DependencyFilter exten
         CacheRecord record = new CacheRecord( projectRealm, extensionArtifactFilter );
 
         cache.put( key, record );
+        statistics.put( key, -1 );
 
         return record;
     }
@@ -131,6 +144,16 @@ public void flush()
             }
         }
         cache.clear();
+        statistics.flush();
+    }
+
+    /**
+     * @return The statistics of this cache, never {@code null}.
+     * @since 3.3.2
+     */
+    public CacheStatistics getStatistics()
+    {
+        return statistics;
     }
 
     public void register( MavenProject project, Key key, CacheRecord record )
@@ -0,0 +1,437 @@
+package org.apache.maven.project;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.maven.building.CacheStatistics;
+import org.apache.maven.repository.internal.SessionCacheStatistics;
+import org.codehaus.plexus.logging.Logger;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryException;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.collection.DependencyGraphTransformationContext;
+import org.eclipse.aether.collection.DependencyGraphTransformer;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.util.artifact.ArtifactIdUtils;
+
+/**
+ * Session-wide memo of the dependency subtrees collected for the direct dependencies of the reactor projects. Before
+ * conflict resolution, the subtree of a direct dependency depends only on the dependency itself, the dependency
+ * management of the project and the collection strategies of the session, so projects sharing dependencies can reuse
+ * the subtrees collected for an earlier project. The combined graph is then transformed like a freshly collected one.
+ * Enabled by the configuration property {@value #CONFIG_PROP_MEMOIZE}.
+ *
+ * @since 3.3.2
+ */
+class DependencyGraphMemo
+{
+
+    static final String CONFIG_PROP_MEMOIZE = "maven.collect.memoize";
+
+    private static final Object KEY = DependencyGraphMemo.class.getName();
+
+    private final ConcurrentMap<Context, ConcurrentMap<Dependency, Subtree>> subtrees =
+        new ConcurrentHashMap<Context, ConcurrentMap<Dependency, Subtree>>();
+
+    private final CacheStatistics statistics;
+
+    private final AtomicLong savedNodes = new AtomicLong();
+
+    private DependencyGraphMemo( RepositorySystemSession session )
+    {
+        statistics = SessionCacheStatistics.get( session, "dependencySubtree" );
+    }
+
+    /**
+     * Gets the memo of the specified session.
+     *
+     * @param session The repository system session, must not be {@code null}.
+     * @return The memo or {@code null} if memoization is disabled for the session.
+     */
+    public static DependencyGraphMemo get( RepositorySystemSession session )
+    {
+        SessionData data = session.getData();
+        if ( data == null || !ConfigUtils.getBoolean( session, false, CONFIG_PROP_MEMOIZE ) )
+        {
+            return null;
+        }
+
+        Object memo = data.get( KEY );
+        while ( memo == null )
+        {
+            memo = new DependencyGraphMemo( session );
+            if ( !data.set( KEY, null, memo ) )
+            {
+                memo = data.get( KEY );
+            }
+        }
+        return (DependencyGraphMemo) memo;
+    }
+
+    /**
+     * Gets the total number of dependency nodes that did not need to be collected during the session so far.
+     */
+    public long getSavedNodes()
+    {
+        return savedNodes.get();
+    }
+
+    /**
+     * Collects the dependency graph, reusing memoized subtrees where possible.
+     *
+     * @return The transformed dependency graph or {@code null} if the graph could not be collected this way, in which
+     *         case the caller should collect it as usual to get the collection errors.
+     */
+    public DependencyNode collect( RepositorySystem repoSystem, RepositorySystemSession session,
+                                   CollectRequest request, Logger logger )
+    {
+        Context context = new Context( session, request );
+        ConcurrentMap<Dependency, Subtree> memo = subtrees.get( context );
+        if ( memo == null )
+        {
+            memo = new ConcurrentHashMap<Dependency, Subtree>();
+            ConcurrentMap<Dependency, Subtree> existing = subtrees.putIfAbsent( context, memo );
+            if ( existing != null )
+            {
+                memo = existing;
+            }
+        }
+
+        String rootId = getId( request.getRootArtifact() );
+
+        List<Dependency> dependencies = request.getDependencies();
+        DependencyNode[] children = new DependencyNode[dependencies.size()];
+        List<Dependency> missing = new ArrayList<Dependency>();
+        int reused = 0;
+        long saved = 0;
+        for ( int i = 0; i < children.length; i++ )
+        {
+            Dependency dependency = dependencies.get( i );
+            Subtree subtree = memo.get( dependency );
+            if ( subtree != null && !subtree.ids.contains( rootId ) )
+            {
+                children[i] = copy( subtree.node, new IdentityHashMap<Object, Object>(), null );
+                statistics.hit();
+                saved += subtree.size;
+                reused++;
+            }
+            else
+            {
+                statistics.miss( dependency );
+                missing.add( dependency );
+            }
+        }
+
+        DefaultRepositorySystemSession raw = new DefaultRepositorySystemSession( session );
+        raw.setDependencyGraphTransformer( null );
+
+        DependencyNode root;
+        if ( missing.isEmpty() )
+        {
+            DefaultDependencyNode node = new DefaultDependencyNode( request.getRootArtifact() );
+            node.setRequestContext( request.getRequestContext() );
+            node.setRepositories( request.getRepositories() );
+            root = node;
+        }
+        else
+        {
+            CollectRequest missingRequest = new CollectRequest( missing, request.getManagedDependencies(),
+                                                                request.getRepositories() );
+            missingRequest.setRootArtifact( request.getRootArtifact() );
+            missingRequest.setRequestContext( request.getRequestContext() );
+            missingRequest.setTrace( request.getTrace() );
+
+            CollectResult result;
+            try
+            {
+                result = repoSystem.collectDependencies( raw, missingRequest );
+            }
+            catch ( DependencyCollectionException e )
+            {
+                return null;
+            }
+
+            root = result.getRoot();
+            List<DependencyNode> collected = root.getChildren();
+
+            // range dependencies, relocations and filtered dependencies break the one node per dependency mapping
+            boolean mapped = collected.size() == missing.size() && result.getCycles().isEmpty();
+            for ( int i = 0; mapped && i < missing.size(); i++ )
+            {
+                mapped = ArtifactIdUtils.equalsVersionlessId( missing.get( i ).getArtifact(),
+                                                              collected.get( i ).getArtifact() );
+            }
+            if ( !mapped && reused > 0 )
+            {
+                return null;
+            }
+
+            for ( int i = 0, j = 0; mapped && i < children.length; i++ )
+            {
+                if ( children[i] == null )
+                {
+                    DependencyNode child = collected.get( j++ );
+                    children[i] = child;
+
+                    Set<String> ids = new HashSet<String>();
+                    DependencyNode pristine = copy( child, new IdentityHashMap<Object, Object>(), ids );
+                    if ( !ids.contains( rootId ) )
+                    {
+                        memo.putIfAbsent( dependencies.get( i ), new Subtree( pristine, ids ) );
+                        statistics.put( dependencies.get( i ), -1 );
+                    }
+                }
+            }
+        }
+
+        if ( reused > 0 )
+        {
+            List<DependencyNode> combined = new ArrayList<DependencyNode>( children.length );
+            for ( DependencyNode child : children )
+            {
+                combined.add( child );
+            }
+            root.setChildren( combined );
+        }
+
+        if ( logger.isDebugEnabled() )
+        {
+            logger.debug( "Reused " + reused + " of " + children.length + " dependency subtrees for "
+                + request.getRootArtifact() + ", saving " + saved + " collection steps ("
+                + savedNodes.addAndGet( saved ) + " in this session)" );
+        }
+        else
+        {
+            savedNodes.addAndGet( saved );
+        }
+
+        DependencyGraphTransformer transformer = session.getDependencyGraphTransformer();
+        if ( transformer != null )
+        {
+            try
+            {
+                root = transformer.transformGraph( root, new TransformationContext( session ) );
+            }
+            catch ( RepositoryException e )
+            {
+                return null;
+            }
+        }
+
+        return root;
+    }
+
+    private static String getId( Artifact artifact )
+    {
+        return ( artifact != null ) ? artifact.getGroupId() + ':' + artifact.getArtifactId() : "";
+    }
+
+    /**
+     * Copies the specified graph, preserving nodes and child lists that are shared within the graph since the graph
+     * transformers rely on that.
+     */
+    private static DependencyNode copy( DependencyNode node, Map<Object, Object> copies, Set<String> ids )
+    {
+        DependencyNode copy = (DependencyNode) copies.get( node );
+        if ( copy == null )
+        {
+            DefaultDependencyNode c = new DefaultDependencyNode( node );
+            copies.put( node, c );
+
+            if ( ids != null )
+            {
+                ids.add( getId( node.getArtifact() ) );
+            }
+
+            List<DependencyNode> children = node.getChildren();
+            @SuppressWarnings( "unchecked" )
+            List<DependencyNode> childrenCopy = (List<DependencyNode>) copies.get( children );
+            if ( childrenCopy == null )
+            {
+                childrenCopy = new ArrayList<DependencyNode>( children.size() );
+                copies.put( children, childrenCopy );
+                for ( DependencyNode child : children )
+                {
+                    childrenCopy.add( copy( child, copies, ids ) );
+                }
+            }
+            c.setChildren( childrenCopy );
+
+            copy = c;
+        }
+        return copy;
+    }
+
+    private static int count( DependencyNode node, Map<DependencyNode, Boolean> visited )
+    {
+        if ( visited.put( node, Boolean.TRUE ) != null )
+        {
+            return 0;
+        }
+        int count = 1;
+        for ( DependencyNode child : node.getChildren() )
+        {
+            count += count( child, visited );
+        }
+        return count;
+    }
+
+    private static final class Subtree
+    {
+
+        final DependencyNode node;
+
+        final Set<String> ids;
+
+        final int size;
+
+        Subtree( DependencyNode node, Set<String> ids )
+        {
+            this.node = node;
+            this.ids = ids;
+            this.size = count( node, new IdentityHashMap<DependencyNode, Boolean>() );
+        }
+
+    }
+
+    /**
+     * The inputs of the collection besides the direct dependency. The collection strategies are compared by identity,
+     * they are set up once per session and shared by the sessions derived from it.
+     */
+    private static final class Context
+    {
+
+        private final Object[] strategies;
+
+        private final Object[] inputs;
+
+        private final int hashCode;
+
+        Context( RepositorySystemSession session, CollectRequest request )
+        {
+            strategies =
+                new Object[] { session.getDependencySelector(), session.getDependencyManager(),
+                    session.getDependencyTraverser(), session.getVersionFilter(), session.getWorkspaceReader(),
+                    session.getArtifactDescriptorPolicy() };
+            inputs =
+                new Object[] { request.getManagedDependencies(), request.getRepositories(),
+                    request.getRequestContext(), session.getLocalRepository(),
+                    session.isIgnoreArtifactDescriptorRepositories(), session.isOffline(),
+                    new HashMap<String, Object>( session.getConfigProperties() ) };
+
+            int hash = 17;
+            for ( Object strategy : strategies )
+            {
+                hash = hash * 31 + System.identityHashCode( strategy );
+            }
+            for ( Object input : inputs )
+            {
+                hash = hash * 31 + ( input != null ? input.hashCode() : 0 );
+            }
+            hashCode = hash;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof Context ) )
+            {
+                return false;
+            }
+            Context that = (Context) obj;
+            for ( int i = 0; i < strategies.length; i++ )
+            {
+                if ( strategies[i] != that.strategies[i] )
+                {
+                    return false;
+                }
+            }
+            for ( int i = 0; i < inputs.length; i++ )
+            {
+                if ( inputs[i] != null ? !inputs[i].equals( that.inputs[i] ) : that.inputs[i] != null )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+    }
+
+    private static final class TransformationContext
+        implements DependencyGraphTransformationContext
+    {
+
+        private final RepositorySystemSession session;
+
+        private final Map<Object, Object> values = new HashMap<Object, Object>();
+
+        TransformationContext( RepositorySystemSession session )
+        {
+            this.session = session;
+        }
+
+        public RepositorySystemSession getSession()
+        {
+            return session;
+        }
+
+        public Object get( Object key )
+        {
+            return values.get( key );
+        }
+
+        public Object put( Object key, Object value )
+        {
+            return ( value != null ) ? values.put( key, value ) : values.remove( key );
+        }
+
+    }
+
+}
@@ -20,6 +20,7 @@
  */
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -27,6 +28,7 @@
 import java.util.List;
 import java.util.Map;
 
+import org.apache.maven.artifact.ArtifactKey;
 import org.apache.maven.artifact.ArtifactUtils;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Extension;
@@ -35,13 +37,22 @@
 import org.codehaus.plexus.util.StringUtils;
 import org.codehaus.plexus.util.dag.CycleDetectedException;
 import org.codehaus.plexus.util.dag.DAG;
-import org.codehaus.plexus.util.dag.TopologicalSorter;
 import org.codehaus.plexus.util.dag.Vertex;
 
 public class ProjectSorter
 {
+    private static final int FORCE = 1;
+
+    private static final int SAFE = 2;
+
     private DAG dag;
 
+    private final List<String> ids;
+
+    private final Map<String, Integer> indices;
+
+    private final Graph graph;
+
     private List<MavenProject> sortedProjects;
 
     private Map<String, MavenProject> projectMap;
@@ -58,6 +69,10 @@
      * we are trying to build. we assume a closed set.</li>
      * <li>do a topo sort on the graph that remains.</li>
      * </ul>
+     * The graph is indexed by integers and checked for cycles once after all edges are known rather than on every
+     * insertion, the resulting order is the same depth-first post-order that a Plexus {@link DAG} would yield. Only if
+     * the reactor contains cycles are the edges replayed one by one to find out which of the plugin and extension edges
+     * to drop, cycles among the other edges are all reported by a single exception.
      * @throws DuplicateProjectException if any projects are duplicated by id
      */
     // MAVENAPI FIXME: the DAG used is NOT only used to represent the dependency relation,
@@ -74,13 +89,16 @@
     public ProjectSorter( Collection<MavenProject> projects )
         throws CycleDetectedException, DuplicateProjectException
     {
-        dag = new DAG();
-
         // groupId:artifactId:version -> project
         projectMap = new HashMap<String, MavenProject>( projects.size() * 2 );
 
+        ids = new ArrayList<String>( projects.size() );
+        indices = new HashMap<String, Integer>( projects.size() * 2 );
+        List<MavenProject> indexedProjects = new ArrayList<MavenProject>( projects.size() );
+
         // groupId:artifactId -> (version -> vertex)
-        Map<String, Map<String, Vertex>> vertexMap = new HashMap<String, Map<String, Vertex>>( projects.size() * 2 );
+        Map<ArtifactKey, Map<String, Integer>> vertexMap =
+            new HashMap<ArtifactKey, Map<String, Integer>>( projects.size() * 2 );
 
         for ( MavenProject project : projects )
         {
@@ -94,27 +112,32 @@ public ProjectSorter( Collection<MavenProject> projects )
                                                      "Project '" + projectId + "' is duplicated in the reactor" );
             }
 
-            String projectKey = ArtifactUtils.versionlessKey( project.getGroupId(), project.getArtifactId() );
+            ArtifactKey projectKey = ArtifactKey.versionlessKey( project.getGroupId(), project.getArtifactId() );
 
-            Map<String, Vertex> vertices = vertexMap.get( projectKey );
+            Map<String, Integer> vertices = vertexMap.get( projectKey );
             if ( vertices == null )
             {
-                vertices = new HashMap<String, Vertex>( 2, 1 );
+                vertices = new HashMap<String, Integer>( 2, 1 );
                 vertexMap.put( projectKey, vertices );
             }
-            vertices.put( project.getVersion(), dag.addVertex( projectId ) );
+            Integer index = ids.size();
+            vertices.put( project.getVersion(), index );
+            indices.put( projectId, index );
+            ids.add( projectId );
+            indexedProjects.add( project );
         }
 
-        for ( Vertex projectVertex : dag.getVerticies() )
-        {
-            String projectId = projectVertex.getLabel();
+        // the edges in the order the DAG used to see them, as triples of source, target and flags
+        IntList edges = new IntList( projects.size() * 12 );
 
-            MavenProject project = projectMap.get( projectId );
+        for ( int projectVertex = 0; projectVertex < indexedProjects.size(); projectVertex++ )
+        {
+            MavenProject project = indexedProjects.get( projectVertex );
 
             for ( Dependency dependency : project.getDependencies() )
             {
-                addEdge( projectMap, vertexMap, project, projectVertex, dependency.getGroupId(),
-                         dependency.getArtifactId(), dependency.getVersion(), false, false );
+                addEdge( edges, indexedProjects, vertexMap, project, projectVertex, dependency.getGroupId(),
+                         dependency.getArtifactId(), dependency.getVersion(), 0 );
             }
 
             Parent parent = project.getModel().getParent();
@@ -123,8 +146,8 @@ public ProjectSorter( Collection<MavenProject> projects )
             {
                 // Parent is added as an edge, but must not cause a cycle - so we remove any other edges it has
                 // in conflict
-                addEdge( projectMap, vertexMap, null, projectVertex, parent.getGroupId(), parent.getArtifactId(),
-                         parent.getVersion(), true, false );
+                addEdge( edges, indexedProjects, vertexMap, null, projectVertex, parent.getGroupId(),
+                         parent.getArtifactId(), parent.getVersion(), FORCE );
             }
 
             List<Plugin> buildPlugins = project.getBuildPlugins();
@@ -132,13 +155,14 @@ public ProjectSorter( Collection<MavenProject> projects )
             {
                 for ( Plugin plugin : buildPlugins )
                 {
-                    addEdge( projectMap, vertexMap, project, projectVertex, plugin.getGroupId(),
-                             plugin.getArtifactId(), plugin.getVersion(), false, true );
+                    addEdge( edges, indexedProjects, vertexMap, project, projectVertex, plugin.getGroupId(),
+                             plugin.getArtifactId(), plugin.getVersion(), SAFE );
 
                     for ( Dependency dependency : plugin.getDependencies() )
                     {
-                        addEdge( projectMap, vertexMap, project, projectVertex, dependency.getGroupId(),
-                                 dependency.getArtifactId(), dependency.getVersion(), false, true );
+                        addEdge( edges, indexedProjects, vertexMap, project, projectVertex,
+                                 dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion(),
+                                 SAFE );
                     }
                 }
             }
@@ -148,84 +172,156 @@ public ProjectSorter( Collection<MavenProject> projects )
             {
                 for ( Extension extension : buildExtensions )
                 {
-                    addEdge( projectMap, vertexMap, project, projectVertex, extension.getGroupId(),
-                             extension.getArtifactId(), extension.getVersion(), false, true );
+                    addEdge( edges, indexedProjects, vertexMap, project, projectVertex, extension.getGroupId(),
+                             extension.getArtifactId(), extension.getVersion(), SAFE );
                 }
             }
         }
 
-        List<MavenProject> sortedProjects = new ArrayList<MavenProject>( projects.size() );
+        graph = connect( indexedProjects.size(), edges );
 
-        List<String> sortedProjectLabels = TopologicalSorter.sort( dag );
+        List<MavenProject> sortedProjects = new ArrayList<MavenProject>( projects.size() );
 
-        for ( String id : sortedProjectLabels )
+        for ( int index : graph.sort() )
         {
-            sortedProjects.add( projectMap.get( id ) );
+            sortedProjects.add( indexedProjects.get( index ) );
         }
 
         this.sortedProjects = Collections.unmodifiableList( sortedProjects );
     }
 
-    private void addEdge( Map<String, MavenProject> projectMap, Map<String, Map<String, Vertex>> vertexMap,
-                          MavenProject project, Vertex projectVertex, String groupId, String artifactId,
-                          String version, boolean force, boolean safe )
-        throws CycleDetectedException
+    private void addEdge( IntList edges, List<MavenProject> indexedProjects,
+                          Map<ArtifactKey, Map<String, Integer>> vertexMap, MavenProject project, int projectVertex,
+                          String groupId, String artifactId, String version, int flags )
     {
-        String projectKey = ArtifactUtils.versionlessKey( groupId, artifactId );
+        ArtifactKey projectKey = ArtifactKey.versionlessKey( groupId, artifactId );
 
-        Map<String, Vertex> vertices = vertexMap.get( projectKey );
+        Map<String, Integer> vertices = vertexMap.get( projectKey );
 
         if ( vertices != null )
         {
             if ( isSpecificVersion( version ) )
             {
-                Vertex vertex = vertices.get( version );
+                Integer vertex = vertices.get( version );
                 if ( vertex != null )
                 {
-                    addEdge( projectVertex, vertex, project, projectMap, force, safe );
+                    addEdge( edges, indexedProjects, projectVertex, vertex, project, flags );
                 }
             }
             else
             {
-                for ( Vertex vertex : vertices.values() )
+                for ( Integer vertex : vertices.values() )
                 {
-                    addEdge( projectVertex, vertex, project, projectMap, force, safe );
+                    addEdge( edges, indexedProjects, projectVertex, vertex, project, flags );
                 }
             }
         }
     }
 
-    private void addEdge( Vertex fromVertex, Vertex toVertex, MavenProject fromProject,
-                          Map<String, MavenProject> projectMap, boolean force, boolean safe )
-        throws CycleDetectedException
+    private void addEdge( IntList edges, List<MavenProject> indexedProjects, int fromVertex, int toVertex,
+                          MavenProject fromProject, int flags )
     {
-        if ( fromVertex.equals( toVertex ) )
+        if ( fromVertex == toVertex )
         {
             return;
         }
 
         if ( fromProject != null )
         {
-            MavenProject toProject = projectMap.get( toVertex.getLabel() );
-            fromProject.addProjectReference( toProject );
+            fromProject.addProjectReference( indexedProjects.get( toVertex ) );
+        }
+
+        edges.add( fromVertex );
+        edges.add( toVertex );
+        edges.add( flags );
+    }
+
+    private Graph connect( int vertexCount, IntList edges )
+        throws CycleDetectedException
+    {
+        Graph graph = new Graph( vertexCount );
+        Graph all = new Graph( vertexCount );
+        for ( int i = 0; i < edges.size(); i += 3 )
+        {
+            int from = edges.get( i );
+            int to = edges.get( i + 1 );
+            if ( ( edges.get( i + 2 ) & FORCE ) != 0 && graph.hasEdge( to, from ) )
+            {
+                graph.removeEdge( to, from );
+            }
+            graph.addEdge( from, to );
+            all.addEdge( from, to );
+        }
+
+        if ( all.getCycles().isEmpty() )
+        {
+            // every intermediate state was a part of an acyclic graph so the DAG would not have rejected any edge
+            return graph;
         }
 
-        if ( force && toVertex.getChildren().contains( fromVertex ) )
+        graph = new Graph( vertexCount );
+        IntList rejected = new IntList( 16 );
+        for ( int i = 0; i < edges.size(); i += 3 )
         {
-            dag.removeEdge( toVertex, fromVertex );
+            int from = edges.get( i );
+            int to = edges.get( i + 1 );
+            int flags = edges.get( i + 2 );
+            if ( ( flags & FORCE ) != 0 && graph.hasEdge( to, from ) )
+            {
+                graph.removeEdge( to, from );
+            }
+            graph.addEdge( from, to );
+            if ( graph.isReachable( to, from ) )
+            {
+                graph.removeEdge( from, to );
+                if ( ( flags & SAFE ) == 0 )
+                {
+                    rejected.add( from );
+                    rejected.add( to );
+                }
+            }
         }
 
-        try
+        if ( rejected.size() > 0 )
         {
-            dag.addEdge( fromVertex, toVertex );
+            for ( int i = 0; i < rejected.size(); i += 2 )
+            {
+                graph.addEdge( rejected.get( i ), rejected.get( i + 1 ) );
+            }
+            throw newCycleException( rejected.get( 0 ), rejected.get( 1 ), graph.getCycles() );
         }
-        catch ( CycleDetectedException e )
+
+        return graph;
+    }
+
+    private CycleDetectedException newCycleException( int from, int to, List<int[]> cycles )
+    {
+        List<List<String>> labels = new ArrayList<List<String>>( cycles.size() );
+        for ( int[] cycle : cycles )
         {
-            if ( !safe )
+            List<String> cycleLabels = new ArrayList<String>( cycle.length );
+            for ( int vertex : cycle )
             {
-                throw e;
+                cycleLabels.add( ids.get( vertex ) );
             }
+            labels.add( cycleLabels );
         }
+
+        if ( labels.size() == 1 )
+        {
+            String message = "Edge between '" + ids.get( from ) + "' and '" + ids.get( to )
+                + "' introduces to cycle in the graph";
+            return new CycleDetectedException( message, labels.get( 0 ) );
+        }
+
+        // the exception appends its own cycle to the message, so list the others first
+        StringBuilder message = new StringBuilder( 256 );
+        message.append( "The graph contains " ).append( labels.size() ).append( " cycles:" );
+        for ( List<String> cycle : labels.subList( 0, labels.size() - 1 ) )
+        {
+            message.append( ' ' ).append( StringUtils.join( cycle.iterator(), " --> " ) ).append( ',' );
+        }
+        return new CycleDetectedException( message.toString(), labels.get( labels.size() - 1 ) );
     }
 
     private boolean isSpecificVersion( String version )
@@ -263,12 +359,24 @@ public boolean hasMultipleProjects()
 
     public List<String> getDependents( String id )
     {
-        return dag.getParentLabels( id );
+        Integer index = indices.get( id );
+        return ( index != null ) ? toLabels( graph.parents[index] ) : Collections.<String>emptyList();
     }
 
     public List<String> getDependencies( String id )
     {
-        return dag.getChildLabels( id );
+        Integer index = indices.get( id );
+        return ( index != null ) ? toLabels( graph.children[index] ) : Collections.<String>emptyList();
+    }
+
+    private List<String> toLabels( IntList vertices )
+    {
+        List<String> labels = new ArrayList<String>( vertices.size() );
+        for ( int i = 0; i < vertices.size(); i++ )
+        {
+            labels.add( ids.get( vertices.get( i ) ) );
+        }
+        return labels;
     }
 
     public static String getId( MavenProject project )
@@ -276,8 +384,34 @@ public static String getId( MavenProject project )
         return ArtifactUtils.key( project.getGroupId(), project.getArtifactId(), project.getVersion() );
     }
 
+    /**
+     * Gets the sorting graph as a Plexus {@link DAG}. The DAG is only created on demand, the sorter itself does not
+     * need it.
+     */
     public DAG getDAG()
     {
+        if ( dag == null )
+        {
+            DAG dag = new DAG();
+            List<Vertex> vertices = new ArrayList<Vertex>( ids.size() );
+            for ( String id : ids )
+            {
+                vertices.add( dag.addVertex( id ) );
+            }
+            for ( int i = 0; i < ids.size(); i++ )
+            {
+                Vertex vertex = vertices.get( i );
+                for ( int j = 0; j < graph.children[i].size(); j++ )
+                {
+                    vertex.addEdgeTo( vertices.get( graph.children[i].get( j ) ) );
+                }
+                for ( int j = 0; j < graph.parents[i].size(); j++ )
+                {
+                    vertex.addEdgeFrom( vertices.get( graph.parents[i].get( j ) ) );
+                }
+            }
+            this.dag = dag;
+        }
         return dag;
     }
 
@@ -286,4 +420,312 @@ public Map<String, MavenProject> getProjectMap()
         return projectMap;
     }
 
+    /**
+     * A directed graph over the vertices {@code 0} to {@code n - 1}. Like the Plexus {@link DAG}, it keeps the edges of
+     * a vertex in insertion order and permits duplicate edges.
+     */
+    static final class Graph
+    {
+
+        final IntList[] children;
+
+        final IntList[] parents;
+
+        Graph( int vertexCount )
+        {
+            children = new IntList[vertexCount];
+            parents = new IntList[vertexCount];
+            for ( int i = 0; i < vertexCount; i++ )
+            {
+                children[i] = new IntList( 4 );
+                parents[i] = new IntList( 4 );
+            }
+        }
+
+        void addEdge( int from, int to )
+        {
+            children[from].add( to );
+            parents[to].add( from );
+        }
+
+        void removeEdge( int from, int to )
+        {
+            children[from].remove( to );
+            parents[to].remove( from );
+        }
+
+        boolean hasEdge( int from, int to )
+        {
+            return children[from].contains( to );
+        }
+
+        /**
+         * Tells whether the target vertex can be reached from the source vertex.
+         */
+        boolean isReachable( int from, int to )
+        {
+            boolean[] seen = new boolean[children.length];
+            IntList stack = new IntList( 16 );
+            stack.add( from );
+            seen[from] = true;
+            while ( stack.size() > 0 )
+            {
+                IntList next = children[stack.removeLast()];
+                for ( int i = 0; i < next.size(); i++ )
+                {
+                    int child = next.get( i );
+                    if ( child == to )
+                    {
+                        return true;
+                    }
+                    if ( !seen[child] )
+                    {
+                        seen[child] = true;
+                        stack.add( child );
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Sorts the vertices in depth-first post-order, i.e. every vertex after its children, starting from the
+         * vertices in ascending order and visiting children in insertion order.
+         */
+        int[] sort()
+        {
+            int n = children.length;
+            int[] order = new int[n];
+            int count = 0;
+            boolean[] visited = new boolean[n];
+            int[] stack = new int[n];
+            int[] positions = new int[n];
+            for ( int root = 0; root < n; root++ )
+            {
+                if ( visited[root] )
+                {
+                    continue;
+                }
+                int top = 0;
+                stack[0] = root;
+                positions[0] = 0;
+                visited[root] = true;
+                while ( top >= 0 )
+                {
+                    int vertex = stack[top];
+                    IntList next = children[vertex];
+                    if ( positions[top] < next.size() )
+                    {
+                        int child = next.get( positions[top]++ );
+                        if ( !visited[child] )
+                        {
+                            visited[child] = true;
+                            top++;
+                            stack[top] = child;
+                            positions[top] = 0;
+                        }
+                    }
+                    else
+                    {
+                        order[count++] = vertex;
+                        top--;
+                    }
+                }
+            }
+            return order;
+        }
+
+        /**
+         * Finds the strongly connected components with more than one vertex using Tarjan's algorithm and returns one
+         * cycle through each of them, as a path that starts and ends with the same vertex.
+         */
+        List<int[]> getCycles()
+        {
+            int n = children.length;
+            int[] index = new int[n];
+            int[] lowLink = new int[n];
+            boolean[] onStack = new boolean[n];
+            Arrays.fill( index, -1 );
+            int[] components = new int[n];
+            int[] callStack = new int[n];
+            int[] positions = new int[n];
+            IntList stack = new IntList( 16 );
+            int counter = 0;
+
+            List<int[]> cycles = new ArrayList<int[]>();
+            for ( int root = 0; root < n; root++ )
+            {
+                if ( index[root] >= 0 )
+                {
+                    continue;
+                }
+                int top = 0;
+                callStack[0] = root;
+                positions[0] = 0;
+                index[root] = counter;
+                lowLink[root] = counter++;
+                stack.add( root );
+                onStack[root] = true;
+                while ( top >= 0 )
+                {
+                    int vertex = callStack[top];
+                    IntList next = children[vertex];
+                    if ( positions[top] < next.size() )
+                    {
+                        int child = next.get( positions[top]++ );
+                        if ( index[child] < 0 )
+                        {
+                            index[child] = counter;
+                            lowLink[child] = counter++;
+                            stack.add( child );
+                            onStack[child] = true;
+                            top++;
+                            callStack[top] = child;
+                            positions[top] = 0;
+                        }
+                        else if ( onStack[child] )
+                        {
+                            lowLink[vertex] = Math.min( lowLink[vertex], index[child] );
+                        }
+                        continue;
+                    }
+
+                    if ( lowLink[vertex] == index[vertex] )
+                    {
+                        int size = 0;
+                        int member;
+                        do
+                        {
+                            member = stack.removeLast();
+                            onStack[member] = false;
+                            components[member] = vertex;
+                            size++;
+                        }
+                        while ( member != vertex );
+                        if ( size > 1 )
+                        {
+                            cycles.add( getCycle( vertex, components ) );
+                        }
+                    }
+                    top--;
+                    if ( top >= 0 )
+                    {
+                        int caller = callStack[top];
+                        lowLink[caller] = Math.min( lowLink[caller], lowLink[vertex] );
+                    }
+                }
+            }
+            return cycles;
+        }
+
+        private int[] getCycle( int start, int[] components )
+        {
+            int component = components[start];
+            int[] previous = new int[children.length];
+            Arrays.fill( previous, -1 );
+            IntList queue = new IntList( 16 );
+            queue.add( start );
+            for ( int head = 0; head < queue.size(); head++ )
+            {
+                int vertex = queue.get( head );
+                IntList next = children[vertex];
+                for ( int i = 0; i < next.size(); i++ )
+                {
+                    int child = next.get( i );
+                    if ( child == start )
+                    {
+                        IntList path = new IntList( 8 );
+                        path.add( start );
+                        for ( int v = vertex; v != start; v = previous[v] )
+                        {
+                            path.add( v );
+                        }
+                        path.add( start );
+                        int[] cycle = new int[path.size()];
+                        for ( int j = 0; j < cycle.length; j++ )
+                        {
+                            cycle[j] = path.get( cycle.length - 1 - j );
+                        }
+                        return cycle;
+                    }
+                    if ( components[child] == component && previous[child] < 0 && child != start )
+                    {
+                        previous[child] = vertex;
+                        queue.add( child );
+                    }
+                }
+            }
+            throw new IllegalStateException( "no cycle through " + start );
+        }
+
+    }
+
+    /**
+     * A growable list of primitive integers.
+     */
+    static final class IntList
+    {
+
+        private int[] values;
+
+        private int size;
+
+        IntList( int capacity )
+        {
+            values = new int[Math.max( capacity, 1 )];
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        int get( int index )
+        {
+            return values[index];
+        }
+
+        void add( int value )
+        {
+            if ( size == values.length )
+            {
+                values = Arrays.copyOf( values, size * 2 );
+            }
+            values[size++] = value;
+        }
+
+        int removeLast()
+        {
+            return values[--size];
+        }
+
+        boolean contains( int value )
+        {
+            return indexOf( value ) >= 0;
+        }
+
+        void remove( int value )
+        {
+            int index = indexOf( value );
+            if ( index >= 0 )
+            {
+                System.arraycopy( values, index + 1, values, index, size - index - 1 );
+                size--;
+            }
+        }
+
+        private int indexOf( int value )
+        {
+            for ( int i = 0; i < size; i++ )
+            {
+                if ( values[i] == value )
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+    }
+
 }
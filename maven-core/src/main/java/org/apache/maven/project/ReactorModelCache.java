@@ -22,6 +22,7 @@
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.maven.building.CacheStatistics;
 import org.apache.maven.model.building.ModelCache;
 
 /**
@@ -35,14 +36,40 @@
 
     private final Map<CacheKey, Object> models = new HashMap<CacheKey, Object>( 256 );
 
+    private final CacheStatistics statistics;
+
+    public ReactorModelCache()
+    {
+        this( new CacheStatistics( "reactorModel" ) );
+    }
+
+    public ReactorModelCache( CacheStatistics statistics )
+    {
+        this.statistics = statistics;
+    }
+
     public Object get( String groupId, String artifactId, String version, String tag )
     {
-        return models.get( new CacheKey( groupId, artifactId, version, tag ) );
+        CacheKey key = new CacheKey( groupId, artifactId, version, tag );
+        Object data = models.get( key );
+        if ( data != null )
+        {
+            statistics.hit();
+        }
+        else
+        {
+            statistics.miss( key );
+        }
+        return data;
     }
 
     public void put( String groupId, String artifactId, String version, String tag, Object data )
     {
-        models.put( new CacheKey( groupId, artifactId, version, tag ), data );
+        CacheKey key = new CacheKey( groupId, artifactId, version, tag );
+        if ( models.put( key, data ) == null )
+        {
+            statistics.put( key, -1 );
+        }
     }
 
     private static final class CacheKey
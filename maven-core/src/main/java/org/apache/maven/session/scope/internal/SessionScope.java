@@ -19,17 +19,15 @@
  * under the License.
  */
 
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
 import com.google.inject.Key;
 import com.google.inject.OutOfScopeException;
 import com.google.inject.Provider;
 import com.google.inject.Scope;
-import com.google.inject.util.Providers;
 
 public class SessionScope
     implements Scope
@@ -39,40 +37,176 @@
      */
     public static class Memento
     {
-        final Map<Key<?>, Provider<?>> seeded;
+        final Object[] seeds;
 
-        Memento( final Map<Key<?>, Provider<?>> seeded )
+        Memento( final Object[] seeds )
         {
-            this.seeded = ImmutableMap.copyOf( seeded );
+            this.seeds = seeds;
         }
     }
 
-    private static final Provider<Object> SEEDED_KEY_PROVIDER = new Provider<Object>()
+    /**
+     * The state of one session. The seeded objects of a context never change, seeding creates a new context instead.
+     * The objects provided by the scope are created lazily and shared by all threads that enter the context, e.g. by
+     * tasks that were passed through {@link SessionScope#wrap(Runnable)}.
+     *
+     * @since 3.3.2
+     */
+    public static final class Context
     {
-        public Object get()
+        private static final Object[] NO_SEEDS = {};
+
+        /**
+         * Stands in for a {@code null} provided by the unscoped provider, which a concurrent map cannot hold.
+         */
+        private static final Object NULL = new Object();
+
+        final Object[] seeds;
+
+        private volatile ConcurrentMap<Key<?>, Object> provided;
+
+        Context( Object[] seeds )
         {
-            throw new IllegalStateException();
+            this( seeds, null );
         }
-    };
 
-    private static final class ScopeState
+        private Context( Object[] seeds, ConcurrentMap<Key<?>, Object> provided )
+        {
+            this.seeds = seeds;
+            this.provided = provided;
+        }
+
+        Context seed( Key<?> key, Object seed )
+        {
+            Object[] seeds = this.seeds;
+            for ( int i = 0; i < seeds.length; i += 2 )
+            {
+                if ( key.equals( seeds[i] ) )
+                {
+                    seeds = seeds.clone();
+                    seeds[i + 1] = seed;
+                    return new Context( seeds, provided );
+                }
+            }
+            seeds = Arrays.copyOf( seeds, seeds.length + 2 );
+            seeds[seeds.length - 2] = key;
+            seeds[seeds.length - 1] = seed;
+            return new Context( seeds, provided );
+        }
+
+        Object get( Key<?> key, Provider<?> unscoped )
+        {
+            Object[] seeds = this.seeds;
+            for ( int i = 0; i < seeds.length; i += 2 )
+            {
+                if ( key.equals( seeds[i] ) )
+                {
+                    Object seed = seeds[i + 1];
+                    return ( seed instanceof SeededProvider ) ? ( (SeededProvider) seed ).provider.get() : seed;
+                }
+            }
+
+            ConcurrentMap<Key<?>, Object> provided = getProvided();
+            Object instance = provided.get( key );
+            if ( instance == null && unscoped != null )
+            {
+                instance = unscoped.get();
+                if ( instance == null )
+                {
+                    instance = NULL;
+                }
+                Object existing = provided.putIfAbsent( key, instance );
+                if ( existing != null )
+                {
+                    instance = existing;
+                }
+            }
+            return ( instance != NULL ) ? instance : null;
+        }
+
+        private ConcurrentMap<Key<?>, Object> getProvided()
+        {
+            ConcurrentMap<Key<?>, Object> map = provided;
+            if ( map == null )
+            {
+                synchronized ( this )
+                {
+                    map = provided;
+                    if ( map == null )
+                    {
+                        map = new ConcurrentHashMap<Key<?>, Object>( 8, 0.75f, 1 );
+                        provided = map;
+                    }
+                }
+            }
+            return map;
+        }
+    }
+
+    private static final class SeededProvider
     {
-        public final Map<Key<?>, Provider<?>> seeded = Maps.newHashMap();
+        final Provider<?> provider;
 
-        public final Map<Key<?>, Object> provided = Maps.newHashMap();
+        SeededProvider( Provider<?> provider )
+        {
+            this.provider = provider;
+        }
     }
 
-    private final ThreadLocal<LinkedList<ScopeState>> values = new ThreadLocal<LinkedList<ScopeState>>();
+    /**
+     * The contexts entered by a thread, reused across enter/exit to avoid garbage for every project build.
+     */
+    private static final class Frames
+    {
+        private Context[] contexts = new Context[4];
 
-    public void enter()
+        private int size;
+
+        void push( Context context )
+        {
+            if ( size >= contexts.length )
+            {
+                contexts = Arrays.copyOf( contexts, size * 2 );
+            }
+            contexts[size++] = context;
+        }
+
+        Context peek()
+        {
+            return ( size > 0 ) ? contexts[size - 1] : null;
+        }
+
+        void replace( Context context )
+        {
+            contexts[size - 1] = context;
+        }
+
+        void pop()
+        {
+            contexts[--size] = null;
+        }
+    }
+
+    private static final Provider<Object> SEEDED_KEY_PROVIDER = new Provider<Object>()
+    {
+        public Object get()
+        {
+            throw new IllegalStateException();
+        }
+    };
+
+    private final ThreadLocal<Frames> values = new ThreadLocal<Frames>()
     {
-        LinkedList<ScopeState> stack = values.get();
-        if ( stack == null )
+        @Override
+        protected Frames initialValue()
         {
-            stack = new LinkedList<ScopeState>();
-            values.set( stack );
+            return new Frames();
         }
-        stack.addFirst( new ScopeState() );
+    };
+
+    public void enter()
+    {
+        values.get().push( new Context( Context.NO_SEEDS ) );
     }
 
     /**
@@ -80,32 +214,50 @@ public void enter()
      */
     public void enter( Memento memento )
     {
-        enter();
-        getScopeState().seeded.putAll( memento.seeded );
+        values.get().push( new Context( memento.seeds ) );
     }
 
-    private ScopeState getScopeState()
+    /**
+     * Enters the specified context on the current thread, e.g. in a worker thread that performs a task on behalf of a
+     * session. Each call must be matched by a call to {@link #exit()}.
+     *
+     * @param context The context to enter, must not be {@code null}.
+     * @since 3.3.2
+     */
+    public void enter( Context context )
     {
-        LinkedList<ScopeState> stack = values.get();
-        if ( stack == null || stack.isEmpty() )
+        if ( context == null )
         {
-            throw new IllegalStateException();
+            throw new IllegalArgumentException( "context missing" );
         }
-        return stack.getFirst();
+        values.get().push( context );
     }
 
-    public void exit()
+    /**
+     * Gets the context of the current session.
+     *
+     * @return The current context, never {@code null}.
+     * @throws IllegalStateException If the current thread is not within the scope.
+     * @since 3.3.2
+     */
+    public Context getContext()
     {
-        final LinkedList<ScopeState> stack = values.get();
-        if ( stack == null || stack.isEmpty() )
+        Context context = values.get().peek();
+        if ( context == null )
         {
             throw new IllegalStateException();
         }
-        stack.removeFirst();
-        if ( stack.isEmpty() )
+        return context;
+    }
+
+    public void exit()
+    {
+        Frames frames = values.get();
+        if ( frames.peek() == null )
         {
-            values.remove();
+            throw new IllegalStateException();
         }
+        frames.pop();
     }
 
     /**
@@ -113,18 +265,29 @@ public void exit()
      */
     public Memento memento()
     {
-        LinkedList<ScopeState> stack = values.get();
-        return new Memento( stack != null ? stack.getFirst().seeded : Collections.<Key<?>, Provider<?>>emptyMap() );
+        Context context = values.get().peek();
+        return new Memento( context != null ? context.seeds : Context.NO_SEEDS );
     }
 
     public <T> void seed( Class<T> clazz, Provider<T> value )
     {
-        getScopeState().seeded.put( Key.get( clazz ), value );
+        seed( Key.get( clazz ), new SeededProvider( value ) );
     }
 
     public <T> void seed( Class<T> clazz, final T value )
     {
-        getScopeState().seeded.put( Key.get( clazz ), Providers.of( value ) );
+        seed( Key.get( clazz ), (Object) value );
+    }
+
+    private void seed( Key<?> key, Object seed )
+    {
+        Frames frames = values.get();
+        Context context = frames.peek();
+        if ( context == null )
+        {
+            throw new IllegalStateException();
+        }
+        frames.replace( context.seed( key, seed ) );
     }
 
     public <T> Provider<T> scope( final Key<T> key, final Provider<T> unscoped )
@@ -134,29 +297,99 @@ public <T> Provider<T> scope( final Key<T> key, final Provider<T> unscoped )
             @SuppressWarnings( "unchecked" )
             public T get()
             {
-                LinkedList<ScopeState> stack = values.get();
-                if ( stack == null || stack.isEmpty() )
+                Context context = values.get().peek();
+                if ( context == null )
                 {
                     throw new OutOfScopeException( "Cannot access " + key + " outside of a scoping block" );
                 }
 
-                ScopeState state = stack.getFirst();
+                return (T) context.get( key, unscoped );
+            }
+        };
+    }
 
-                Provider<?> seeded = state.seeded.get( key );
+    /**
+     * Gets the object seeded for the specified type in the current context, e.g. the session for legacy components.
+     *
+     * @param clazz The type of the seeded object, must not be {@code null}.
+     * @return The seeded object or {@code null} if the current thread is not within the scope or the type was not
+     *         seeded.
+     * @since 3.3.2
+     */
+    public <T> T getSeed( Class<T> clazz )
+    {
+        Context context = values.get().peek();
+        if ( context == null )
+        {
+            return null;
+        }
+        Key<T> key = Key.get( clazz );
+        Object[] seeds = context.seeds;
+        for ( int i = 0; i < seeds.length; i += 2 )
+        {
+            if ( key.equals( seeds[i] ) )
+            {
+                return clazz.cast( context.get( key, null ) );
+            }
+        }
+        return null;
+    }
 
-                if ( seeded != null )
+    /**
+     * Wraps the specified task such that it runs within the current session, regardless of the thread that eventually
+     * runs it.
+     *
+     * @param task The task to wrap, must not be {@code null}.
+     * @return The wrapped task, never {@code null}.
+     * @throws IllegalStateException If the current thread is not within the scope.
+     * @since 3.3.2
+     */
+    public Runnable wrap( final Runnable task )
+    {
+        final Context context = getContext();
+        return new Runnable()
+        {
+            public void run()
+            {
+                enter( context );
+                try
                 {
-                    return (T) seeded.get();
+                    task.run();
                 }
-
-                T provided = (T) state.provided.get( key );
-                if ( provided == null && unscoped != null )
+                finally
                 {
-                    provided = unscoped.get();
-                    state.provided.put( key, provided );
+                    exit();
                 }
+            }
+        };
+    }
 
-                return provided;
+    /**
+     * Wraps the specified task such that it runs within the current session, regardless of the thread that eventually
+     * runs it.
+     *
+     * @param task The task to wrap, must not be {@code null}.
+     * @return The wrapped task, never {@code null}.
+     * @throws IllegalStateException If the current thread is not within the scope.
+     * @since 3.3.2
+     */
+    public <V> Callable<V> wrap( final Callable<V> task )
+    {
+        final Context context = getContext();
+        return new Callable<V>()
+        {
+            public V call()
+                throws Exception
+            {
+                enter( context );
+                try
+                {
+                    return task.call();
+                }
+                finally
+                {
+                    exit();
+                }
             }
         };
     }
@@ -0,0 +1,173 @@
+package org.apache.maven;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+
+import junit.framework.TestCase;
+
+public class ReactorReaderTest
+    extends TestCase
+{
+
+    private File dir;
+
+    private MavenProject project;
+
+    private ReactorReader reader;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        dir = new File( "target/reactor-reader" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( dir );
+        assertTrue( dir.mkdirs() );
+
+        Model model = new Model();
+        model.setGroupId( "test" );
+        model.setArtifactId( "module" );
+        model.setVersion( "1.0" );
+        project = new MavenProject( model );
+        project.setFile( new File( dir, "pom.xml" ) );
+        project.setArtifact( newArtifact( "module.jar", null ) );
+
+        MavenSession session =
+            new MavenSession( null, (RepositorySystemSession) null, new DefaultMavenExecutionRequest(),
+                              new DefaultMavenExecutionResult() );
+        session.setProjectMap( Collections.singletonMap( "test:module:1.0", project ) );
+        reader = new ReactorReader( session );
+    }
+
+    private org.apache.maven.artifact.Artifact newArtifact( String fileName, String classifier )
+        throws Exception
+    {
+        org.apache.maven.artifact.Artifact artifact =
+            new org.apache.maven.artifact.DefaultArtifact( "test", "module", "1.0", null, "jar", classifier,
+                                                           new DefaultArtifactHandler( "jar" ) );
+        File file = new File( dir, fileName );
+        FileUtils.fileWrite( file, "UTF-8", fileName );
+        artifact.setFile( file );
+        return artifact;
+    }
+
+    private File find( String classifier )
+    {
+        return reader.findArtifact( new DefaultArtifact( "test", "module", classifier, "jar", "1.0" ) );
+    }
+
+    public void testFindsMainAndAttachedArtifacts()
+        throws Exception
+    {
+        project.addAttachedArtifact( newArtifact( "module-sources.jar", "sources" ) );
+
+        assertEquals( new File( dir, "module.jar" ), find( "" ) );
+        assertEquals( new File( dir, "module-sources.jar" ), find( "sources" ) );
+        assertNull( find( "javadoc" ) );
+    }
+
+    public void testPicksUpLaterChangesOfProjectArtifacts()
+        throws Exception
+    {
+        project.addAttachedArtifact( newArtifact( "module-sources.jar", "sources" ) );
+        assertEquals( new File( dir, "module-sources.jar" ), find( "sources" ) );
+        assertNull( find( "javadoc" ) );
+
+        // same number of attached artifacts but different ones
+        project.getAttachedArtifacts().set( 0, newArtifact( "module-javadoc.jar", "javadoc" ) );
+        assertEquals( new File( dir, "module-javadoc.jar" ), find( "javadoc" ) );
+        assertNull( find( "sources" ) );
+
+        project.setArtifact( newArtifact( "module-2.jar", null ) );
+        assertEquals( new File( dir, "module-2.jar" ), find( "" ) );
+    }
+
+    public void testFallsBackToExecutionProject()
+        throws Exception
+    {
+        MavenProject executionProject = project.clone();
+        executionProject.addAttachedArtifact( newArtifact( "module-tests.jar", "tests" ) );
+        project.setExecutionProject( executionProject );
+
+        assertEquals( new File( dir, "module-tests.jar" ), find( "tests" ) );
+        assertEquals( new File( dir, "module.jar" ), find( "" ) );
+    }
+
+    public void testConcurrentLookups()
+        throws Exception
+    {
+        final int count = 20;
+        for ( int i = 0; i < count; i++ )
+        {
+            project.addAttachedArtifact( newArtifact( "module-" + i + ".jar", "c" + i ) );
+        }
+
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for ( int t = 0; t < 4; t++ )
+        {
+            Thread thread = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        for ( int n = 0; n < 500; n++ )
+                        {
+                            int i = n % count;
+                            assertEquals( new File( dir, "module-" + i + ".jar" ), find( "c" + i ) );
+                        }
+                    }
+                    catch ( Throwable e )
+                    {
+                        error.compareAndSet( null, e );
+                    }
+                }
+            };
+            thread.start();
+            threads.add( thread );
+        }
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        assertNull( String.valueOf( error.get() ), error.get() );
+    }
+
+}
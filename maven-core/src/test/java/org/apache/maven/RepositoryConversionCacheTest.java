@@ -0,0 +1,136 @@
+package org.apache.maven;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+import org.apache.maven.exception.ExceptionHandler;
+import org.codehaus.plexus.component.annotations.Requirement;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.artifact.repository.Authentication;
+import org.apache.maven.artifact.repository.MavenArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.building.CacheStatistics;
+import org.apache.maven.repository.internal.SessionCacheStatistics;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.RemoteRepository;
+
+public class RepositoryConversionCacheTest
+    extends TestCase
+{
+
+    private DefaultRepositorySystemSession session;
+
+    private RepositoryConversionCache cache;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        session = new DefaultRepositorySystemSession();
+        cache = RepositoryConversionCache.get( session );
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        session = null;
+        cache = null;
+
+        super.tearDown();
+    }
+
+    private static ArtifactRepository newRepository( String id )
+    {
+        ArtifactRepositoryPolicy policy = new ArtifactRepositoryPolicy();
+        return new MavenArtifactRepository( id, "http://localhost/" + id, new DefaultRepositoryLayout(), policy,
+                                            policy );
+    }
+
+    private CacheStatistics getStatistics( String name )
+    {
+        return SessionCacheStatistics.get( session, name );
+    }
+
+    public void testReusesConversionOfUnchangedArtifact()
+    {
+        org.apache.maven.artifact.Artifact artifact =
+            new DefaultArtifact( "gid", "aid", "1.0", "compile", "jar", null, new DefaultArtifactHandler( "jar" ) );
+
+        Artifact first = cache.toArtifact( artifact );
+        assertSame( first, cache.toArtifact( artifact ) );
+        assertEquals( RepositoryUtils.toArtifact( artifact ), first );
+        assertEquals( 1, getStatistics( "artifactConversion" ).getHits() );
+
+        artifact.setFile( new File( "aid-1.0.jar" ) );
+        Artifact second = cache.toArtifact( artifact );
+        assertNotSame( first, second );
+        assertEquals( new File( "aid-1.0.jar" ), second.getFile() );
+        assertSame( second, cache.toArtifact( artifact ) );
+    }
+
+    public void testReusesConversionOfUnchangedRepositories()
+    {
+        List<ArtifactRepository> repos = new ArrayList<ArtifactRepository>();
+        repos.add( newRepository( "a" ) );
+        repos.add( newRepository( "b" ) );
+
+        List<RemoteRepository> first = cache.toRepos( repos );
+        assertEquals( RepositoryUtils.toRepos( repos ), first );
+        assertSame( first, cache.toRepos( repos ) );
+
+        try
+        {
+            first.clear();
+            fail( "converted repositories are modifiable" );
+        }
+        catch ( UnsupportedOperationException expected )
+        {
+            // expected
+        }
+
+        repos.get( 1 ).setAuthentication( new Authentication( "user", "pass" ) );
+        List<RemoteRepository> second = cache.toRepos( repos );
+        assertNotSame( first, second );
+        assertSame( first.get( 0 ), second.get( 0 ) );
+        assertNotNull( second.get( 1 ).getAuthentication() );
+        assertEquals( RepositoryUtils.toRepos( repos ), second );
+    }
+
+    public void testDisabledCacheConvertsEveryTime()
+    {
+        session.setConfigProperty( RepositoryConversionCache.CONFIG_PROP_ENABLED, Boolean.FALSE );
+        RepositoryConversionCache uncached = RepositoryConversionCache.get( session );
+
+        ArtifactRepository repo = newRepository( "a" );
+        assertNotSame( uncached.toRepo( repo ), uncached.toRepo( repo ) );
+        assertSame( uncached, RepositoryConversionCache.get( null ) );
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.apache.maven.buildcache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.util.Properties;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.codehaus.plexus.PlexusTestCase;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.StringUtils;
+
+public class FileBuildCacheStoreTest
+    extends PlexusTestCase
+{
+
+    private File dir;
+
+    private BuildCacheStore store;
+
+    private MavenSession session;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        dir = new File( getBasedir(), "target/build-cache-store" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( dir );
+        assertTrue( dir.mkdirs() );
+
+        store = lookup( BuildCacheStore.class, "file" );
+
+        session = new MavenSession( getContainer(), null, new DefaultMavenExecutionRequest(), null );
+        session.getUserProperties().setProperty( FileBuildCacheStore.DIRECTORY_PROPERTY,
+                                                 new File( dir, "cache" ).getPath() );
+        session.getUserProperties().setProperty( FileBuildCacheStore.MAX_SIZE_PROPERTY, "1k" );
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        store = null;
+        session = null;
+
+        super.tearDown();
+    }
+
+    private void put( String key, String checksum, int size )
+        throws Exception
+    {
+        File file = new File( dir, checksum );
+        FileUtils.fileWrite( file, "UTF-8", StringUtils.repeat( "x", size ) );
+        store.putContent( session, checksum, file );
+
+        Properties entry = new Properties();
+        entry.setProperty( "output.checksum", checksum );
+        store.putEntry( session, key, entry );
+    }
+
+    private File getEntryFile( String key )
+    {
+        return new File( dir, "cache/entries/" + key.substring( 0, 2 ) + "/" + key + ".properties" );
+    }
+
+    public void testRoundTrip()
+        throws Exception
+    {
+        put( "aa01", "a100", 10 );
+
+        assertTrue( store.containsContent( session, "a100" ) );
+        assertFalse( store.containsContent( session, "b200" ) );
+        assertNull( store.getEntry( session, "bb02" ) );
+
+        Properties entry = store.getEntry( session, "aa01" );
+        assertEquals( "a100", entry.getProperty( "output.checksum" ) );
+
+        File restored = new File( dir, "restored/file.txt" );
+        restored.getParentFile().mkdirs();
+        store.getContent( session, "a100", restored );
+        assertEquals( StringUtils.repeat( "x", 10 ), FileUtils.fileRead( restored, "UTF-8" ) );
+    }
+
+    public void testEvictsLeastRecentlyUsedEntries()
+        throws Exception
+    {
+        long now = System.currentTimeMillis();
+        put( "aa01", "a100", 300 );
+        put( "bb02", "b200", 300 );
+        assertTrue( getEntryFile( "aa01" ).setLastModified( now - 20000 ) );
+        assertTrue( getEntryFile( "bb02" ).setLastModified( now - 10000 ) );
+
+        assertNotNull( store.getEntry( session, "aa01" ) );
+        put( "cc03", "c300", 300 );
+
+        assertNotNull( store.getEntry( session, "aa01" ) );
+        assertTrue( store.containsContent( session, "a100" ) );
+        assertNull( store.getEntry( session, "bb02" ) );
+        assertFalse( store.containsContent( session, "b200" ) );
+        assertNotNull( store.getEntry( session, "cc03" ) );
+        assertTrue( store.containsContent( session, "c300" ) );
+    }
+
+}
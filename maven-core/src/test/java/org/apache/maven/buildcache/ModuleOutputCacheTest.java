@@ -0,0 +1,174 @@
+package org.apache.maven.buildcache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.AbstractCoreMavenComponentTestCase;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+
+public class ModuleOutputCacheTest
+    extends AbstractCoreMavenComponentTestCase
+{
+
+    private File workdir;
+
+    private ModuleOutputCache cache;
+
+    @Override
+    protected String getProjectsDirectory()
+    {
+        return "src/test/projects/lifecycle-executor";
+    }
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        workdir = new File( getBasedir(), "target/module-output-cache" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( workdir );
+
+        cache = lookup( ModuleOutputCache.class );
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        cache = null;
+
+        super.tearDown();
+    }
+
+    private MavenSession createCheckout( String name )
+        throws Exception
+    {
+        File basedir = new File( workdir, name );
+        assertTrue( new File( basedir, "src/main/java" ).mkdirs() );
+        FileUtils.fileWrite( new File( basedir, "pom.xml" ), "UTF-8", "<project/>" );
+        FileUtils.fileWrite( new File( basedir, "src/main/java/A.java" ), "UTF-8", "class A {}" );
+
+        MavenSession session = createMavenSession( null );
+        session.getUserProperties().setProperty( ModuleOutputCache.PROPERTY, "true" );
+        session.getUserProperties().setProperty( "maven.buildCache.directory", new File( workdir, "cache" ).getPath() );
+
+        MavenProject project = session.getProjects().get( 0 );
+        project.setFile( new File( basedir, "pom.xml" ) );
+        Build build = new Build();
+        build.setDirectory( new File( basedir, "target" ).getPath() );
+        build.setOutputDirectory( new File( basedir, "target/classes" ).getPath() );
+        build.setTestOutputDirectory( new File( basedir, "target/test-classes" ).getPath() );
+        project.setBuild( build );
+        project.addCompileSourceRoot( new File( basedir, "src/main/java" ).getPath() );
+        project.setArtifact( new DefaultArtifact( "org.apache.maven.test", "maven-test", "1.0", null, "jar", null,
+                                                  new DefaultArtifactHandler( "jar" ) ) );
+        session.setCurrentProject( project );
+
+        return session;
+    }
+
+    private static List<MojoExecution> newMojoExecutions()
+    {
+        PluginDescriptor pluginDescriptor = new PluginDescriptor();
+        pluginDescriptor.setGroupId( "org.apache.maven.test" );
+        pluginDescriptor.setArtifactId( "test-plugin" );
+        pluginDescriptor.setVersion( "1.0" );
+
+        MojoDescriptor mojoDescriptor = new MojoDescriptor();
+        mojoDescriptor.setGoal( "compile" );
+        mojoDescriptor.setPluginDescriptor( pluginDescriptor );
+
+        MojoExecution mojoExecution = new MojoExecution( mojoDescriptor, "default-compile" );
+        mojoExecution.setLifecyclePhase( "compile" );
+        return Collections.singletonList( mojoExecution );
+    }
+
+    private static void build( MavenSession session )
+        throws Exception
+    {
+        MavenProject project = session.getCurrentProject();
+        File basedir = project.getBasedir();
+        File classes = new File( basedir, "target/classes" );
+        assertTrue( classes.mkdirs() );
+        FileUtils.fileWrite( new File( classes, "A.class" ), "UTF-8", "A" );
+        File jar = new File( basedir, "target/maven-test-1.0.jar" );
+        FileUtils.fileWrite( jar, "UTF-8", "jar" );
+        project.getArtifact().setFile( jar );
+        project.addCompileSourceRoot( new File( basedir, "target/generated-sources/test" ).getPath() );
+        project.getProperties().setProperty( "generated", "yes" );
+    }
+
+    public void testKeyIsStableAcrossCheckouts()
+        throws Exception
+    {
+        ModuleOutputCache.Candidate first = cache.open( createCheckout( "first" ), newMojoExecutions() );
+        ModuleOutputCache.Candidate second = cache.open( createCheckout( "second" ), newMojoExecutions() );
+
+        assertNotNull( first );
+        assertNotNull( second );
+        assertEquals( first.getKey(), second.getKey() );
+    }
+
+    public void testKeyChangesWithSources()
+        throws Exception
+    {
+        MavenSession session = createCheckout( "first" );
+        String key = cache.open( session, newMojoExecutions() ).getKey();
+
+        FileUtils.fileWrite( new File( workdir, "first/src/main/java/A.java" ), "UTF-8", "class A { }" );
+        assertFalse( key.equals( cache.open( session, newMojoExecutions() ).getKey() ) );
+    }
+
+    public void testRestoreReplaysBuild()
+        throws Exception
+    {
+        MavenSession first = createCheckout( "first" );
+        ModuleOutputCache.Candidate candidate = cache.open( first, newMojoExecutions() );
+        assertFalse( cache.restore( candidate ) );
+        build( first );
+        cache.save( candidate );
+
+        MavenSession second = createCheckout( "second" );
+        MavenProject project = second.getCurrentProject();
+        File basedir = project.getBasedir();
+        assertTrue( cache.restore( cache.open( second, newMojoExecutions() ) ) );
+
+        assertEquals( "A", FileUtils.fileRead( new File( basedir, "target/classes/A.class" ), "UTF-8" ) );
+        assertEquals( new File( basedir, "target/maven-test-1.0.jar" ), project.getArtifact().getFile() );
+        assertEquals( "jar", FileUtils.fileRead( project.getArtifact().getFile(), "UTF-8" ) );
+        assertEquals( 2, project.getCompileSourceRoots().size() );
+        assertEquals( new File( basedir, "target/generated-sources/test" ).getPath(),
+                      project.getCompileSourceRoots().get( 1 ) );
+        assertEquals( "yes", project.getProperties().getProperty( "generated" ) );
+    }
+
+}
@@ -0,0 +1,237 @@
+package org.apache.maven.eventspy.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.maven.eventspy.AbstractEventSpy;
+import org.apache.maven.eventspy.EventSpy;
+import org.codehaus.plexus.PlexusTestCase;
+
+public class EventSpyDispatcherTest
+    extends PlexusTestCase
+{
+
+    private EventSpyDispatcher dispatcher;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        dispatcher = lookup( EventSpyDispatcher.class );
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        dispatcher = null;
+        super.tearDown();
+    }
+
+    private static EventSpy.Context newContext( String... properties )
+    {
+        final Map<String, Object> data = new HashMap<String, Object>();
+        Properties userProperties = new Properties();
+        for ( int i = 0; i < properties.length; i += 2 )
+        {
+            userProperties.setProperty( properties[i], properties[i + 1] );
+        }
+        data.put( "userProperties", userProperties );
+        data.put( "systemProperties", new Properties() );
+        return new EventSpy.Context()
+        {
+            public Map<String, Object> getData()
+            {
+                return data;
+            }
+        };
+    }
+
+    public void testSynchronousByDefault()
+    {
+        RecordingSpy spy = new RecordingSpy();
+        dispatcher.setEventSpies( Collections.<EventSpy>singletonList( spy ) );
+        dispatcher.init( newContext() );
+
+        dispatcher.onEvent( "event" );
+
+        assertEquals( Arrays.<Object>asList( "event" ), spy.events );
+        assertEquals( Collections.singletonList( Thread.currentThread() ), spy.threads );
+        assertTrue( dispatcher.getStatistics().isEmpty() );
+
+        dispatcher.close();
+        assertTrue( spy.closed );
+    }
+
+    public void testAsyncPreservesOrderAndDrainsOnClose()
+    {
+        RecordingSpy spy = new RecordingSpy();
+        dispatcher.setEventSpies( Collections.<EventSpy>singletonList( spy ) );
+        dispatcher.init( newContext( EventSpyDispatcher.ASYNC_PROPERTY, "true",
+                                     EventSpyDispatcher.QUEUE_SIZE_PROPERTY, "4" ) );
+
+        List<Object> expected = new ArrayList<Object>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            dispatcher.onEvent( i );
+            expected.add( i );
+        }
+        dispatcher.close();
+
+        assertEquals( expected, spy.events );
+        assertFalse( spy.threads.contains( Thread.currentThread() ) );
+        assertTrue( spy.closed );
+
+        EventSpyStatistics stats = dispatcher.getStatistics().get( 0 );
+        assertEquals( RecordingSpy.class.getName(), stats.getSpy() );
+        assertEquals( 100, stats.getSubmitted() );
+        assertEquals( 100, stats.getDelivered() );
+        assertEquals( 0, stats.getDropped() );
+        assertEquals( 0, stats.getQueueDepth() );
+        assertTrue( stats.getMaxQueueDepth() <= 4 );
+    }
+
+    public void testSynchronousEventSpyStaysSynchronous()
+    {
+        RecordingSpy spy = new RecordingSpy();
+        SynchronousSpy synchronousSpy = new SynchronousSpy();
+        dispatcher.setEventSpies( Arrays.<EventSpy>asList( spy, synchronousSpy ) );
+        dispatcher.init( newContext( EventSpyDispatcher.ASYNC_PROPERTY, "true" ) );
+
+        dispatcher.onEvent( "event" );
+        dispatcher.close();
+
+        assertEquals( Arrays.<Object>asList( "event" ), spy.events );
+        assertFalse( spy.threads.contains( Thread.currentThread() ) );
+        assertEquals( Arrays.<Object>asList( "event" ), synchronousSpy.events );
+        assertEquals( Collections.singletonList( Thread.currentThread() ), synchronousSpy.threads );
+        assertTrue( synchronousSpy.closed );
+        assertEquals( 1, dispatcher.getStatistics().size() );
+    }
+
+    public void testAsyncDropsWhenFull()
+        throws Exception
+    {
+        BlockingSpy spy = new BlockingSpy();
+        dispatcher.setEventSpies( Collections.<EventSpy>singletonList( spy ) );
+        dispatcher.init( newContext( EventSpyDispatcher.ASYNC_PROPERTY, "true",
+                                     EventSpyDispatcher.QUEUE_SIZE_PROPERTY, "2",
+                                     EventSpyDispatcher.OVERFLOW_PROPERTY, "drop" ) );
+
+        dispatcher.onEvent( 0 );
+        spy.entered.await();
+        for ( int i = 1; i < 10; i++ )
+        {
+            dispatcher.onEvent( i );
+        }
+        spy.release.countDown();
+        dispatcher.close();
+
+        assertEquals( Arrays.<Object>asList( 0, 1, 2 ), spy.events );
+        EventSpyStatistics stats = dispatcher.getStatistics().get( 0 );
+        assertEquals( 3, stats.getDelivered() );
+        assertEquals( 7, stats.getDropped() );
+    }
+
+    public void testAsyncCoalescesEventsOfSameKind()
+        throws Exception
+    {
+        BlockingSpy spy = new BlockingSpy();
+        dispatcher.setEventSpies( Collections.<EventSpy>singletonList( spy ) );
+        dispatcher.init( newContext( EventSpyDispatcher.ASYNC_PROPERTY, "true",
+                                     EventSpyDispatcher.QUEUE_SIZE_PROPERTY, "2",
+                                     EventSpyDispatcher.OVERFLOW_PROPERTY, "coalesce" ) );
+
+        dispatcher.onEvent( 0 );
+        spy.entered.await();
+        dispatcher.onEvent( "a" );
+        dispatcher.onEvent( 1 );
+        dispatcher.onEvent( "b" );
+        spy.release.countDown();
+        dispatcher.close();
+
+        assertEquals( Arrays.<Object>asList( 0, 1, "b" ), spy.events );
+        EventSpyStatistics stats = dispatcher.getStatistics().get( 0 );
+        assertEquals( 3, stats.getDelivered() );
+        assertEquals( 1, stats.getCoalesced() );
+    }
+
+    static class RecordingSpy
+        extends AbstractEventSpy
+    {
+
+        final List<Object> events = Collections.synchronizedList( new ArrayList<Object>() );
+
+        final List<Thread> threads = Collections.synchronizedList( new ArrayList<Thread>() );
+
+        volatile boolean closed;
+
+        @Override
+        public void onEvent( Object event )
+            throws Exception
+        {
+            events.add( event );
+            threads.add( Thread.currentThread() );
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+
+    }
+
+    static class SynchronousSpy
+        extends RecordingSpy
+        implements SynchronousEventSpy
+    {
+
+    }
+
+    static class BlockingSpy
+        extends RecordingSpy
+    {
+
+        final CountDownLatch entered = new CountDownLatch( 1 );
+
+        final CountDownLatch release = new CountDownLatch( 1 );
+
+        @Override
+        public void onEvent( Object event )
+            throws Exception
+        {
+            entered.countDown();
+            release.await();
+            super.onEvent( event );
+        }
+
+    }
+
+}
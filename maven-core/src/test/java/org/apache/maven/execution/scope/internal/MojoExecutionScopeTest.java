@@ -14,6 +14,10 @@
  */
 package org.apache.maven.execution.scope.internal;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.maven.execution.MojoExecutionEvent;
@@ -23,6 +27,7 @@
 import junit.framework.TestCase;
 
 import com.google.inject.Key;
+import com.google.inject.OutOfScopeException;
 import com.google.inject.Provider;
 
 public class MojoExecutionScopeTest
@@ -119,4 +124,62 @@ public WeakMojoExecutionListener get()
 
         scope.exit();
     }
+
+    public void testWrappedTasksRunInContextOnOtherThreads()
+        throws Exception
+    {
+        final MojoExecutionScope scope = new MojoExecutionScope();
+        scope.enter();
+
+        final Object seeded = new Object();
+        scope.seed( Object.class, seeded );
+        final Provider<Object> provider = scope.scope( Key.get( Object.class ), null );
+        final Provider<String> provided = scope.scope( Key.get( String.class ), new Provider<String>()
+        {
+            @Override
+            public String get()
+            {
+                return new String( "provided" );
+            }
+        } );
+        final String instance = provided.get();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Callable<Boolean> task = scope.wrap( new Callable<Boolean>()
+            {
+                @Override
+                public Boolean call()
+                {
+                    return provider.get() == seeded && provided.get() == instance;
+                }
+            } );
+            scope.exit();
+
+            assertTrue( executor.submit( task ).get() );
+            assertTrue( executor.submit( task ).get() );
+
+            try
+            {
+                executor.submit( new Callable<Object>()
+                {
+                    @Override
+                    public Object call()
+                    {
+                        return provider.get();
+                    }
+                } ).get();
+                fail( "worker thread left in scope" );
+            }
+            catch ( ExecutionException expected )
+            {
+                assertTrue( expected.getCause() instanceof OutOfScopeException );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
 }
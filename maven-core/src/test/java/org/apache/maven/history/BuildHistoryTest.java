@@ -0,0 +1,148 @@
+package org.apache.maven.history;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.history.BuildHistory.Build;
+import org.apache.maven.history.BuildHistory.Metric;
+import org.apache.maven.history.BuildHistory.Regression;
+import org.codehaus.plexus.util.FileUtils;
+
+public class BuildHistoryTest
+    extends TestCase
+{
+
+    private File file;
+
+    private BuildHistory history;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        File basedir = new File( "target/build-history" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( basedir );
+        file = new File( basedir, "history.dat" );
+        history = new BuildHistory( file );
+    }
+
+    private static Build newBuild( long timestamp, long compileTime )
+    {
+        Build build = new Build( timestamp );
+        build.add( "org.apache:app", "", Metric.DURATION, compileTime * 2 );
+        build.add( "org.apache:app", "maven-compiler-plugin:compile (default-compile)", Metric.DURATION, compileTime );
+        build.add( "*", "[cache] model", Metric.HITS, 42 );
+        return build;
+    }
+
+    public void testReadsMostRecentBuilds()
+        throws Exception
+    {
+        assertTrue( history.read( 10 ).isEmpty() );
+
+        for ( int i = 1; i <= 5; i++ )
+        {
+            history.append( newBuild( i, 1000 * i ) );
+        }
+
+        List<Build> builds = history.read( 3 );
+        assertEquals( 3, builds.size() );
+        assertEquals( 3, builds.get( 0 ).getTimestamp() );
+        assertEquals( 5, builds.get( 2 ).getTimestamp() );
+        assertEquals( Long.valueOf( 5000 ),
+                      builds.get( 2 ).get( "org.apache:app", "maven-compiler-plugin:compile (default-compile)",
+                                           Metric.DURATION ) );
+        assertEquals( Long.valueOf( 42 ), builds.get( 2 ).get( "*", "[cache] model", Metric.HITS ) );
+    }
+
+    public void testDropsTornBlockOnAppend()
+        throws Exception
+    {
+        history.append( newBuild( 1, 1000 ) );
+        long size = file.length();
+        history.append( newBuild( 2, 1000 ) );
+
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            raf.setLength( file.length() - 3 );
+        }
+        finally
+        {
+            raf.close();
+        }
+        assertEquals( 1, history.read( 10 ).size() );
+
+        history.append( newBuild( 3, 1000 ) );
+        List<Build> builds = history.read( 10 );
+        assertEquals( 2, builds.size() );
+        assertEquals( 3, builds.get( 1 ).getTimestamp() );
+        assertEquals( size * 2 - 8, file.length() );
+    }
+
+    public void testRejectsForeignFiles()
+        throws Exception
+    {
+        assertTrue( file.getParentFile().mkdirs() );
+        FileUtils.fileWrite( file, "UTF-8", "not a build history" );
+
+        try
+        {
+            history.append( newBuild( 1, 1000 ) );
+            fail( "foreign file not detected" );
+        }
+        catch ( IOException expected )
+        {
+            assertTrue( expected.getMessage().contains( "not a build history file" ) );
+        }
+        assertEquals( "not a build history", FileUtils.fileRead( file, "UTF-8" ) );
+    }
+
+    public void testFindsRegressionsAgainstMedianBaseline()
+    {
+        List<Build> builds = new ArrayList<Build>();
+        builds.add( newBuild( 1, 1000 ) );
+        builds.add( newBuild( 2, 9000 ) );
+        assertTrue( BuildHistory.findRegressions( newBuild( 3, 5000 ), builds, 50, 500 ).isEmpty() );
+
+        builds.add( newBuild( 3, 1200 ) );
+        BuildHistory.Key key = new BuildHistory.Key( "org.apache:app", "", Metric.DURATION );
+        assertEquals( Long.valueOf( 2400 ), BuildHistory.getBaseline( builds, 3 ).get( key ) );
+
+        assertTrue( BuildHistory.findRegressions( newBuild( 4, 1700 ), builds, 50, 500 ).isEmpty() );
+
+        List<Regression> regressions = BuildHistory.findRegressions( newBuild( 4, 5000 ), builds, 50, 500 );
+        assertEquals( 2, regressions.size() );
+        assertEquals( key, regressions.get( 0 ).getKey() );
+        assertEquals( "maven-compiler-plugin:compile (default-compile)", regressions.get( 1 ).getKey().getName() );
+        assertEquals( 5000, regressions.get( 1 ).getValue() );
+        assertEquals( 1200, regressions.get( 1 ).getBaseline() );
+    }
+
+}
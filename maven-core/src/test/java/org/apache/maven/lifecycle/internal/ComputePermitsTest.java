@@ -0,0 +1,94 @@
+package org.apache.maven.lifecycle.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import junit.framework.TestCase;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+
+public class ComputePermitsTest
+    extends TestCase
+{
+
+    public void testInstallAndUninstall()
+    {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        assertNull( ComputePermits.get( session ) );
+        assertNull( ComputePermits.get( null ) );
+
+        ComputePermits permits = ComputePermits.install( session, 2 );
+        assertSame( permits, ComputePermits.get( session ) );
+        assertEquals( 2, permits.getPermits() );
+
+        ComputePermits.uninstall( session );
+        assertNull( ComputePermits.get( session ) );
+    }
+
+    public void testBoundsConcurrentHolders()
+        throws Exception
+    {
+        final ComputePermits permits = ComputePermits.install( new DefaultRepositorySystemSession(), 1 );
+        permits.acquire();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Future<?> waiting = executor.submit( new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        permits.acquire();
+                        permits.release();
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        throw new IllegalStateException( e );
+                    }
+                }
+            } );
+
+            try
+            {
+                waiting.get( 100, TimeUnit.MILLISECONDS );
+                fail( "second holder got a permit" );
+            }
+            catch ( TimeoutException expected )
+            {
+                // still waiting
+            }
+
+            permits.release();
+            waiting.get( 10, TimeUnit.SECONDS );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+package org.apache.maven.lifecycle.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.AbstractCoreMavenComponentTestCase;
+import org.apache.maven.Maven;
+import org.apache.maven.artifact.InvalidRepositoryException;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.settings.Mirror;
+import org.codehaus.plexus.util.FileUtils;
+import org.eclipse.aether.AbstractRepositoryListener;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryEvent;
+
+public class DependencyPrefetcherTest
+    extends AbstractCoreMavenComponentTestCase
+{
+
+    private DependencyPrefetcher prefetcher;
+
+    private File localRepoDir;
+
+    @Override
+    protected String getProjectsDirectory()
+    {
+        return "src/test/projects";
+    }
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        prefetcher = lookup( DependencyPrefetcher.class );
+        localRepoDir = new File( getBasedir(), "target/prefetch-local-repo" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( localRepoDir );
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        prefetcher = null;
+        super.tearDown();
+    }
+
+    @Override
+    protected ArtifactRepository getLocalRepository()
+        throws InvalidRepositoryException
+    {
+        return repositorySystem.createLocalRepository( localRepoDir );
+    }
+
+    private MavenSession createReactorSession( String... modules )
+        throws Exception
+    {
+        File basedir = getProject( "dependency-prefetcher" ).getParentFile();
+
+        MavenExecutionRequest request = createMavenExecutionRequest( new File( basedir, "pom.xml" ) );
+        request.setGoals( Arrays.asList( "compile" ) );
+        request.getUserProperties().setProperty( DependencyPrefetcher.PROPERTY, "true" );
+        request.getUserProperties().setProperty( DependencyPrefetcher.THREADS_PROPERTY, "1" );
+
+        ProjectBuildingRequest configuration = new DefaultProjectBuildingRequest()
+            .setLocalRepository( request.getLocalRepository() )
+            .setRemoteRepositories( request.getRemoteRepositories() )
+            .setPluginArtifactRepositories( request.getPluginArtifactRepositories() );
+
+        List<MavenProject> projects = new ArrayList<MavenProject>();
+        for ( String module : modules )
+        {
+            File pom = new File( new File( basedir, module ), "pom.xml" );
+            MavenProject project = projectBuilder.build( pom, configuration ).getProject();
+            project.setRemoteArtifactRepositories( request.getRemoteRepositories() );
+            project.setPluginArtifactRepositories( request.getPluginArtifactRepositories() );
+            projects.add( project );
+        }
+
+        initRepoSession( configuration );
+
+        MavenSession session =
+            new MavenSession( getContainer(), configuration.getRepositorySession(), request,
+                              new DefaultMavenExecutionResult() );
+        session.setProjects( projects );
+        return session;
+    }
+
+    private boolean isInLocalRepo( String path )
+    {
+        return new File( localRepoDir, path ).isFile();
+    }
+
+    public void testPrefetchResolvesPlannedScopesAndPlugins()
+        throws Exception
+    {
+        MavenSession session = createReactorSession( "m1", "m2" );
+
+        final Set<String> threads = Collections.synchronizedSet( new HashSet<String>() );
+        DefaultRepositorySystemSession repoSession = (DefaultRepositorySystemSession) session.getRepositorySession();
+        repoSession.setRepositoryListener( new AbstractRepositoryListener()
+        {
+            @Override
+            public void artifactResolving( RepositoryEvent event )
+            {
+                if ( Thread.currentThread().getName().startsWith( "PrefetchThread" ) )
+                {
+                    threads.add( Thread.currentThread().getName() );
+                }
+            }
+        } );
+
+        assertTrue( prefetcher.isEnabled( session ) );
+        prefetcher.prefetch( session );
+
+        // the compile scopes are planned, the test scope is not
+        assertTrue( isInLocalRepo( "org/apache/maven/its/a/0.1/a-0.1.jar" ) );
+        assertFalse( isInLocalRepo( "org/apache/maven/its/b/0.1/b-0.1.jar" ) );
+
+        // the class paths of the planned plugins
+        assertTrue( isInLocalRepo( "org/apache/maven/plugins/maven-compiler-plugin/0.1/"
+            + "maven-compiler-plugin-0.1.jar" ) );
+        assertTrue( isInLocalRepo( "org/apache/maven/maven-plugin-api/2.0/maven-plugin-api-2.0.jar" ) );
+        assertTrue( isInLocalRepo( "org/codehaus/plexus/plexus-utils/1.1/plexus-utils-1.1.jar" ) );
+
+        // reactor projects are left to the reactor
+        assertFalse( new File( localRepoDir, "org/apache/maven/prefetch" ).exists() );
+
+        assertEquals( Collections.singleton( "PrefetchThread 0" ), threads );
+    }
+
+    public void testFailedPrefetchIsDeferredToBuild()
+        throws Exception
+    {
+        MavenSession session = createReactorSession( "m1", "m3" );
+
+        prefetcher.prefetch( session );
+
+        assertTrue( isInLocalRepo( "org/apache/maven/its/a/0.1/a-0.1.jar" ) );
+        assertFalse( isInLocalRepo( "org/apache/maven/its/missing/0.1/missing-0.1.jar" ) );
+    }
+
+    public void testReactorBuildWithPrefetch()
+        throws Exception
+    {
+        File pom = getProject( "dependency-prefetcher" );
+
+        MavenExecutionRequest request = createMavenExecutionRequest( pom );
+        request.setGoals( Arrays.asList( "compile" ) );
+        request.getUserProperties().setProperty( DependencyPrefetcher.PROPERTY, "true" );
+
+        // the projects are built with the repositories from the super POM
+        Mirror mirror = new Mirror();
+        mirror.setId( "test" );
+        mirror.setMirrorOf( "*" );
+        mirror.setUrl( request.getRemoteRepositories().get( 0 ).getUrl() );
+        request.addMirror( mirror );
+
+        MavenExecutionResult result = lookup( Maven.class ).execute( request );
+
+        assertEquals( result.getExceptions().toString(), 0, result.getExceptions().size() );
+        assertEquals( 3, result.getTopologicallySortedProjects().size() );
+        assertTrue( isInLocalRepo( "org/apache/maven/its/a/0.1/a-0.1.jar" ) );
+        assertFalse( isInLocalRepo( "org/apache/maven/its/b/0.1/b-0.1.jar" ) );
+    }
+
+}
@@ -0,0 +1,201 @@
+package org.apache.maven.lifecycle.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.maven.AbstractCoreMavenComponentTestCase;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+
+public class MojoResourceSchedulerTest
+    extends AbstractCoreMavenComponentTestCase
+{
+
+    private MojoResourceScheduler scheduler;
+
+    private MavenSession session;
+
+    @Override
+    protected String getProjectsDirectory()
+    {
+        return "src/test/projects/lifecycle-executor";
+    }
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        scheduler = lookup( MojoResourceScheduler.class );
+        session = createMavenSession( null );
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        scheduler = null;
+        session = null;
+
+        super.tearDown();
+    }
+
+    private static MojoExecution newMojoExecution( String artifactId, String goal )
+    {
+        PluginDescriptor pluginDescriptor = new PluginDescriptor();
+        pluginDescriptor.setGroupId( "org.apache.maven.plugins" );
+        pluginDescriptor.setArtifactId( artifactId );
+        pluginDescriptor.setVersion( "1.0" );
+
+        MojoDescriptor mojoDescriptor = new MojoDescriptor();
+        mojoDescriptor.setGoal( goal );
+        mojoDescriptor.setPluginDescriptor( pluginDescriptor );
+
+        return new MojoExecution( mojoDescriptor, "default-" + goal );
+    }
+
+    private Future<MojoResourceScheduler.Admission> admitLater( ExecutorService executor,
+                                                                final MojoExecution mojoExecution )
+    {
+        return executor.submit( new Callable<MojoResourceScheduler.Admission>()
+        {
+            public MojoResourceScheduler.Admission call()
+                throws Exception
+            {
+                MojoResourceScheduler.Admission admission = scheduler.admit( session, mojoExecution );
+                scheduler.release( admission );
+                return admission;
+            }
+        } );
+    }
+
+    private static void assertWaiting( Future<?> future )
+        throws Exception
+    {
+        try
+        {
+            future.get( 100, TimeUnit.MILLISECONDS );
+            fail( "mojo admitted beyond its resources" );
+        }
+        catch ( TimeoutException expected )
+        {
+            // still waiting
+        }
+    }
+
+    public void testLimitsConcurrentExecutionsOfMatchingMojos()
+        throws Exception
+    {
+        session.getUserProperties().setProperty( MojoResourceScheduler.LIMITS_PROPERTY, "maven-surefire-plugin:test=1" );
+
+        MojoResourceScheduler.Admission first =
+            scheduler.admit( session, newMojoExecution( "maven-surefire-plugin", "test" ) );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try
+        {
+            Future<MojoResourceScheduler.Admission> other =
+                admitLater( executor, newMojoExecution( "maven-compiler-plugin", "compile" ) );
+            assertEquals( 0, other.get( 10, TimeUnit.SECONDS ).getWaitTime() );
+
+            Future<MojoResourceScheduler.Admission> second =
+                admitLater( executor, newMojoExecution( "maven-surefire-plugin", "test" ) );
+            assertWaiting( second );
+
+            scheduler.release( first );
+            assertTrue( second.get( 10, TimeUnit.SECONDS ).getWaitTime() > 0 );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    public void testWeightsNeverExceedCapacity()
+        throws Exception
+    {
+        session.getUserProperties().setProperty( MojoResourceScheduler.WEIGHTS_PROPERTY,
+                                                 "gwt-maven-plugin=3000,maven-surefire-plugin=1024" );
+        session.getUserProperties().setProperty( MojoResourceScheduler.CAPACITY_PROPERTY, "2048" );
+
+        MojoResourceScheduler.Admission first =
+            scheduler.admit( session, newMojoExecution( "maven-surefire-plugin", "test" ) );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try
+        {
+            Future<MojoResourceScheduler.Admission> second =
+                admitLater( executor, newMojoExecution( "maven-surefire-plugin", "test" ) );
+            second.get( 10, TimeUnit.SECONDS );
+
+            Future<MojoResourceScheduler.Admission> heavy =
+                admitLater( executor, newMojoExecution( "gwt-maven-plugin", "compile" ) );
+            assertWaiting( heavy );
+
+            scheduler.release( first );
+            heavy.get( 10, TimeUnit.SECONDS );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    public void testNestedExecutionsAreAdmittedRightAway()
+        throws Exception
+    {
+        session.getUserProperties().setProperty( MojoResourceScheduler.LIMITS_PROPERTY, "maven-site-plugin=1" );
+
+        MojoExecution site = newMojoExecution( "maven-site-plugin", "site" );
+        MojoResourceScheduler.Admission outer = scheduler.admit( session, site );
+        MojoResourceScheduler.Admission inner = scheduler.admit( session, site );
+        scheduler.release( inner );
+        scheduler.release( outer );
+
+        scheduler.release( scheduler.admit( session, site ) );
+    }
+
+    public void testRejectsMalformedProperties()
+        throws Exception
+    {
+        session.getUserProperties().setProperty( MojoResourceScheduler.LIMITS_PROPERTY, "maven-surefire-plugin" );
+
+        try
+        {
+            scheduler.admit( session, newMojoExecution( "maven-surefire-plugin", "test" ) );
+            fail( "malformed limits not detected" );
+        }
+        catch ( IllegalArgumentException expected )
+        {
+            assertTrue( expected.getMessage().contains( MojoResourceScheduler.LIMITS_PROPERTY ) );
+        }
+    }
+
+}
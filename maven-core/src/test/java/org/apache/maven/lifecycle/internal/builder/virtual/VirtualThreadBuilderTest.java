@@ -0,0 +1,128 @@
+package org.apache.maven.lifecycle.internal.builder.virtual;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.reflect.Field;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.maven.lifecycle.internal.builder.Builder;
+import org.apache.maven.lifecycle.internal.builder.multithreaded.MultiThreadedBuilder;
+import org.codehaus.plexus.ContainerConfiguration;
+import org.codehaus.plexus.PlexusConstants;
+import org.codehaus.plexus.PlexusTestCase;
+
+public class VirtualThreadBuilderTest
+    extends PlexusTestCase
+{
+
+    private static final Callable<Thread> CURRENT_THREAD = new Callable<Thread>()
+    {
+        public Thread call()
+        {
+            return Thread.currentThread();
+        }
+    };
+
+    @Override
+    protected void customizeContainerConfiguration( ContainerConfiguration containerConfiguration )
+    {
+        containerConfiguration.setAutoWiring( true ).setClassPathScanning( PlexusConstants.SCANNING_INDEX );
+    }
+
+    private static boolean isVirtualThreadSupported()
+    {
+        try
+        {
+            Thread.class.getMethod( "ofVirtual" );
+            return true;
+        }
+        catch ( NoSuchMethodException e )
+        {
+            return false;
+        }
+    }
+
+    private static boolean isVirtual( Thread thread )
+        throws Exception
+    {
+        return (Boolean) Thread.class.getMethod( "isVirtual" ).invoke( thread );
+    }
+
+    private static Object getField( Class<?> type, String name, Object target )
+        throws Exception
+    {
+        Field field = type.getDeclaredField( name );
+        field.setAccessible( true );
+        return field.get( target );
+    }
+
+    public void testLoggersInjected()
+        throws Exception
+    {
+        VirtualThreadBuilder builder = (VirtualThreadBuilder) lookup( Builder.class, "virtual" );
+
+        assertNotNull( getField( MultiThreadedBuilder.class, "logger", builder ) );
+        assertNotNull( getField( VirtualThreadBuilder.class, "log", builder ) );
+    }
+
+    public void testVirtualThreadExecutorMatchesRuntime()
+        throws Exception
+    {
+        ExecutorService executor = VirtualThreadBuilder.newVirtualThreadExecutor();
+        if ( !isVirtualThreadSupported() )
+        {
+            assertNull( executor );
+            return;
+        }
+
+        assertNotNull( executor );
+        try
+        {
+            Thread thread = executor.submit( CURRENT_THREAD ).get();
+            assertTrue( isVirtual( thread ) );
+            assertTrue( thread.getName(), thread.getName().startsWith( "BuilderThread " ) );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    public void testNewExecutorRunsTasksOnBuilderThreads()
+        throws Exception
+    {
+        VirtualThreadBuilder builder = (VirtualThreadBuilder) lookup( Builder.class, "virtual" );
+
+        ExecutorService executor = builder.newExecutor( null );
+        try
+        {
+            Thread thread = executor.submit( CURRENT_THREAD ).get();
+            assertNotSame( Thread.currentThread(), thread );
+            assertTrue( thread.getName(), thread.getName().startsWith( "BuilderThread " ) );
+            assertEquals( isVirtualThreadSupported(), isVirtualThreadSupported() && isVirtual( thread ) );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+}
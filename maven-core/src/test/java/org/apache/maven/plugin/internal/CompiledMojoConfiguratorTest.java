@@ -0,0 +1,237 @@
+package org.apache.maven.plugin.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.codehaus.plexus.PlexusTestCase;
+import org.codehaus.plexus.classworlds.realm.ClassRealm;
+import org.codehaus.plexus.component.configurator.BasicComponentConfigurator;
+import org.codehaus.plexus.component.configurator.ComponentConfigurationException;
+import org.codehaus.plexus.component.configurator.ConfigurationListener;
+import org.codehaus.plexus.component.configurator.expression.DefaultExpressionEvaluator;
+import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.codehaus.plexus.configuration.xml.XmlPlexusConfiguration;
+
+public class CompiledMojoConfiguratorTest
+    extends PlexusTestCase
+{
+
+    private CompiledMojoConfigurator configurator;
+
+    private MojoDescriptor mojoDescriptor;
+
+    private ClassRealm realm;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        configurator = lookup( CompiledMojoConfigurator.class );
+
+        PluginDescriptor pluginDescriptor = new PluginDescriptor();
+        pluginDescriptor.setGroupId( "org.apache.maven.test" );
+        pluginDescriptor.setArtifactId( "test-plugin" );
+        pluginDescriptor.setVersion( "1.0" );
+
+        mojoDescriptor = new MojoDescriptor();
+        mojoDescriptor.setGoal( "test" );
+        mojoDescriptor.setPluginDescriptor( pluginDescriptor );
+
+        realm = getContainer().getContainerRealm();
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        configurator = null;
+        mojoDescriptor = null;
+        realm = null;
+
+        super.tearDown();
+    }
+
+    private static PlexusConfiguration newConfiguration( String... pairs )
+    {
+        XmlPlexusConfiguration configuration = new XmlPlexusConfiguration( "configuration" );
+        for ( int i = 0; i < pairs.length; i += 2 )
+        {
+            configuration.addChild( pairs[i], pairs[i + 1] );
+        }
+        return configuration;
+    }
+
+    private TestMojo configure( PlexusConfiguration configuration, ConfigurationListener listener )
+        throws Exception
+    {
+        TestMojo mojo = new TestMojo();
+        configurator.configure( mojo, mojoDescriptor, configuration, new DefaultExpressionEvaluator(), realm,
+                                listener );
+        return mojo;
+    }
+
+    public void testConfiguresSettersAndFields()
+        throws Exception
+    {
+        RecordingListener listener = new RecordingListener();
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            listener.events.clear();
+
+            XmlPlexusConfiguration configuration =
+                (XmlPlexusConfiguration) newConfiguration( "message", "hello", "output-directory", "target",
+                                                           "count", "3" );
+            PlexusConfiguration names = configuration.getChild( "names", true );
+            names.addChild( "name", "a" );
+            names.addChild( "name", "b" );
+
+            TestMojo mojo = configure( configuration, listener );
+
+            assertEquals( "hello!", mojo.message );
+            assertEquals( new File( "target" ).getName(), mojo.outputDirectory.getName() );
+            assertEquals( 3, mojo.count );
+            assertEquals( 2, mojo.names.size() );
+            assertEquals( "a", mojo.names.get( 0 ) );
+
+            List<String> expected = new ArrayList<String>();
+            expected.add( "setter:message" );
+            expected.add( "field:outputDirectory" );
+            expected.add( "field:count" );
+            expected.add( "field:names" );
+            assertEquals( expected, listener.events );
+        }
+    }
+
+    public void testReportsSameProblemsAsBasicConfigurator()
+        throws Exception
+    {
+        PlexusConfiguration configuration = newConfiguration( "unknown", "value" );
+
+        String expected = null;
+        try
+        {
+            new BasicComponentConfigurator().configureComponent( new TestMojo(), configuration,
+                                                                 new DefaultExpressionEvaluator(), realm,
+                                                                 new RecordingListener() );
+            fail( "unknown parameter not detected" );
+        }
+        catch ( ComponentConfigurationException e )
+        {
+            expected = e.getMessage();
+        }
+
+        try
+        {
+            configure( configuration, null );
+            fail( "unknown parameter not detected" );
+        }
+        catch ( ComponentConfigurationException e )
+        {
+            assertEquals( expected, e.getMessage() );
+        }
+
+        configuration = newConfiguration( "count", "many" );
+        try
+        {
+            new BasicComponentConfigurator().configureComponent( new TestMojo(), configuration,
+                                                                 new DefaultExpressionEvaluator(), realm,
+                                                                 new RecordingListener() );
+            fail( "bad value not detected" );
+        }
+        catch ( ComponentConfigurationException e )
+        {
+            expected = e.getMessage();
+        }
+
+        try
+        {
+            configure( configuration, null );
+            fail( "bad value not detected" );
+        }
+        catch ( ComponentConfigurationException e )
+        {
+            assertEquals( expected, e.getMessage() );
+        }
+    }
+
+    public void testRecompilesPlanForNewMojoClass()
+        throws Exception
+    {
+        configure( newConfiguration( "message", "hello" ), null );
+
+        OtherMojo mojo = new OtherMojo();
+        configurator.configure( mojo, mojoDescriptor, newConfiguration( "message", "hello" ),
+                                new DefaultExpressionEvaluator(), realm, null );
+        assertEquals( "hello", mojo.message );
+    }
+
+    static class RecordingListener
+        implements ConfigurationListener
+    {
+
+        final List<String> events = new ArrayList<String>();
+
+        public void notifyFieldChangeUsingSetter( String fieldName, Object value, Object target )
+        {
+            events.add( "setter:" + fieldName );
+        }
+
+        public void notifyFieldChangeUsingReflection( String fieldName, Object value, Object target )
+        {
+            events.add( "field:" + fieldName );
+        }
+
+    }
+
+    public static class TestMojo
+    {
+
+        String message;
+
+        File outputDirectory;
+
+        int count;
+
+        List<String> names = Collections.emptyList();
+
+        public void setMessage( String message )
+        {
+            this.message = message + "!";
+        }
+
+    }
+
+    public static class OtherMojo
+    {
+
+        String message;
+
+    }
+
+}
@@ -0,0 +1,191 @@
+package org.apache.maven.plugin.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.apache.maven.AbstractCoreMavenComponentTestCase;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.Parameter;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+public class MojoExecutionCacheTest
+    extends AbstractCoreMavenComponentTestCase
+{
+
+    private File basedir;
+
+    private MojoExecutionCache cache;
+
+    private MavenSession session;
+
+    private MavenProject project;
+
+    @Override
+    protected String getProjectsDirectory()
+    {
+        return "src/test/projects/lifecycle-executor";
+    }
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        basedir = new File( getBasedir(), "target/mojo-execution-cache" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( basedir );
+        assertTrue( new File( basedir, "src/main/java" ).mkdirs() );
+        FileUtils.fileWrite( new File( basedir, "pom.xml" ), "UTF-8", "<project/>" );
+        FileUtils.fileWrite( new File( basedir, "src/main/java/A.java" ), "UTF-8", "class A {}" );
+
+        cache = lookup( MojoExecutionCache.class );
+
+        session = createMavenSession( null );
+        session.getUserProperties().setProperty( MojoExecutionCache.PROPERTY, "true" );
+        session.getUserProperties().setProperty( "maven.buildCache.directory", new File( basedir, "cache" ).getPath() );
+
+        project = session.getProjects().get( 0 );
+        project.setFile( new File( basedir, "pom.xml" ) );
+        Build build = new Build();
+        build.setDirectory( new File( basedir, "target" ).getPath() );
+        build.setOutputDirectory( new File( basedir, "target/classes" ).getPath() );
+        project.setBuild( build );
+        project.addCompileSourceRoot( new File( basedir, "src/main/java" ).getPath() );
+        project.setArtifact( new DefaultArtifact( "org.apache.maven.test", "maven-test", "1.0", null, "jar", null,
+                                                  new DefaultArtifactHandler( "jar" ) ) );
+        session.setCurrentProject( project );
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        cache = null;
+        session = null;
+        project = null;
+
+        super.tearDown();
+    }
+
+    private MojoExecution newMojoExecution( String message )
+        throws Exception
+    {
+        PluginDescriptor pluginDescriptor = new PluginDescriptor();
+        pluginDescriptor.setGroupId( "org.apache.maven.test" );
+        pluginDescriptor.setArtifactId( "test-plugin" );
+        pluginDescriptor.setVersion( "1.0" );
+
+        MojoDescriptor mojoDescriptor = new MojoDescriptor();
+        mojoDescriptor.setGoal( "compile" );
+        mojoDescriptor.setPluginDescriptor( pluginDescriptor );
+        Parameter parameter = new Parameter();
+        parameter.setName( "outputDirectory" );
+        parameter.setType( File.class.getName() );
+        mojoDescriptor.addParameter( parameter );
+
+        Xpp3Dom configuration = new Xpp3Dom( "configuration" );
+        Xpp3Dom outputDirectory = new Xpp3Dom( "outputDirectory" );
+        outputDirectory.setValue( "${project.build.outputDirectory}" );
+        configuration.addChild( outputDirectory );
+        Xpp3Dom messageDom = new Xpp3Dom( "message" );
+        messageDom.setValue( message );
+        configuration.addChild( messageDom );
+
+        MojoExecution mojoExecution = new MojoExecution( mojoDescriptor, "default-compile" );
+        mojoExecution.setConfiguration( configuration );
+        return mojoExecution;
+    }
+
+    private void execute( MojoExecutionCache.Candidate candidate )
+        throws Exception
+    {
+        new File( basedir, "target/classes" ).mkdirs();
+        FileUtils.fileWrite( new File( basedir, "target/classes/A.class" ), "UTF-8", "A" );
+        File jar = new File( basedir, "target/maven-test-1.0.jar" );
+        FileUtils.fileWrite( jar, "UTF-8", "jar" );
+        project.getArtifact().setFile( jar );
+        project.getProperties().setProperty( "generated", "yes" );
+        cache.save( candidate );
+    }
+
+    public void testRestoresOutputsOfUnchangedExecution()
+        throws Exception
+    {
+        MojoExecutionCache.Candidate candidate = cache.open( session, newMojoExecution( "hello" ) );
+        assertNotNull( candidate );
+        assertFalse( cache.restore( candidate ) );
+        execute( candidate );
+
+        FileUtils.deleteDirectory( new File( basedir, "target" ) );
+        project.getArtifact().setFile( null );
+        project.getProperties().remove( "generated" );
+
+        candidate = cache.open( session, newMojoExecution( "hello" ) );
+        assertTrue( cache.restore( candidate ) );
+        assertEquals( "A", FileUtils.fileRead( new File( basedir, "target/classes/A.class" ), "UTF-8" ) );
+        assertEquals( new File( basedir, "target/maven-test-1.0.jar" ), project.getArtifact().getFile() );
+        assertEquals( "jar", FileUtils.fileRead( project.getArtifact().getFile(), "UTF-8" ) );
+        assertEquals( "yes", project.getProperties().getProperty( "generated" ) );
+    }
+
+    public void testExecutesAfterChangeOfInputs()
+        throws Exception
+    {
+        MojoExecutionCache.Candidate candidate = cache.open( session, newMojoExecution( "hello" ) );
+        execute( candidate );
+
+        assertFalse( cache.restore( cache.open( session, newMojoExecution( "bye" ) ) ) );
+
+        FileUtils.fileWrite( new File( basedir, "src/main/java/A.java" ), "UTF-8", "class A { }" );
+        assertFalse( cache.restore( cache.open( session, newMojoExecution( "hello" ) ) ) );
+    }
+
+    public void testExecutesAfterChangeOfInputsWithinBuildDirectory()
+        throws Exception
+    {
+        new File( basedir, "target/classes" ).mkdirs();
+        FileUtils.fileWrite( new File( basedir, "target/classes/A.class" ), "UTF-8", "A" );
+
+        MojoExecutionCache.Candidate candidate = cache.open( session, newMojoExecution( "hello" ) );
+        execute( candidate );
+        assertTrue( cache.restore( cache.open( session, newMojoExecution( "hello" ) ) ) );
+
+        // e.g. written by an excluded execution
+        FileUtils.fileWrite( new File( basedir, "target/classes/A.class" ), "UTF-8", "B" );
+        assertFalse( cache.restore( cache.open( session, newMojoExecution( "hello" ) ) ) );
+    }
+
+    public void testExcludedPluginsAreNotCached()
+        throws Exception
+    {
+        session.getUserProperties().setProperty( MojoExecutionCache.EXCLUDES_PROPERTY, "test-plugin:compile" );
+        assertNull( cache.open( session, newMojoExecution( "hello" ) ) );
+    }
+
+}
@@ -0,0 +1,138 @@
+package org.apache.maven.project;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+
+/**
+ * Tests {@link DependencyGraphMemo}.
+ */
+public class DependencyGraphMemoTest
+    extends TestCase
+{
+
+    private final List<String> collected = new ArrayList<String>();
+
+    private final RepositorySystem repoSystem =
+        (RepositorySystem) Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { RepositorySystem.class },
+                                                   new InvocationHandler()
+                                                   {
+                                                       public Object invoke( Object proxy, Method method,
+                                                                             Object[] args )
+                                                       {
+                                                           return collect( (CollectRequest) args[1] );
+                                                       }
+                                                   } );
+
+    private final Logger logger = new ConsoleLogger( Logger.LEVEL_DISABLED, "test" );
+
+    private CollectResult collect( CollectRequest request )
+    {
+        DefaultDependencyNode root = new DefaultDependencyNode( request.getRootArtifact() );
+        for ( Dependency dependency : request.getDependencies() )
+        {
+            collected.add( dependency.getArtifact().getArtifactId() );
+
+            DefaultDependencyNode child = new DefaultDependencyNode( dependency );
+            child.getChildren().add( new DefaultDependencyNode( newDependency( "common" ) ) );
+            root.getChildren().add( child );
+        }
+        CollectResult result = new CollectResult( request );
+        result.setRoot( root );
+        return result;
+    }
+
+    private static Dependency newDependency( String artifactId )
+    {
+        return new Dependency( new DefaultArtifact( "test", artifactId, "jar", "1.0" ), "compile" );
+    }
+
+    private static CollectRequest newRequest( String project, String... dependencies )
+    {
+        CollectRequest request = new CollectRequest();
+        request.setRootArtifact( new DefaultArtifact( "test", project, "jar", "1.0" ) );
+        for ( String dependency : dependencies )
+        {
+            request.addDependency( newDependency( dependency ) );
+        }
+        return request;
+    }
+
+    private DefaultRepositorySystemSession newSession( boolean memoize )
+    {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setConfigProperty( DependencyGraphMemo.CONFIG_PROP_MEMOIZE, memoize );
+        return session;
+    }
+
+    public void testDisabledByDefault()
+    {
+        assertNull( DependencyGraphMemo.get( newSession( false ) ) );
+    }
+
+    public void testSharedSubtreesCollectedOnce()
+    {
+        DefaultRepositorySystemSession session = newSession( true );
+        DependencyGraphMemo memo = DependencyGraphMemo.get( session );
+        assertSame( memo, DependencyGraphMemo.get( new DefaultRepositorySystemSession( session ) ) );
+
+        DependencyNode a = memo.collect( repoSystem, session, newRequest( "a", "lib1", "lib2" ), logger );
+        assertEquals( 2, a.getChildren().size() );
+
+        DependencyNode b = memo.collect( repoSystem, session, newRequest( "b", "lib3", "lib1" ), logger );
+
+        assertEquals( "[lib1, lib2, lib3]", collected.toString() );
+        assertEquals( 2, b.getChildren().size() );
+        assertEquals( "lib3", b.getChildren().get( 0 ).getArtifact().getArtifactId() );
+        assertEquals( "lib1", b.getChildren().get( 1 ).getArtifact().getArtifactId() );
+        assertEquals( "common", b.getChildren().get( 1 ).getChildren().get( 0 ).getArtifact().getArtifactId() );
+        assertNotSame( a.getChildren().get( 0 ), b.getChildren().get( 1 ) );
+        assertEquals( 2, memo.getSavedNodes() );
+    }
+
+    public void testSubtreeContainingProjectNotReused()
+    {
+        DefaultRepositorySystemSession session = newSession( true );
+        DependencyGraphMemo memo = DependencyGraphMemo.get( session );
+
+        memo.collect( repoSystem, session, newRequest( "a", "lib1" ), logger );
+        memo.collect( repoSystem, session, newRequest( "common", "lib1" ), logger );
+
+        assertEquals( "[lib1, lib1]", collected.toString() );
+    }
+
+}
@@ -0,0 +1,255 @@
+package org.apache.maven.project;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Plugin;
+import org.codehaus.plexus.util.dag.CycleDetectedException;
+import org.codehaus.plexus.util.dag.DAG;
+import org.codehaus.plexus.util.dag.TopologicalSorter;
+import org.codehaus.plexus.util.dag.Vertex;
+
+/**
+ * Tests the sorting of a large synthetic reactor and compares the resulting order with the one of a Plexus
+ * {@link DAG} that checks for cycles on every edge insertion.
+ */
+public class LargeReactorSortingTest
+    extends TestCase
+{
+
+    private static final int MODULES = 5000;
+
+    private static MavenProject createProject( int module )
+    {
+        Model model = new Model();
+        model.setGroupId( "org.apache.maven.its" );
+        model.setArtifactId( "module" + module );
+        model.setVersion( "1.0" );
+        model.setBuild( new Build() );
+        return new MavenProject( model );
+    }
+
+    private static Dependency createDependency( int module )
+    {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId( "org.apache.maven.its" );
+        dependency.setArtifactId( "module" + module );
+        dependency.setVersion( "1.0" );
+        return dependency;
+    }
+
+    private static Plugin createPlugin( int module )
+    {
+        Plugin plugin = new Plugin();
+        plugin.setGroupId( "org.apache.maven.its" );
+        plugin.setArtifactId( "module" + module );
+        plugin.setVersion( "1.0" );
+        return plugin;
+    }
+
+    /**
+     * Creates a reactor whose modules depend on a few lower modules and inherit from one of the first ten modules,
+     * listed in random order. Every seventh module also uses a plugin that nobody depends on. With backward plugins,
+     * these plugins are built by other plugin using modules, some of them in cycles, and the plugin users are listed
+     * last.
+     */
+    private static List<MavenProject> createReactor( int size, long seed, boolean backwardPlugins )
+    {
+        Random random = new Random( seed );
+        List<MavenProject> projects = new ArrayList<MavenProject>( size );
+        List<MavenProject> pluginUsers = new ArrayList<MavenProject>();
+        for ( int module = 0; module < size; module++ )
+        {
+            MavenProject project = createProject( module );
+            for ( int i = 0; i < 4 && module > 0; i++ )
+            {
+                int dependency = random.nextInt( module );
+                if ( !isPluginUser( dependency ) )
+                {
+                    project.getModel().addDependency( createDependency( dependency ) );
+                }
+            }
+            if ( module > 10 )
+            {
+                Parent parent = new Parent();
+                parent.setGroupId( "org.apache.maven.its" );
+                parent.setArtifactId( "module" + random.nextInt( 10 ) );
+                parent.setVersion( "1.0" );
+                project.getModel().setParent( parent );
+            }
+            if ( isPluginUser( module ) )
+            {
+                int target = backwardPlugins ? 14 + 7 * random.nextInt( ( size - 8 ) / 7 ) : random.nextInt( module );
+                Plugin plugin = createPlugin( target );
+                plugin.addDependency( createDependency( random.nextInt( 10 ) ) );
+                project.getModel().getBuild().addPlugin( plugin );
+                ( backwardPlugins ? pluginUsers : projects ).add( project );
+            }
+            else
+            {
+                projects.add( project );
+            }
+        }
+        Collections.shuffle( projects, random );
+        Collections.shuffle( pluginUsers, random );
+        projects.addAll( pluginUsers );
+        return projects;
+    }
+
+    private static boolean isPluginUser( int module )
+    {
+        return module > 10 && module % 7 == 0;
+    }
+
+    private static List<String> getIds( List<MavenProject> projects )
+    {
+        List<String> ids = new ArrayList<String>( projects.size() );
+        for ( MavenProject project : projects )
+        {
+            ids.add( ProjectSorter.getId( project ) );
+        }
+        return ids;
+    }
+
+    /**
+     * Sorts the projects the way the sorter did with a Plexus DAG.
+     */
+    private static List<String> sortWithDag( List<MavenProject> projects )
+        throws CycleDetectedException
+    {
+        DAG dag = new DAG();
+        Map<String, MavenProject> projectMap = new HashMap<String, MavenProject>();
+        for ( MavenProject project : projects )
+        {
+            dag.addVertex( ProjectSorter.getId( project ) );
+            projectMap.put( ProjectSorter.getId( project ), project );
+        }
+        for ( Vertex vertex : dag.getVerticies() )
+        {
+            MavenProject project = projectMap.get( vertex.getLabel() );
+            for ( Dependency dependency : project.getDependencies() )
+            {
+                addEdge( dag, vertex, dependency.getArtifactId(), false, false );
+            }
+            if ( project.getModel().getParent() != null )
+            {
+                addEdge( dag, vertex, project.getModel().getParent().getArtifactId(), true, false );
+            }
+            for ( Plugin plugin : project.getBuildPlugins() )
+            {
+                addEdge( dag, vertex, plugin.getArtifactId(), false, true );
+                for ( Dependency dependency : plugin.getDependencies() )
+                {
+                    addEdge( dag, vertex, dependency.getArtifactId(), false, true );
+                }
+            }
+        }
+        return TopologicalSorter.sort( dag );
+    }
+
+    private static void addEdge( DAG dag, Vertex from, String artifactId, boolean force, boolean safe )
+        throws CycleDetectedException
+    {
+        Vertex to = dag.getVertex( "org.apache.maven.its:" + artifactId + ":1.0" );
+        if ( from.equals( to ) )
+        {
+            return;
+        }
+        if ( force && to.getChildren().contains( from ) )
+        {
+            dag.removeEdge( to, from );
+        }
+        try
+        {
+            dag.addEdge( from, to );
+        }
+        catch ( CycleDetectedException e )
+        {
+            if ( !safe )
+            {
+                throw e;
+            }
+        }
+    }
+
+    public void testLargeReactor()
+        throws Exception
+    {
+        List<MavenProject> projects = createReactor( MODULES, 42, false );
+
+        List<MavenProject> sorted = new ProjectSorter( projects ).getSortedProjects();
+
+        assertEquals( sortWithDag( projects ), getIds( sorted ) );
+    }
+
+    public void testSameOrderWhenPluginsCauseCycles()
+        throws Exception
+    {
+        for ( int seed = 0; seed < 10; seed++ )
+        {
+            List<MavenProject> projects = createReactor( 500, seed, true );
+
+            assertEquals( "seed " + seed, sortWithDag( projects ),
+                          getIds( new ProjectSorter( projects ).getSortedProjects() ) );
+        }
+    }
+
+    public void testReportsAllCycles()
+        throws Exception
+    {
+        List<MavenProject> projects = new ArrayList<MavenProject>();
+        for ( int module = 0; module < 6; module++ )
+        {
+            projects.add( createProject( module ) );
+        }
+        projects.get( 0 ).getModel().addDependency( createDependency( 1 ) );
+        projects.get( 1 ).getModel().addDependency( createDependency( 0 ) );
+        projects.get( 2 ).getModel().addDependency( createDependency( 3 ) );
+        projects.get( 3 ).getModel().addDependency( createDependency( 4 ) );
+        projects.get( 4 ).getModel().addDependency( createDependency( 2 ) );
+
+        try
+        {
+            new ProjectSorter( projects );
+            fail( "Cycles should fail" );
+        }
+        catch ( CycleDetectedException e )
+        {
+            String message = e.getMessage();
+            assertTrue( message, message.contains( "2 cycles" ) );
+            assertTrue( message, message.contains( "org.apache.maven.its:module1:1.0" ) );
+            assertTrue( message, message.contains( "org.apache.maven.its:module4:1.0" ) );
+            assertFalse( message, message.contains( "org.apache.maven.its:module5:1.0" ) );
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.apache.maven.project;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.building.CacheStatistics;
+
+import junit.framework.TestCase;
+
+public class ReactorModelCacheTest
+    extends TestCase
+{
+
+    public void testStatisticsCountNewEntriesOnly()
+    {
+        CacheStatistics statistics = new CacheStatistics( "reactorModel" );
+        ReactorModelCache cache = new ReactorModelCache( statistics );
+
+        assertNull( cache.get( "g", "a", "1", "raw" ) );
+        cache.put( "g", "a", "1", "raw", "first" );
+        cache.put( "g", "a", "1", "raw", "second" );
+        cache.put( "g", "a", "1", "effective", "third" );
+
+        assertEquals( "second", cache.get( "g", "a", "1", "raw" ) );
+        assertEquals( 1, statistics.getHits() );
+        assertEquals( 1, statistics.getMisses() );
+        assertEquals( 2, statistics.getEntryCount() );
+    }
+
+}
@@ -0,0 +1,270 @@
+package org.apache.maven.session.scope.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import com.google.inject.Key;
+import com.google.inject.OutOfScopeException;
+import com.google.inject.Provider;
+
+public class SessionScopeTest
+    extends TestCase
+{
+    public void testSeeding()
+        throws Exception
+    {
+        SessionScope scope = new SessionScope();
+
+        try
+        {
+            scope.seed( Object.class, new Object() );
+            fail( "seeded outside of scope" );
+        }
+        catch ( IllegalStateException expected )
+        {
+        }
+
+        scope.enter();
+        Provider<Object> provider = scope.scope( Key.get( Object.class ), null );
+
+        Object o1 = new Object();
+        scope.seed( Object.class, o1 );
+        assertSame( o1, provider.get() );
+
+        Object o2 = new Object();
+        scope.seed( Object.class, o2 );
+        assertSame( o2, provider.get() );
+
+        final String s1 = new String( "seeded" );
+        scope.seed( String.class, new Provider<String>()
+        {
+            @Override
+            public String get()
+            {
+                return s1;
+            }
+        } );
+        Provider<String> stringProvider = scope.scope( Key.get( String.class ), null );
+        assertSame( s1, stringProvider.get() );
+        assertSame( o2, provider.get() );
+
+        SessionScope.Memento memento = scope.memento();
+
+        scope.enter();
+        assertNull( provider.get() );
+        scope.exit();
+        assertSame( o2, provider.get() );
+
+        scope.enter( memento );
+        assertSame( o2, provider.get() );
+        assertSame( s1, stringProvider.get() );
+        scope.exit();
+
+        scope.exit();
+
+        try
+        {
+            scope.exit();
+            fail();
+        }
+        catch ( IllegalStateException expected )
+        {
+        }
+    }
+
+    public void testSeedingKeepsProvidedObjects()
+        throws Exception
+    {
+        SessionScope scope = new SessionScope();
+        scope.enter();
+
+        Provider<String> provider = scope.scope( Key.get( String.class ), new Provider<String>()
+        {
+            @Override
+            public String get()
+            {
+                return new String( "provided" );
+            }
+        } );
+        String instance = provider.get();
+
+        scope.seed( Object.class, new Object() );
+        assertSame( instance, provider.get() );
+
+        scope.exit();
+    }
+
+    public void testProvidedNullIsCached()
+        throws Exception
+    {
+        SessionScope scope = new SessionScope();
+        scope.enter();
+
+        final AtomicInteger calls = new AtomicInteger();
+        Provider<Object> provider = scope.scope( Key.get( Object.class ), new Provider<Object>()
+        {
+            @Override
+            public Object get()
+            {
+                calls.incrementAndGet();
+                return null;
+            }
+        } );
+
+        assertNull( provider.get() );
+        assertNull( provider.get() );
+        assertEquals( 1, calls.get() );
+
+        scope.exit();
+    }
+
+    public void testGetSeed()
+        throws Exception
+    {
+        SessionScope scope = new SessionScope();
+        assertNull( scope.getSeed( Object.class ) );
+
+        scope.enter();
+        assertNull( scope.getSeed( Object.class ) );
+
+        scope.scope( Key.get( String.class ), new Provider<String>()
+        {
+            @Override
+            public String get()
+            {
+                return "provided";
+            }
+        } ).get();
+        assertNull( scope.getSeed( String.class ) );
+
+        Object seeded = new Object();
+        scope.seed( Object.class, seeded );
+        assertSame( seeded, scope.getSeed( Object.class ) );
+
+        scope.seed( Integer.class, new Provider<Integer>()
+        {
+            @Override
+            public Integer get()
+            {
+                return 42;
+            }
+        } );
+        assertEquals( Integer.valueOf( 42 ), scope.getSeed( Integer.class ) );
+
+        scope.exit();
+        assertNull( scope.getSeed( Object.class ) );
+    }
+
+    public void testWrappedTasksRunInSessionOnOtherThreads()
+        throws Exception
+    {
+        final SessionScope scope = new SessionScope();
+
+        try
+        {
+            scope.wrap( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                }
+            } );
+            fail( "wrapped outside of scope" );
+        }
+        catch ( IllegalStateException expected )
+        {
+        }
+
+        scope.enter();
+
+        final Object seeded = new Object();
+        scope.seed( Object.class, seeded );
+        final Provider<Object> provider = scope.scope( Key.get( Object.class ), null );
+        final Provider<String> provided = scope.scope( Key.get( String.class ), new Provider<String>()
+        {
+            @Override
+            public String get()
+            {
+                return new String( "provided" );
+            }
+        } );
+        final String instance = provided.get();
+
+        final AtomicInteger runs = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Callable<Boolean> task = scope.wrap( new Callable<Boolean>()
+            {
+                @Override
+                public Boolean call()
+                {
+                    return provider.get() == seeded && provided.get() == instance
+                        && scope.getSeed( Object.class ) == seeded;
+                }
+            } );
+            Runnable runnable = scope.wrap( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    if ( provider.get() == seeded )
+                    {
+                        runs.incrementAndGet();
+                    }
+                }
+            } );
+            scope.exit();
+
+            assertTrue( executor.submit( task ).get() );
+            assertTrue( executor.submit( task ).get() );
+            executor.submit( runnable ).get();
+            assertEquals( 1, runs.get() );
+
+            try
+            {
+                executor.submit( new Callable<Object>()
+                {
+                    @Override
+                    public Object call()
+                    {
+                        return provider.get();
+                    }
+                } ).get();
+                fail( "worker thread left in scope" );
+            }
+            catch ( ExecutionException expected )
+            {
+                assertTrue( expected.getCause() instanceof OutOfScopeException );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
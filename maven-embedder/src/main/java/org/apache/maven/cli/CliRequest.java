@@ -51,7 +51,7 @@
 
     MavenExecutionRequest request;
 
-    CliRequest( String[] args, ClassWorld classWorld )
+    public CliRequest( String[] args, ClassWorld classWorld )
     {
         this.args = args;
         this.classWorld = classWorld;
@@ -83,6 +83,22 @@ public File getMultiModuleProjectDirectory()
         return multiModuleProjectDirectory;
     }
 
+    /**
+     * @since 3.3.2
+     */
+    public void setWorkingDirectory( String workingDirectory )
+    {
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * @since 3.3.2
+     */
+    public void setMultiModuleProjectDirectory( File multiModuleProjectDirectory )
+    {
+        this.multiModuleProjectDirectory = multiModuleProjectDirectory;
+    }
+
     public boolean isDebug()
     {
         return debug;
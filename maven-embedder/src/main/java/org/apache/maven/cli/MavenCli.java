@@ -54,6 +54,7 @@
 import org.apache.maven.cli.event.DefaultEventSpyContext;
 import org.apache.maven.cli.event.ExecutionEventLogger;
 import org.apache.maven.cli.internal.BootstrapCoreExtensionManager;
+import org.apache.maven.cli.internal.RealmFileStamps;
 import org.apache.maven.cli.internal.extension.model.CoreExtension;
 import org.apache.maven.cli.internal.extension.model.io.xpp3.CoreExtensionsXpp3Reader;
 import org.apache.maven.cli.logging.Slf4jConfiguration;
@@ -77,9 +78,17 @@
 import org.apache.maven.extension.internal.CoreExtensionEntry;
 import org.apache.maven.lifecycle.LifecycleExecutionException;
 import org.apache.maven.model.building.ModelProcessor;
+import org.apache.maven.plugin.ExtensionRealmCache;
+import org.apache.maven.plugin.PluginArtifactsCache;
+import org.apache.maven.plugin.PluginDescriptorCache;
+import org.apache.maven.plugin.PluginRealmCache;
 import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectRealmCache;
 import org.apache.maven.properties.internal.EnvironmentUtils;
 import org.apache.maven.properties.internal.SystemProperties;
+import org.apache.maven.settings.building.DefaultSettingsBuilder;
+import org.apache.maven.settings.building.SettingsBuilder;
+import org.apache.maven.settings.building.SettingsCache;
 import org.apache.maven.toolchain.building.DefaultToolchainsBuildingRequest;
 import org.apache.maven.toolchain.building.ToolchainsBuilder;
 import org.apache.maven.toolchain.building.ToolchainsBuildingResult;
@@ -171,6 +180,20 @@
     private DefaultSecDispatcher dispatcher;
 
     private Map<String, ConfigurationProcessor> configurationProcessors;
+
+    private boolean containerReuse;
+
+    private PlexusContainer sharedContainer;
+
+    private String sharedContainerKey;
+
+    private ClassWorld sharedContainerWorld;
+
+    private Set<String> sharedContainerRealms;
+
+    private Set<String> sharedContainerBaseRealms;
+
+    private RealmFileStamps sharedContainerStamps;
     
     public MavenCli()
     {
@@ -265,6 +288,57 @@ public int doMain( String[] args, String workingDirectory, PrintStream stdout, P
         }
     }
 
+    /**
+     * Controls whether the container and its component caches are kept between invocations of
+     * {@link #doMain(CliRequest)}, for long-lived processes that run several builds with the same class world. The
+     * container is recreated when the extension class path or the core extensions descriptor changes, the plugin,
+     * extension and project realm caches are flushed when any file on the class path of a realm changes.
+     *
+     * @param containerReuse {@code true} to keep the container between invocations, {@code false} to dispose it after
+     *            each invocation.
+     * @since 3.3.2
+     */
+    public void setContainerReuse( boolean containerReuse )
+    {
+        this.containerReuse = containerReuse;
+        if ( !containerReuse )
+        {
+            disposeSharedContainer();
+        }
+    }
+
+    /**
+     * Disposes the container kept for reuse, if any.
+     *
+     * @since 3.3.2
+     */
+    public void disposeSharedContainer()
+    {
+        if ( sharedContainer != null )
+        {
+            sharedContainer.dispose();
+            sharedContainer = null;
+            sharedContainerKey = null;
+            sharedContainerStamps = null;
+
+            ClassWorld world = sharedContainerWorld;
+            for ( String realmId : sharedContainerRealms )
+            {
+                try
+                {
+                    world.disposeRealm( realmId );
+                }
+                catch ( NoSuchRealmException ignored )
+                {
+                    // already gone
+                }
+            }
+            sharedContainerRealms = null;
+            sharedContainerBaseRealms = null;
+            sharedContainerWorld = null;
+        }
+    }
+
     // TODO: need to externalize CliRequest
     public int doMain( CliRequest cliRequest )
     {
@@ -308,10 +382,14 @@ public int doMain( CliRequest cliRequest )
         }
         finally
         {
-            if ( localContainer != null )
+            if ( localContainer != null && localContainer != sharedContainer )
             {
                 localContainer.dispose();
             }
+            else if ( localContainer != null )
+            {
+                sharedContainerStamps = new RealmFileStamps( cliRequest.classWorld, sharedContainerBaseRealms );
+            }
         }
     }
 
@@ -516,6 +594,20 @@ private PlexusContainer container( CliRequest cliRequest )
 
         List<File> extClassPath = parseExtClasspath( cliRequest );
 
+        String containerKey = null;
+        if ( containerReuse )
+        {
+            containerKey = getContainerKey( cliRequest, extClassPath );
+            if ( sharedContainer != null && containerKey.equals( sharedContainerKey )
+                && sharedContainerWorld == cliRequest.classWorld )
+            {
+                return reuseContainer( cliRequest );
+            }
+            disposeSharedContainer();
+        }
+
+        Set<String> realmsBefore = getRealmIds( cliRequest.classWorld );
+
         CoreExtensionEntry coreEntry = CoreExtensionEntry.discoverFrom( coreRealm );
         List<CoreExtensionEntry> extensions =
             loadCoreExtensions( cliRequest, coreRealm, coreEntry.getExportedArtifacts() );
@@ -591,9 +683,94 @@ protected void configure()
 
         dispatcher = (DefaultSecDispatcher) container.lookup( SecDispatcher.class, "maven" );
 
+        if ( containerReuse )
+        {
+            // a reused container builds the same settings over and over, a single build would not benefit
+            SettingsBuilder settingsBuilder = container.lookup( SettingsBuilder.class );
+            if ( settingsBuilder instanceof DefaultSettingsBuilder
+                && ( (DefaultSettingsBuilder) settingsBuilder ).getSettingsCache() == null )
+            {
+                ( (DefaultSettingsBuilder) settingsBuilder ).setSettingsCache( new SettingsCache() );
+            }
+
+            sharedContainer = container;
+            sharedContainerKey = containerKey;
+            sharedContainerWorld = cliRequest.classWorld;
+            sharedContainerBaseRealms = getRealmIds( cliRequest.classWorld );
+            sharedContainerRealms = new HashSet<String>( sharedContainerBaseRealms );
+            sharedContainerRealms.removeAll( realmsBefore );
+        }
+
         return container;
     }
 
+    private PlexusContainer reuseContainer( CliRequest cliRequest )
+        throws Exception
+    {
+        DefaultPlexusContainer container = (DefaultPlexusContainer) sharedContainer;
+
+        if ( sharedContainerStamps != null && sharedContainerStamps.isStale() )
+        {
+            slf4jLogger.debug( "Class path of plugin or extension realms changed, flushing realm caches" );
+            flushRealmCaches( container );
+        }
+
+        container.setLoggerManager( plexusLoggerManager );
+
+        container.getLoggerManager().setThresholds( cliRequest.request.getLoggingLevel() );
+
+        Thread.currentThread().setContextClassLoader( container.getContainerRealm() );
+
+        DefaultEventSpyContext eventSpyContext = new DefaultEventSpyContext();
+        Map<String, Object> data = eventSpyContext.getData();
+        data.put( "plexus", container );
+        data.put( "workingDirectory", cliRequest.workingDirectory );
+        data.put( "systemProperties", cliRequest.systemProperties );
+        data.put( "userProperties", cliRequest.userProperties );
+        data.put( "versionProperties", CLIReportingUtils.getBuildProperties() );
+        eventSpyDispatcher.init( eventSpyContext );
+
+        slf4jLogger = slf4jLoggerFactory.getLogger( this.getClass().getName() );
+
+        return container;
+    }
+
+    private void flushRealmCaches( PlexusContainer container )
+        throws ComponentLookupException
+    {
+        container.lookup( PluginRealmCache.class ).flush();
+        container.lookup( PluginArtifactsCache.class ).flush();
+        container.lookup( PluginDescriptorCache.class ).flush();
+        container.lookup( ExtensionRealmCache.class ).flush();
+        container.lookup( ProjectRealmCache.class ).flush();
+    }
+
+    private String getContainerKey( CliRequest cliRequest, List<File> extClassPath )
+    {
+        StringBuilder buffer = new StringBuilder( 256 );
+        for ( File file : extClassPath )
+        {
+            buffer.append( file.getAbsolutePath() ).append( '@' ).append( file.lastModified() ).append( ';' );
+        }
+        if ( cliRequest.multiModuleProjectDirectory != null )
+        {
+            File extensionsFile = new File( cliRequest.multiModuleProjectDirectory, EXTENSIONS_FILENAME );
+            buffer.append( extensionsFile.getAbsolutePath() ).append( '@' ).append( extensionsFile.lastModified() );
+            buffer.append( ':' ).append( extensionsFile.length() );
+        }
+        return buffer.toString();
+    }
+
+    private static Set<String> getRealmIds( ClassWorld classWorld )
+    {
+        Set<String> realms = new HashSet<String>();
+        for ( ClassRealm realm : classWorld.getRealms() )
+        {
+            realms.add( realm.getId() );
+        }
+        return realms;
+    }
+
     private List<CoreExtensionEntry> loadCoreExtensions( CliRequest cliRequest, ClassRealm containerRealm,
                                                          Set<String> providedArtifacts )
     {
@@ -0,0 +1,144 @@
+package org.apache.maven.cli.daemon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Properties;
+
+/**
+ * Thin client that submits its command line to a running {@link DaemonServer} and streams the build output back. The
+ * client needs nothing but this package on its class path, e.g.
+ * {@code java -cp maven-embedder.jar org.apache.maven.cli.daemon.DaemonClient clean install}, which is what the
+ * {@code mvnDaemon} script does. If no daemon is registered, the registered daemon belongs to a different Maven home or
+ * it refuses the build, e.g. because it was started with different environment variables, the client fails with exit
+ * code {@value #NO_DAEMON} so that wrapper scripts can fall back to a regular invocation.
+ *
+ * @since 3.3.2
+ */
+public class DaemonClient
+{
+
+    /**
+     * The exit code used if no daemon could be reached.
+     */
+    public static final int NO_DAEMON = 100;
+
+    public static void main( String[] args )
+    {
+        System.exit( new DaemonClient().run( args, System.out, System.err ) );
+    }
+
+    public int run( String[] args, OutputStream stdout, OutputStream stderr )
+    {
+        File registryFile = DaemonProtocol.getRegistryFile();
+        Properties registry = DaemonProtocol.readRegistry( registryFile );
+        if ( registry == null )
+        {
+            return NO_DAEMON;
+        }
+
+        String mavenHome = System.getProperty( "maven.home" );
+        String daemonHome = registry.getProperty( DaemonProtocol.MAVEN_HOME );
+        if ( mavenHome != null && daemonHome != null
+            && !new File( mavenHome ).getAbsoluteFile().equals( new File( daemonHome ).getAbsoluteFile() ) )
+        {
+            return NO_DAEMON;
+        }
+
+        int port;
+        try
+        {
+            port = Integer.parseInt( registry.getProperty( DaemonProtocol.PORT ) );
+        }
+        catch ( NumberFormatException e )
+        {
+            return NO_DAEMON;
+        }
+
+        Socket socket;
+        try
+        {
+            socket = new Socket( InetAddress.getByName( null ), port );
+        }
+        catch ( IOException e )
+        {
+            return NO_DAEMON;
+        }
+
+        try
+        {
+            DataOutputStream out =
+                new DataOutputStream( new BufferedOutputStream( socket.getOutputStream() ) );
+            DataInputStream in = new DataInputStream( new BufferedInputStream( socket.getInputStream() ) );
+
+            DaemonProtocol.Request request =
+                new DaemonProtocol.Request( registry.getProperty( DaemonProtocol.SECRET ),
+                                            System.getProperty( "user.dir" ),
+                                            System.getProperty( "maven.multiModuleProjectDirectory" ), args,
+                                            System.getenv() );
+            DaemonProtocol.writeRequest( out, request );
+
+            return DaemonProtocol.readResponse( in, stdout, stderr );
+        }
+        catch ( DaemonProtocol.RefusedException e )
+        {
+            report( stderr, "Maven daemon refused the build: " + e.getMessage() );
+            return NO_DAEMON;
+        }
+        catch ( IOException e )
+        {
+            report( stderr, "Lost connection to Maven daemon: " + e.getMessage() );
+            return 1;
+        }
+        finally
+        {
+            try
+            {
+                socket.close();
+            }
+            catch ( IOException e )
+            {
+                // ignore
+            }
+        }
+    }
+
+    private static void report( OutputStream stderr, String message )
+    {
+        try
+        {
+            stderr.write( ( message + "\n" ).getBytes() );
+            stderr.flush();
+        }
+        catch ( IOException ignored )
+        {
+            // nothing left to report to
+        }
+    }
+
+}
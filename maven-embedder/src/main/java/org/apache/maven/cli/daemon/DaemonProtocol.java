@@ -0,0 +1,463 @@
+package org.apache.maven.cli.daemon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The wire format spoken between the {@link DaemonClient} and the {@link DaemonServer} over a loopback socket, and the
+ * registry file through which the client finds the server. This class deliberately depends on the JRE only, so that
+ * the client can run without the Maven core on its class path.
+ * <p>
+ * The client sends the protocol version, the secret from the registry file, the working directory, the multi-module
+ * project directory (empty if unknown), the command line arguments and its environment variables. The server answers
+ * with a sequence of frames, each starting with a type byte: {@link #STDOUT} and {@link #STDERR} frames carry a length
+ * and that many bytes of build output, the final {@link #EXIT} frame carries the exit code of the build. A server
+ * that cannot run the build as the client would have run it answers with a single {@link #REFUSED} frame instead,
+ * which carries the reason.
+ *
+ * @since 3.3.2
+ */
+public final class DaemonProtocol
+{
+
+    public static final int VERSION = 2;
+
+    public static final byte STDOUT = 'o';
+
+    public static final byte STDERR = 'e';
+
+    public static final byte EXIT = 'x';
+
+    public static final byte REFUSED = 'r';
+
+    /**
+     * The sole argument of a request that stops the daemon instead of running a build.
+     */
+    public static final String STOP_COMMAND = "--stop-daemon";
+
+    /**
+     * The system property naming the registry file, defaults to {@code ~/.m2/daemon.properties}.
+     */
+    public static final String REGISTRY_PROPERTY = "maven.daemon.registry";
+
+    static final String PORT = "port";
+
+    static final String SECRET = "secret";
+
+    static final String MAVEN_HOME = "maven.home";
+
+    private DaemonProtocol()
+    {
+        // hide constructor
+    }
+
+    /**
+     * A build request as sent by the client.
+     */
+    public static final class Request
+    {
+
+        private final String secret;
+
+        private final String workingDirectory;
+
+        private final String multiModuleProjectDirectory;
+
+        private final String[] args;
+
+        private final Map<String, String> environment;
+
+        public Request( String secret, String workingDirectory, String multiModuleProjectDirectory, String[] args,
+                        Map<String, String> environment )
+        {
+            this.secret = secret;
+            this.workingDirectory = workingDirectory;
+            this.multiModuleProjectDirectory =
+                ( multiModuleProjectDirectory != null ) ? multiModuleProjectDirectory : "";
+            this.args = args;
+            this.environment = ( environment != null ) ? environment : Collections.<String, String>emptyMap();
+        }
+
+        public String getSecret()
+        {
+            return secret;
+        }
+
+        public String getWorkingDirectory()
+        {
+            return workingDirectory;
+        }
+
+        /**
+         * @return The multi-module project directory or an empty string if unknown, never {@code null}.
+         */
+        public String getMultiModuleProjectDirectory()
+        {
+            return multiModuleProjectDirectory;
+        }
+
+        public String[] getArgs()
+        {
+            return args;
+        }
+
+        /**
+         * @return The environment variables of the client, never {@code null}.
+         */
+        public Map<String, String> getEnvironment()
+        {
+            return environment;
+        }
+
+    }
+
+    public static void writeRequest( DataOutputStream out, Request request )
+        throws IOException
+    {
+        out.writeInt( VERSION );
+        out.writeUTF( request.secret );
+        out.writeUTF( request.workingDirectory );
+        out.writeUTF( request.multiModuleProjectDirectory );
+        out.writeInt( request.args.length );
+        for ( String arg : request.args )
+        {
+            out.writeUTF( arg );
+        }
+        out.writeInt( request.environment.size() );
+        for ( Map.Entry<String, String> variable : request.environment.entrySet() )
+        {
+            out.writeUTF( variable.getKey() );
+            out.writeUTF( variable.getValue() );
+        }
+        out.flush();
+    }
+
+    public static Request readRequest( DataInputStream in )
+        throws IOException
+    {
+        return readRequest( in, readSecret( in ) );
+    }
+
+    /**
+     * Reads the start of a request up to the secret, so that the daemon can authenticate the client before it reads
+     * the rest of the request.
+     */
+    public static String readSecret( DataInputStream in )
+        throws IOException
+    {
+        int version = in.readInt();
+        if ( version != VERSION )
+        {
+            throw new IOException( "Unsupported daemon protocol version " + version + ", expected " + VERSION );
+        }
+        return in.readUTF();
+    }
+
+    /**
+     * Reads the rest of a request whose secret was read via {@link #readSecret(DataInputStream)}.
+     */
+    public static Request readRequest( DataInputStream in, String secret )
+        throws IOException
+    {
+        String workingDirectory = in.readUTF();
+        String multiModuleProjectDirectory = in.readUTF();
+        int count = in.readInt();
+        if ( count < 0 || count > 4096 )
+        {
+            throw new IOException( "Invalid number of arguments " + count );
+        }
+        String[] args = new String[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            args[i] = in.readUTF();
+        }
+        count = in.readInt();
+        if ( count < 0 || count > 4096 )
+        {
+            throw new IOException( "Invalid number of environment variables " + count );
+        }
+        Map<String, String> environment = new LinkedHashMap<String, String>( count * 2 );
+        for ( int i = 0; i < count; i++ )
+        {
+            environment.put( in.readUTF(), in.readUTF() );
+        }
+        return new Request( secret, workingDirectory, multiModuleProjectDirectory, args, environment );
+    }
+
+    /**
+     * Gets an output stream that wraps everything written to it into frames of the specified type.
+     *
+     * @param out The stream to write the frames to, must not be {@code null}. All frame streams of a connection must
+     *            share this instance, writes are synchronized on it.
+     * @param type The frame type, either {@link #STDOUT} or {@link #STDERR}.
+     * @return The framing output stream, never {@code null}.
+     */
+    public static OutputStream newFrameStream( final DataOutputStream out, final byte type )
+    {
+        return new OutputStream()
+        {
+            @Override
+            public void write( int b )
+                throws IOException
+            {
+                write( new byte[] { (byte) b }, 0, 1 );
+            }
+
+            @Override
+            public void write( byte[] b, int off, int len )
+                throws IOException
+            {
+                if ( len <= 0 )
+                {
+                    return;
+                }
+                synchronized ( out )
+                {
+                    out.writeByte( type );
+                    out.writeInt( len );
+                    out.write( b, off, len );
+                }
+            }
+
+            @Override
+            public void flush()
+                throws IOException
+            {
+                synchronized ( out )
+                {
+                    out.flush();
+                }
+            }
+        };
+    }
+
+    public static void writeExit( DataOutputStream out, int exitCode )
+        throws IOException
+    {
+        synchronized ( out )
+        {
+            out.writeByte( EXIT );
+            out.writeInt( exitCode );
+            out.flush();
+        }
+    }
+
+    /**
+     * Tells the client that the server will not run its build.
+     *
+     * @param out The stream to write the frame to, must not be {@code null}.
+     * @param reason The reason for the refusal, must not be {@code null}.
+     */
+    public static void writeRefusal( DataOutputStream out, String reason )
+        throws IOException
+    {
+        synchronized ( out )
+        {
+            out.writeByte( REFUSED );
+            out.writeUTF( reason );
+            out.flush();
+        }
+    }
+
+    /**
+     * Copies the frames sent by the server to the specified streams until the exit frame arrives.
+     *
+     * @param in The stream to read the frames from, must not be {@code null}.
+     * @param stdout The stream to copy the standard output of the build to, must not be {@code null}.
+     * @param stderr The stream to copy the standard error of the build to, must not be {@code null}.
+     * @return The exit code of the build.
+     * @throws RefusedException If the server refused to run the build.
+     * @throws IOException If the connection broke before the exit frame.
+     */
+    public static int readResponse( DataInputStream in, OutputStream stdout, OutputStream stderr )
+        throws IOException
+    {
+        byte[] buffer = new byte[8192];
+        while ( true )
+        {
+            byte type = in.readByte();
+            if ( type == EXIT )
+            {
+                stdout.flush();
+                stderr.flush();
+                return in.readInt();
+            }
+            if ( type == REFUSED )
+            {
+                throw new RefusedException( in.readUTF() );
+            }
+
+            OutputStream target;
+            if ( type == STDOUT )
+            {
+                target = stdout;
+            }
+            else if ( type == STDERR )
+            {
+                target = stderr;
+            }
+            else
+            {
+                throw new IOException( "Unknown frame type " + type );
+            }
+
+            int remaining = in.readInt();
+            while ( remaining > 0 )
+            {
+                int read = in.read( buffer, 0, Math.min( buffer.length, remaining ) );
+                if ( read < 0 )
+                {
+                    throw new IOException( "Connection closed within frame" );
+                }
+                target.write( buffer, 0, read );
+                remaining -= read;
+            }
+            target.flush();
+        }
+    }
+
+    /**
+     * Signals that the server refused to run a build, e.g. because it runs with a different environment than the
+     * client. The client should run the build itself.
+     */
+    public static class RefusedException
+        extends IOException
+    {
+
+        public RefusedException( String reason )
+        {
+            super( reason );
+        }
+
+    }
+
+    public static File getRegistryFile()
+    {
+        String path = System.getProperty( REGISTRY_PROPERTY );
+        if ( path != null && path.length() > 0 )
+        {
+            return new File( path );
+        }
+        return new File( new File( System.getProperty( "user.home" ), ".m2" ), "daemon.properties" );
+    }
+
+    /**
+     * Reads the registry file.
+     *
+     * @param file The registry file, must not be {@code null}.
+     * @return The registry or {@code null} if the file does not exist or is incomplete.
+     */
+    public static Properties readRegistry( File file )
+    {
+        if ( !file.isFile() )
+        {
+            return null;
+        }
+
+        Properties registry = new Properties();
+        InputStream is = null;
+        try
+        {
+            is = new FileInputStream( file );
+            registry.load( is );
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+        finally
+        {
+            close( is );
+        }
+
+        if ( registry.getProperty( PORT ) == null || registry.getProperty( SECRET ) == null )
+        {
+            return null;
+        }
+        return registry;
+    }
+
+    static void writeRegistry( File file, Properties registry )
+        throws IOException
+    {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if ( dir != null && !dir.isDirectory() && !dir.mkdirs() )
+        {
+            throw new IOException( "Could not create directory " + dir );
+        }
+
+        File tmp = new File( file.getPath() + ".tmp" );
+        tmp.delete();
+        if ( !tmp.createNewFile() )
+        {
+            throw new IOException( "Could not create " + tmp );
+        }
+        // the secret guards the daemon against other local users
+        tmp.setReadable( false, false );
+        tmp.setReadable( true, true );
+        tmp.setWritable( false, false );
+        tmp.setWritable( true, true );
+
+        OutputStream os = new FileOutputStream( tmp );
+        try
+        {
+            registry.store( os, "Maven daemon" );
+        }
+        finally
+        {
+            close( os );
+        }
+
+        file.delete();
+        if ( !tmp.renameTo( file ) )
+        {
+            throw new IOException( "Could not rename " + tmp + " to " + file );
+        }
+    }
+
+    private static void close( Closeable closeable )
+    {
+        if ( closeable != null )
+        {
+            try
+            {
+                closeable.close();
+            }
+            catch ( IOException e )
+            {
+                // ignore
+            }
+        }
+    }
+
+}
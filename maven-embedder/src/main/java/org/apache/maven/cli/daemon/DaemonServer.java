@@ -0,0 +1,422 @@
+package org.apache.maven.cli.daemon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.cli.CliRequest;
+import org.apache.maven.cli.MavenCli;
+import org.codehaus.plexus.classworlds.ClassWorld;
+
+/**
+ * Long-lived process that runs the builds submitted by {@link DaemonClient}s, one at a time, with a single
+ * {@link MavenCli} whose container is reused across builds, see {@link MavenCli#setContainerReuse(boolean)}. This keeps
+ * the core extensions, the plugin, extension and project realm caches, the settings cache and the JIT-compiled code of
+ * the previous builds. The server is meant to be started by the class world launcher like the regular CLI, i.e. with
+ * this class as the main class, and listens on the loopback interface only. Its port and a secret that clients must
+ * present are stored in the registry file (see {@link DaemonProtocol#getRegistryFile()}).
+ * <p>
+ * Builds see the system properties of the daemon, overlaid with the working directory and the command line of the
+ * client. A process cannot change its environment variables, so the daemon refuses the builds of clients whose
+ * environment differs from its own, apart from a few variables maintained by the shell like {@code PWD}. Likewise,
+ * JVMs that resolve relative files against the working directory they were started in, regardless of the
+ * {@code user.dir} property (Java 11 and later), only get builds from that directory. Refused clients run the build
+ * themselves, see {@link DaemonClient}. Standard input is not forwarded, so interactive prompts read end-of-stream.
+ * The daemon exits after being idle for {@code maven.daemon.idleTimeout} minutes (default 180) or when a client sends
+ * {@link DaemonProtocol#STOP_COMMAND}.
+ *
+ * @since 3.3.2
+ */
+public class DaemonServer
+{
+
+    public static final String PORT_PROPERTY = "maven.daemon.port";
+
+    public static final String IDLE_TIMEOUT_PROPERTY = "maven.daemon.idleTimeout";
+
+    private static final int DEFAULT_IDLE_TIMEOUT = 180;
+
+    private static final int REQUEST_TIMEOUT = 10 * 1000;
+
+    /**
+     * The environment variables that shells update on their own, they do not affect builds.
+     */
+    private static final Set<String> SHELL_VARIABLES =
+        Collections.unmodifiableSet( new HashSet<String>( Arrays.asList( "PWD", "OLDPWD", "SHLVL", "_" ) ) );
+
+    private final ClassWorld classWorld;
+
+    private final MavenCli cli;
+
+    private final String secret;
+
+    private final File workingDirectory;
+
+    private final boolean workingDirectorySwitchable;
+
+    private final SwitchableOutputStream stdout;
+
+    private final SwitchableOutputStream stderr;
+
+    private final PrintStream out;
+
+    private final PrintStream err;
+
+    private boolean stopped;
+
+    public DaemonServer( ClassWorld classWorld )
+    {
+        if ( classWorld == null )
+        {
+            classWorld = new ClassWorld( "plexus.core", Thread.currentThread().getContextClassLoader() );
+        }
+        this.classWorld = classWorld;
+
+        this.cli = new MavenCli( classWorld );
+        this.cli.setContainerReuse( true );
+
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes( bytes );
+        StringBuilder buffer = new StringBuilder( 32 );
+        for ( byte b : bytes )
+        {
+            buffer.append( Character.forDigit( ( b >> 4 ) & 0x0F, 16 ) ).append( Character.forDigit( b & 0x0F, 16 ) );
+        }
+        this.secret = buffer.toString();
+
+        this.workingDirectory = new File( System.getProperty( "user.dir" ) ).getAbsoluteFile();
+        this.workingDirectorySwitchable = isWorkingDirectorySwitchable();
+
+        // the logging backends capture the standard streams once, so route them through switchable streams
+        this.stdout = new SwitchableOutputStream( System.out );
+        this.stderr = new SwitchableOutputStream( System.err );
+        this.out = new PrintStream( stdout, true );
+        this.err = new PrintStream( stderr, true );
+        System.setOut( out );
+        System.setErr( err );
+    }
+
+    public static void main( String[] args )
+    {
+        System.exit( main( args, null ) );
+    }
+
+    /** @noinspection ConfusingMainMethod */
+    public static int main( String[] args, ClassWorld classWorld )
+    {
+        try
+        {
+            new DaemonServer( classWorld ).run();
+            return 0;
+        }
+        catch ( IOException e )
+        {
+            System.err.println( "Maven daemon failed: " + e.getMessage() );
+            return 1;
+        }
+    }
+
+    /**
+     * Serves builds until the daemon is stopped or idle for too long.
+     *
+     * @throws IOException If the server socket could not be opened or the registry file not be written.
+     */
+    public void run()
+        throws IOException
+    {
+        ServerSocket serverSocket = new ServerSocket( Integer.getInteger( PORT_PROPERTY, 0 ), 50,
+                                                      InetAddress.getByName( null ) );
+        File registryFile = DaemonProtocol.getRegistryFile();
+        try
+        {
+            serverSocket.setSoTimeout( (int) TimeUnit.MINUTES.toMillis( Integer.getInteger( IDLE_TIMEOUT_PROPERTY,
+                                                                                           DEFAULT_IDLE_TIMEOUT ) ) );
+
+            Properties registry = new Properties();
+            registry.setProperty( DaemonProtocol.PORT, String.valueOf( serverSocket.getLocalPort() ) );
+            registry.setProperty( DaemonProtocol.SECRET, secret );
+            String mavenHome = System.getProperty( "maven.home" );
+            if ( mavenHome != null )
+            {
+                registry.setProperty( DaemonProtocol.MAVEN_HOME, new File( mavenHome ).getAbsolutePath() );
+            }
+            DaemonProtocol.writeRegistry( registryFile, registry );
+
+            System.out.println( "Maven daemon listening on port " + serverSocket.getLocalPort() );
+
+            while ( !stopped )
+            {
+                Socket socket;
+                try
+                {
+                    socket = serverSocket.accept();
+                }
+                catch ( SocketTimeoutException e )
+                {
+                    System.out.println( "Maven daemon idle, shutting down" );
+                    break;
+                }
+
+                try
+                {
+                    serve( socket );
+                }
+                catch ( IOException e )
+                {
+                    System.err.println( "Maven daemon failed to serve client: " + e.getMessage() );
+                }
+                finally
+                {
+                    socket.close();
+                }
+            }
+        }
+        finally
+        {
+            serverSocket.close();
+
+            Properties registry = DaemonProtocol.readRegistry( registryFile );
+            if ( registry != null && secret.equals( registry.getProperty( DaemonProtocol.SECRET ) ) )
+            {
+                registryFile.delete();
+            }
+
+            cli.disposeSharedContainer();
+        }
+    }
+
+    private void serve( Socket socket )
+        throws IOException
+    {
+        DataInputStream in = new DataInputStream( new BufferedInputStream( socket.getInputStream() ) );
+        DataOutputStream dos = new DataOutputStream( new BufferedOutputStream( socket.getOutputStream() ) );
+
+        // the daemon serves one client at a time, a client that does not send its request must not block it
+        socket.setSoTimeout( REQUEST_TIMEOUT );
+
+        String clientSecret = DaemonProtocol.readSecret( in );
+        if ( !MessageDigest.isEqual( secret.getBytes( "UTF-8" ), clientSecret.getBytes( "UTF-8" ) ) )
+        {
+            throw new IOException( "Rejected client with invalid secret" );
+        }
+
+        DaemonProtocol.Request request = DaemonProtocol.readRequest( in, clientSecret );
+
+        socket.setSoTimeout( 0 );
+
+        if ( request.getArgs().length == 1 && DaemonProtocol.STOP_COMMAND.equals( request.getArgs()[0] ) )
+        {
+            stopped = true;
+            DaemonProtocol.writeExit( dos, 0 );
+            return;
+        }
+
+        String refusal = checkRequest( request );
+        if ( refusal != null )
+        {
+            DaemonProtocol.writeRefusal( dos, refusal );
+            return;
+        }
+
+        int exitCode = build( request, dos );
+
+        DaemonProtocol.writeExit( dos, exitCode );
+    }
+
+    private String checkRequest( DaemonProtocol.Request request )
+    {
+        String variable = getDifferentVariable( request.getEnvironment(), System.getenv() );
+        if ( variable != null )
+        {
+            return "The environment variable " + variable + " differs from the daemon's";
+        }
+
+        if ( !workingDirectorySwitchable && !isSameFile( new File( request.getWorkingDirectory() ), workingDirectory ) )
+        {
+            return "The daemon runs in " + workingDirectory + " and its JVM cannot change the working directory";
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the name of a variable whose value differs between the specified environments, ignoring the variables that
+     * shells maintain on their own.
+     *
+     * @return The name of a differing variable or {@code null} if the environments match.
+     */
+    static String getDifferentVariable( Map<String, String> client, Map<String, String> daemon )
+    {
+        Set<String> names = new TreeSet<String>( client.keySet() );
+        names.addAll( daemon.keySet() );
+        names.removeAll( SHELL_VARIABLES );
+        for ( String name : names )
+        {
+            String value = client.get( name );
+            if ( ( value != null ) ? !value.equals( daemon.get( name ) ) : daemon.get( name ) != null )
+            {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tells whether relative files are resolved against the {@code user.dir} property, which older JVMs do while
+     * Java 11 and later use the working directory the JVM was started in.
+     */
+    static boolean isWorkingDirectorySwitchable()
+    {
+        String userDir = System.getProperty( "user.dir" );
+        File probe = new File( userDir, "maven-daemon-probe" ).getAbsoluteFile();
+        try
+        {
+            System.setProperty( "user.dir", probe.getPath() );
+            return new File( probe, "pom.xml" ).equals( new File( "pom.xml" ).getAbsoluteFile() );
+        }
+        finally
+        {
+            System.setProperty( "user.dir", userDir );
+        }
+    }
+
+    private static boolean isSameFile( File file1, File file2 )
+    {
+        try
+        {
+            return file1.getCanonicalFile().equals( file2.getCanonicalFile() );
+        }
+        catch ( IOException e )
+        {
+            return file1.getAbsoluteFile().equals( file2.getAbsoluteFile() );
+        }
+    }
+
+    private int build( DaemonProtocol.Request request, DataOutputStream dos )
+    {
+        Properties systemProperties = (Properties) System.getProperties().clone();
+        InputStream stdin = System.in;
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        try
+        {
+            // only affects the resolution of relative files on JVMs that honor the property, see checkRequest()
+            System.setProperty( "user.dir", request.getWorkingDirectory() );
+            String multiModuleProjectDirectory =
+                ( request.getMultiModuleProjectDirectory().length() > 0 ) ? request.getMultiModuleProjectDirectory()
+                                : request.getWorkingDirectory();
+            System.setProperty( MavenCli.MULTIMODULE_PROJECT_DIRECTORY, multiModuleProjectDirectory );
+
+            System.setIn( new ByteArrayInputStream( new byte[0] ) );
+            stdout.setTarget( DaemonProtocol.newFrameStream( dos, DaemonProtocol.STDOUT ) );
+            stderr.setTarget( DaemonProtocol.newFrameStream( dos, DaemonProtocol.STDERR ) );
+
+            CliRequest cliRequest = new CliRequest( request.getArgs(), classWorld );
+            cliRequest.setWorkingDirectory( request.getWorkingDirectory() );
+
+            return cli.doMain( cliRequest );
+        }
+        finally
+        {
+            out.flush();
+            err.flush();
+            stdout.setTarget( null );
+            stderr.setTarget( null );
+            System.setOut( out );
+            System.setErr( err );
+            System.setIn( stdin );
+            System.setProperties( systemProperties );
+            Thread.currentThread().setContextClassLoader( tccl );
+        }
+    }
+
+    /**
+     * Forwards to the stream of the current client or the original stream of the daemon if no build is running.
+     */
+    static class SwitchableOutputStream
+        extends OutputStream
+    {
+
+        private final OutputStream fallback;
+
+        private volatile OutputStream target;
+
+        SwitchableOutputStream( OutputStream fallback )
+        {
+            this.fallback = fallback;
+        }
+
+        void setTarget( OutputStream target )
+        {
+            this.target = target;
+        }
+
+        private OutputStream getTarget()
+        {
+            OutputStream current = target;
+            return ( current != null ) ? current : fallback;
+        }
+
+        @Override
+        public void write( int b )
+            throws IOException
+        {
+            getTarget().write( b );
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len )
+            throws IOException
+        {
+            getTarget().write( b, off, len );
+        }
+
+        @Override
+        public void flush()
+            throws IOException
+        {
+            getTarget().flush();
+        }
+
+    }
+
+}
@@ -0,0 +1,122 @@
+package org.apache.maven.cli.internal;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.plexus.classworlds.ClassWorld;
+import org.codehaus.plexus.classworlds.realm.ClassRealm;
+
+/**
+ * Records the last modification time and length of the files on the class path of the realms in a class world, to
+ * tell whether any of them has changed since, e.g. because a snapshot plugin has been rebuilt into the local
+ * repository while the container that caches its realm was kept alive.
+ *
+ * @since 3.3.2
+ */
+public class RealmFileStamps
+{
+
+    private final Map<File, long[]> stamps = new HashMap<File, long[]>();
+
+    /**
+     * Records the files of all realms in the class world except the specified ones.
+     *
+     * @param classWorld The class world whose realms to record, must not be {@code null}.
+     * @param excludedRealms The identifiers of the realms to skip, may be {@code null}.
+     */
+    public RealmFileStamps( ClassWorld classWorld, Set<String> excludedRealms )
+    {
+        for ( ClassRealm realm : classWorld.getRealms() )
+        {
+            if ( excludedRealms != null && excludedRealms.contains( realm.getId() ) )
+            {
+                continue;
+            }
+
+            for ( URL url : realm.getURLs() )
+            {
+                File file = toFile( url );
+                if ( file != null && !stamps.containsKey( file ) )
+                {
+                    stamps.put( file, stamp( file ) );
+                }
+            }
+        }
+    }
+
+    private static File toFile( URL url )
+    {
+        if ( !"file".equals( url.getProtocol() ) )
+        {
+            return null;
+        }
+        try
+        {
+            return new File( url.toURI() );
+        }
+        catch ( URISyntaxException e )
+        {
+            return new File( url.getPath() );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            return null;
+        }
+    }
+
+    private static long[] stamp( File file )
+    {
+        return new long[] { file.lastModified(), file.length() };
+    }
+
+    /**
+     * @return The number of recorded files.
+     */
+    public int size()
+    {
+        return stamps.size();
+    }
+
+    /**
+     * Tells whether any recorded file has been modified, replaced or deleted since it was recorded.
+     *
+     * @return {@code true} if any file changed, {@code false} otherwise.
+     */
+    public boolean isStale()
+    {
+        for ( Map.Entry<File, long[]> entry : stamps.entrySet() )
+        {
+            long[] current = stamp( entry.getKey() );
+            long[] recorded = entry.getValue();
+            if ( current[0] != recorded[0] || current[1] != recorded[1] )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.apache.maven.cli.daemon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+public class DaemonProtocolTest
+    extends TestCase
+{
+
+    public void testRequestRoundTrip()
+        throws Exception
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DaemonProtocol.Request request =
+            new DaemonProtocol.Request( "secret", "/work", null, new String[] { "clean", "-Dfoo=bär" },
+                                        Collections.singletonMap( "JAVA_HOME", "/jdk" ) );
+        DaemonProtocol.writeRequest( new DataOutputStream( buffer ), request );
+
+        DaemonProtocol.Request read =
+            DaemonProtocol.readRequest( new DataInputStream( new ByteArrayInputStream( buffer.toByteArray() ) ) );
+        assertEquals( "secret", read.getSecret() );
+        assertEquals( "/work", read.getWorkingDirectory() );
+        assertEquals( "", read.getMultiModuleProjectDirectory() );
+        assertEquals( Arrays.asList( request.getArgs() ), Arrays.asList( read.getArgs() ) );
+        assertEquals( request.getEnvironment(), read.getEnvironment() );
+    }
+
+    public void testSecretIsReadBeforeRestOfRequest()
+        throws Exception
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream( buffer );
+        dos.writeInt( DaemonProtocol.VERSION );
+        dos.writeUTF( "wrong" );
+        dos.flush();
+
+        DataInputStream in = new DataInputStream( new ByteArrayInputStream( buffer.toByteArray() ) );
+        assertEquals( "wrong", DaemonProtocol.readSecret( in ) );
+        assertEquals( -1, in.read() );
+    }
+
+    public void testResponseFrames()
+        throws Exception
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream( buffer );
+        OutputStream out = DaemonProtocol.newFrameStream( dos, DaemonProtocol.STDOUT );
+        OutputStream err = DaemonProtocol.newFrameStream( dos, DaemonProtocol.STDERR );
+        out.write( "[INFO] ".getBytes( "UTF-8" ) );
+        err.write( 'x' );
+        out.write( "BUILD SUCCESS".getBytes( "UTF-8" ) );
+        DaemonProtocol.writeExit( dos, 3 );
+
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        int exitCode =
+            DaemonProtocol.readResponse( new DataInputStream( new ByteArrayInputStream( buffer.toByteArray() ) ),
+                                         stdout, stderr );
+
+        assertEquals( 3, exitCode );
+        assertEquals( "[INFO] BUILD SUCCESS", stdout.toString( "UTF-8" ) );
+        assertEquals( "x", stderr.toString( "UTF-8" ) );
+    }
+
+    public void testRefusal()
+        throws Exception
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DaemonProtocol.writeRefusal( new DataOutputStream( buffer ), "Different environment" );
+
+        try
+        {
+            DaemonProtocol.readResponse( new DataInputStream( new ByteArrayInputStream( buffer.toByteArray() ) ),
+                                         new ByteArrayOutputStream(), new ByteArrayOutputStream() );
+            fail( "refusal not reported" );
+        }
+        catch ( DaemonProtocol.RefusedException e )
+        {
+            assertEquals( "Different environment", e.getMessage() );
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+package org.apache.maven.cli.daemon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+public class DaemonServerTest
+    extends TestCase
+{
+
+    private PrintStream stdout;
+
+    private PrintStream stderr;
+
+    private File registryFile;
+
+    private Thread serverThread;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        stdout = System.out;
+        stderr = System.err;
+
+        registryFile = new File( "target/daemon-server/daemon.properties" ).getAbsoluteFile();
+        registryFile.delete();
+        System.setProperty( DaemonProtocol.REGISTRY_PROPERTY, registryFile.getPath() );
+
+        final DaemonServer server = new DaemonServer( null );
+        serverThread = new Thread( "DaemonServer" )
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    server.run();
+                }
+                catch ( Exception e )
+                {
+                    e.printStackTrace( stderr );
+                }
+            }
+        };
+        serverThread.start();
+
+        for ( int i = 0; i < 100 && DaemonProtocol.readRegistry( registryFile ) == null; i++ )
+        {
+            Thread.sleep( 100 );
+        }
+        assertNotNull( DaemonProtocol.readRegistry( registryFile ) );
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        try
+        {
+            if ( serverThread.isAlive() )
+            {
+                stop();
+            }
+        }
+        finally
+        {
+            System.setOut( stdout );
+            System.setErr( stderr );
+            System.getProperties().remove( DaemonProtocol.REGISTRY_PROPERTY );
+        }
+
+        super.tearDown();
+    }
+
+    private int send( DaemonProtocol.Request request, ByteArrayOutputStream output )
+        throws Exception
+    {
+        Properties registry = DaemonProtocol.readRegistry( registryFile );
+        int port = Integer.parseInt( registry.getProperty( DaemonProtocol.PORT ) );
+        Socket socket = new Socket( InetAddress.getByName( null ), port );
+        try
+        {
+            DaemonProtocol.writeRequest( new DataOutputStream( socket.getOutputStream() ), request );
+            return DaemonProtocol.readResponse( new DataInputStream( socket.getInputStream() ), output, output );
+        }
+        finally
+        {
+            socket.close();
+        }
+    }
+
+    private DaemonProtocol.Request newRequest( String workingDirectory, Map<String, String> environment,
+                                               String... args )
+    {
+        String secret = DaemonProtocol.readRegistry( registryFile ).getProperty( DaemonProtocol.SECRET );
+        return new DaemonProtocol.Request( secret, workingDirectory, null, args, environment );
+    }
+
+    private void stop()
+        throws Exception
+    {
+        assertEquals( 0, send( newRequest( System.getProperty( "user.dir" ), null, DaemonProtocol.STOP_COMMAND ),
+                               new ByteArrayOutputStream() ) );
+        serverThread.join( 10 * 1000 );
+        assertFalse( serverThread.isAlive() );
+    }
+
+    public void testForwardsBuildOutput()
+        throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertEquals( 0, new DaemonClient().run( new String[] { "-v" }, output, output ) );
+        assertTrue( output.toString( "UTF-8" ), output.toString( "UTF-8" ).contains( "Apache Maven" ) );
+    }
+
+    public void testRefusesClientWithDifferentEnvironment()
+        throws Exception
+    {
+        Map<String, String> environment = new HashMap<String, String>( System.getenv() );
+        environment.put( "MAVEN_DAEMON_TEST", "client" );
+
+        try
+        {
+            send( newRequest( System.getProperty( "user.dir" ), environment, "-v" ), new ByteArrayOutputStream() );
+            fail( "build of client with different environment not refused" );
+        }
+        catch ( DaemonProtocol.RefusedException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().contains( "MAVEN_DAEMON_TEST" ) );
+        }
+    }
+
+    public void testRefusesOtherWorkingDirectoryIfNotSwitchable()
+        throws Exception
+    {
+        String workingDirectory = new File( "src" ).getAbsolutePath();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try
+        {
+            send( newRequest( workingDirectory, System.getenv(), "-v" ), output );
+            assertTrue( DaemonServer.isWorkingDirectorySwitchable() );
+        }
+        catch ( DaemonProtocol.RefusedException e )
+        {
+            assertFalse( DaemonServer.isWorkingDirectorySwitchable() );
+        }
+    }
+
+    public void testStop()
+        throws Exception
+    {
+        stop();
+        assertFalse( registryFile.exists() );
+    }
+
+    public void testShellVariablesAreIgnored()
+    {
+        Map<String, String> client = new HashMap<String, String>();
+        client.put( "PWD", "/client" );
+        client.put( "JAVA_HOME", "/jdk" );
+        Map<String, String> daemon = new HashMap<String, String>();
+        daemon.put( "PWD", "/daemon" );
+        daemon.put( "JAVA_HOME", "/jdk" );
+        assertNull( DaemonServer.getDifferentVariable( client, daemon ) );
+
+        daemon.remove( "JAVA_HOME" );
+        assertEquals( "JAVA_HOME", DaemonServer.getDifferentVariable( client, daemon ) );
+    }
+
+}
@@ -52,6 +52,7 @@
 import org.apache.maven.model.inheritance.InheritanceAssembler;
 import org.apache.maven.model.interpolation.ModelInterpolator;
 import org.apache.maven.model.io.ModelParseException;
+import org.apache.maven.model.location.LocationCompactor;
 import org.apache.maven.model.management.DependencyManagementInjector;
 import org.apache.maven.model.management.PluginManagementInjector;
 import org.apache.maven.model.normalization.ModelNormalizer;
@@ -400,6 +401,11 @@ else if ( !parentIds.add( parentData.getId() ) )
             result.addModelId( modelId );
             result.setActivePomProfiles( modelId, currentData.getActiveProfiles() );
             result.setRawModel( modelId, currentData.getRawModel() );
+
+            if ( currentData != superData && request.isLocationTracking() )
+            {
+                LocationCompactor.compact( currentData.getRawModel() );
+            }
         }
 
         if ( !request.isTwoPhaseBuilding() )
@@ -475,6 +481,11 @@ private ModelBuildingResult build( ModelBuildingRequest request, ModelBuildingRe
             throw problems.newModelBuildingException();
         }
 
+        if ( request.isLocationTracking() )
+        {
+            LocationCompactor.compact( resultModel );
+        }
+
         return result;
     }
 
@@ -616,6 +627,7 @@ private DefaultProfileActivationContext getProfileActivationContext( ModelBuildi
         context.setSystemProperties( request.getSystemProperties() );
         context.setUserProperties( request.getUserProperties() );
         context.setProjectDirectory( ( request.getPomFile() != null ) ? request.getPomFile().getParentFile() : null );
+        context.setFileStatCache( request.getFileStatCache() );
 
         return context;
     }
@@ -810,7 +822,7 @@ private ModelData readParent( Model childModel, ModelSource childSource, ModelBu
                 File pomFile = parentData.getModel().getPomFile();
                 if ( pomFile != null )
                 {
-                    ModelSource expectedParentSource = getParentPomFile( childModel, childSource );
+                    ModelSource expectedParentSource = getParentPomFile( childModel, childSource, request );
 
                     if ( expectedParentSource instanceof ModelSource2
                         && !pomFile.toURI().equals( ( (ModelSource2) expectedParentSource ).getLocationURI() ) )
@@ -848,7 +860,7 @@ private ModelData readParentLocally( Model childModel, ModelSource childSource,
         final WorkspaceModelResolver resolver = request.getWorkspaceModelResolver();
         if ( resolver == null )
         {
-            candidateSource = getParentPomFile( childModel, childSource );
+            candidateSource = getParentPomFile( childModel, childSource, request );
 
             if ( candidateSource == null )
             {
@@ -934,7 +946,7 @@ private ModelData readParentLocally( Model childModel, ModelSource childSource,
         return parentData;
     }
 
-    private ModelSource getParentPomFile( Model childModel, ModelSource source )
+    private ModelSource getParentPomFile( Model childModel, ModelSource source, ModelBuildingRequest request )
     {
         if ( !( source instanceof ModelSource2 ) )
         {
@@ -948,6 +960,12 @@ private ModelSource getParentPomFile( Model childModel, ModelSource source )
             return null;
         }
 
+        // subclasses may have their own idea of related sources
+        if ( source.getClass() == FileModelSource.class )
+        {
+            return ( (FileModelSource) source ).getRelatedSource( parentPath, request.getFileStatCache() );
+        }
+
         return ( (ModelSource2) source ).getRelatedSource( parentPath );
     }
 
@@ -1187,6 +1205,7 @@ private void importDependencyManagement( Model model, ModelBuildingRequest reque
                         importRequest = new DefaultModelBuildingRequest();
                         importRequest.setValidationLevel( ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL );
                         importRequest.setModelCache( request.getModelCache() );
+                        importRequest.setFileStatCache( request.getFileStatCache() );
                         importRequest.setSystemProperties( request.getSystemProperties() );
                         importRequest.setUserProperties( request.getUserProperties() );
                         importRequest.setLocationTracking( request.isLocationTracking() );
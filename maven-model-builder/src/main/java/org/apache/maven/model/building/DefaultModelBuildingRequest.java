@@ -71,6 +71,8 @@
 
     private ModelCache modelCache;
 
+    private FileStatCache fileStatCache;
+
     private WorkspaceModelResolver workspaceResolver;
 
     /**
@@ -101,6 +103,7 @@ public DefaultModelBuildingRequest( ModelBuildingRequest request )
         setModelResolver( request.getModelResolver() );
         setModelBuildingListener( request.getModelBuildingListener() );
         setModelCache( request.getModelCache() );
+        setFileStatCache( request.getFileStatCache() );
     }
 
     @Override
@@ -379,6 +382,20 @@ public DefaultModelBuildingRequest setModelCache( ModelCache modelCache )
         return this;
     }
 
+    @Override
+    public FileStatCache getFileStatCache()
+    {
+        return this.fileStatCache;
+    }
+
+    @Override
+    public DefaultModelBuildingRequest setFileStatCache( FileStatCache fileStatCache )
+    {
+        this.fileStatCache = fileStatCache;
+
+        return this;
+    }
+
     @Override
     public Model getRawModel()
     {
@@ -56,18 +56,24 @@ public File getPomFile()
     
     @Override
     public ModelSource2 getRelatedSource( String relPath )
+    {
+        return getRelatedSource( relPath, null );
+    }
+
+    ModelSource2 getRelatedSource( String relPath, FileStatCache fileStatCache )
     {
         relPath = relPath.replace( '\\', File.separatorChar ).replace( '/', File.separatorChar );
 
         File relatedPom = new File( getFile().getParentFile(), relPath );
 
-        if ( relatedPom.isDirectory() )
+        if ( ( fileStatCache != null ) ? fileStatCache.isDirectory( relatedPom ) : relatedPom.isDirectory() )
         {
             // TODO figure out how to reuse ModelLocator.locatePom(File) here
             relatedPom = new File( relatedPom, "pom.xml" );
         }
 
-        if ( relatedPom.isFile() && relatedPom.canRead() )
+        if ( ( fileStatCache != null ) ? fileStatCache.isReadableFile( relatedPom )
+                        : ( relatedPom.isFile() && relatedPom.canRead() ) )
         {
             return new FileModelSource( new File( relatedPom.toURI().normalize() ) );
         }
@@ -0,0 +1,244 @@
+package org.apache.maven.model.building;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.building.CacheStatistics;
+
+/**
+ * Caches whether files and directories exist, so that the same paths are not queried from the file system over and
+ * over while building the models of a reactor, e.g. for file-based profile activation or when looking up parent POMs
+ * and modules. This matters most for workspaces on network file systems where each query is a round trip.
+ * <p>
+ * By default, the cache assumes the file system does not change during its lifetime, which is meant to be a single
+ * pass over the projects of a reactor. Callers that keep a cache for longer, e.g. embedders that serve several
+ * builds, can either bound the age of the cached information or {@link #invalidate(File) invalidate} paths they know
+ * to have changed. The cache is thread-safe.
+ *
+ * @since 3.3.2
+ */
+public class FileStatCache
+{
+
+    private static final Stat INVALIDATED = new Stat( null );
+
+    private final long maxAge;
+
+    private final ConcurrentMap<File, Stat> stats = new ConcurrentHashMap<File, Stat>( 256 );
+
+    private final CacheStatistics statistics;
+
+    /**
+     * Creates a new cache whose entries never expire.
+     */
+    public FileStatCache()
+    {
+        this( -1, null );
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxAge The time in milliseconds after which a cached entry is refreshed from the file system, a negative
+     *            value to never refresh entries.
+     * @param statistics The statistics to record the cache usage in, may be {@code null}.
+     */
+    public FileStatCache( long maxAge, CacheStatistics statistics )
+    {
+        this.maxAge = maxAge;
+        this.statistics = ( statistics != null ) ? statistics : new CacheStatistics( "fileStat" );
+    }
+
+    /**
+     * Tells whether the specified file or directory exists.
+     *
+     * @param file The file to check, must not be {@code null}.
+     * @return {@code true} if the file or directory exists, {@code false} otherwise.
+     * @see File#exists()
+     */
+    public boolean exists( File file )
+    {
+        return getStat( file ).exists();
+    }
+
+    /**
+     * Tells whether the specified path denotes an existing normal file.
+     *
+     * @param file The file to check, must not be {@code null}.
+     * @return {@code true} if the file exists and is a normal file, {@code false} otherwise.
+     * @see File#isFile()
+     */
+    public boolean isFile( File file )
+    {
+        return getStat( file ).isFile();
+    }
+
+    /**
+     * Tells whether the specified path denotes an existing directory.
+     *
+     * @param file The file to check, must not be {@code null}.
+     * @return {@code true} if the file exists and is a directory, {@code false} otherwise.
+     * @see File#isDirectory()
+     */
+    public boolean isDirectory( File file )
+    {
+        return getStat( file ).isDirectory();
+    }
+
+    /**
+     * Tells whether the specified path denotes an existing normal file that can be read.
+     *
+     * @param file The file to check, must not be {@code null}.
+     * @return {@code true} if the file exists, is a normal file and can be read, {@code false} otherwise.
+     * @see File#canRead()
+     */
+    public boolean isReadableFile( File file )
+    {
+        return getStat( file ).isReadableFile();
+    }
+
+    /**
+     * Removes the cached information about the specified path, the next query will consult the file system again.
+     *
+     * @param file The file to forget, must not be {@code null}.
+     */
+    public void invalidate( File file )
+    {
+        File key = file.getAbsoluteFile();
+        if ( stats.containsKey( key ) )
+        {
+            stats.put( key, INVALIDATED );
+        }
+    }
+
+    /**
+     * Removes all cached information.
+     */
+    public void clear()
+    {
+        stats.clear();
+        statistics.flush();
+    }
+
+    public CacheStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    private Stat getStat( File file )
+    {
+        File key = file.getAbsoluteFile();
+
+        Stat stat = stats.get( key );
+        if ( stat != null && stat != INVALIDATED
+            && ( maxAge < 0 || System.currentTimeMillis() - stat.timestamp <= maxAge ) )
+        {
+            statistics.hit();
+            return stat;
+        }
+
+        statistics.miss( key );
+        Stat fresh = new Stat( key );
+        if ( stat != null )
+        {
+            stats.replace( key, stat, fresh );
+        }
+        else if ( stats.putIfAbsent( key, fresh ) == null )
+        {
+            statistics.put( key, -1 );
+        }
+        return fresh;
+    }
+
+    /**
+     * The cached information about a single path. Each attribute is only queried from the file system when it is
+     * requested for the first time, racing threads may query it more than once but will see the same answer.
+     */
+    private static final class Stat
+    {
+
+        final File path;
+
+        final long timestamp;
+
+        private volatile Boolean exists;
+
+        private volatile Boolean file;
+
+        private volatile Boolean directory;
+
+        private volatile Boolean readable;
+
+        Stat( File path )
+        {
+            this.path = path;
+            timestamp = ( path != null ) ? System.currentTimeMillis() : 0;
+        }
+
+        boolean exists()
+        {
+            Boolean result = exists;
+            if ( result == null )
+            {
+                result = Boolean.TRUE.equals( file ) || Boolean.TRUE.equals( directory ) || path.exists();
+                exists = result;
+            }
+            return result;
+        }
+
+        boolean isFile()
+        {
+            Boolean result = file;
+            if ( result == null )
+            {
+                result = !Boolean.FALSE.equals( exists ) && !Boolean.TRUE.equals( directory ) && path.isFile();
+                file = result;
+            }
+            return result;
+        }
+
+        boolean isDirectory()
+        {
+            Boolean result = directory;
+            if ( result == null )
+            {
+                result = !Boolean.FALSE.equals( exists ) && !Boolean.TRUE.equals( file ) && path.isDirectory();
+                directory = result;
+            }
+            return result;
+        }
+
+        boolean isReadableFile()
+        {
+            Boolean result = readable;
+            if ( result == null )
+            {
+                result = isFile() && path.canRead();
+                readable = result;
+            }
+            return result;
+        }
+
+    }
+
+}
@@ -256,6 +256,20 @@ public FilterModelBuildingRequest setModelCache( ModelCache modelCache )
         return this;
     }
 
+    @Override
+    public FileStatCache getFileStatCache()
+    {
+        return request.getFileStatCache();
+    }
+
+    @Override
+    public FilterModelBuildingRequest setFileStatCache( FileStatCache fileStatCache )
+    {
+        request.setFileStatCache( fileStatCache );
+
+        return this;
+    }
+
     @Override
     public Model getRawModel()
     {
@@ -331,6 +331,24 @@
      */
     ModelBuildingRequest setModelCache( ModelCache modelCache );
 
+    /**
+     * Gets the cache to use for queries whether files or directories exist.
+     *
+     * @return The file stat cache or {@code null} if not set.
+     * @since 3.3.2
+     */
+    FileStatCache getFileStatCache();
+
+    /**
+     * Sets the cache to use for queries whether files or directories exist, e.g. during file-based profile activation
+     * or the lookup of parent POMs. This is an optional component that serves performance optimizations.
+     *
+     * @param fileStatCache The file stat cache to use, may be {@code null}.
+     * @return This request, never {@code null}.
+     * @since 3.3.2
+     */
+    ModelBuildingRequest setFileStatCache( FileStatCache fileStatCache );
+
     WorkspaceModelResolver getWorkspaceModelResolver();
 
     ModelBuildingRequest setWorkspaceModelResolver( WorkspaceModelResolver workspaceResolver );
@@ -27,6 +27,8 @@
 import java.util.Map;
 import java.util.Properties;
 
+import org.apache.maven.model.building.FileStatCache;
+
 /**
  * Describes the environmental context used to determine the activation status of profiles.
  *
@@ -48,6 +50,8 @@
 
     private File projectDirectory;
 
+    private FileStatCache fileStatCache;
+
     @Override
     public List<String> getActiveProfileIds()
     {
@@ -241,6 +245,29 @@ public DefaultProfileActivationContext setProjectProperties( Properties projectP
         return this;
     }
 
+    /**
+     * Gets the cache to use for queries whether files or directories exist.
+     *
+     * @return The file stat cache or {@code null} to query the file system directly.
+     */
+    public FileStatCache getFileStatCache()
+    {
+        return fileStatCache;
+    }
+
+    /**
+     * Sets the cache to use for queries whether files or directories exist.
+     *
+     * @param fileStatCache The file stat cache to use, may be {@code null} to query the file system directly.
+     * @return This context, never {@code null}.
+     */
+    public DefaultProfileActivationContext setFileStatCache( FileStatCache fileStatCache )
+    {
+        this.fileStatCache = fileStatCache;
+
+        return this;
+    }
+
     private Map<String, String> toMap( Properties properties )
     {
         if ( properties == null )
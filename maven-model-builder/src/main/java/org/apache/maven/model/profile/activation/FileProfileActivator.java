@@ -24,11 +24,13 @@
 import org.apache.maven.model.Activation;
 import org.apache.maven.model.ActivationFile;
 import org.apache.maven.model.Profile;
+import org.apache.maven.model.building.FileStatCache;
 import org.apache.maven.model.building.ModelProblemCollector;
 import org.apache.maven.model.building.ModelProblem.Severity;
 import org.apache.maven.model.building.ModelProblem.Version;
 import org.apache.maven.model.building.ModelProblemCollectorRequest;
 import org.apache.maven.model.path.PathTranslator;
+import org.apache.maven.model.profile.DefaultProfileActivationContext;
 import org.apache.maven.model.profile.ProfileActivationContext;
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
@@ -165,7 +167,13 @@ else if ( path.contains( "${basedir}" ) )
             return false;
         }
 
-        boolean fileExists = f.exists();
+        FileStatCache fileStatCache = null;
+        if ( context instanceof DefaultProfileActivationContext )
+        {
+            fileStatCache = ( (DefaultProfileActivationContext) context ).getFileStatCache();
+        }
+
+        boolean fileExists = ( fileStatCache != null ) ? fileStatCache.exists( f ) : f.exists();
 
         return missing ? !fileExists : fileExists;
     }
@@ -0,0 +1,255 @@
+package org.apache.maven.model.building;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.codehaus.plexus.util.FileUtils;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the building of models that inherit from a deep hierarchy of local parents, each of which manages plenty
+ * of dependencies and plugins, while the modules at the bottom override almost nothing.
+ */
+public class DeepHierarchyModelBuildingTest
+    extends TestCase
+{
+
+    private static final int LEVELS = 6;
+
+    private static final int MODULES = 200;
+
+    private static final int MANAGED = 60;
+
+    private File basedir;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        basedir = new File( "target/deep-hierarchy" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( basedir );
+
+        for ( int level = 0; level < LEVELS; level++ )
+        {
+            writeParent( getLevelDirectory( level ), level );
+        }
+        for ( int module = 0; module < MODULES; module++ )
+        {
+            writeModule( new File( getLevelDirectory( LEVELS - 1 ), "module" + module ), module );
+        }
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( basedir );
+        super.tearDown();
+    }
+
+    private File getLevelDirectory( int level )
+    {
+        File dir = basedir;
+        for ( int i = 1; i <= level; i++ )
+        {
+            dir = new File( dir, "level" + i );
+        }
+        return dir;
+    }
+
+    private static void writeParent( File dir, int level )
+        throws IOException
+    {
+        StringBuilder pom = new StringBuilder( 16 * 1024 );
+        pom.append( "<project>\n  <modelVersion>4.0.0</modelVersion>\n" );
+        if ( level > 0 )
+        {
+            appendParent( pom, "level" + ( level - 1 ) );
+        }
+        else
+        {
+            pom.append( "  <groupId>org.apache.maven.its</groupId>\n  <version>1.0</version>\n" );
+        }
+        pom.append( "  <artifactId>level" ).append( level ).append( "</artifactId>\n" );
+        pom.append( "  <packaging>pom</packaging>\n" );
+        pom.append( "  <properties>\n" );
+        for ( int i = 0; i < MANAGED; i++ )
+        {
+            pom.append( "    <level" ).append( level ).append( ".prop" ).append( i ).append( ">value</level" );
+            pom.append( level ).append( ".prop" ).append( i ).append( ">\n" );
+        }
+        pom.append( "  </properties>\n" );
+        pom.append( "  <dependencyManagement>\n    <dependencies>\n" );
+        for ( int i = 0; i < MANAGED; i++ )
+        {
+            pom.append( "      <dependency>\n        <groupId>org.apache.maven.its.level" ).append( level );
+            pom.append( "</groupId>\n        <artifactId>dep" ).append( i ).append( "</artifactId>\n" );
+            pom.append( "        <version>1.0</version>\n        <exclusions>\n          <exclusion>\n" );
+            pom.append( "            <groupId>commons-logging</groupId>\n" );
+            pom.append( "            <artifactId>commons-logging</artifactId>\n" );
+            pom.append( "          </exclusion>\n        </exclusions>\n      </dependency>\n" );
+        }
+        pom.append( "    </dependencies>\n  </dependencyManagement>\n" );
+        pom.append( "  <build>\n    <pluginManagement>\n      <plugins>\n" );
+        for ( int i = 0; i < MANAGED / 4; i++ )
+        {
+            pom.append( "        <plugin>\n          <groupId>org.apache.maven.its.level" ).append( level );
+            pom.append( "</groupId>\n          <artifactId>plugin" ).append( i ).append( "</artifactId>\n" );
+            pom.append( "          <version>1.0</version>\n          <configuration>\n" );
+            pom.append( "            <level>" ).append( level ).append( "</level>\n" );
+            pom.append( "            <items><item>a</item><item>b</item></items>\n" );
+            pom.append( "          </configuration>\n        </plugin>\n" );
+        }
+        pom.append( "      </plugins>\n    </pluginManagement>\n  </build>\n" );
+        if ( level == LEVELS - 1 )
+        {
+            // the injected profile elements get interpolated with the coordinates of each module
+            pom.append( "  <profiles>\n    <profile>\n      <id>default</id>\n" );
+            pom.append( "      <activation>\n        <activeByDefault>true</activeByDefault>\n" );
+            pom.append( "      </activation>\n      <dependencies>\n        <dependency>\n" );
+            pom.append( "          <groupId>org.apache.maven.its</groupId>\n" );
+            pom.append( "          <artifactId>profile-dep</artifactId>\n" );
+            pom.append( "          <version>${project.artifactId}</version>\n" );
+            pom.append( "        </dependency>\n      </dependencies>\n    </profile>\n  </profiles>\n" );
+        }
+        pom.append( "</project>\n" );
+        write( new File( dir, "pom.xml" ), pom );
+    }
+
+    private static void writeModule( File dir, int module )
+        throws IOException
+    {
+        StringBuilder pom = new StringBuilder( 1024 );
+        pom.append( "<project>\n  <modelVersion>4.0.0</modelVersion>\n" );
+        appendParent( pom, "level" + ( LEVELS - 1 ) );
+        pom.append( "  <artifactId>module" ).append( module ).append( "</artifactId>\n" );
+        pom.append( "  <dependencies>\n    <dependency>\n" );
+        pom.append( "      <groupId>org.apache.maven.its.level0</groupId>\n" );
+        pom.append( "      <artifactId>dep" ).append( module % MANAGED ).append( "</artifactId>\n" );
+        pom.append( "    </dependency>\n  </dependencies>\n" );
+        pom.append( "</project>\n" );
+        write( new File( dir, "pom.xml" ), pom );
+    }
+
+    private static void appendParent( StringBuilder pom, String artifactId )
+    {
+        pom.append( "  <parent>\n    <groupId>org.apache.maven.its</groupId>\n" );
+        pom.append( "    <artifactId>" ).append( artifactId ).append( "</artifactId>\n" );
+        pom.append( "    <version>1.0</version>\n  </parent>\n" );
+    }
+
+    private static void write( File file, CharSequence content )
+        throws IOException
+    {
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+        try
+        {
+            writer.write( content.toString() );
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    private Model buildModule( ModelBuilder builder, ModelCache cache, int module )
+        throws Exception
+    {
+        DefaultModelBuildingRequest request = new DefaultModelBuildingRequest();
+        request.setPomFile( new File( getLevelDirectory( LEVELS - 1 ), "module" + module + "/pom.xml" ) );
+        request.setValidationLevel( ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL );
+        request.setLocationTracking( true );
+        request.setModelCache( cache );
+
+        return builder.build( request ).getEffectiveModel();
+    }
+
+    private static Dependency getDependency( Model model, String artifactId )
+    {
+        for ( Dependency dependency : model.getDependencies() )
+        {
+            if ( artifactId.equals( dependency.getArtifactId() ) )
+            {
+                return dependency;
+            }
+        }
+        return null;
+    }
+
+    public void testDeepHierarchy()
+        throws Exception
+    {
+        ModelBuilder builder = new DefaultModelBuilderFactory().newInstance();
+
+        ModelCache cache = new MapModelCache();
+        for ( int module = 0; module < MODULES; module++ )
+        {
+            Model model = buildModule( builder, cache, module );
+            assertEquals( "1.0", getDependency( model, "dep" + ( module % MANAGED ) ).getVersion() );
+            assertEquals( LEVELS * MANAGED, model.getDependencyManagement().getDependencies().size() );
+        }
+    }
+
+    public void testSharedModelCacheKeepsParentsIntact()
+        throws Exception
+    {
+        ModelBuilder builder = new DefaultModelBuilderFactory().newInstance();
+
+        ModelCache cache = new MapModelCache();
+        for ( int module = 0; module < 3; module++ )
+        {
+            Model model = buildModule( builder, cache, module );
+            assertEquals( "module" + module, getDependency( model, "profile-dep" ).getVersion() );
+        }
+    }
+
+    private static class MapModelCache
+        implements ModelCache
+    {
+
+        private final Map<String, Object> entries = new HashMap<String, Object>();
+
+        @Override
+        public void put( String groupId, String artifactId, String version, String tag, Object data )
+        {
+            entries.put( groupId + ':' + artifactId + ':' + version + ':' + tag, data );
+        }
+
+        @Override
+        public Object get( String groupId, String artifactId, String version, String tag )
+        {
+            return entries.get( groupId + ':' + artifactId + ':' + version + ':' + tag );
+        }
+
+    }
+
+}
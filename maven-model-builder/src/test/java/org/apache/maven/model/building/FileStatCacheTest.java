@@ -0,0 +1,120 @@
+package org.apache.maven.model.building;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+public class FileStatCacheTest
+    extends TestCase
+{
+
+    private File dir;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        dir = File.createTempFile( "stat-cache", ".dir" );
+        dir.delete();
+        assertTrue( dir.mkdirs() );
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        for ( File file : dir.listFiles() )
+        {
+            file.delete();
+        }
+        dir.delete();
+
+        super.tearDown();
+    }
+
+    private File newFile( String name )
+        throws IOException
+    {
+        File file = new File( dir, name );
+        assertTrue( file.createNewFile() );
+        return file;
+    }
+
+    public void testKindsOfPaths()
+        throws Exception
+    {
+        FileStatCache cache = new FileStatCache();
+
+        File file = newFile( "pom.xml" );
+        assertTrue( cache.exists( file ) );
+        assertTrue( cache.isFile( file ) );
+        assertTrue( cache.isReadableFile( file ) );
+        assertFalse( cache.isDirectory( file ) );
+
+        assertTrue( cache.exists( dir ) );
+        assertTrue( cache.isDirectory( dir ) );
+        assertFalse( cache.isFile( dir ) );
+        assertFalse( cache.isReadableFile( dir ) );
+
+        File missing = new File( dir, "missing" );
+        assertFalse( cache.exists( missing ) );
+        assertFalse( cache.isFile( missing ) );
+        assertFalse( cache.isDirectory( missing ) );
+    }
+
+    public void testAnswersFromCacheUntilInvalidated()
+        throws Exception
+    {
+        FileStatCache cache = new FileStatCache();
+
+        File file = new File( dir, "pom.xml" );
+        assertFalse( cache.exists( file ) );
+
+        newFile( "pom.xml" );
+        assertFalse( cache.exists( file ) );
+        assertFalse( cache.exists( new File( file.getPath() ) ) );
+
+        cache.invalidate( file );
+        assertTrue( cache.exists( file ) );
+
+        assertEquals( 2, cache.getStatistics().getMisses() );
+        assertEquals( 2, cache.getStatistics().getHits() );
+        assertEquals( 1, cache.getStatistics().getEntryCount() );
+    }
+
+    public void testRefreshesExpiredEntries()
+        throws Exception
+    {
+        FileStatCache cache = new FileStatCache( 0, null );
+
+        File file = new File( dir, "pom.xml" );
+        assertFalse( cache.exists( file ) );
+
+        newFile( "pom.xml" );
+        Thread.sleep( 5 );
+        assertTrue( cache.exists( file ) );
+    }
+
+}
@@ -0,0 +1,348 @@
+package org.apache.maven.model.location;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.maven.model.InputLocation;
+import org.apache.maven.model.InputSource;
+
+/**
+ * An insertion-ordered map from model fields to their input locations that stores the line and column of leaf
+ * locations packed into a single {@code long} and shares one source among all entries where possible. The
+ * {@link InputLocation} objects of leaf locations are only materialized when requested and not retained, locations
+ * that track the locations of nested elements (e.g. list items) are kept as is. The map is mutable to support the
+ * {@code setLocation()} methods of the model, but it is not thread-safe, just like the maps it replaces.
+ *
+ * @since 3.3.2
+ */
+final class CompactLocationMap
+    extends AbstractMap<Object, InputLocation>
+    implements Serializable
+{
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long COLUMN_MASK = 0xFFFFFFFFL;
+
+    private Object[] keys;
+
+    private long[] positions;
+
+    /**
+     * The source shared by all leaf entries or {@code null} if {@link #sources} holds the sources per entry.
+     */
+    private InputSource source;
+
+    private InputSource[] sources;
+
+    /**
+     * The locations kept as objects or {@code null} if all entries are packed.
+     */
+    private InputLocation[] locations;
+
+    private int size;
+
+    private CompactLocationMap( int capacity )
+    {
+        keys = new Object[capacity];
+        positions = new long[capacity];
+    }
+
+    /**
+     * Creates a compact copy of the specified map.
+     *
+     * @param map The map to copy, must not be {@code null}.
+     * @param compactor The compactor used to intern sources and compact nested locations, must not be {@code null}.
+     * @return The compact copy or {@code null} if the map contains {@code null} keys or values.
+     */
+    static CompactLocationMap copyOf( Map<Object, InputLocation> map, LocationCompactor compactor )
+    {
+        CompactLocationMap copy = new CompactLocationMap( map.size() );
+        boolean first = true;
+        for ( Map.Entry<Object, InputLocation> entry : map.entrySet() )
+        {
+            Object key = entry.getKey();
+            InputLocation location = entry.getValue();
+            if ( key == null || location == null )
+            {
+                return null;
+            }
+
+            int index = copy.size++;
+            copy.keys[index] = key;
+
+            Map<Object, InputLocation> nested = location.getLocations();
+            if ( nested != null && !nested.isEmpty() )
+            {
+                location.setLocations( compactor.compact( nested ) );
+                copy.setObject( index, location );
+                continue;
+            }
+
+            copy.positions[index] = pack( location.getLineNumber(), location.getColumnNumber() );
+            InputSource src = compactor.intern( location.getSource() );
+            if ( first )
+            {
+                copy.source = src;
+                first = false;
+            }
+            else if ( copy.sources != null )
+            {
+                copy.sources[index] = src;
+            }
+            else if ( src != copy.source )
+            {
+                copy.sources = new InputSource[copy.keys.length];
+                for ( int i = 0; i < index; i++ )
+                {
+                    copy.sources[i] = copy.source;
+                }
+                copy.sources[index] = src;
+                copy.source = null;
+            }
+        }
+        return copy;
+    }
+
+    private static long pack( int line, int column )
+    {
+        return ( ( (long) line ) << 32 ) | ( column & COLUMN_MASK );
+    }
+
+    private InputLocation materialize( int index )
+    {
+        if ( locations != null && locations[index] != null )
+        {
+            return locations[index];
+        }
+        long position = positions[index];
+        InputSource src = ( sources != null ) ? sources[index] : source;
+        return new InputLocation( (int) ( position >> 32 ), (int) position, src );
+    }
+
+    private void setObject( int index, InputLocation location )
+    {
+        if ( locations == null )
+        {
+            locations = new InputLocation[keys.length];
+        }
+        locations[index] = location;
+    }
+
+    private int indexOf( Object key )
+    {
+        if ( key instanceof Integer )
+        {
+            // the locations of list items are keyed by their index, in ascending order
+            int index = (Integer) key;
+            if ( index >= 0 && index < size && key.equals( keys[index] ) )
+            {
+                return index;
+            }
+        }
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( keys[i].equals( key ) )
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey( Object key )
+    {
+        return key != null && indexOf( key ) >= 0;
+    }
+
+    @Override
+    public InputLocation get( Object key )
+    {
+        if ( key == null )
+        {
+            return null;
+        }
+        int index = indexOf( key );
+        return ( index >= 0 ) ? materialize( index ) : null;
+    }
+
+    @Override
+    public InputLocation put( Object key, InputLocation value )
+    {
+        if ( key == null || value == null )
+        {
+            throw new IllegalArgumentException( "compact location maps do not support null keys or values" );
+        }
+
+        int index = indexOf( key );
+        if ( index >= 0 )
+        {
+            InputLocation previous = materialize( index );
+            setObject( index, value );
+            return previous;
+        }
+
+        if ( size >= keys.length )
+        {
+            grow();
+        }
+        index = size++;
+        keys[index] = key;
+        setObject( index, value );
+        return null;
+    }
+
+    private void grow()
+    {
+        int capacity = Math.max( 4, keys.length + ( keys.length >> 1 ) + 1 );
+        keys = copy( keys, new Object[capacity] );
+        long[] newPositions = new long[capacity];
+        System.arraycopy( positions, 0, newPositions, 0, size );
+        positions = newPositions;
+        if ( sources != null )
+        {
+            sources = copy( sources, new InputSource[capacity] );
+        }
+        if ( locations != null )
+        {
+            locations = copy( locations, new InputLocation[capacity] );
+        }
+    }
+
+    private <T> T[] copy( T[] src, T[] dst )
+    {
+        System.arraycopy( src, 0, dst, 0, size );
+        return dst;
+    }
+
+    @Override
+    public InputLocation remove( Object key )
+    {
+        if ( key == null )
+        {
+            return null;
+        }
+        int index = indexOf( key );
+        if ( index < 0 )
+        {
+            return null;
+        }
+        InputLocation previous = materialize( index );
+        removeAt( index );
+        return previous;
+    }
+
+    private void removeAt( int index )
+    {
+        int moved = size - index - 1;
+        System.arraycopy( keys, index + 1, keys, index, moved );
+        System.arraycopy( positions, index + 1, positions, index, moved );
+        if ( sources != null )
+        {
+            System.arraycopy( sources, index + 1, sources, index, moved );
+            sources[size - 1] = null;
+        }
+        if ( locations != null )
+        {
+            System.arraycopy( locations, index + 1, locations, index, moved );
+            locations[size - 1] = null;
+        }
+        keys[--size] = null;
+    }
+
+    @Override
+    public void clear()
+    {
+        for ( int i = size - 1; i >= 0; i-- )
+        {
+            removeAt( i );
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<Object, InputLocation>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<Object, InputLocation>>()
+        {
+            @Override
+            public int size()
+            {
+                return size;
+            }
+
+            @Override
+            public Iterator<Map.Entry<Object, InputLocation>> iterator()
+            {
+                return new EntryIterator();
+            }
+        };
+    }
+
+    private class EntryIterator
+        implements Iterator<Map.Entry<Object, InputLocation>>
+    {
+
+        private int next;
+
+        private int last = -1;
+
+        public boolean hasNext()
+        {
+            return next < size;
+        }
+
+        public Map.Entry<Object, InputLocation> next()
+        {
+            if ( next >= size )
+            {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return new AbstractMap.SimpleImmutableEntry<Object, InputLocation>( keys[last], materialize( last ) );
+        }
+
+        public void remove()
+        {
+            if ( last < 0 )
+            {
+                throw new IllegalStateException();
+            }
+            removeAt( last );
+            next = last;
+            last = -1;
+        }
+
+    }
+
+}
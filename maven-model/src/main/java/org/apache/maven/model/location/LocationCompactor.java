@@ -0,0 +1,254 @@
+package org.apache.maven.model.location;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.model.InputLocation;
+import org.apache.maven.model.InputLocationTracker;
+import org.apache.maven.model.InputSource;
+
+/**
+ * Shrinks the input locations of a model that was read with location tracking enabled. The classes generated from
+ * {@code maven.mdo} keep one {@code LinkedHashMap} and one {@link InputLocation} per field of every model element,
+ * which makes up a large share of the heap used by the models of big reactors. This class replaces these maps with
+ * compact maps that pack the line and column of each location into a single {@code long}, materialize the
+ * {@link InputLocation} objects only on access and refer to interned {@link InputSource}s, so the sources of POMs
+ * that were read multiple times, e.g. a parent shared by all modules, are kept only once.
+ * <p>
+ * The model remains fully functional, it may be read, modified, merged and cloned as before. Clones however use
+ * regular maps again, so models should be compacted once they are no longer going to be cloned.
+ *
+ * @since 3.3.2
+ */
+public final class LocationCompactor
+{
+
+    private static final ConcurrentMap<Class<?>, ClassInfo> CLASS_INFOS =
+        new ConcurrentHashMap<Class<?>, ClassInfo>();
+
+    private static final Map<String, SourceReference> SOURCES = new HashMap<String, SourceReference>();
+
+    private static final ReferenceQueue<InputSource> SOURCES_QUEUE = new ReferenceQueue<InputSource>();
+
+    private final Map<Object, Object> visited = new IdentityHashMap<Object, Object>();
+
+    private final Map<InputSource, InputSource> sources = new IdentityHashMap<InputSource, InputSource>();
+
+    private LocationCompactor()
+    {
+        // reusing an instance would skip the objects visited before
+    }
+
+    /**
+     * Compacts the input locations of the specified model element and all its descendants.
+     *
+     * @param model The model element to compact, may be {@code null}.
+     */
+    public static void compact( InputLocationTracker model )
+    {
+        if ( model != null )
+        {
+            new LocationCompactor().visit( model );
+        }
+    }
+
+    private void visit( Object object )
+    {
+        if ( visited.put( object, Boolean.TRUE ) != null )
+        {
+            return;
+        }
+
+        ClassInfo info = getClassInfo( object.getClass() );
+        try
+        {
+            if ( info.locations != null )
+            {
+                @SuppressWarnings( "unchecked" )
+                Map<Object, InputLocation> locations = (Map<Object, InputLocation>) info.locations.get( object );
+                if ( locations != null )
+                {
+                    info.locations.set( object, compact( locations ) );
+                }
+            }
+
+            for ( Field field : info.children )
+            {
+                Object value = field.get( object );
+                if ( value instanceof InputLocationTracker )
+                {
+                    visit( value );
+                }
+                else if ( value instanceof List )
+                {
+                    for ( Object element : (List<?>) value )
+                    {
+                        if ( element instanceof InputLocationTracker )
+                        {
+                            visit( element );
+                        }
+                    }
+                }
+            }
+        }
+        catch ( IllegalAccessException e )
+        {
+            // cannot happen as the fields were made accessible, leave the element as is
+        }
+    }
+
+    Map<Object, InputLocation> compact( Map<Object, InputLocation> locations )
+    {
+        if ( locations instanceof CompactLocationMap && visited.put( locations, Boolean.TRUE ) != null )
+        {
+            return locations;
+        }
+        CompactLocationMap compact = CompactLocationMap.copyOf( locations, this );
+        return ( compact != null ) ? compact : locations;
+    }
+
+    /**
+     * Gets the canonical instance of the specified source, two sources are considered equal if they have the same
+     * model identifier and location.
+     *
+     * @param source The source to intern, may be {@code null}.
+     * @return The canonical source or {@code null} if the input was {@code null}.
+     */
+    InputSource intern( InputSource source )
+    {
+        if ( source == null || ( source.getModelId() == null && source.getLocation() == null ) )
+        {
+            return source;
+        }
+
+        // a model refers to a handful of sources only, so avoid the global lookup for every location
+        InputSource canonical = sources.get( source );
+        if ( canonical == null )
+        {
+            canonical = internGlobally( source );
+            sources.put( source, canonical );
+        }
+        return canonical;
+    }
+
+    private static InputSource internGlobally( InputSource source )
+    {
+        String key = source.getModelId() + '\n' + source.getLocation();
+        synchronized ( SOURCES )
+        {
+            for ( Object ref = SOURCES_QUEUE.poll(); ref != null; ref = SOURCES_QUEUE.poll() )
+            {
+                SourceReference stale = (SourceReference) ref;
+                if ( SOURCES.get( stale.key ) == stale )
+                {
+                    SOURCES.remove( stale.key );
+                }
+            }
+
+            SourceReference ref = SOURCES.get( key );
+            InputSource canonical = ( ref != null ) ? ref.get() : null;
+            if ( canonical == null )
+            {
+                SOURCES.put( key, new SourceReference( key, source, SOURCES_QUEUE ) );
+                canonical = source;
+            }
+            return canonical;
+        }
+    }
+
+    private static ClassInfo getClassInfo( Class<?> type )
+    {
+        ClassInfo info = CLASS_INFOS.get( type );
+        if ( info == null )
+        {
+            info = new ClassInfo( type );
+            CLASS_INFOS.putIfAbsent( type, info );
+        }
+        return info;
+    }
+
+    private static class ClassInfo
+    {
+
+        Field locations;
+
+        final List<Field> children = new ArrayList<Field>();
+
+        ClassInfo( Class<?> type )
+        {
+            for ( Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass() )
+            {
+                for ( Field field : c.getDeclaredFields() )
+                {
+                    if ( Modifier.isStatic( field.getModifiers() ) || field.getType().isPrimitive()
+                        || field.getType() == String.class )
+                    {
+                        continue;
+                    }
+
+                    try
+                    {
+                        field.setAccessible( true );
+                    }
+                    catch ( SecurityException e )
+                    {
+                        continue;
+                    }
+
+                    if ( "locations".equals( field.getName() ) && Map.class.equals( field.getType() ) )
+                    {
+                        locations = field;
+                    }
+                    else
+                    {
+                        children.add( field );
+                    }
+                }
+            }
+        }
+
+    }
+
+    private static class SourceReference
+        extends WeakReference<InputSource>
+    {
+
+        final String key;
+
+        SourceReference( String key, InputSource source, ReferenceQueue<InputSource> queue )
+        {
+            super( source, queue );
+            this.key = key;
+        }
+
+    }
+
+}
@@ -0,0 +1,171 @@
+package org.apache.maven.model.location;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.InputLocation;
+import org.apache.maven.model.InputSource;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3ReaderEx;
+
+/**
+ * Tests {@code LocationCompactor}.
+ */
+public class LocationCompactorTest
+    extends TestCase
+{
+
+    private static String newPom( int dependencies )
+    {
+        StringBuilder buffer = new StringBuilder( 1024 );
+        buffer.append( "<project>\n" );
+        buffer.append( "  <modelVersion>4.0.0</modelVersion>\n" );
+        buffer.append( "  <groupId>org.apache.maven.its</groupId>\n" );
+        buffer.append( "  <artifactId>test</artifactId>\n" );
+        buffer.append( "  <version>1.0</version>\n" );
+        buffer.append( "  <modules>\n    <module>a</module>\n    <module>b</module>\n  </modules>\n" );
+        buffer.append( "  <dependencies>\n" );
+        for ( int i = 0; i < dependencies; i++ )
+        {
+            buffer.append( "    <dependency>\n" );
+            buffer.append( "      <groupId>org.apache.maven.its</groupId>\n" );
+            buffer.append( "      <artifactId>dep-" ).append( i ).append( "</artifactId>\n" );
+            buffer.append( "      <version>1.0</version>\n" );
+            buffer.append( "      <scope>test</scope>\n" );
+            buffer.append( "    </dependency>\n" );
+        }
+        buffer.append( "  </dependencies>\n" );
+        buffer.append( "</project>\n" );
+        return buffer.toString();
+    }
+
+    private static Model read( String pom, String location )
+        throws Exception
+    {
+        InputSource source = new InputSource();
+        source.setModelId( "org.apache.maven.its:test:1.0" );
+        source.setLocation( location );
+        return new MavenXpp3ReaderEx().read( new StringReader( pom ), true, source );
+    }
+
+    public void testLocationsSurviveCompaction()
+        throws Exception
+    {
+        Model model = read( newPom( 3 ), "/tmp/survive/pom.xml" );
+        Dependency dependency = model.getDependencies().get( 1 );
+        InputLocation before = dependency.getLocation( "artifactId" );
+        InputLocation modules = model.getLocation( "modules" );
+
+        LocationCompactor.compact( model );
+
+        InputLocation after = dependency.getLocation( "artifactId" );
+        assertEquals( before.getLineNumber(), after.getLineNumber() );
+        assertEquals( before.getColumnNumber(), after.getColumnNumber() );
+        assertSame( before.getSource(), after.getSource() );
+        assertNull( dependency.getLocation( "classifier" ) );
+
+        InputLocation compactModules = model.getLocation( "modules" );
+        assertSame( modules, compactModules );
+        assertEquals( modules.getLocation( 1 ).getLineNumber(), compactModules.getLocation( 1 ).getLineNumber() );
+    }
+
+    public void testCompactedModelRemainsMutableAndCloneable()
+        throws Exception
+    {
+        Model model = read( newPom( 2 ), "/tmp/pom.xml" );
+        LocationCompactor.compact( model );
+
+        Dependency dependency = model.getDependencies().get( 0 );
+        InputLocation location = new InputLocation( 42, 7 );
+        dependency.setLocation( "classifier", location );
+        dependency.setLocation( "version", location );
+        assertSame( location, dependency.getLocation( "classifier" ) );
+        assertSame( location, dependency.getLocation( "version" ) );
+
+        Model clone = model.clone();
+        Dependency copy = clone.getDependencies().get( 0 );
+        assertEquals( 42, copy.getLocation( "classifier" ).getLineNumber() );
+        assertEquals( dependency.getLocation( "groupId" ).getLineNumber(),
+                      copy.getLocation( "groupId" ).getLineNumber() );
+
+        InputLocation merged = InputLocation.merge( model.getLocation( "" ), clone.getLocation( "" ), true );
+        assertEquals( model.getLocation( "" ).getLineNumber(), merged.getLineNumber() );
+    }
+
+    public void testSourcesAreInterned()
+        throws Exception
+    {
+        String pom = newPom( 1 );
+        Model first = read( pom, "/tmp/interned/pom.xml" );
+        Model second = read( pom, "/tmp/interned/pom.xml" );
+        assertNotSame( first.getLocation( "" ).getSource(), second.getLocation( "" ).getSource() );
+
+        LocationCompactor.compact( first );
+        LocationCompactor.compact( second );
+
+        assertSame( first.getLocation( "groupId" ).getSource(), second.getLocation( "groupId" ).getSource() );
+    }
+
+    public void testHeapFootprint()
+        throws Exception
+    {
+        String pom = newPom( 50 );
+        int count = 200;
+
+        long baseline = usedHeap();
+        List<Model> models = new ArrayList<Model>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            models.add( read( pom, "/tmp/pom.xml" ) );
+        }
+        long plain = usedHeap() - baseline;
+
+        for ( Model model : models )
+        {
+            LocationCompactor.compact( model );
+        }
+        long compact = usedHeap() - baseline;
+
+        assertEquals( count, models.size() );
+        assertTrue( "compacted models should need at most 3/4 of the heap: " + compact + " vs " + plain,
+                    compact * 4 <= plain * 3 );
+    }
+
+    private static long usedHeap()
+        throws InterruptedException
+    {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for ( int i = 0; i < 5; i++ )
+        {
+            System.gc();
+            Thread.sleep( 20 );
+            used = Math.min( used, runtime.totalMemory() - runtime.freeMemory() );
+        }
+        return used;
+    }
+
+}
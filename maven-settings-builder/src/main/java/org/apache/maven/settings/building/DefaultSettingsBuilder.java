@@ -19,13 +19,14 @@
  * under the License.
  */
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
-import java.io.StringWriter;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
 import org.apache.maven.building.FileSource;
 import org.apache.maven.building.Source;
@@ -40,9 +41,10 @@
 import org.codehaus.plexus.component.annotations.Requirement;
 import org.codehaus.plexus.interpolation.EnvarBasedValueSource;
 import org.codehaus.plexus.interpolation.InterpolationException;
-import org.codehaus.plexus.interpolation.InterpolationPostProcessor;
 import org.codehaus.plexus.interpolation.PropertiesBasedValueSource;
 import org.codehaus.plexus.interpolation.RegexBasedInterpolator;
+import org.codehaus.plexus.interpolation.os.OperatingSystemUtils;
+import org.codehaus.plexus.util.IOUtil;
 
 /**
  * Builds the effective settings from a user settings file and/or a global settings file.
@@ -57,23 +59,26 @@
     @Requirement
     private SettingsReader settingsReader;
 
-    @Requirement
-    private SettingsWriter settingsWriter;
-
     @Requirement
     private SettingsValidator settingsValidator;
 
     private MavenSettingsMerger settingsMerger = new MavenSettingsMerger();
 
+    private SettingsCache settingsCache;
+
     public DefaultSettingsBuilder setSettingsReader( SettingsReader settingsReader )
     {
         this.settingsReader = settingsReader;
         return this;
     }
 
+    /**
+     * @deprecated The settings are interpolated in place and no longer written, this method is only kept for
+     *             compatibility with existing callers and ignores the writer.
+     */
+    @Deprecated
     public DefaultSettingsBuilder setSettingsWriter( SettingsWriter settingsWriter )
     {
-        this.settingsWriter = settingsWriter;
         return this;
     }
 
@@ -83,19 +88,77 @@ public DefaultSettingsBuilder setSettingsValidator( SettingsValidator settingsVa
         return this;
     }
 
+    /**
+     * Sets the cache for effective settings. Caching is disabled by default since hashing the settings and the
+     * interpolation inputs does not pay off for a single build, long-lived embedders can enable it with this method.
+     *
+     * @param settingsCache The cache to use, may be {@code null} to disable caching.
+     * @return This builder for chaining, never {@code null}.
+     * @since 3.3.2
+     */
+    public DefaultSettingsBuilder setSettingsCache( SettingsCache settingsCache )
+    {
+        this.settingsCache = settingsCache;
+        return this;
+    }
+
+    public SettingsCache getSettingsCache()
+    {
+        return settingsCache;
+    }
+
     @Override
     public SettingsBuildingResult build( SettingsBuildingRequest request )
         throws SettingsBuildingException
     {
-        DefaultSettingsProblemCollector problems = new DefaultSettingsProblemCollector( null );
-
         Source globalSettingsSource =
             getSettingsSource( request.getGlobalSettingsFile(), request.getGlobalSettingsSource() );
-        Settings globalSettings = readSettings( globalSettingsSource, request, problems );
-
         Source userSettingsSource =
             getSettingsSource( request.getUserSettingsFile(), request.getUserSettingsSource() );
-        Settings userSettings = readSettings( userSettingsSource, request, problems );
+
+        SettingsCache cache = settingsCache;
+        if ( cache == null )
+        {
+            return build( request, globalSettingsSource, null, userSettingsSource, null );
+        }
+
+        byte[] globalSettingsContents;
+        byte[] userSettingsContents;
+        try
+        {
+            globalSettingsContents = getContents( globalSettingsSource );
+            userSettingsContents = getContents( userSettingsSource );
+        }
+        catch ( IOException e )
+        {
+            // let the regular parsing report the problem
+            return build( request, globalSettingsSource, null, userSettingsSource, null );
+        }
+
+        String key =
+            SettingsCache.newKey( getLocation( globalSettingsSource ), globalSettingsContents,
+                                  getLocation( userSettingsSource ), userSettingsContents, request, getEnvVars() );
+
+        SettingsBuildingResult result = cache.get( key );
+        if ( result == null )
+        {
+            result = build( request, globalSettingsSource, globalSettingsContents, userSettingsSource,
+                            userSettingsContents );
+            cache.put( key, result );
+        }
+        return result;
+    }
+
+    private SettingsBuildingResult build( SettingsBuildingRequest request, Source globalSettingsSource,
+                                          byte[] globalSettingsContents, Source userSettingsSource,
+                                          byte[] userSettingsContents )
+        throws SettingsBuildingException
+    {
+        DefaultSettingsProblemCollector problems = new DefaultSettingsProblemCollector( null );
+
+        Settings globalSettings = readSettings( globalSettingsSource, globalSettingsContents, request, problems );
+
+        Settings userSettings = readSettings( userSettingsSource, userSettingsContents, request, problems );
 
         settingsMerger.merge( userSettings, globalSettings, TrackableBase.GLOBAL_LEVEL );
 
@@ -122,6 +185,42 @@ public SettingsBuildingResult build( SettingsBuildingRequest request )
         return new DefaultSettingsBuildingResult( userSettings, problems.getProblems() );
     }
 
+    private static byte[] getContents( Source source )
+        throws IOException
+    {
+        if ( source == null )
+        {
+            return null;
+        }
+
+        InputStream is = source.getInputStream();
+        try
+        {
+            return IOUtil.toByteArray( is );
+        }
+        finally
+        {
+            IOUtil.close( is );
+        }
+    }
+
+    private static String getLocation( Source source )
+    {
+        return ( source != null ) ? source.getLocation() : null;
+    }
+
+    private static Properties getEnvVars()
+    {
+        try
+        {
+            return OperatingSystemUtils.getSystemEnvVars();
+        }
+        catch ( IOException e )
+        {
+            return new Properties();
+        }
+    }
+
     private boolean hasErrors( List<SettingsProblem> problems )
     {
         if ( problems != null )
@@ -151,7 +250,7 @@ else if ( settingsFile != null && settingsFile.exists() )
         return null;
     }
 
-    private Settings readSettings( Source settingsSource, SettingsBuildingRequest request,
+    private Settings readSettings( Source settingsSource, byte[] settingsContents, SettingsBuildingRequest request,
                                    DefaultSettingsProblemCollector problems )
     {
         if ( settingsSource == null )
@@ -169,13 +268,13 @@ private Settings readSettings( Source settingsSource, SettingsBuildingRequest re
 
             try
             {
-                settings = settingsReader.read( settingsSource.getInputStream(), options );
+                settings = settingsReader.read( getInputStream( settingsSource, settingsContents ), options );
             }
             catch ( SettingsParseException e )
             {
                 options = Collections.singletonMap( SettingsReader.IS_STRICT, Boolean.FALSE );
 
-                settings = settingsReader.read( settingsSource.getInputStream(), options );
+                settings = settingsReader.read( getInputStream( settingsSource, settingsContents ), options );
 
                 problems.add( SettingsProblem.Severity.WARNING, e.getMessage(), e.getLineNumber(), e.getColumnNumber(),
                               e );
@@ -199,22 +298,19 @@ private Settings readSettings( Source settingsSource, SettingsBuildingRequest re
         return settings;
     }
 
-    private Settings interpolate( Settings settings, SettingsBuildingRequest request,
-                                  SettingsProblemCollector problems )
+    private static InputStream getInputStream( Source settingsSource, byte[] settingsContents )
+        throws IOException
     {
-        StringWriter writer = new StringWriter( 1024 * 4 );
-
-        try
+        if ( settingsContents != null )
         {
-            settingsWriter.write( writer, null, settings );
+            return new ByteArrayInputStream( settingsContents );
         }
-        catch ( IOException e )
-        {
-            throw new IllegalStateException( "Failed to serialize settings to memory", e );
-        }
-
-        String serializedSettings = writer.toString();
+        return settingsSource.getInputStream();
+    }
 
+    private Settings interpolate( Settings settings, SettingsBuildingRequest request,
+                                  SettingsProblemCollector problems )
+    {
         RegexBasedInterpolator interpolator = new RegexBasedInterpolator();
 
         interpolator.addValueSource( new PropertiesBasedValueSource( request.getUserProperties() ) );
@@ -231,47 +327,17 @@ private Settings interpolate( Settings settings, SettingsBuildingRequest request
                 + e.getMessage(), -1, -1, e );
         }
 
-        interpolator.addPostProcessor( new InterpolationPostProcessor()
-        {
-            @Override
-            public Object execute( String expression, Object value )
-            {
-                if ( value != null )
-                {
-                    // we're going to parse this back in as XML so we need to escape XML markup
-                    value = value.toString().replace( "&", "&amp;" ).replace( "<", "&lt;" ).replace( ">", "&gt;" );
-                    return value;
-                }
-                return null;
-            }
-        } );
-
         try
         {
-            serializedSettings = interpolator.interpolate( serializedSettings, "settings" );
+            new SettingsObjectInterpolator( interpolator ).interpolate( settings );
         }
         catch ( InterpolationException e )
         {
             problems.add( SettingsProblem.Severity.ERROR, "Failed to interpolate settings: " + e.getMessage(), -1, -1,
                           e );
-
-            return settings;
-        }
-
-        Settings result;
-        try
-        {
-            Map<String, ?> options = Collections.singletonMap( SettingsReader.IS_STRICT, Boolean.FALSE );
-            result = settingsReader.read( new StringReader( serializedSettings ), options );
-        }
-        catch ( IOException e )
-        {
-            problems.add( SettingsProblem.Severity.ERROR, "Failed to interpolate settings: " + e.getMessage(), -1, -1,
-                          e );
-            return settings;
         }
 
-        return result;
+        return settings;
     }
 
 }
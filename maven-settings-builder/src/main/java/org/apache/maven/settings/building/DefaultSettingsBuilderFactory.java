@@ -42,6 +42,10 @@ protected SettingsReader newSettingsReader()
         return new DefaultSettingsReader();
     }
 
+    /**
+     * @deprecated The settings builder no longer uses a settings writer.
+     */
+    @Deprecated
     protected SettingsWriter newSettingsWriter()
     {
         return new DefaultSettingsWriter();
@@ -62,7 +66,6 @@ public DefaultSettingsBuilder newInstance()
         DefaultSettingsBuilder builder = new DefaultSettingsBuilder();
 
         builder.setSettingsReader( newSettingsReader() );
-        builder.setSettingsWriter( newSettingsWriter() );
         builder.setSettingsValidator( newSettingsValidator() );
 
         return builder;
@@ -0,0 +1,262 @@
+package org.apache.maven.settings.building;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.apache.maven.building.CacheStatistics;
+import org.apache.maven.settings.Settings;
+
+/**
+ * Caches effective settings by the checksums of the settings sources and a fingerprint of the properties and
+ * environment variables used for interpolation, so that embedders and repeated invocations within the same JVM skip
+ * the parsing, validation, merging and interpolation of unchanged settings. The cache holds private copies of the
+ * settings and hands out copies, callers are free to modify the returned settings. The cache is thread-safe and evicts
+ * the least recently used entries once it is full.
+ *
+ * @since 3.3.2
+ */
+public class SettingsCache
+{
+
+    private static final int DEFAULT_MAX_ENTRIES = 16;
+
+    private final int maxEntries;
+
+    private final Map<String, Entry> entries;
+
+    private final CacheStatistics statistics = new CacheStatistics( "settings" );
+
+    /**
+     * Creates a new cache with room for 16 entries.
+     */
+    public SettingsCache()
+    {
+        this( DEFAULT_MAX_ENTRIES );
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxEntries The maximum number of settings to keep, must be positive.
+     */
+    public SettingsCache( int maxEntries )
+    {
+        if ( maxEntries <= 0 )
+        {
+            throw new IllegalArgumentException( "maximum number of entries must be positive: " + maxEntries );
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Entry>( 16, 0.75f, true );
+    }
+
+    /**
+     * Calculates the cache key for the specified settings sources and interpolation inputs.
+     *
+     * @param globalLocation The location of the global settings, may be {@code null} if absent.
+     * @param globalSettings The contents of the global settings, may be {@code null} if absent.
+     * @param userLocation The location of the user settings, may be {@code null} if absent.
+     * @param userSettings The contents of the user settings, may be {@code null} if absent.
+     * @param request The request providing the properties used for interpolation, must not be {@code null}.
+     * @param environment The environment variables used for interpolation, must not be {@code null}.
+     * @return The cache key, never {@code null}.
+     */
+    public static String newKey( String globalLocation, byte[] globalSettings, String userLocation,
+                                 byte[] userSettings, SettingsBuildingRequest request, Properties environment )
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "SHA-1 not supported by the runtime", e );
+        }
+
+        StringBuilder buffer = new StringBuilder( 128 );
+        buffer.append( checksum( digest, globalSettings ) ).append( ':' );
+        buffer.append( checksum( digest, userSettings ) ).append( ':' );
+
+        update( digest, globalLocation );
+        digest.update( (byte) 0 );
+        update( digest, userLocation );
+        digest.update( (byte) 0 );
+        update( digest, request.getUserProperties() );
+        digest.update( (byte) 0 );
+        update( digest, request.getSystemProperties() );
+        digest.update( (byte) 0 );
+        update( digest, environment );
+        buffer.append( toHex( digest.digest() ) );
+
+        return buffer.toString();
+    }
+
+    private static String checksum( MessageDigest digest, byte[] data )
+    {
+        if ( data == null )
+        {
+            return "-";
+        }
+        return toHex( digest.digest( data ) );
+    }
+
+    private static void update( MessageDigest digest, Properties properties )
+    {
+        Map<String, String> map = new TreeMap<String, String>();
+        if ( properties != null )
+        {
+            synchronized ( properties )
+            {
+                for ( Map.Entry<Object, Object> entry : properties.entrySet() )
+                {
+                    map.put( String.valueOf( entry.getKey() ), String.valueOf( entry.getValue() ) );
+                }
+            }
+        }
+        update( digest, map );
+    }
+
+    private static void update( MessageDigest digest, Map<String, String> map )
+    {
+        for ( Map.Entry<String, String> entry : new TreeMap<String, String>( map ).entrySet() )
+        {
+            update( digest, entry.getKey() );
+            digest.update( (byte) '=' );
+            update( digest, entry.getValue() );
+            digest.update( (byte) '\n' );
+        }
+    }
+
+    private static void update( MessageDigest digest, String value )
+    {
+        try
+        {
+            digest.update( String.valueOf( value ).getBytes( "UTF-8" ) );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static String toHex( byte[] bytes )
+    {
+        StringBuilder buffer = new StringBuilder( bytes.length * 2 );
+        for ( byte b : bytes )
+        {
+            buffer.append( Character.forDigit( ( b >> 4 ) & 0x0F, 16 ) );
+            buffer.append( Character.forDigit( b & 0x0F, 16 ) );
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Gets the cached result for the specified key.
+     *
+     * @param key The cache key, must not be {@code null}.
+     * @return A copy of the cached result or {@code null} if none.
+     */
+    public SettingsBuildingResult get( String key )
+    {
+        Entry entry;
+        synchronized ( entries )
+        {
+            entry = entries.get( key );
+        }
+
+        if ( entry == null )
+        {
+            statistics.miss( key );
+            return null;
+        }
+
+        statistics.hit();
+        return new DefaultSettingsBuildingResult( entry.settings.clone(), new ArrayList<SettingsProblem>(
+            entry.problems ) );
+    }
+
+    /**
+     * Caches the specified result.
+     *
+     * @param key The cache key, must not be {@code null}.
+     * @param result The result to cache, must not be {@code null}. The cache keeps a copy of its settings.
+     */
+    public void put( String key, SettingsBuildingResult result )
+    {
+        Entry entry = new Entry( result.getEffectiveSettings().clone(), result.getProblems() );
+
+        synchronized ( entries )
+        {
+            if ( entries.put( key, entry ) == null )
+            {
+                statistics.put( key, -1 );
+            }
+            while ( entries.size() > maxEntries )
+            {
+                entries.remove( entries.keySet().iterator().next() );
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear()
+    {
+        synchronized ( entries )
+        {
+            entries.clear();
+            statistics.flush();
+        }
+    }
+
+    public CacheStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    private static class Entry
+    {
+
+        final Settings settings;
+
+        final List<SettingsProblem> problems;
+
+        Entry( Settings settings, List<SettingsProblem> problems )
+        {
+            this.settings = settings;
+            this.problems =
+                ( problems != null ) ? new ArrayList<SettingsProblem>( problems )
+                                : Collections.<SettingsProblem>emptyList();
+        }
+
+    }
+
+}
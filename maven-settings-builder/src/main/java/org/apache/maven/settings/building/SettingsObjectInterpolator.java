@@ -0,0 +1,264 @@
+package org.apache.maven.settings.building;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.maven.settings.Activation;
+import org.apache.maven.settings.ActivationFile;
+import org.apache.maven.settings.ActivationOS;
+import org.apache.maven.settings.ActivationProperty;
+import org.apache.maven.settings.Mirror;
+import org.apache.maven.settings.Profile;
+import org.apache.maven.settings.Proxy;
+import org.apache.maven.settings.Repository;
+import org.apache.maven.settings.RepositoryPolicy;
+import org.apache.maven.settings.Server;
+import org.apache.maven.settings.Settings;
+import org.codehaus.plexus.interpolation.InterpolationException;
+import org.codehaus.plexus.interpolation.RegexBasedInterpolator;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Interpolates the string values of a settings object graph in place. Compared to serializing the settings to XML,
+ * interpolating the text and parsing it back, this touches only the values that actually contain an expression and
+ * keeps the source level of the merged elements. Like the values read from XML, interpolated values get trimmed.
+ *
+ * @since 3.3.2
+ */
+class SettingsObjectInterpolator
+{
+
+    private static final String PREFIX = "settings";
+
+    private final RegexBasedInterpolator interpolator;
+
+    private InterpolationException failure;
+
+    public SettingsObjectInterpolator( RegexBasedInterpolator interpolator )
+    {
+        this.interpolator = interpolator;
+        this.interpolator.setReusePatterns( true );
+        this.interpolator.setCacheAnswers( true );
+    }
+
+    /**
+     * Interpolates the specified settings.
+     *
+     * @param settings The settings to interpolate, must not be {@code null}.
+     * @throws InterpolationException If any value could not be interpolated, the settings are then partially
+     *             interpolated.
+     */
+    public void interpolate( Settings settings )
+        throws InterpolationException
+    {
+        failure = null;
+
+        try
+        {
+            settings.setLocalRepository( interpolate( settings.getLocalRepository() ) );
+            settings.setModelEncoding( interpolate( settings.getModelEncoding() ) );
+            interpolate( settings.getActiveProfiles() );
+            interpolate( settings.getPluginGroups() );
+
+            for ( Proxy proxy : settings.getProxies() )
+            {
+                proxy.setId( interpolate( proxy.getId() ) );
+                proxy.setProtocol( interpolate( proxy.getProtocol() ) );
+                proxy.setUsername( interpolate( proxy.getUsername() ) );
+                proxy.setPassword( interpolate( proxy.getPassword() ) );
+                proxy.setHost( interpolate( proxy.getHost() ) );
+                proxy.setNonProxyHosts( interpolate( proxy.getNonProxyHosts() ) );
+            }
+
+            for ( Server server : settings.getServers() )
+            {
+                server.setId( interpolate( server.getId() ) );
+                server.setUsername( interpolate( server.getUsername() ) );
+                server.setPassword( interpolate( server.getPassword() ) );
+                server.setPrivateKey( interpolate( server.getPrivateKey() ) );
+                server.setPassphrase( interpolate( server.getPassphrase() ) );
+                server.setFilePermissions( interpolate( server.getFilePermissions() ) );
+                server.setDirectoryPermissions( interpolate( server.getDirectoryPermissions() ) );
+                if ( server.getConfiguration() instanceof Xpp3Dom )
+                {
+                    interpolate( (Xpp3Dom) server.getConfiguration() );
+                }
+            }
+
+            for ( Mirror mirror : settings.getMirrors() )
+            {
+                mirror.setId( interpolate( mirror.getId() ) );
+                mirror.setMirrorOf( interpolate( mirror.getMirrorOf() ) );
+                mirror.setName( interpolate( mirror.getName() ) );
+                mirror.setUrl( interpolate( mirror.getUrl() ) );
+                mirror.setLayout( interpolate( mirror.getLayout() ) );
+                mirror.setMirrorOfLayouts( interpolate( mirror.getMirrorOfLayouts() ) );
+            }
+
+            for ( Profile profile : settings.getProfiles() )
+            {
+                interpolate( profile );
+            }
+
+            settings.flushActiveProxy();
+            settings.flushProfileMap();
+        }
+        finally
+        {
+            interpolator.clearAnswers();
+        }
+
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    private void interpolate( Profile profile )
+    {
+        profile.setId( interpolate( profile.getId() ) );
+
+        Activation activation = profile.getActivation();
+        if ( activation != null )
+        {
+            activation.setJdk( interpolate( activation.getJdk() ) );
+
+            ActivationOS os = activation.getOs();
+            if ( os != null )
+            {
+                os.setName( interpolate( os.getName() ) );
+                os.setFamily( interpolate( os.getFamily() ) );
+                os.setArch( interpolate( os.getArch() ) );
+                os.setVersion( interpolate( os.getVersion() ) );
+            }
+
+            ActivationProperty property = activation.getProperty();
+            if ( property != null )
+            {
+                property.setName( interpolate( property.getName() ) );
+                property.setValue( interpolate( property.getValue() ) );
+            }
+
+            ActivationFile file = activation.getFile();
+            if ( file != null )
+            {
+                file.setMissing( interpolate( file.getMissing() ) );
+                file.setExists( interpolate( file.getExists() ) );
+            }
+        }
+
+        Properties properties = profile.getProperties();
+        for ( Map.Entry<Object, Object> entry : properties.entrySet() )
+        {
+            if ( entry.getValue() instanceof String )
+            {
+                entry.setValue( interpolate( (String) entry.getValue() ) );
+            }
+        }
+
+        for ( Repository repository : profile.getRepositories() )
+        {
+            interpolate( repository );
+        }
+
+        for ( Repository repository : profile.getPluginRepositories() )
+        {
+            interpolate( repository );
+        }
+    }
+
+    private void interpolate( Repository repository )
+    {
+        repository.setId( interpolate( repository.getId() ) );
+        repository.setName( interpolate( repository.getName() ) );
+        repository.setUrl( interpolate( repository.getUrl() ) );
+        repository.setLayout( interpolate( repository.getLayout() ) );
+        interpolate( repository.getReleases() );
+        interpolate( repository.getSnapshots() );
+    }
+
+    private void interpolate( RepositoryPolicy policy )
+    {
+        if ( policy != null )
+        {
+            policy.setUpdatePolicy( interpolate( policy.getUpdatePolicy() ) );
+            policy.setChecksumPolicy( interpolate( policy.getChecksumPolicy() ) );
+        }
+    }
+
+    private void interpolate( Xpp3Dom dom )
+    {
+        dom.setValue( interpolate( dom.getValue() ) );
+
+        for ( String name : dom.getAttributeNames() )
+        {
+            String value = dom.getAttribute( name );
+            String interpolated = interpolate( value );
+            if ( interpolated != value )
+            {
+                dom.setAttribute( name, interpolated );
+            }
+        }
+
+        for ( Xpp3Dom child : dom.getChildren() )
+        {
+            interpolate( child );
+        }
+    }
+
+    private void interpolate( List<String> values )
+    {
+        for ( int i = values.size() - 1; i >= 0; i-- )
+        {
+            String value = values.get( i );
+            String interpolated = interpolate( value );
+            if ( interpolated != value )
+            {
+                values.set( i, interpolated );
+            }
+        }
+    }
+
+    private String interpolate( String value )
+    {
+        if ( value == null || value.indexOf( "${" ) < 0 )
+        {
+            return value;
+        }
+
+        try
+        {
+            String interpolated = interpolator.interpolate( value, PREFIX );
+            return interpolated.equals( value ) ? value : interpolated.trim();
+        }
+        catch ( InterpolationException e )
+        {
+            if ( failure == null )
+            {
+                failure = e;
+            }
+            return value;
+        }
+    }
+
+}
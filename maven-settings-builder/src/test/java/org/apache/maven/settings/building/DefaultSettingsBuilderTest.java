@@ -0,0 +1,101 @@
+package org.apache.maven.settings.building;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.Properties;
+
+import org.apache.maven.settings.Server;
+import org.apache.maven.settings.Settings;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import junit.framework.TestCase;
+
+public class DefaultSettingsBuilderTest
+    extends TestCase
+{
+
+    private File getSettings( String name )
+    {
+        return new File( "src/test/resources/settings/interpolation/" + name + ".xml" ).getAbsoluteFile();
+    }
+
+    private SettingsBuildingRequest newRequest( String user )
+    {
+        Properties props = new Properties();
+        props.setProperty( "test.home", "/home/test" );
+        props.setProperty( "test.server", "server" );
+        props.setProperty( "test.user", user );
+        props.setProperty( "test.header", "X-Test" );
+        props.setProperty( "test.host", "repo.example.org" );
+        props.setProperty( "test.profile", "test" );
+
+        DefaultSettingsBuildingRequest request = new DefaultSettingsBuildingRequest();
+        request.setSystemProperties( new Properties() );
+        request.setUserProperties( props );
+        request.setUserSettingsFile( getSettings( "settings" ) );
+        return request;
+    }
+
+    public void testInterpolation()
+        throws Exception
+    {
+        SettingsBuilder builder = new DefaultSettingsBuilderFactory().newInstance();
+
+        Settings settings = builder.build( newRequest( "<me>" ) ).getEffectiveSettings();
+
+        assertEquals( new File( "/home/test/repository" ).getAbsolutePath(),
+                      new File( settings.getLocalRepository() ).getAbsolutePath() );
+        assertEquals( "test", settings.getActiveProfiles().get( 0 ) );
+        assertEquals( "http://repo.example.org/repo", settings.getMirrors().get( 0 ).getUrl() );
+        assertEquals( "<me>", settings.getProfiles().get( 0 ).getProperties().getProperty( "prop" ) );
+        assertEquals( "http://repo.example.org/releases",
+                      settings.getProfiles().get( 0 ).getRepositories().get( 0 ).getUrl() );
+
+        Server server = settings.getServers().get( 0 );
+        assertEquals( "server", server.getId() );
+        assertEquals( "<me>", server.getUsername() );
+        Xpp3Dom header = ( (Xpp3Dom) server.getConfiguration() ).getChild( "header" );
+        assertEquals( "X-Test", header.getAttribute( "name" ) );
+        assertEquals( "<me> & co", header.getValue() );
+    }
+
+    public void testCacheReturnsCopies()
+        throws Exception
+    {
+        DefaultSettingsBuilder builder = new DefaultSettingsBuilderFactory().newInstance();
+        assertNull( builder.getSettingsCache() );
+        builder.setSettingsCache( new SettingsCache() );
+
+        Settings first = builder.build( newRequest( "a" ) ).getEffectiveSettings();
+        first.getServers().get( 0 ).setUsername( "modified" );
+
+        Settings second = builder.build( newRequest( "a" ) ).getEffectiveSettings();
+        assertNotSame( first, second );
+        assertEquals( "a", second.getServers().get( 0 ).getUsername() );
+        assertEquals( 1, builder.getSettingsCache().getStatistics().getHits() );
+
+        Settings third = builder.build( newRequest( "b" ) ).getEffectiveSettings();
+        assertEquals( "b", third.getServers().get( 0 ).getUsername() );
+        assertEquals( 1, builder.getSettingsCache().getStatistics().getHits() );
+        assertEquals( 2, builder.getSettingsCache().getStatistics().getMisses() );
+    }
+
+}